@@ -0,0 +1,62 @@
+package com.example.ShopiShop.config;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Size and lifetime of each cache, bound from {@code shop.cache.*}:
+ * <pre>
+ * shop.cache.caches[bestDeals].maximum-size=500
+ * shop.cache.caches[bestDeals].expire-after-write=1m
+ * shop.cache.caches[bestDeals].refresh-after-write=5s
+ * </pre>
+ * Unset values fall back to {@code shop.cache.defaults}. Refresh-after-write
+ * only applies to caches that know how to reload an entry; until it is
+ * reloaded in the background, the old value keeps being served.
+ */
+@ConfigurationProperties(prefix = "shop.cache")
+public record CacheProperties(Spec defaults, Map<String, Spec> caches) {
+
+    private static final Spec FALLBACK = new Spec(500L, Duration.ofMinutes(30), null);
+
+    public CacheProperties {
+        defaults = defaults == null ? FALLBACK : defaults.orElse(FALLBACK);
+        caches = caches == null ? Map.of() : Map.copyOf(caches);
+    }
+
+    public record Spec(Long maximumSize, Duration expireAfterWrite, Duration refreshAfterWrite) {
+
+        Spec orElse(Spec fallback) {
+            return new Spec(
+                    maximumSize != null ? maximumSize : fallback.maximumSize(),
+                    expireAfterWrite != null ? expireAfterWrite : fallback.expireAfterWrite(),
+                    refreshAfterWrite != null ? refreshAfterWrite : fallback.refreshAfterWrite());
+        }
+    }
+
+    public Spec specFor(String name) {
+        Spec spec = caches.get(name);
+        return spec == null ? defaults : spec.orElse(defaults);
+    }
+
+    // Stats are always recorded so the actuator can report hits, misses and evictions
+    public Caffeine<Object, Object> builderFor(String name) {
+        Spec spec = specFor(name);
+        Caffeine<Object, Object> builder = Caffeine.newBuilder().recordStats();
+        if (spec.maximumSize() != null) {
+            builder.maximumSize(spec.maximumSize());
+        }
+        if (spec.expireAfterWrite() != null) {
+            builder.expireAfterWrite(spec.expireAfterWrite());
+        }
+        return builder;
+    }
+
+    public Optional<Duration> refreshAfterWrite(String name) {
+        return Optional.ofNullable(specFor(name).refreshAfterWrite());
+    }
+}
@@ -4,10 +4,12 @@ import com.example.ShopiShop.dto.ApiResponse;
 import com.example.ShopiShop.dto.CategoryRequest;
 import com.example.ShopiShop.dto.CategoryResponse;
 import com.example.ShopiShop.service.CategoryService;
+import com.example.ShopiShop.service.TaxonomyVersion;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.List;
 import java.util.UUID;
@@ -18,6 +20,8 @@ import java.util.UUID;
 public class CategoryController {
 
     private final CategoryService categoryService;
+    // ETag of every public read: categories only change through taxonomy events
+    private final TaxonomyVersion taxonomyVersion;
 
     // ✅ Create Category (Admin Only)
     @PostMapping("/admin/category/create")
@@ -27,19 +31,29 @@ public class CategoryController {
 
     // ✅ Get All Categories (Public)
     @GetMapping("/public/category/all")
-    public ResponseEntity<ApiResponse<List<CategoryResponse>>> getAllCategories() {
+    public ResponseEntity<ApiResponse<List<CategoryResponse>>> getAllCategories(WebRequest request) {
+        if (request.checkNotModified(taxonomyVersion.etag())) {
+            return null;
+        }
         return ResponseEntity.ok(categoryService.getAllCategories());
     }
 
     // ✅ Get Category by ID (Public)
     @GetMapping("/public/category/{id}")
-    public ResponseEntity<ApiResponse<CategoryResponse>> getCategoryById(@PathVariable UUID id) {
+    public ResponseEntity<ApiResponse<CategoryResponse>> getCategoryById(@PathVariable UUID id, WebRequest request) {
+        if (request.checkNotModified(taxonomyVersion.etag())) {
+            return null;
+        }
         return ResponseEntity.ok(categoryService.getCategoryById(id));
     }
 
     // ✅ Get Categories by Section Name (Public)
     @GetMapping("/public/category/section/{sectionName}")
-    public ResponseEntity<ApiResponse<List<CategoryResponse>>> getCategoriesBySection(@PathVariable String sectionName) {
+    public ResponseEntity<ApiResponse<List<CategoryResponse>>> getCategoriesBySection(@PathVariable String sectionName,
+                                                                                      WebRequest request) {
+        if (request.checkNotModified(taxonomyVersion.etag())) {
+            return null;
+        }
         return ResponseEntity.ok(categoryService.getCategoriesBySectionName(sectionName));
     }
 
@@ -0,0 +1,68 @@
+package com.example.ShopiShop.controller;
+
+import com.example.ShopiShop.dto.ApiResponse;
+import com.example.ShopiShop.dto.FlashSalePurchaseRequest;
+import com.example.ShopiShop.dto.FlashSalePurchaseResponse;
+import com.example.ShopiShop.models.User;
+import com.example.ShopiShop.service.FlashSaleService;
+import jakarta.validation.Valid;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.DeferredResult;
+
+import java.util.UUID;
+
+@RestController
+public class FlashSaleController {
+
+    // How long a buyer waits for the allocation before getting the token to poll with
+    private static final long ANSWER_TIMEOUT_MS = 5000;
+
+    private final FlashSaleService flashSaleService;
+
+    public FlashSaleController(FlashSaleService flashSaleService) {
+        this.flashSaleService = flashSaleService;
+    }
+
+    @PutMapping("/merchant/products/{productId}/flash-sale")
+    public ResponseEntity<ApiResponse<Void>> setFlashSale(@PathVariable UUID productId,
+                                                          @RequestParam boolean enabled) {
+        flashSaleService.setFlashSale(productId, enabled, currentUser());
+        return ResponseEntity.ok(new ApiResponse<>(true, enabled ? "Flash sale started" : "Flash sale ended", null));
+    }
+
+    // Answered once the purchase is allocated, or with 202 and its token if that takes too long
+    @PostMapping("/customer/flash-sales/{productId}/purchases")
+    public DeferredResult<ResponseEntity<ApiResponse<FlashSalePurchaseResponse>>> purchase(
+            @PathVariable UUID productId,
+            @Valid @RequestBody FlashSalePurchaseRequest request) {
+        FlashSaleService.Ticket ticket = flashSaleService.purchase(productId, request, currentUser());
+        DeferredResult<ResponseEntity<ApiResponse<FlashSalePurchaseResponse>>> deferred =
+                new DeferredResult<>(ANSWER_TIMEOUT_MS, toResponse(ticket.queued()));
+        ticket.result().thenAccept(response -> deferred.setResult(toResponse(response)));
+        return deferred;
+    }
+
+    @GetMapping("/customer/flash-sales/purchases/{token}")
+    public ResponseEntity<ApiResponse<FlashSalePurchaseResponse>> getPurchase(@PathVariable UUID token) {
+        return toResponse(flashSaleService.getPurchase(token, currentUser()));
+    }
+
+    private static ResponseEntity<ApiResponse<FlashSalePurchaseResponse>> toResponse(FlashSalePurchaseResponse response) {
+        return switch (response.status()) {
+            case QUEUED -> ResponseEntity.status(HttpStatus.ACCEPTED)
+                    .body(new ApiResponse<>(true, "Purchase queued", response));
+            case ALLOCATED -> ResponseEntity.ok(new ApiResponse<>(true, "Order created successfully.", response));
+            case SOLD_OUT -> ResponseEntity.status(HttpStatus.CONFLICT)
+                    .body(new ApiResponse<>(false, "Sold out", response));
+            case FAILED -> ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .body(new ApiResponse<>(false, "Purchase could not be completed, please try again", response));
+        };
+    }
+
+    private static User currentUser() {
+        return (User) SecurityContextHolder.getContext().getAuthentication().getPrincipal();
+    }
+}
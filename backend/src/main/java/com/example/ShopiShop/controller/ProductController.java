@@ -202,43 +202,106 @@
 package com.example.ShopiShop.controller;
 
 import com.example.ShopiShop.dto.*;
+import com.example.ShopiShop.enums.CatalogFormat;
 import com.example.ShopiShop.models.User;
+import com.example.ShopiShop.service.BestSellerService;
+import com.example.ShopiShop.service.BulkDiscountService;
+import com.example.ShopiShop.service.FacetIndex;
+import com.example.ShopiShop.service.ProductBrowseService;
+import com.example.ShopiShop.service.ProductImportService;
+import com.example.ShopiShop.service.ProductResponseCache;
+import com.example.ShopiShop.service.ProductSearchService;
 import com.example.ShopiShop.service.ProductService;
+import com.example.ShopiShop.service.ProductStreamingService;
+import com.example.ShopiShop.service.TaxonomyVersion;
+import com.example.ShopiShop.utils.EncodedBody;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
-import org.springframework.cache.annotation.CacheEvict;
-import org.springframework.cache.annotation.Cacheable;
 import org.springframework.data.domain.Page;
-import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
-import java.time.LocalDateTime;
+import java.io.InputStream;
+import java.util.Collection;
+import java.util.EnumMap;
 import java.util.List;
+import java.util.Map;
+import java.util.OptionalLong;
+import java.util.Set;
 import java.util.UUID;
+import java.util.function.Function;
+import java.util.function.Supplier;
 
 @RestController
 @RequiredArgsConstructor
 public class ProductController {
 
+    // Upper bound for the non-streaming /public/products page size
+    private static final int MAX_PAGE_SIZE = 100;
+
     private final ProductService productService;
+    private final ProductStreamingService productStreamingService;
+    private final ProductSearchService productSearchService;
+    private final ProductBrowseService productBrowseService;
+    private final ProductImportService productImportService;
+    private final BulkDiscountService bulkDiscountService;
+    private final BestSellerService bestSellerService;
+    private final ProductResponseCache productCache;
+    private final ObjectMapper objectMapper;
+    private final TaxonomyVersion taxonomyVersion;
 
     // ==================== PUBLIC ENDPOINTS ====================
     @GetMapping("/public/products")
-    @Cacheable(value = "products", key = "'all'", unless = "#result.getBody().data.isEmpty()")
-    public ResponseEntity<ApiResponse<List<ProductResponse>>> getAllPublicProducts() {
-        List<ProductResponse> products = productService.getAllProducts();
-        return ResponseEntity.ok(new ApiResponse<>(true, "Products retrieved successfully", products));
+    public ResponseEntity<byte[]> getAllPublicProducts(
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "20") int size,
+            @RequestParam(required = false) String category,
+            @RequestParam(required = false) String fields,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        int pageSize = Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+        // Clamped so the offset stays a valid int
+        int pageNumber = Math.min(Math.max(page, 0), Integer.MAX_VALUE / pageSize - 1);
+        Set<ProductField> selected = ProductField.parse(fields);
+        return encodedListing(acceptEncoding, "Products retrieved successfully",
+                ProductResponseCache.PRODUCTS,
+                List.of(pageNumber, pageSize, String.valueOf(category), String.valueOf(selected)), scopeOf(category),
+                () -> productService.getPaginatedProducts(pageNumber, pageSize, category, selected), Page::getContent,
+                products -> products.map(product -> only(product, selected)));
     }
 
+    // Whole catalog, written to the socket as rows are read from the cursor
+    @GetMapping(value = "/public/products", params = "stream=true")
+    public ResponseEntity<StreamingResponseBody> streamAllPublicProducts() {
+        StreamingResponseBody body = productStreamingService::writeCatalog;
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(body);
+    }
+
+    // The ETag is the product's version; a cached version answers If-None-Match without a load
     @GetMapping("/public/products/{id}")
-    @Cacheable(value = "product", key = "#id")
-    public ResponseEntity<ApiResponse<ProductResponse>> getPublicProductById(@PathVariable UUID id) {
-        ProductResponse response = productService.getProductById(id);
-        return ResponseEntity.ok(new ApiResponse<>(true, "Product retrieved successfully", response));
+    public ResponseEntity<ApiResponse<ProductResponse>> getPublicProductById(@PathVariable UUID id,
+                                                                             WebRequest request) {
+        OptionalLong cached = productCache.cachedVersion(id);
+        if (cached.isPresent() && request.checkNotModified(productETag(id, cached.getAsLong()))) {
+            return null;
+        }
+        Versioned<ProductResponse> response = productCache.getProduct(id,
+                () -> productService.getVersionedProductById(id));
+        if (cached.isEmpty() && request.checkNotModified(productETag(id, response.version()))) {
+            return null;
+        }
+        return ResponseEntity.ok(new ApiResponse<>(true, "Product retrieved successfully", response.value()));
     }
 
 //    @GetMapping("/public/products/store/{storeId}")
@@ -248,23 +311,59 @@ public class ProductController {
 //        return ResponseEntity.ok(new ApiResponse<>(true, "Products retrieved successfully for store", products));
 //    }
 
+    // Pass the nextCursor of a page back as cursor to get the following one
     @GetMapping("/public/products/store/{storeId}")
-    @Cacheable(value = "storeProducts", key = "{#storeId, #page, #size, #cursorId, #cursorDate}",
-            unless = "#result.getBody().data.content.isEmpty()")
-    public ResponseEntity<ApiResponse<Page<ProductResponse>>> getPublicProductsByStoreId(
+    public ResponseEntity<byte[]> getPublicProductsByStoreId(
             @PathVariable Long storeId,
-            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(required = false) String cursor,
             @RequestParam(defaultValue = "10") int size,
-            @RequestParam(required = false) UUID cursorId,
-            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime cursorDate) {
+            @RequestParam(required = false) String fields,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
 
-        Page<ProductResponse> products = productService.getProductsByStoreId(
-                storeId, page, size, cursorId, cursorDate
+        int pageSize = Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+        Set<ProductField> selected = ProductField.parse(fields);
+        return encodedListing(acceptEncoding, "Products retrieved successfully for store",
+                ProductResponseCache.STORE_PRODUCTS,
+                List.of(storeId, pageSize, String.valueOf(cursor), String.valueOf(selected)),
+                Set.of(ProductResponseCache.storeTag(storeId)),
+                () -> productService.getProductsByStoreId(storeId, cursor, pageSize, selected),
+                CursorPageResponse::content,
+                products -> only(products, selected)
         );
+    }
 
-        return ResponseEntity.ok(
-                new ApiResponse<>(true, "Products retrieved successfully for store", products)
-        );
+    @GetMapping("/public/products/search")
+    public ResponseEntity<ApiResponse<Page<ProductResponse>>> searchPublicProducts(
+            @RequestParam String q,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "20") int size) {
+        Page<ProductResponse> products = productSearchService.search(q, page, size);
+        return ResponseEntity.ok(new ApiResponse<>(true, "Products retrieved successfully", products));
+    }
+
+    // Faceted browsing: values within a facet are ORed, facets are ANDed
+    @GetMapping("/public/products/browse")
+    public ResponseEntity<ApiResponse<ProductBrowseResponse>> browsePublicProducts(
+            @RequestParam(required = false) List<String> section,
+            @RequestParam(required = false) List<String> category,
+            @RequestParam(required = false) List<String> store,
+            @RequestParam(required = false) List<String> price,
+            @RequestParam(required = false) List<String> discount,
+            @RequestParam(required = false) List<String> stock,
+            @RequestParam(required = false) Integer rating,
+            @RequestParam(defaultValue = "POPULAR") FacetIndex.Sort sort,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "20") int size) {
+        Map<FacetIndex.Facet, List<String>> selections = new EnumMap<>(FacetIndex.Facet.class);
+        selections.put(FacetIndex.Facet.SECTION, section);
+        selections.put(FacetIndex.Facet.CATEGORY, category);
+        selections.put(FacetIndex.Facet.STORE, store);
+        selections.put(FacetIndex.Facet.PRICE, price);
+        selections.put(FacetIndex.Facet.DISCOUNT, discount);
+        selections.put(FacetIndex.Facet.STOCK, stock);
+
+        ProductBrowseResponse response = productBrowseService.browse(selections, rating, sort, page, size);
+        return ResponseEntity.ok(new ApiResponse<>(true, "Products retrieved successfully", response));
     }
 
     @GetMapping("/public/products/search/{name}")
@@ -273,69 +372,123 @@ public class ProductController {
         return ResponseEntity.ok(new ApiResponse<>(true, "Product retrieved successfully", response));
     }
 
+    // Best-seller rankings are not tracked as scopes; their caches expire within seconds
     @GetMapping("/public/products/best-deals")
-    @Cacheable(value = "bestDeals", unless = "#result.getBody().data.isEmpty()")
-    public ResponseEntity<ApiResponse<List<ProductResponse>>> getPublicBestDeals() {
-        List<ProductResponse> bestDeals = productService.getBestDeals();
-        return ResponseEntity.ok(new ApiResponse<>(true, "Best deals fetched successfully", bestDeals));
+    public ResponseEntity<byte[]> getPublicBestDeals(
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        return encodedListing(acceptEncoding, "Best deals fetched successfully",
+                ProductResponseCache.BEST_DEALS, "all", Set.of(), productService::getBestDeals, list -> list);
     }
 
     @GetMapping("/public/products/featured")
-    @Cacheable(value = "featuredProducts", unless = "#result.getBody().data.isEmpty()")
-    public ResponseEntity<ApiResponse<List<ProductResponse>>> getPublicFeaturedProducts() {
-        List<ProductResponse> featuredProducts = productService.getFeaturedProducts();
-        return ResponseEntity.ok(new ApiResponse<>(true, "Featured products fetched successfully", featuredProducts));
+    public ResponseEntity<byte[]> getPublicFeaturedProducts(
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        return encodedListing(acceptEncoding, "Featured products fetched successfully",
+                ProductResponseCache.FEATURED_PRODUCTS, "all", Set.of(),
+                productService::getFeaturedProducts, list -> list);
     }
 
     @GetMapping("/public/products/best-selling")
-    @Cacheable(value = "bestSelling", key = "{#page, #size}")
-    public ResponseEntity<ApiResponse<Page<ProductResponse>>> getPublicBestSellingProducts(
+    public ResponseEntity<byte[]> getPublicBestSellingProducts(
             @RequestParam(defaultValue = "0") int page,
-            @RequestParam(defaultValue = "10") int size) {
-        Page<ProductResponse> productPage = productService.getBestSellingProducts(page, size);
-        return ResponseEntity.ok(new ApiResponse<>(true, "Best selling products fetched", productPage));
+            @RequestParam(defaultValue = "10") int size,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        return encodedListing(acceptEncoding, "Best selling products fetched",
+                ProductResponseCache.BEST_SELLING, List.of("all", page, size), Set.of(),
+                () -> productService.getBestSellingProducts(page, size), Page::getContent);
+    }
+
+    @GetMapping("/public/products/best-selling/category/{categoryId}")
+    public ResponseEntity<byte[]> getPublicBestSellingInCategory(
+            @PathVariable UUID categoryId,
+            @RequestParam(defaultValue = "10") int limit,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        int count = Math.max(1, Math.min(limit, bestSellerService.maxLimit()));
+        return encodedListing(acceptEncoding, "Best selling products fetched",
+                ProductResponseCache.BEST_SELLING, List.of("category", categoryId, count), Set.of(),
+                () -> bestSellerService.getBestSellersInCategory(categoryId, count), list -> list);
+    }
+
+    @GetMapping("/public/products/best-selling/store/{storeId}")
+    public ResponseEntity<byte[]> getPublicBestSellingInStore(
+            @PathVariable Long storeId,
+            @RequestParam(defaultValue = "10") int limit,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        int count = Math.max(1, Math.min(limit, bestSellerService.maxLimit()));
+        return encodedListing(acceptEncoding, "Best selling products fetched",
+                ProductResponseCache.BEST_SELLING, List.of("store", storeId, count), Set.of(),
+                () -> bestSellerService.getBestSellersInStore(storeId, count), list -> list);
     }
 
     @GetMapping("/public/products/discounts/active")
-    @Cacheable(value = "activeDiscounts", unless = "#result.getBody().data.isEmpty()")
-    public ResponseEntity<ApiResponse<List<ProductResponse>>> getPublicActiveDiscountProducts() {
-        List<ProductResponse> products = productService.getProductsWithActiveDiscounts();
-        return ResponseEntity.ok(new ApiResponse<>(true, "Active discount products", products));
+    public ResponseEntity<byte[]> getPublicActiveDiscountProducts(
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        return encodedListing(acceptEncoding, "Active discount products",
+                ProductResponseCache.ACTIVE_DISCOUNTS, "all", Set.of(ProductResponseCache.DISCOUNTS_TAG),
+                productService::getProductsWithActiveDiscounts, list -> list);
     }
 
     @GetMapping("/public/products/discounts/top")
-    @Cacheable(value = "topDiscounts", unless = "#result.getBody().data.isEmpty()")
-    public ResponseEntity<ApiResponse<List<ProductResponse>>> getPublicTopDiscountProducts() {
-        List<ProductResponse> products = productService.getTopDiscountProducts();
-        return ResponseEntity.ok(new ApiResponse<>(true, "Top discount products", products));
+    public ResponseEntity<byte[]> getPublicTopDiscountProducts(
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        return encodedListing(acceptEncoding, "Top discount products",
+                ProductResponseCache.TOP_DISCOUNTS, "all", Set.of(ProductResponseCache.DISCOUNTS_TAG),
+                productService::getTopDiscountProducts, list -> list);
     }
 
     // ==================== CUSTOMER ENDPOINTS ====================
     @GetMapping("/customer/products/paginated")
-    @Cacheable(value = "paginatedProducts", key = "{#page, #size, #category, #lastSeenId, #lastSeenDate}")
-    public ResponseEntity<ApiResponse<Page<ProductResponse>>> getCustomerPaginatedProducts(
-            @RequestParam(defaultValue = "0") int page,
+    public ResponseEntity<ApiResponse<CursorPageResponse<?>>> getCustomerPaginatedProducts(
             @RequestParam(defaultValue = "10") int size,
             @RequestParam(required = false) String category,
-            @RequestParam(required = false) UUID lastSeenId,
-            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime lastSeenDate) {
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) String fields) {
 
-        Page<ProductResponse> productPage = productService.getPaginatedProducts(
-                page, size, category, lastSeenId, lastSeenDate
+        int pageSize = Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+        Set<ProductField> selected = ProductField.parse(fields);
+        CursorPageResponse<ProductResponse> productPage = productCache.getListing(
+                ProductResponseCache.PAGINATED_PRODUCTS,
+                List.of(pageSize, String.valueOf(category), String.valueOf(cursor), String.valueOf(selected)),
+                scopeOf(category),
+                () -> productService.getPaginatedProducts(category, cursor, pageSize, selected),
+                CursorPageResponse::content
         );
-        return ResponseEntity.ok(new ApiResponse<>(true, "Paginated products", productPage));
+        return ResponseEntity.ok(new ApiResponse<>(true, "Paginated products", only(productPage, selected)));
     }
 
     // ==================== MERCHANT ENDPOINTS ====================
     @PostMapping("/merchant/product/create")
-    @CacheEvict(value = {"products", "bestDeals", "featuredProducts", "activeDiscounts", "topDiscounts"}, allEntries = true)
     public ResponseEntity<ApiResponse<ProductResponse>> createMerchantProduct(@Valid @RequestBody ProductRequest request) {
         ProductResponse response = productService.createProduct(request);
         return ResponseEntity.ok(new ApiResponse<>(true, "Product created successfully", response));
     }
 
+    // Body is CSV with a header row, or one JSON product per line; rows are read as they arrive
+    @PostMapping(value = "/merchant/stores/{storeId}/products/import",
+            consumes = {"text/csv", "application/x-ndjson"})
+    public ResponseEntity<ApiResponse<ProductImportResponse>> importMerchantProducts(
+            @PathVariable Long storeId,
+            @RequestHeader(HttpHeaders.CONTENT_TYPE) MediaType contentType,
+            InputStream body) {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        User currentUser = (User) authentication.getPrincipal();
+        ProductImportResponse response = productImportService.importProducts(
+                storeId, currentUser, CatalogFormat.of(contentType), body);
+        String message = response.failed() == 0 ? "Products imported" : "Products imported with errors";
+        return ResponseEntity.ok(new ApiResponse<>(true, message, response));
+    }
+
+    @GetMapping("/merchant/stores/{storeId}/products/export")
+    public ResponseEntity<StreamingResponseBody> exportMerchantProducts(
+            @PathVariable Long storeId,
+            @RequestParam(defaultValue = "CSV") CatalogFormat format) {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        User currentUser = (User) authentication.getPrincipal();
+        productStreamingService.requireStoreOwner(storeId, currentUser);
+        return storeExport(storeId, format);
+    }
+
     @PutMapping("/merchant/products/{id}")
-    @CacheEvict(value = {"product", "products", "storeProducts", "bestDeals", "featuredProducts", "activeDiscounts", "topDiscounts"}, key = "#id")
     public ResponseEntity<ApiResponse<ProductResponse>> updateMerchantProduct(
             @PathVariable UUID id,
             @Valid @RequestBody ProductUpdateRequest request) {
@@ -344,7 +497,6 @@ public class ProductController {
     }
 
     @PutMapping("/merchant/products/{productId}/quantity")
-    @CacheEvict(value = {"product", "products", "storeProducts"}, key = "#productId")
     public ResponseEntity<ApiResponse<ProductResponse>> updateMerchantProductQuantity(
             @PathVariable UUID productId,
             @Valid @RequestBody UpdateProductQuantityRequest request) {
@@ -360,7 +512,6 @@ public class ProductController {
     }
 
     @PostMapping("/merchant/products/{productId}/discounts")
-    @CacheEvict(value = {"product", "products", "activeDiscounts", "topDiscounts"}, key = "#productId")
     public ResponseEntity<ApiResponse<ProductResponse>> applyMerchantDiscount(
             @PathVariable UUID productId,
             @Valid @RequestBody DiscountRequest request) {
@@ -377,14 +528,20 @@ public class ProductController {
 
     // ==================== ADMIN ENDPOINTS ====================
     @DeleteMapping("/admin/products/{id}")
-    @CacheEvict(value = {"product", "products", "storeProducts", "bestDeals", "featuredProducts", "activeDiscounts", "topDiscounts"}, key = "#id")
     public ResponseEntity<ApiResponse<Void>> deleteAdminProduct(@PathVariable UUID id) {
         productService.deleteProduct(id);
         return ResponseEntity.ok(new ApiResponse<>(true, "Product deleted successfully", null));
     }
 
+    @GetMapping("/admin/stores/{storeId}/products/export")
+    public ResponseEntity<StreamingResponseBody> exportAdminProducts(
+            @PathVariable Long storeId,
+            @RequestParam(defaultValue = "CSV") CatalogFormat format) {
+        productStreamingService.requireStore(storeId);
+        return storeExport(storeId, format);
+    }
+
     @DeleteMapping("/admin/products/{productId}/discounts")
-    @CacheEvict(value = {"product", "activeDiscounts", "topDiscounts"}, key = "#productId")
     public ResponseEntity<ApiResponse<Void>> removeAdminDiscount(@PathVariable UUID productId) {
         try {
             Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
@@ -397,30 +554,101 @@ public class ProductController {
         }
     }
 
+    // Validated now, applied in the background; follow it with the job endpoint
     @PostMapping("/merchant/discounts/bulk")
-    @CacheEvict(value = {"products", "activeDiscounts", "topDiscounts"}, allEntries = true)
-    public ResponseEntity<ApiResponse<List<ProductResponse>>> applyBulkDiscounts(
-            @RequestBody BulkDiscountRequest request) {
-        try {
-            List<ProductResponse> responses = productService.applyBulkDiscount(
-                    request.productIds(),
-                    request.discountRequest()
-            );
-            return ResponseEntity.ok(new ApiResponse<>(
-                    true, "Bulk discounts applied", responses));
-        } catch (Exception e) {
-            return ResponseEntity.badRequest().body(new ApiResponse<>(
-                    false, e.getMessage(), null));
-        }
+    public ResponseEntity<ApiResponse<BulkDiscountJobResponse>> applyBulkDiscounts(
+            @Valid @RequestBody BulkDiscountRequest request) {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        User currentUser = (User) authentication.getPrincipal();
+        BulkDiscountJobResponse job = bulkDiscountService.start(
+                request.productIds(), request.discountRequest(), currentUser);
+        return ResponseEntity.status(HttpStatus.ACCEPTED)
+                .body(new ApiResponse<>(true, "Bulk discount started", job));
+    }
+
+    @GetMapping("/merchant/discounts/bulk/{jobId}")
+    public ResponseEntity<ApiResponse<BulkDiscountJobResponse>> getBulkDiscountJob(@PathVariable UUID jobId) {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        User currentUser = (User) authentication.getPrincipal();
+        BulkDiscountJobResponse job = bulkDiscountService.getJob(jobId, currentUser);
+        return ResponseEntity.ok(new ApiResponse<>(true, "Bulk discount job retrieved", job));
+    }
+
+    @PostMapping("/merchant/discounts/bulk/{jobId}/resume")
+    public ResponseEntity<ApiResponse<BulkDiscountJobResponse>> resumeBulkDiscountJob(@PathVariable UUID jobId) {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        User currentUser = (User) authentication.getPrincipal();
+        BulkDiscountJobResponse job = bulkDiscountService.resume(jobId, currentUser);
+        return ResponseEntity.status(HttpStatus.ACCEPTED)
+                .body(new ApiResponse<>(true, "Bulk discount resumed", job));
     }
 
     @GetMapping("/merchant/{storeId}/discounts/expiring-soon")
-    @Cacheable(value = "expiringDiscounts", key = "{#storeId, #days}")
     public ResponseEntity<ApiResponse<List<ProductResponse>>> getExpiringDiscounts(
             @PathVariable Long storeId,
             @RequestParam(defaultValue = "7") int days) {
-        List<ProductResponse> products = productService.getExpiringDiscounts(storeId, days);
+        List<ProductResponse> products = productCache.getListing(
+                ProductResponseCache.EXPIRING_DISCOUNTS, List.of(storeId, days),
+                Set.of(ProductResponseCache.DISCOUNTS_TAG),
+                () -> productService.getExpiringDiscounts(storeId, days), list -> list);
         return ResponseEntity.ok(new ApiResponse<>(
                 true, "Expiring discounts retrieved", products));
     }
-}
\ No newline at end of file
+
+    // Checks are done before this, while an error can still become a normal response
+    private ResponseEntity<StreamingResponseBody> storeExport(Long storeId, CatalogFormat format) {
+        StreamingResponseBody body = out -> productStreamingService.writeStoreCatalog(storeId, format, out);
+        return ResponseEntity.ok()
+                .contentType(format.mediaType())
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                        .filename("store-" + storeId + "-products." + format.extension())
+                        .build().toString())
+                .body(body);
+    }
+
+    // Serialized and compressed once per cached value; hits are written out as bytes
+    private <V> ResponseEntity<byte[]> encodedListing(String acceptEncoding, String message,
+                                                      String cacheName, Object key, Set<String> tags,
+                                                      Supplier<V> loader,
+                                                      Function<V, Collection<ProductResponse>> contents) {
+        return encodedListing(acceptEncoding, message, cacheName, key, tags, loader, contents, value -> value);
+    }
+
+    private <V> ResponseEntity<byte[]> encodedListing(String acceptEncoding, String message,
+                                                      String cacheName, Object key, Set<String> tags,
+                                                      Supplier<V> loader,
+                                                      Function<V, Collection<ProductResponse>> contents,
+                                                      Function<V, ?> data) {
+        return productCache.getEncodedListing(cacheName, key, tags, loader, contents,
+                        value -> EncodedBody.of(objectMapper, new ApiResponse<>(true, message, data.apply(value))))
+                .toResponse(acceptEncoding);
+    }
+
+    // With fields=, only the selected properties are written instead of nulls for the rest
+    private Object only(ProductResponse product, Set<ProductField> fields) {
+        if (fields == null) {
+            return product;
+        }
+        ObjectNode node = objectMapper.valueToTree(product);
+        return node.retain(fields.stream().map(ProductField::property).toList());
+    }
+
+    private CursorPageResponse<?> only(CursorPageResponse<ProductResponse> page, Set<ProductField> fields) {
+        return fields == null
+                ? page
+                : new CursorPageResponse<Object>(
+                        page.content().stream().map(product -> only(product, fields)).toList(),
+                        page.nextCursor());
+    }
+
+    // Responses carry category names, so taxonomy changes retire the tag too
+    private String productETag(UUID id, long version) {
+        return "p" + id + "." + version + "." + taxonomyVersion.current();
+    }
+
+    private static Set<String> scopeOf(String category) {
+        return Set.of(category == null || category.isEmpty()
+                ? ProductResponseCache.CATALOG_TAG
+                : ProductResponseCache.categoryTag(category));
+    }
+}
@@ -1,13 +1,18 @@
 package com.example.ShopiShop.controller;
 
+import com.example.ShopiShop.dto.ReviewPageResponse;
 import com.example.ShopiShop.dto.ReviewRequest;
 import com.example.ShopiShop.dto.ReviewResponse;
+import com.example.ShopiShop.dto.VendorReviewRequest;
+import com.example.ShopiShop.dto.VendorReviewResponse;
 import com.example.ShopiShop.service.ReviewService;
+import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 
 @RestController
@@ -19,13 +24,16 @@ public class ReviewController {
 
     @PostMapping("customer/reviews")
     @ResponseStatus(HttpStatus.CREATED)
-    public ReviewResponse createReview(@RequestBody ReviewRequest request) {
+    public ReviewResponse createReview(@Valid @RequestBody ReviewRequest request) {
         return reviewService.createReview(request);
     }
 
     @GetMapping("public/reviews/product/{productId}")
-    public List<ReviewResponse> getReviewsByProductId(@PathVariable UUID productId) {
-        return reviewService.getReviewsByProductId(productId);
+    public ReviewPageResponse getReviewsByProductId(
+            @PathVariable UUID productId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "10") int size) {
+        return reviewService.getReviewsByProductId(productId, cursor, size);
     }
 
     @GetMapping("public/reviews/user/{userId}")
@@ -38,4 +46,27 @@ public class ReviewController {
     public void deleteReview(@PathVariable Long reviewId) {
         reviewService.deleteReview(reviewId);
     }
+
+    @PostMapping("customer/reviews/store")
+    @ResponseStatus(HttpStatus.CREATED)
+    public VendorReviewResponse createVendorReview(@Valid @RequestBody VendorReviewRequest request) {
+        return reviewService.createVendorReview(request);
+    }
+
+    @GetMapping("public/reviews/store/{storeId}")
+    public List<VendorReviewResponse> getReviewsByStoreId(@PathVariable Long storeId) {
+        return reviewService.getReviewsByStoreId(storeId);
+    }
+
+    @DeleteMapping("customer/reviews/store/{reviewId}")
+    @ResponseStatus(HttpStatus.NO_CONTENT)
+    public void deleteVendorReview(@PathVariable Long reviewId) {
+        reviewService.deleteVendorReview(reviewId);
+    }
+
+    // Recompute product/store rating aggregates from the review tables
+    @PostMapping("admin/reviews/ratings/backfill")
+    public Map<String, Integer> backfillRatings() {
+        return reviewService.backfillRatings();
+    }
 }
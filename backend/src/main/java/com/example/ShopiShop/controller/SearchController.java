@@ -0,0 +1,28 @@
+package com.example.ShopiShop.controller;
+
+import com.example.ShopiShop.dto.ApiResponse;
+import com.example.ShopiShop.dto.SuggestionResponse;
+import com.example.ShopiShop.service.SuggestionService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+@RestController
+@RequiredArgsConstructor
+public class SearchController {
+
+    private final SuggestionService suggestionService;
+
+    // Typeahead for the search box (Public)
+    @GetMapping("/public/search/suggest")
+    public ResponseEntity<ApiResponse<List<SuggestionResponse>>> suggest(
+            @RequestParam String q,
+            @RequestParam(defaultValue = "8") int limit) {
+        List<SuggestionResponse> suggestions = suggestionService.suggest(q, limit);
+        return ResponseEntity.ok(new ApiResponse<>(true, "Suggestions retrieved successfully", suggestions));
+    }
+}
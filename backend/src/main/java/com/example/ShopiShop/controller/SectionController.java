@@ -5,10 +5,12 @@ import com.example.ShopiShop.dto.SectionRequest;
 import com.example.ShopiShop.dto.SectionResponse;
 import com.example.ShopiShop.dto.SectionWithCategoriesResponse;
 import com.example.ShopiShop.service.SectionService;
+import com.example.ShopiShop.service.TaxonomyVersion;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.List;
 import java.util.UUID;
@@ -19,6 +21,8 @@ import java.util.UUID;
 public class SectionController {
 
     private final SectionService sectionService;
+    // ETag of every public read: the tree only changes through taxonomy events
+    private final TaxonomyVersion taxonomyVersion;
 
     // ✅ Create Section (Admin Only)
     @PostMapping("/admin/section/create")
@@ -31,14 +35,20 @@ public class SectionController {
 
     // ✅ Get All Sections (Public)
     @GetMapping("/public/sections")
-    public ResponseEntity<?> getAllSections() {
+    public ResponseEntity<?> getAllSections(WebRequest request) {
+        if (request.checkNotModified(taxonomyVersion.etag())) {
+            return null;
+        }
         List<SectionResponse> sections = sectionService.getAllSections();
         return ResponseEntity.ok(new ApiResponse<>(true, "Sections retrieved successfully", sections));
     }
 
     // ✅ Get Section by ID (Public)
     @GetMapping("/public/section/{id}")
-    public ResponseEntity<?> getSectionById(@PathVariable UUID id) {
+    public ResponseEntity<?> getSectionById(@PathVariable UUID id, WebRequest request) {
+        if (request.checkNotModified(taxonomyVersion.etag())) {
+            return null;
+        }
         SectionResponse response = sectionService.getSectionById(id);
         return ResponseEntity.ok(new ApiResponse<>(true, "Section retrieved successfully", response));
     }
@@ -60,7 +70,11 @@ public class SectionController {
 
     // ✅ Get Sections with Categories (Public)
     @GetMapping("/public/sections-with-categories")
-    public ResponseEntity<ApiResponse<List<SectionWithCategoriesResponse>>> getSectionsWithCategories() {
+    public ResponseEntity<ApiResponse<List<SectionWithCategoriesResponse>>> getSectionsWithCategories(
+            WebRequest request) {
+        if (request.checkNotModified(taxonomyVersion.etag())) {
+            return null;
+        }
         return ResponseEntity.ok(sectionService.getAllSectionsWithCategories());
     }
 }
@@ -0,0 +1,17 @@
+package com.example.ShopiShop.dto;
+
+import com.example.ShopiShop.enums.BulkDiscountJobStatus;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+public record BulkDiscountJobResponse(
+        UUID jobId,
+        BulkDiscountJobStatus status,
+        int total,
+        int processed,
+        int updated,
+        String failure,
+        LocalDateTime createdAt,
+        LocalDateTime updatedAt
+) {}
@@ -2,11 +2,12 @@ package com.example.ShopiShop.dto;
 
 import jakarta.validation.Valid;
 import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
 
 import java.util.List;
 import java.util.UUID;
 
 public record BulkDiscountRequest(
         @NotEmpty List<UUID> productIds,
-        @Valid DiscountRequest discountRequest
+        @NotNull @Valid DiscountRequest discountRequest
 ) {}
@@ -0,0 +1,10 @@
+package com.example.ShopiShop.dto;
+
+import jakarta.annotation.Nullable;
+
+import java.util.List;
+
+public record CursorPageResponse<T>(
+        List<T> content,
+        @Nullable String nextCursor   // null on the last page
+) {}
@@ -0,0 +1,7 @@
+package com.example.ShopiShop.dto;
+
+public record FacetCountResponse(
+        String value,
+        String label,
+        int count
+) {}
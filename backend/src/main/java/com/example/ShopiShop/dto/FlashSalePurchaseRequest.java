@@ -0,0 +1,11 @@
+package com.example.ShopiShop.dto;
+
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+
+public record FlashSalePurchaseRequest(
+        @Min(1) @Max(100) int quantity,
+        String shippingAddress,
+        String city,
+        String contactNumber
+) {}
@@ -0,0 +1,15 @@
+package com.example.ShopiShop.dto;
+
+import com.example.ShopiShop.enums.FlashSalePurchaseStatus;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+// orderId and unitPrice are set once the purchase is ALLOCATED
+public record FlashSalePurchaseResponse(
+        UUID token,
+        FlashSalePurchaseStatus status,
+        int quantity,
+        UUID orderId,
+        BigDecimal unitPrice
+) {}
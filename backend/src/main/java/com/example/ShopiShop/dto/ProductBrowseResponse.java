@@ -0,0 +1,11 @@
+package com.example.ShopiShop.dto;
+
+import org.springframework.data.domain.Page;
+
+import java.util.List;
+import java.util.Map;
+
+public record ProductBrowseResponse(
+        Page<ProductResponse> products,
+        Map<String, List<FacetCountResponse>> facets    // keyed by request parameter name
+) {}
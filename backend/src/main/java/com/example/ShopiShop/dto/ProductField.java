@@ -0,0 +1,77 @@
+package com.example.ShopiShop.dto;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.lang.Nullable;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * Fields of {@link ProductResponse} a listing can be narrowed to with
+ * {@code fields=name,finalPrice,imageUrl}. Listings asked for a subset only
+ * read the columns behind those fields; the id is always included.
+ * Reviews are detail-only and cannot be selected.
+ */
+public enum ProductField {
+    ID("id"),
+    NAME("name"),
+    DESCRIPTION("description"),
+    ORIGINAL_PRICE("originalPrice"),
+    FINAL_PRICE("finalPrice"),
+    IMAGE_URL("imageUrl"),
+    CATEGORY_NAME("categoryName"),
+    STORE_ID("storeId"),
+    IS_AVAILABLE("isAvailable"),
+    STORE_NAME("storeName"),
+    QUANTITY("quantity"),
+    TOTAL_SELL("totalSell"),
+    AVERAGE_RATING("averageRating"),
+    DISCOUNT_INFO("discountInfo"),
+    DISCOUNT_VALUE("discountValue"),
+    RATING_SUMMARY("ratingSummary");
+
+    // What product cards show: everything but the description and the store name
+    public static final Set<ProductField> PREVIEW =
+            Collections.unmodifiableSet(EnumSet.complementOf(EnumSet.of(DESCRIPTION, STORE_NAME)));
+
+    private final String property;
+
+    ProductField(String property) {
+        this.property = property;
+    }
+
+    // JSON property name in ProductResponse
+    public String property() {
+        return property;
+    }
+
+    /**
+     * Parses a comma-separated list of property names. Returns null when the
+     * parameter is absent, meaning the endpoint's usual response.
+     */
+    @Nullable
+    public static Set<ProductField> parse(@Nullable String fields) {
+        if (fields == null || fields.isBlank()) {
+            return null;
+        }
+        EnumSet<ProductField> selected = EnumSet.of(ID);
+        for (String name : fields.split(",")) {
+            String trimmed = name.trim();
+            if (!trimmed.isEmpty()) {
+                selected.add(fromProperty(trimmed));
+            }
+        }
+        return Collections.unmodifiableSet(selected);
+    }
+
+    private static ProductField fromProperty(String property) {
+        for (ProductField field : values()) {
+            if (field.property.equals(property)) {
+                return field;
+            }
+        }
+        throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Unknown product field: " + property);
+    }
+}
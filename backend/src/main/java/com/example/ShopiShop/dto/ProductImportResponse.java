@@ -0,0 +1,15 @@
+package com.example.ShopiShop.dto;
+
+import java.util.List;
+
+public record ProductImportResponse(
+        int imported,
+        int failed,
+        List<RowError> errors,      // the first few failed rows
+        boolean errorsTruncated     // true when more rows failed than are listed
+) {
+
+    // Line is where the row starts in the upload, the CSV header being line 1
+    public record RowError(int line, String message) {
+    }
+}
@@ -19,10 +19,12 @@ public record ProductResponse(
         boolean isAvailable,
         String storeName,
         Integer quantity,
-        List<ReviewResponse> reviews,
+        @Nullable List<ReviewResponse> reviews,  // Detail view only: the newest few reviews
         Integer totalSell,
         @Nullable Double averageRating,
         @Nullable DiscountInfo discountInfo,  // Details about the active discount
-        @Nullable BigDecimal discountValue
+        @Nullable BigDecimal discountValue,
+        @Nullable RatingSummaryResponse ratingSummary,
+        @Nullable String reviewsCursor         // Pass to /public/reviews/product/{id} for the next reviews
 ) {}
 
@@ -0,0 +1,11 @@
+package com.example.ShopiShop.dto;
+
+import jakarta.annotation.Nullable;
+
+import java.util.Map;
+
+public record RatingSummaryResponse(
+        int reviewCount,
+        @Nullable Double averageRating,
+        Map<Integer, Integer> histogram   // stars (1-5) -> number of reviews
+) {}
@@ -0,0 +1,10 @@
+package com.example.ShopiShop.dto;
+
+import jakarta.annotation.Nullable;
+
+import java.util.List;
+
+public record ReviewPageResponse(
+        List<ReviewResponse> reviews,
+        @Nullable String nextCursor   // null when there are no more reviews
+) {}
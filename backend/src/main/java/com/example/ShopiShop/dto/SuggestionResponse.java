@@ -0,0 +1,9 @@
+package com.example.ShopiShop.dto;
+
+import java.util.UUID;
+
+public record SuggestionResponse(
+        String text,
+        String type,    // PRODUCT, CATEGORY or SECTION
+        UUID id
+) {}
@@ -0,0 +1,14 @@
+package com.example.ShopiShop.dto;
+
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+
+public record VendorReviewRequest(
+        @NotNull(message = "Store ID is required") Long storeId,
+        @NotNull(message = "User ID is required") Long userId,
+        @Min(value = 1, message = "Rating must be at least 1")
+        @Max(value = 5, message = "Rating must not exceed 5")
+        int rating,
+        String comment
+) {}
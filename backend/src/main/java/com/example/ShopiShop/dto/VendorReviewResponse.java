@@ -0,0 +1,10 @@
+package com.example.ShopiShop.dto;
+
+public record VendorReviewResponse(
+        Long id,
+        int rating,
+        String comment,
+        Long userId,
+        String userName,
+        Long storeId
+) {}
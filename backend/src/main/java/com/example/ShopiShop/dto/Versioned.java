@@ -0,0 +1,5 @@
+package com.example.ShopiShop.dto;
+
+// A response together with the @Version of the row it was built from
+public record Versioned<T>(long version, T value) {
+}
@@ -0,0 +1,7 @@
+package com.example.ShopiShop.enums;
+
+public enum BulkDiscountJobStatus {
+    RUNNING,
+    COMPLETED,
+    FAILED
+}
@@ -0,0 +1,29 @@
+package com.example.ShopiShop.enums;
+
+import org.springframework.http.MediaType;
+
+// Row formats for catalog import and export
+public enum CatalogFormat {
+    CSV("text/csv", "csv"),
+    NDJSON("application/x-ndjson", "ndjson");
+
+    private final MediaType mediaType;
+    private final String extension;
+
+    CatalogFormat(String mediaType, String extension) {
+        this.mediaType = MediaType.parseMediaType(mediaType);
+        this.extension = extension;
+    }
+
+    public MediaType mediaType() {
+        return mediaType;
+    }
+
+    public String extension() {
+        return extension;
+    }
+
+    public static CatalogFormat of(MediaType contentType) {
+        return contentType.isCompatibleWith(CSV.mediaType) ? CSV : NDJSON;
+    }
+}
@@ -0,0 +1,8 @@
+package com.example.ShopiShop.enums;
+
+public enum FlashSalePurchaseStatus {
+    QUEUED,
+    ALLOCATED,
+    SOLD_OUT,
+    FAILED
+}
@@ -0,0 +1,21 @@
+package com.example.ShopiShop.events;
+
+import java.util.UUID;
+
+/**
+ * Published whenever a product is created, modified or deleted: by
+ * ProductService, and by ReviewService when ratings change. Sales are
+ * announced per order by {@link ProductsSoldEvent} instead. Listeners that keep in-memory views of the catalog should
+ * react after commit and re-read the product rather than trust the
+ * publisher's copy.
+ */
+public record ProductChangedEvent(UUID productId, boolean deleted) {
+
+    public static ProductChangedEvent changed(UUID productId) {
+        return new ProductChangedEvent(productId, false);
+    }
+
+    public static ProductChangedEvent deleted(UUID productId) {
+        return new ProductChangedEvent(productId, true);
+    }
+}
@@ -0,0 +1,13 @@
+package com.example.ShopiShop.events;
+
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Published by ProductImportService once an import has finished, with every
+ * product it created. Listeners bring their views up to date in one pass
+ * instead of handling a {@link ProductChangedEvent} per product.
+ */
+public record ProductsImportedEvent(Long storeId, Set<String> categoryNames, List<UUID> productIds) {
+}
@@ -0,0 +1,13 @@
+package com.example.ShopiShop.events;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Published by BulkDiscountService after each committed chunk of a bulk
+ * discount, with the products in that chunk. Listeners refresh what depends
+ * on prices once per chunk instead of handling a {@link ProductChangedEvent}
+ * per product.
+ */
+public record ProductsRepricedEvent(List<UUID> productIds) {
+}
@@ -0,0 +1,33 @@
+package com.example.ShopiShop.events;
+
+import com.example.ShopiShop.repositories.StockLevelView;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Published by OrderService once per checkout and by FlashSaleService once
+ * per allocated batch, with the stock, units-sold total and row version each
+ * sold product was left at. Listeners apply those figures in one pass
+ * instead of re-reading every product for a {@link ProductChangedEvent};
+ * those that depend on neither stock nor sales don't listen for it.
+ */
+public record ProductsSoldEvent(List<Sale> sales) {
+
+    public record Sale(UUID productId, int version, int quantity, long totalSell) {
+    }
+
+    public static ProductsSoldEvent of(Collection<StockLevelView> levels) {
+        return new ProductsSoldEvent(levels.stream()
+                .map(level -> new Sale(level.getId(),
+                        level.getVersion() != null ? level.getVersion() : 0,
+                        level.getQuantity() != null ? level.getQuantity() : 0,
+                        level.getTotalSell() != null ? level.getTotalSell() : 0))
+                .toList());
+    }
+
+    public List<UUID> productIds() {
+        return sales.stream().map(Sale::productId).toList();
+    }
+}
@@ -0,0 +1,9 @@
+package com.example.ShopiShop.events;
+
+/**
+ * Published by ReviewService after the rating aggregates of every product
+ * and store were recomputed. Every product row moved to a new version, so
+ * listeners reload their views in full rather than product by product.
+ */
+public record RatingsBackfilledEvent() {
+}
@@ -0,0 +1,9 @@
+package com.example.ShopiShop.events;
+
+/**
+ * Published by SectionService and CategoryService whenever a section or
+ * category is created, renamed or deleted. Listeners that keep views of
+ * the taxonomy reload it after commit.
+ */
+public record TaxonomyChangedEvent() {
+}
@@ -0,0 +1,73 @@
+package com.example.ShopiShop.models;
+
+import com.example.ShopiShop.enums.BulkDiscountJobStatus;
+import com.example.ShopiShop.enums.DiscountType;
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+// One discount applied to many products, chunk by chunk; see BulkDiscountService
+@Entity
+@Table(name = "bulk_discount_job")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class BulkDiscountJob {
+    @Id
+    @GeneratedValue(strategy = GenerationType.AUTO)
+    private UUID id;
+
+    // User who started the job; only they can follow or resume it
+    @Column(nullable = false)
+    private Long requestedBy;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private DiscountType discountType;
+
+    @Column(nullable = false, precision = 19, scale = 2)
+    private BigDecimal discountValue;
+
+    private LocalDate startDate;
+    private LocalDate endDate;
+    private String name;
+
+    @Column(nullable = false)
+    private int minQuantity;
+
+    // In the order they are applied; processed counts from the front
+    @ElementCollection
+    @CollectionTable(name = "bulk_discount_job_product", joinColumns = @JoinColumn(name = "job_id"))
+    @OrderColumn(name = "product_order")
+    @Column(name = "product_id", nullable = false)
+    @Builder.Default
+    private List<UUID> productIds = new ArrayList<>();
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private BulkDiscountJobStatus status;
+
+    @Column(nullable = false)
+    private int total;
+
+    // Products in committed chunks
+    @Column(nullable = false)
+    private int processed;
+
+    // Rows those chunks changed
+    @Column(nullable = false)
+    private int updated;
+
+    private String failure;
+
+    private LocalDateTime createdAt;
+    private LocalDateTime updatedAt;
+}
@@ -1,8 +1,10 @@
 package com.example.ShopiShop.models;
 
 import com.example.ShopiShop.enums.DiscountType;
+import com.example.ShopiShop.utils.PricingEngine;
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.ColumnDefault;
 import org.hibernate.annotations.CreationTimestamp;
 
 import java.math.BigDecimal;
@@ -16,9 +18,17 @@ import java.util.UUID;
 @AllArgsConstructor
 @NoArgsConstructor
 @Builder
+@NamedEntityGraph(name = "Product.catalog", attributeNodes = {
+        @NamedAttributeNode("store"),
+        @NamedAttributeNode("category")
+})
 @Table(name = "product", indexes = {
         @Index(name = "idx_product_discount_active", columnList = "discountActive"),
-        @Index(name = "idx_product_discount_dates", columnList = "discountStartDate,discountEndDate")
+        @Index(name = "idx_product_discount_dates", columnList = "discountStartDate,discountEndDate"),
+        // Keyset pagination: newest first, optionally within a category or store
+        @Index(name = "idx_product_created", columnList = "time_created,id"),
+        @Index(name = "idx_product_category_created", columnList = "category_id,time_created,id"),
+        @Index(name = "idx_product_store_created", columnList = "store_id,time_created,id")
 })
 public class Product {
 
@@ -47,7 +57,8 @@ public class Product {
     @JoinColumn(name = "store_id", referencedColumnName = "id", nullable = false)
     private Store store;
 
-    @ManyToOne(fetch = FetchType.EAGER)
+    // Names come from the taxonomy snapshot; listings that need the row fetch it through Product.catalog
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "category_id", nullable = false)
     private Category category;
 
@@ -61,7 +72,8 @@ public class Product {
     @Column(nullable = false)
     private Boolean isAvailable = false;
 
-    @Column(nullable = false)
+    // Only ever written by ProductRepository.decrementStock, never from a loaded entity
+    @Column(nullable = false, updatable = false)
     private Integer totalSell = 0;
 
     @Column(name = "time_created")
@@ -86,14 +98,20 @@ public class Product {
 
     private Integer discountMinQuantity = 1;
 
+    // Sold only through FlashSaleService's purchase queue, not through carts
+    @Column(nullable = false)
+    @ColumnDefault("false")
+    @Builder.Default
+    private Boolean flashSale = false;
+
+    @Embedded
+    @Builder.Default
+    private RatingSummary ratings = new RatingSummary();
+
     // Add these methods to your Product entity
     public boolean isDiscountCurrentlyActive() {
-        if (!discountActive) return false;
-
-        LocalDate now = LocalDate.now();
-        boolean started = discountStartDate == null || !now.isBefore(discountStartDate);
-        boolean notEnded = discountEndDate == null || !now.isAfter(discountEndDate);
-        return started && notEnded;
+        return Boolean.TRUE.equals(discountActive)
+                && PricingEngine.inWindow(discountStartDate, discountEndDate, LocalDate.now());
     }
 
     // In Product entity
@@ -106,8 +124,7 @@ public class Product {
 
 
     private BigDecimal calculateDiscountedPrice() {
-        return discountType == DiscountType.PERCENTAGE ?
-                price.subtract(price.multiply(discountValue).divide(BigDecimal.valueOf(100))) :
-                price.subtract(discountValue);
+        return PricingEngine.toAmount(PricingEngine.discountedCents(
+                PricingEngine.toCents(price), discountType, PricingEngine.toCents(discountValue)));
     }
 }
\ No newline at end of file
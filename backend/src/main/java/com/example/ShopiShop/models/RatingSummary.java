@@ -0,0 +1,66 @@
+package com.example.ShopiShop.models;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Embeddable;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.ColumnDefault;
+
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Running review aggregates kept on the reviewed row (product or store).
+ * Maintained with set-based UPDATEs by ReviewService, never by loading
+ * and saving the owning entity.
+ */
+@Embeddable
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RatingSummary {
+
+    @ColumnDefault("0")
+    @Column(name = "review_count", nullable = false)
+    private int reviewCount;
+
+    @ColumnDefault("0")
+    @Column(name = "rating_sum", nullable = false)
+    private long ratingSum;
+
+    // Histogram, one bucket per star
+    @ColumnDefault("0")
+    @Column(name = "rating_1_count", nullable = false)
+    private int oneStarCount;
+
+    @ColumnDefault("0")
+    @Column(name = "rating_2_count", nullable = false)
+    private int twoStarCount;
+
+    @ColumnDefault("0")
+    @Column(name = "rating_3_count", nullable = false)
+    private int threeStarCount;
+
+    @ColumnDefault("0")
+    @Column(name = "rating_4_count", nullable = false)
+    private int fourStarCount;
+
+    @ColumnDefault("0")
+    @Column(name = "rating_5_count", nullable = false)
+    private int fiveStarCount;
+
+    public Double average() {
+        return reviewCount == 0 ? null : (double) ratingSum / reviewCount;
+    }
+
+    public Map<Integer, Integer> histogram() {
+        return new TreeMap<>(Map.of(
+                1, oneStarCount,
+                2, twoStarCount,
+                3, threeStarCount,
+                4, fourStarCount,
+                5, fiveStarCount
+        ));
+    }
+}
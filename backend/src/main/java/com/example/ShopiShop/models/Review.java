@@ -6,7 +6,9 @@ import lombok.*;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "reviews")
+@Table(name = "reviews", indexes = {
+        @Index(name = "idx_review_product_created", columnList = "product_id,createdAt,id")
+})
 @Getter
 @Setter
 @Builder
@@ -36,6 +38,7 @@ public class Review {
     @JoinColumn(name = "product_id", nullable = false)
     private Product product;
 
-    // Timestamps
+    // Timestamps; rows from before the builder set it are backfilled at startup
+    @Builder.Default
     private LocalDateTime createdAt = LocalDateTime.now();
 }
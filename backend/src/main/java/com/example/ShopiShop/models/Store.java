@@ -62,6 +62,11 @@ public class Store {
     @Column(name = "approved_date")
     private LocalDateTime approvedDate;
 
+    // Aggregates of the VendorReview rows for this store
+    @Embedded
+    @Builder.Default
+    private RatingSummary ratings = new RatingSummary();
+
     // A store can have many products
     @OneToMany(mappedBy = "store", cascade = CascadeType.ALL, orphanRemoval = true)
     private List<Product> products = new ArrayList<>();
@@ -0,0 +1,42 @@
+package com.example.ShopiShop.repositories;
+
+import com.example.ShopiShop.enums.BulkDiscountJobStatus;
+import com.example.ShopiShop.models.BulkDiscountJob;
+import org.springframework.data.jpa.repository.EntityGraph;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+public interface BulkDiscountJobRepository extends JpaRepository<BulkDiscountJob, UUID> {
+
+    @EntityGraph(attributePaths = "productIds")
+    Optional<BulkDiscountJob> findWithProductIdsById(UUID id);
+
+    @Query("SELECT j.id FROM BulkDiscountJob j WHERE j.status = :status")
+    List<UUID> findIdsByStatus(@Param("status") BulkDiscountJobStatus status);
+
+    // Runs in the chunk's transaction, so progress and the chunk commit together
+    @Modifying
+    @Query("UPDATE BulkDiscountJob j SET j.processed = :processed, j.updated = j.updated + :updated, " +
+            "j.updatedAt = :now WHERE j.id = :id")
+    int recordProgress(@Param("id") UUID id,
+                       @Param("processed") int processed,
+                       @Param("updated") int updated,
+                       @Param("now") LocalDateTime now);
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE BulkDiscountJob j SET j.status = :status, j.failure = :failure, j.updatedAt = :now " +
+            "WHERE j.id = :id")
+    int updateStatus(@Param("id") UUID id,
+                     @Param("status") BulkDiscountJobStatus status,
+                     @Param("failure") String failure,
+                     @Param("now") LocalDateTime now);
+}
@@ -4,6 +4,7 @@ package com.example.ShopiShop.repositories;
 import com.example.ShopiShop.models.Category;
 import com.example.ShopiShop.models.Section;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -20,4 +21,9 @@ public interface    CategoryRepository extends JpaRepository<Category, UUID> {
     Optional<Category> findByName(String name);
 
     Optional<Category> findByNameAndSectionId(String categoryName, UUID id);
+
+    // Search suggestions: each category weighted by the units sold in it
+    @Query("SELECT c.id AS id, c.name AS name, COALESCE(SUM(p.totalSell), 0) AS weight " +
+            "FROM Category c LEFT JOIN c.products p GROUP BY c.id, c.name")
+    List<NameWeightView> findSuggestionWeights();
 }
@@ -0,0 +1,13 @@
+package com.example.ShopiShop.repositories;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+// Projection used to validate a bulk discount
+public interface DiscountTargetView {
+    UUID getId();
+
+    BigDecimal getPrice();
+
+    Long getOwnerId();
+}
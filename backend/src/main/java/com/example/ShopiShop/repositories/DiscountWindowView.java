@@ -0,0 +1,13 @@
+package com.example.ShopiShop.repositories;
+
+import java.time.LocalDate;
+import java.util.UUID;
+
+// Projection used to load the discount boundary schedule
+public interface DiscountWindowView {
+    UUID getId();
+
+    LocalDate getDiscountStartDate();
+
+    LocalDate getDiscountEndDate();
+}
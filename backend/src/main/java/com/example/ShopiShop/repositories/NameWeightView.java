@@ -0,0 +1,12 @@
+package com.example.ShopiShop.repositories;
+
+import java.util.UUID;
+
+// Projection used to feed the search suggestions: a name and its popularity
+public interface NameWeightView {
+    UUID getId();
+
+    String getName();
+
+    Number getWeight();
+}
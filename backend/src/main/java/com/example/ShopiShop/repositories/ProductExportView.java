@@ -0,0 +1,33 @@
+package com.example.ShopiShop.repositories;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.util.UUID;
+
+// Projection used by the store catalog export; the columns named like
+// ProductRequest fields read back in through the bulk import
+public interface ProductExportView {
+    UUID getId();
+
+    String getName();
+
+    String getDescription();
+
+    BigDecimal getPrice();
+
+    BigDecimal getDiscountPrice();
+
+    String getImageUrl();
+
+    String getCategoryName();
+
+    Integer getQuantity();
+
+    Boolean getIsAvailable();
+
+    Boolean getDiscountActive();
+
+    Integer getTotalSell();
+
+    Timestamp getCreatedAt();
+}
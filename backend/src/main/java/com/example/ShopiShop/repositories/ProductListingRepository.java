@@ -0,0 +1,50 @@
+package com.example.ShopiShop.repositories;
+
+import com.example.ShopiShop.dto.ProductField;
+import jakarta.persistence.Tuple;
+import org.springframework.lang.Nullable;
+
+import java.sql.Timestamp;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Listing queries that select only the columns behind the requested
+ * {@link ProductField}s, as tuples rather than managed entities. The
+ * description LOB is only read when it is asked for, and category or store
+ * are only joined for their names.
+ * <p>
+ * Every tuple has "id" and "createdAt". The other columns are aliased by
+ * their Product attribute name ("price", "discountPrice", ...), rating
+ * columns by their RatingSummary name, plus "categoryName" and "storeName".
+ * Rows come newest first, like the keyset queries in {@link ProductRepository}.
+ */
+public interface ProductListingRepository {
+
+    // At most one of the three is set; none means the whole catalog
+    record Filter(@Nullable UUID categoryId, @Nullable String categoryName, @Nullable Long storeId) {
+
+        public static final Filter ALL = new Filter(null, null, null);
+
+        public static Filter category(UUID categoryId) {
+            return new Filter(categoryId, null, null);
+        }
+
+        public static Filter categoryNamed(String categoryName) {
+            return new Filter(null, categoryName, null);
+        }
+
+        public static Filter store(Long storeId) {
+            return new Filter(null, null, storeId);
+        }
+    }
+
+    /**
+     * Rows strictly after (afterDate, afterId) when both are given, skipping
+     * {@code offset} rows otherwise.
+     */
+    List<Tuple> findListingColumns(Set<ProductField> fields, Filter filter,
+                                   @Nullable Timestamp afterDate, @Nullable UUID afterId,
+                                   int offset, int limit);
+}
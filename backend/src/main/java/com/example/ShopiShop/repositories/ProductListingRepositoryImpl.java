@@ -0,0 +1,121 @@
+package com.example.ShopiShop.repositories;
+
+import com.example.ShopiShop.dto.ProductField;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.TypedQuery;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.jpa.HibernateHints;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+@RequiredArgsConstructor
+class ProductListingRepositoryImpl implements ProductListingRepository {
+
+    private static final List<String> RATING_COUNT = List.of(
+            "p.ratings.reviewCount AS reviewCount",
+            "p.ratings.ratingSum AS ratingSum");
+
+    private static final List<String> DISCOUNT = List.of(
+            "p.discountActive AS discountActive",
+            "p.discountType AS discountType",
+            "p.discountValue AS discountValue",
+            "p.discountStartDate AS discountStartDate",
+            "p.discountEndDate AS discountEndDate",
+            "p.discountName AS discountName",
+            "p.discountMinQuantity AS discountMinQuantity");
+
+    private final EntityManager entityManager;
+
+    @Override
+    public List<Tuple> findListingColumns(Set<ProductField> fields, Filter filter,
+                                          Timestamp afterDate, UUID afterId,
+                                          int offset, int limit) {
+        Set<String> columns = new LinkedHashSet<>(List.of("p.id AS id", "p.createdAt AS createdAt"));
+        fields.forEach(field -> columns.addAll(columnsOf(field)));
+
+        StringBuilder jpql = new StringBuilder("SELECT ")
+                .append(String.join(", ", columns))
+                .append(" FROM Product p");
+        if (fields.contains(ProductField.CATEGORY_NAME) || filter.categoryName() != null) {
+            jpql.append(" JOIN p.category c");
+        }
+        if (fields.contains(ProductField.STORE_NAME)) {
+            jpql.append(" JOIN p.store s");
+        }
+
+        List<String> conditions = new ArrayList<>();
+        if (filter.categoryId() != null) {
+            conditions.add("p.category.id = :categoryId");
+        }
+        if (filter.categoryName() != null) {
+            conditions.add("c.name = :categoryName");
+        }
+        if (filter.storeId() != null) {
+            conditions.add("p.store.id = :storeId");
+        }
+        boolean keyset = afterDate != null && afterId != null;
+        if (keyset) {
+            // Same seek condition as the keyset queries in ProductRepository
+            conditions.add("p.createdAt <= :cursorDate AND (p.createdAt < :cursorDate OR p.id < :cursorId)");
+        }
+        if (!conditions.isEmpty()) {
+            jpql.append(" WHERE ").append(String.join(" AND ", conditions));
+        }
+        jpql.append(" ORDER BY p.createdAt DESC, p.id DESC");
+
+        TypedQuery<Tuple> query = entityManager.createQuery(jpql.toString(), Tuple.class)
+                .setHint(HibernateHints.HINT_READ_ONLY, true)
+                .setMaxResults(limit);
+        if (filter.categoryId() != null) {
+            query.setParameter("categoryId", filter.categoryId());
+        }
+        if (filter.categoryName() != null) {
+            query.setParameter("categoryName", filter.categoryName());
+        }
+        if (filter.storeId() != null) {
+            query.setParameter("storeId", filter.storeId());
+        }
+        if (keyset) {
+            query.setParameter("cursorDate", afterDate).setParameter("cursorId", afterId);
+        } else {
+            query.setFirstResult(offset);
+        }
+        return query.getResultList();
+    }
+
+    private static List<String> columnsOf(ProductField field) {
+        return switch (field) {
+            case ID -> List.of();
+            case NAME -> List.of("p.name AS name");
+            case DESCRIPTION -> List.of("p.description AS description");
+            case ORIGINAL_PRICE -> List.of("p.price AS price");
+            case FINAL_PRICE -> List.of("p.discountPrice AS discountPrice");
+            case IMAGE_URL -> List.of("p.imageUrl AS imageUrl");
+            case CATEGORY_NAME -> List.of("c.name AS categoryName");
+            case STORE_ID -> List.of("p.store.id AS storeId");
+            case IS_AVAILABLE -> List.of("p.isAvailable AS isAvailable");
+            case STORE_NAME -> List.of("s.name AS storeName");
+            case QUANTITY -> List.of("p.quantity AS quantity");
+            case TOTAL_SELL -> List.of("p.totalSell AS totalSell");
+            case AVERAGE_RATING -> RATING_COUNT;
+            case DISCOUNT_INFO -> DISCOUNT;
+            case DISCOUNT_VALUE -> List.of("p.discountValue AS discountValue");
+            case RATING_SUMMARY -> {
+                List<String> columns = new ArrayList<>(RATING_COUNT);
+                columns.addAll(List.of(
+                        "p.ratings.oneStarCount AS oneStarCount",
+                        "p.ratings.twoStarCount AS twoStarCount",
+                        "p.ratings.threeStarCount AS threeStarCount",
+                        "p.ratings.fourStarCount AS fourStarCount",
+                        "p.ratings.fiveStarCount AS fiveStarCount"));
+                yield columns;
+            }
+        };
+    }
+}
@@ -0,0 +1,32 @@
+package com.example.ShopiShop.repositories;
+
+import com.example.ShopiShop.enums.DiscountType;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.UUID;
+
+// Projection used to fill the effective-price table
+public interface ProductPriceView {
+    UUID getId();
+
+    Integer getVersion();
+
+    BigDecimal getPrice();
+
+    DiscountType getDiscountType();
+
+    BigDecimal getDiscountValue();
+
+    BigDecimal getDiscountPrice();
+
+    Boolean getDiscountActive();
+
+    LocalDate getDiscountStartDate();
+
+    LocalDate getDiscountEndDate();
+
+    Integer getDiscountMinQuantity();
+
+    Integer getQuantity();
+}
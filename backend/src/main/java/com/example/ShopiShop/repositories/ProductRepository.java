@@ -2,75 +2,318 @@ package com.example.ShopiShop.repositories;
 
 import com.example.ShopiShop.models.Product;
 import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+import java.math.BigDecimal;
+import java.sql.Timestamp;
 import java.time.LocalDate;
-import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.stream.Stream;
 
-public interface ProductRepository extends JpaRepository<Product, UUID> {
+public interface ProductRepository extends JpaRepository<Product, UUID>, ProductListingRepository {
 
     // Auto-generated queries (clean and simple)
     Optional<Product> findById(UUID id);
     Optional<Product> findByName(String name);
+    @EntityGraph("Product.catalog")
     Page<Product> findAll(Pageable pageable);
     List<Product> findByStoreId(Long storeId);
     Page<Product> findByStoreId(Long storeId, Pageable pageable);
     List<Product> findByCategoryId(UUID categoryId);
+    @EntityGraph("Product.catalog")
     Page<Product> findByCategoryName(String categoryName, Pageable pageable);
-    List<Product> findTop5ByOrderByTotalSellDesc();
-    List<Product> findTop10ByOrderByTotalSellDesc();
+    long countByCategoryName(String categoryName);
+    @EntityGraph("Product.catalog")
     Page<Product> findAllByOrderByTotalSellDesc(Pageable pageable);
 
+    // Best sellers straight from the table, used until the in-memory leaderboard is loaded
+    @EntityGraph("Product.catalog")
+    @Query("SELECT p FROM Product p ORDER BY p.totalSell DESC, p.id")
+    List<Product> findBestSellers(Pageable pageable);
+
+    @EntityGraph("Product.catalog")
+    @Query("SELECT p FROM Product p WHERE p.category.id = :categoryId ORDER BY p.totalSell DESC, p.id")
+    List<Product> findBestSellersByCategoryId(@Param("categoryId") UUID categoryId, Pageable pageable);
+
+    @EntityGraph("Product.catalog")
+    @Query("SELECT p FROM Product p WHERE p.store.id = :storeId ORDER BY p.totalSell DESC, p.id")
+    List<Product> findBestSellersByStoreId(@Param("storeId") Long storeId, Pageable pageable);
+
+    // Forward-only cursor over the whole catalog. MySQL only streams rows
+    // when the fetch size is Integer.MIN_VALUE; otherwise it buffers the result.
+    @EntityGraph("Product.catalog")
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "" + Integer.MIN_VALUE),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT p FROM Product p ORDER BY p.createdAt DESC, p.id DESC")
+    Stream<Product> streamAllForCatalog();
+
+    @EntityGraph("Product.catalog")
+    Optional<Product> findForCatalogById(UUID id);
+
+    @EntityGraph("Product.catalog")
+    Optional<Product> findForCatalogByName(String name);
+
+    @EntityGraph("Product.catalog")
+    List<Product> findByIdIn(Collection<UUID> ids);
+
+    // Keyset batches in id order, used to (re)build in-memory views of the catalog
+    @EntityGraph("Product.catalog")
+    @Query("SELECT p FROM Product p WHERE (:lastId IS NULL OR p.id > :lastId) ORDER BY p.id")
+    List<Product> findCatalogBatchAfter(@Param("lastId") UUID lastId, Pageable pageable);
+
+    @EntityGraph("Product.catalog")
     @Query("SELECT p FROM Product p WHERE p.discountActive = true AND " +
             "(p.discountStartDate IS NULL OR p.discountStartDate <= CURRENT_DATE) AND " +
             "(p.discountEndDate IS NULL OR p.discountEndDate >= CURRENT_DATE)")
     List<Product> findActiveDiscountProducts();
 
+    @EntityGraph("Product.catalog")
     @Query("SELECT p FROM Product p WHERE p.discountActive = true AND p.discountPrice IS NOT NULL " +
             "ORDER BY (p.price - p.discountPrice) DESC LIMIT 10")
     List<Product> findTopDiscountProducts();
 
-    List<Product> findByDiscountActiveTrue();
+    // Discount boundaries: a configured discount is switched on while today is
+    // inside its window (both dates inclusive) and off outside it. The updates
+    // repeat the check, so a stale id in the list changes nothing.
+    @Query("SELECT p.id AS id, p.discountStartDate AS discountStartDate, p.discountEndDate AS discountEndDate " +
+            "FROM Product p WHERE p.discountPrice IS NOT NULL " +
+            "AND (p.discountStartDate > :today OR p.discountEndDate >= :today) " +
+            "AND (:lastId IS NULL OR p.id > :lastId) ORDER BY p.id")
+    List<DiscountWindowView> findDiscountWindowsAfter(@Param("today") LocalDate today,
+                                                      @Param("lastId") UUID lastId,
+                                                      Pageable pageable);
+
+    // Products whose discountActive flag disagrees with today's date
+    @Query("SELECT p.id FROM Product p WHERE " +
+            "(p.discountActive = false AND p.discountPrice IS NOT NULL " +
+            "AND (p.discountStartDate IS NULL OR p.discountStartDate <= :today) " +
+            "AND (p.discountEndDate IS NULL OR p.discountEndDate >= :today)) " +
+            "OR (p.discountActive = true " +
+            "AND (p.discountStartDate > :today OR p.discountEndDate < :today))")
+    List<UUID> findDiscountIdsToSwitch(@Param("today") LocalDate today);
+
+    @Query("SELECT p.id FROM Product p WHERE p.id IN :ids AND (" +
+            "(p.discountActive = false AND p.discountPrice IS NOT NULL " +
+            "AND (p.discountStartDate IS NULL OR p.discountStartDate <= :today) " +
+            "AND (p.discountEndDate IS NULL OR p.discountEndDate >= :today)) " +
+            "OR (p.discountActive = true " +
+            "AND (p.discountStartDate > :today OR p.discountEndDate < :today)))")
+    List<UUID> findDiscountIdsToSwitch(@Param("ids") Collection<UUID> ids, @Param("today") LocalDate today);
 
+    // Effective-price table: the columns a price depends on, without loading entities
+    @Query("SELECT p.id AS id, p.version AS version, p.price AS price, p.discountType AS discountType, " +
+            "p.discountValue AS discountValue, p.discountPrice AS discountPrice, " +
+            "p.discountActive AS discountActive, p.discountStartDate AS discountStartDate, " +
+            "p.discountEndDate AS discountEndDate, p.discountMinQuantity AS discountMinQuantity, " +
+            "p.quantity AS quantity FROM Product p WHERE (:lastId IS NULL OR p.id > :lastId) ORDER BY p.id")
+    List<ProductPriceView> findPriceBatchAfter(@Param("lastId") UUID lastId, Pageable pageable);
+
+    @Query("SELECT p.id AS id, p.version AS version, p.price AS price, p.discountType AS discountType, " +
+            "p.discountValue AS discountValue, p.discountPrice AS discountPrice, " +
+            "p.discountActive AS discountActive, p.discountStartDate AS discountStartDate, " +
+            "p.discountEndDate AS discountEndDate, p.discountMinQuantity AS discountMinQuantity, " +
+            "p.quantity AS quantity FROM Product p WHERE p.id IN :ids")
+    List<ProductPriceView> findPricesByIdIn(@Param("ids") Collection<UUID> ids);
+
+    // Bulk discounts: validated against this projection, then written a chunk
+    // at a time. Discounted prices follow PricingEngine: a percentage (in
+    // hundredths of a percent kept) rounds half up, a fixed amount stops at zero.
+    @Query("SELECT p.id AS id, p.price AS price, s.owner.id AS ownerId " +
+            "FROM Product p JOIN p.store s WHERE p.id IN :ids")
+    List<DiscountTargetView> findDiscountTargets(@Param("ids") Collection<UUID> ids);
+
+    @Modifying
+    @Query("UPDATE VERSIONED Product p SET p.discountType = com.example.ShopiShop.enums.DiscountType.PERCENTAGE, " +
+            "p.discountValue = :value, p.discountPrice = round(p.price * :keep / 10000, 2), " +
+            "p.discountStartDate = :startDate, p.discountEndDate = :endDate, p.discountName = :name, " +
+            "p.discountMinQuantity = :minQuantity, p.discountActive = :active WHERE p.id IN :ids")
+    int applyPercentageDiscount(@Param("ids") Collection<UUID> ids,
+                                @Param("value") BigDecimal value,
+                                @Param("keep") long keep,
+                                @Param("startDate") LocalDate startDate,
+                                @Param("endDate") LocalDate endDate,
+                                @Param("name") String name,
+                                @Param("minQuantity") int minQuantity,
+                                @Param("active") boolean active);
+
+    @Modifying
+    @Query("UPDATE VERSIONED Product p SET p.discountType = com.example.ShopiShop.enums.DiscountType.FIXED_AMOUNT, " +
+            "p.discountValue = :value, " +
+            "p.discountPrice = CASE WHEN p.price > :value THEN p.price - :value ELSE 0 END, " +
+            "p.discountStartDate = :startDate, p.discountEndDate = :endDate, p.discountName = :name, " +
+            "p.discountMinQuantity = :minQuantity, p.discountActive = :active WHERE p.id IN :ids")
+    int applyFixedDiscount(@Param("ids") Collection<UUID> ids,
+                           @Param("value") BigDecimal value,
+                           @Param("startDate") LocalDate startDate,
+                           @Param("endDate") LocalDate endDate,
+                           @Param("name") String name,
+                           @Param("minQuantity") int minQuantity,
+                           @Param("active") boolean active);
+
+    // Versioned, so cached prices and ETags of the switched products go stale
+    @Transactional
+    @Modifying
+    @Query("UPDATE VERSIONED Product p SET p.discountActive = true " +
+            "WHERE p.id IN :ids AND p.discountActive = false AND p.discountPrice IS NOT NULL " +
+            "AND (p.discountStartDate IS NULL OR p.discountStartDate <= :today) " +
+            "AND (p.discountEndDate IS NULL OR p.discountEndDate >= :today)")
+    int switchDiscountsOn(@Param("ids") Collection<UUID> ids, @Param("today") LocalDate today);
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE VERSIONED Product p SET p.discountActive = false " +
+            "WHERE p.id IN :ids AND p.discountActive = true " +
+            "AND (p.discountStartDate > :today OR p.discountEndDate < :today)")
+    int switchDiscountsOff(@Param("ids") Collection<UUID> ids, @Param("today") LocalDate today);
+
+    @EntityGraph("Product.catalog")
     List<Product> findByStoreIdAndDiscountActiveTrueAndDiscountEndDateBefore(
             Long storeId,
             LocalDate endDate
     );
 
 
-    // Add to ProductRepository.java
-    @Query("SELECT p FROM Product p WHERE " +
-            "(:category IS NULL OR p.category.name = :category) AND " +
-            "(:lastSeenId IS NULL OR p.id < :lastSeenId) AND " +
-            "(:lastSeenDate IS NULL OR p.createdAt < :lastSeenDate) " +
+    // Keyset pagination, newest first. Each page starts strictly after the
+    // (createdAt, id) of the previous page's last row; the leading
+    // "createdAt <= :cursorDate" gives MySQL a range to seek on the index.
+    @EntityGraph("Product.catalog")
+    @Query("SELECT p FROM Product p ORDER BY p.createdAt DESC, p.id DESC")
+    List<Product> findFirstPage(Pageable pageable);
+
+    @EntityGraph("Product.catalog")
+    @Query("SELECT p FROM Product p WHERE p.createdAt <= :cursorDate AND " +
+            "(p.createdAt < :cursorDate OR p.id < :cursorId) " +
             "ORDER BY p.createdAt DESC, p.id DESC")
-    List<Product> findNextPage(
-            @Param("category") String category,
-            @Param("lastSeenId") UUID lastSeenId,
-            @Param("lastSeenDate") LocalDateTime lastSeenDate,
-            Pageable pageable);
-
-    @Query("SELECT p FROM Product p WHERE p.store.id = :storeId ORDER BY p.createdAt DESC, p.id DESC")
-    Page<Product> findByStoreIdFirstPage(
-            @Param("storeId") Long storeId,
-            Pageable pageable);
-
-    // For cursor-based pagination
-    @Query("SELECT p FROM Product p WHERE p.store.id = :storeId AND " +
-            "(p.createdAt < :cursorDate OR (p.createdAt = :cursorDate AND p.id < :cursorId)) " +
+    List<Product> findPageAfter(@Param("cursorDate") Timestamp cursorDate,
+                                @Param("cursorId") UUID cursorId,
+                                Pageable pageable);
+
+    @EntityGraph("Product.catalog")
+    @Query("SELECT p FROM Product p WHERE p.category.id = :categoryId " +
             "ORDER BY p.createdAt DESC, p.id DESC")
-    Page<Product> findByStoreIdAfterCursor(
-            @Param("storeId") Long storeId,
-            @Param("cursorId") UUID cursorId,
-            @Param("cursorDate") LocalDateTime cursorDate,
-            Pageable pageable);
+    List<Product> findFirstPageByCategoryId(@Param("categoryId") UUID categoryId, Pageable pageable);
+
+    @EntityGraph("Product.catalog")
+    @Query("SELECT p FROM Product p WHERE p.category.id = :categoryId AND p.createdAt <= :cursorDate AND " +
+            "(p.createdAt < :cursorDate OR p.id < :cursorId) " +
+            "ORDER BY p.createdAt DESC, p.id DESC")
+    List<Product> findPageByCategoryIdAfter(@Param("categoryId") UUID categoryId,
+                                            @Param("cursorDate") Timestamp cursorDate,
+                                            @Param("cursorId") UUID cursorId,
+                                            Pageable pageable);
+
+    @EntityGraph("Product.catalog")
+    @Query("SELECT p FROM Product p WHERE p.store.id = :storeId " +
+            "ORDER BY p.createdAt DESC, p.id DESC")
+    List<Product> findFirstPageByStoreId(@Param("storeId") Long storeId, Pageable pageable);
+
+    @EntityGraph("Product.catalog")
+    @Query("SELECT p FROM Product p WHERE p.store.id = :storeId AND p.createdAt <= :cursorDate AND " +
+            "(p.createdAt < :cursorDate OR p.id < :cursorId) " +
+            "ORDER BY p.createdAt DESC, p.id DESC")
+    List<Product> findPageByStoreIdAfter(@Param("storeId") Long storeId,
+                                         @Param("cursorDate") Timestamp cursorDate,
+                                         @Param("cursorId") UUID cursorId,
+                                         Pageable pageable);
+
+    // Rating aggregates: delta is +1 when a review is added and -1 when it is removed.
+    // Bumps the version, which is the product's ETag, since ratings are part of its response.
+    // Clears the persistence context so later reads in the transaction see the new values.
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE VERSIONED Product p SET " +
+            "p.ratings.reviewCount = p.ratings.reviewCount + :delta, " +
+            "p.ratings.ratingSum = p.ratings.ratingSum + :delta * :rating, " +
+            "p.ratings.oneStarCount = p.ratings.oneStarCount + CASE WHEN :rating = 1 THEN :delta ELSE 0 END, " +
+            "p.ratings.twoStarCount = p.ratings.twoStarCount + CASE WHEN :rating = 2 THEN :delta ELSE 0 END, " +
+            "p.ratings.threeStarCount = p.ratings.threeStarCount + CASE WHEN :rating = 3 THEN :delta ELSE 0 END, " +
+            "p.ratings.fourStarCount = p.ratings.fourStarCount + CASE WHEN :rating = 4 THEN :delta ELSE 0 END, " +
+            "p.ratings.fiveStarCount = p.ratings.fiveStarCount + CASE WHEN :rating = 5 THEN :delta ELSE 0 END " +
+            "WHERE p.id = :productId")
+    int applyRatingDelta(@Param("productId") UUID productId,
+                         @Param("rating") int rating,
+                         @Param("delta") int delta);
+
+    // Recomputes every product's rating aggregates from the reviews table.
+    // Bumps every version, so cached responses and ETags from before are not served again.
+    @Modifying
+    @Query(nativeQuery = true, value = "UPDATE product p LEFT JOIN (" +
+            "SELECT product_id, COUNT(*) AS cnt, SUM(rating) AS total, " +
+            "SUM(rating = 1) AS r1, SUM(rating = 2) AS r2, SUM(rating = 3) AS r3, " +
+            "SUM(rating = 4) AS r4, SUM(rating = 5) AS r5 " +
+            "FROM reviews GROUP BY product_id) r ON r.product_id = p.id " +
+            "SET p.review_count = COALESCE(r.cnt, 0), p.rating_sum = COALESCE(r.total, 0), " +
+            "p.rating_1_count = COALESCE(r.r1, 0), p.rating_2_count = COALESCE(r.r2, 0), " +
+            "p.rating_3_count = COALESCE(r.r3, 0), p.rating_4_count = COALESCE(r.r4, 0), " +
+            "p.rating_5_count = COALESCE(r.r5, 0), p.version = p.version + 1")
+    int backfillRatings();
+
+    // Search suggestions: product names weighted by units sold
+    @Query("SELECT p.id AS id, p.name AS name, p.totalSell AS weight FROM Product p " +
+            "WHERE (:lastId IS NULL OR p.id > :lastId) ORDER BY p.id")
+    List<NameWeightView> findSuggestionBatchAfter(@Param("lastId") UUID lastId, Pageable pageable);
+
+    @Query("SELECT p.id AS id, p.name AS name, p.totalSell AS weight FROM Product p WHERE p.id = :id")
+    Optional<NameWeightView> findSuggestionById(@Param("id") UUID id);
+
+    @Query("SELECT p.id AS id, p.name AS name, p.totalSell AS weight FROM Product p WHERE p.id IN :ids")
+    List<NameWeightView> findSuggestionsByIdIn(@Param("ids") Collection<UUID> ids);
+
+    // Best-seller leaderboard: units sold with the product's category and store
+    @Query("SELECT p.id AS id, p.category.id AS categoryId, p.store.id AS storeId, p.totalSell AS totalSell " +
+            "FROM Product p WHERE (:lastId IS NULL OR p.id > :lastId) ORDER BY p.id")
+    List<ProductSalesView> findSalesBatchAfter(@Param("lastId") UUID lastId, Pageable pageable);
+
+    @Query("SELECT p.id AS id, p.category.id AS categoryId, p.store.id AS storeId, p.totalSell AS totalSell " +
+            "FROM Product p WHERE p.id = :id")
+    Optional<ProductSalesView> findSalesById(@Param("id") UUID id);
+
+    @Query("SELECT p.id AS id, p.category.id AS categoryId, p.store.id AS storeId, p.totalSell AS totalSell " +
+            "FROM Product p WHERE p.id IN :ids")
+    List<ProductSalesView> findSalesByIdIn(@Param("ids") Collection<UUID> ids);
+
+    // Checkout: takes the units only if they are all there, without reading the row first,
+    // and counts them as sold in the same statement, so a committed order is always counted.
+    // Versioned like any other product write, so cached responses and prices move on.
+    @Modifying
+    @Query("UPDATE VERSIONED Product p SET p.quantity = p.quantity - :quantity, " +
+            "p.totalSell = COALESCE(p.totalSell, 0) + :quantity " +
+            "WHERE p.id = :id AND p.quantity >= :quantity")
+    int decrementStock(@Param("id") UUID id, @Param("quantity") int quantity);
+
+    // Read past the persistence context, which may hold the rows from before decrementStock
+    @Query("SELECT p.id AS id, p.quantity AS quantity, p.version AS version, p.totalSell AS totalSell " +
+            "FROM Product p WHERE p.id IN :ids")
+    List<StockLevelView> findStockByIdIn(@Param("ids") Collection<UUID> ids);
+
+    @Query("SELECT p.id FROM Product p WHERE p.flashSale = true")
+    List<UUID> findFlashSaleIds();
+
+    // Store catalog export: keyset batches in id order, which the store_id index
+    // already has as its suffix. Projected, so no entities enter the session.
+    @Query("SELECT p.id AS id, p.name AS name, p.description AS description, p.price AS price, " +
+            "p.discountPrice AS discountPrice, p.imageUrl AS imageUrl, c.name AS categoryName, " +
+            "p.quantity AS quantity, p.isAvailable AS isAvailable, p.discountActive AS discountActive, " +
+            "p.totalSell AS totalSell, p.createdAt AS createdAt " +
+            "FROM Product p JOIN p.category c " +
+            "WHERE p.store.id = :storeId AND (:lastId IS NULL OR p.id > :lastId) ORDER BY p.id")
+    List<ProductExportView> findExportBatchAfter(@Param("storeId") Long storeId,
+                                                 @Param("lastId") UUID lastId,
+                                                 Pageable pageable);
 
     // Count query for pagination
     @Query("SELECT COUNT(p) FROM Product p WHERE p.store.id = :storeId")
@@ -0,0 +1,14 @@
+package com.example.ShopiShop.repositories;
+
+import java.util.UUID;
+
+// Projection used to feed the best-seller leaderboard
+public interface ProductSalesView {
+    UUID getId();
+
+    UUID getCategoryId();
+
+    Long getStoreId();
+
+    Number getTotalSell();
+}
@@ -0,0 +1,20 @@
+package com.example.ShopiShop.repositories;
+
+import java.time.LocalDateTime;
+
+// Projection for review pages: the author's id and name only, so no User (and its store) is loaded
+public interface ReviewListingView {
+    Long getId();
+
+    int getRating();
+
+    String getComment();
+
+    Long getUserId();
+
+    String getUserName();
+
+    String getProductName();
+
+    LocalDateTime getCreatedAt();
+}
@@ -1,9 +1,15 @@
 package com.example.ShopiShop.repositories;
 
 import com.example.ShopiShop.models.Review;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.UUID;
 
 public interface ReviewRepository extends JpaRepository<Review, Long> {
 
@@ -12,4 +18,31 @@ public interface ReviewRepository extends JpaRepository<Review, Long> {
 
     // Or find reviews by user
     List<Review> findByUserId(Long userId);
+
+    // Set-based delete so the caller knows whether this call removed the row
+    @Modifying
+    @Query("DELETE FROM Review r WHERE r.id = :id")
+    int deleteReviewById(@Param("id") Long id);
+
+    // Review pages seek on createdAt, which must not be null
+    @Modifying
+    @Query("UPDATE Review r SET r.createdAt = :createdAt WHERE r.createdAt IS NULL")
+    int backfillCreatedAt(@Param("createdAt") LocalDateTime createdAt);
+
+    // Keyset pagination over idx_review_product_created, newest first
+    @Query("SELECT r.id AS id, r.rating AS rating, r.comment AS comment, u.id AS userId, u.name AS userName, " +
+            "p.name AS productName, r.createdAt AS createdAt " +
+            "FROM Review r JOIN r.user u JOIN r.product p WHERE p.id = :productId " +
+            "ORDER BY r.createdAt DESC, r.id DESC")
+    List<ReviewListingView> findFirstPageByProductId(@Param("productId") UUID productId, Pageable pageable);
+
+    @Query("SELECT r.id AS id, r.rating AS rating, r.comment AS comment, u.id AS userId, u.name AS userName, " +
+            "p.name AS productName, r.createdAt AS createdAt " +
+            "FROM Review r JOIN r.user u JOIN r.product p WHERE p.id = :productId AND " +
+            "(r.createdAt < :cursorDate OR (r.createdAt = :cursorDate AND r.id < :cursorId)) " +
+            "ORDER BY r.createdAt DESC, r.id DESC")
+    List<ReviewListingView> findPageByProductIdAfterCursor(@Param("productId") UUID productId,
+                                                @Param("cursorDate") LocalDateTime cursorDate,
+                                                @Param("cursorId") Long cursorId,
+                                                Pageable pageable);
 }
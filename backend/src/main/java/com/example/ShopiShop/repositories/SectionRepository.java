@@ -3,6 +3,7 @@ package com.example.ShopiShop.repositories;
 import com.example.ShopiShop.models.Section;
 import com.example.ShopiShop.models.Store;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -14,6 +15,11 @@ public interface SectionRepository extends JpaRepository<Section, UUID> {
     Optional<Section> findByName(String name);
     Optional<Section> findById(UUID id);
 
+    // Search suggestions: each section weighted by the units sold in its categories
+    @Query("SELECT s.id AS id, s.name AS name, COALESCE(SUM(p.totalSell), 0) AS weight " +
+            "FROM Section s LEFT JOIN s.categories c LEFT JOIN c.products p GROUP BY s.id, s.name")
+    List<NameWeightView> findSuggestionWeights();
+
 
 
 }
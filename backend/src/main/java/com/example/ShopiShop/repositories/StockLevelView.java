@@ -0,0 +1,14 @@
+package com.example.ShopiShop.repositories;
+
+import java.util.UUID;
+
+// Projection used to announce stock levels and sales totals after checkout and to track them for reservations
+public interface StockLevelView {
+    UUID getId();
+
+    Integer getQuantity();
+
+    Integer getVersion();
+
+    Integer getTotalSell();
+}
@@ -2,6 +2,9 @@ package com.example.ShopiShop.repositories;
 
 import com.example.ShopiShop.models.Store;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -18,4 +21,32 @@ public interface StoreRepository extends JpaRepository<Store,Long>{
 
 
     boolean existsByNameAndOwnerId(String storeName, Long ownerId);
+
+    // Rating aggregates: delta is +1 when a vendor review is added and -1 when it is removed
+    @Modifying
+    @Query("UPDATE Store s SET " +
+            "s.ratings.reviewCount = s.ratings.reviewCount + :delta, " +
+            "s.ratings.ratingSum = s.ratings.ratingSum + :delta * :rating, " +
+            "s.ratings.oneStarCount = s.ratings.oneStarCount + CASE WHEN :rating = 1 THEN :delta ELSE 0 END, " +
+            "s.ratings.twoStarCount = s.ratings.twoStarCount + CASE WHEN :rating = 2 THEN :delta ELSE 0 END, " +
+            "s.ratings.threeStarCount = s.ratings.threeStarCount + CASE WHEN :rating = 3 THEN :delta ELSE 0 END, " +
+            "s.ratings.fourStarCount = s.ratings.fourStarCount + CASE WHEN :rating = 4 THEN :delta ELSE 0 END, " +
+            "s.ratings.fiveStarCount = s.ratings.fiveStarCount + CASE WHEN :rating = 5 THEN :delta ELSE 0 END " +
+            "WHERE s.id = :storeId")
+    int applyRatingDelta(@Param("storeId") Long storeId,
+                         @Param("rating") int rating,
+                         @Param("delta") int delta);
+
+    // Recomputes every store's rating aggregates from the vendor_review table
+    @Modifying
+    @Query(nativeQuery = true, value = "UPDATE store s LEFT JOIN (" +
+            "SELECT store_id, COUNT(*) AS cnt, SUM(rating) AS total, " +
+            "SUM(rating = 1) AS r1, SUM(rating = 2) AS r2, SUM(rating = 3) AS r3, " +
+            "SUM(rating = 4) AS r4, SUM(rating = 5) AS r5 " +
+            "FROM vendor_review GROUP BY store_id) r ON r.store_id = s.id " +
+            "SET s.review_count = COALESCE(r.cnt, 0), s.rating_sum = COALESCE(r.total, 0), " +
+            "s.rating_1_count = COALESCE(r.r1, 0), s.rating_2_count = COALESCE(r.r2, 0), " +
+            "s.rating_3_count = COALESCE(r.r3, 0), s.rating_4_count = COALESCE(r.r4, 0), " +
+            "s.rating_5_count = COALESCE(r.r5, 0)")
+    int backfillRatings();
 }
@@ -0,0 +1,19 @@
+package com.example.ShopiShop.repositories;
+
+import com.example.ShopiShop.models.VendorReview;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface VendorReviewRepository extends JpaRepository<VendorReview, Long> {
+    List<VendorReview> findByStoreId(Long storeId);
+
+    @Modifying
+    @Query("DELETE FROM VendorReview r WHERE r.id = :id")
+    int deleteVendorReviewById(@Param("id") Long id);
+}
@@ -0,0 +1,231 @@
+package com.example.ShopiShop.service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeSet;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
+
+/**
+ * Units-sold leaderboards kept in memory: one over the whole catalog and
+ * one per category and per store, each holding the best {@code capacity}
+ * products.
+ * <p>
+ * Counts are the stored totals, which checkout only ever adds to, so a
+ * re-read never lowers a count and a product outside a board
+ * can only enter it by overtaking the current last entry. That keeps the
+ * boards bounded; only deleting a product or moving it to another category
+ * needs the full counts to refill the freed slot.
+ */
+public class BestSellerBoard {
+
+    private static final Comparator<Listing> RANKING = Comparator
+            .comparingLong(Listing::sold).reversed()
+            .thenComparing(Listing::productId);
+
+    public record Listing(UUID productId, UUID categoryId, Long storeId, long sold) {
+    }
+
+    // A bounded, sorted board; members maps a product to its current entry
+    private static final class Board {
+        private final int capacity;
+        private final TreeSet<Listing> ranked = new TreeSet<>(RANKING);
+        private final Map<UUID, Listing> members = new HashMap<>();
+
+        Board(int capacity) {
+            this.capacity = capacity;
+        }
+
+        synchronized void offer(Listing listing) {
+            Listing previous = members.get(listing.productId());
+            if (previous != null) {
+                // Concurrent re-reads can arrive out of order; counts never go down
+                if (previous.sold() > listing.sold()) {
+                    return;
+                }
+                members.remove(listing.productId());
+                ranked.remove(previous);
+            } else if (ranked.size() >= capacity) {
+                if (RANKING.compare(listing, ranked.last()) >= 0) {
+                    return;
+                }
+                members.remove(ranked.pollLast().productId());
+            }
+            ranked.add(listing);
+            members.put(listing.productId(), listing);
+        }
+
+        // Returns true when a slot was freed in a full board
+        synchronized boolean remove(UUID productId) {
+            Listing previous = members.remove(productId);
+            if (previous == null) {
+                return false;
+            }
+            ranked.remove(previous);
+            return ranked.size() == capacity - 1;
+        }
+
+        synchronized void reset(Collection<Listing> listings) {
+            ranked.clear();
+            members.clear();
+            listings.forEach(this::offer);
+        }
+
+        synchronized List<UUID> top(int offset, int limit) {
+            return ranked.stream().skip(offset).limit(limit).map(Listing::productId).toList();
+        }
+
+        synchronized boolean isEmpty() {
+            return ranked.isEmpty();
+        }
+    }
+
+    private final int capacity;
+    private final Map<UUID, Listing> listings = new ConcurrentHashMap<>();
+    private final Board global;
+    private final Map<UUID, Board> byCategory = new ConcurrentHashMap<>();
+    private final Map<Long, Board> byStore = new ConcurrentHashMap<>();
+
+    public BestSellerBoard(int capacity) {
+        this.capacity = capacity;
+        this.global = new Board(capacity);
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+
+    public int size() {
+        return listings.size();
+    }
+
+    // ==================== WRITES ====================
+
+    /**
+     * Empties every board. Not atomic with concurrent writes, so every
+     * product must be loaded again afterwards.
+     */
+    public void clear() {
+        listings.clear();
+        global.reset(List.of());
+        byCategory.clear();
+        byStore.clear();
+    }
+
+    public void load(Collection<Listing> batch) {
+        batch.forEach(this::upsert);
+    }
+
+    /**
+     * Applies a re-read product. A read that started before a later one may
+     * finish after it, so a lower total than the one held is stale and only
+     * the category and store are taken from it.
+     */
+    public void upsert(Listing stored) {
+        Listing[] previous = new Listing[1];
+        Listing updated = listings.compute(stored.productId(), (id, current) -> {
+            previous[0] = current;
+            if (current == null || stored.sold() >= current.sold()) {
+                return stored;
+            }
+            return new Listing(id, stored.categoryId(), stored.storeId(), current.sold());
+        });
+        rank(previous[0], updated);
+    }
+
+    /**
+     * Applies a new units-sold total to a product already on the boards,
+     * keeping its category and store. Unknown products are left to the next
+     * re-read.
+     */
+    public void updateSold(UUID productId, long sold) {
+        Listing[] previous = new Listing[1];
+        Listing updated = listings.computeIfPresent(productId, (id, current) -> {
+            previous[0] = current;
+            return sold > current.sold() ? new Listing(id, current.categoryId(), current.storeId(), sold) : current;
+        });
+        if (updated != null && updated != previous[0]) {
+            rank(previous[0], updated);
+        }
+    }
+
+    public void remove(UUID productId) {
+        Listing removed = listings.remove(productId);
+        if (removed == null) {
+            return;
+        }
+        if (global.remove(productId)) {
+            refill(global, listing -> true);
+        }
+        leave(removed);
+    }
+
+    private void rank(Listing previous, Listing current) {
+        if (previous != null
+                && !(Objects.equals(previous.categoryId(), current.categoryId())
+                && Objects.equals(previous.storeId(), current.storeId()))) {
+            leave(previous);
+        }
+        global.offer(current);
+        if (current.categoryId() != null) {
+            byCategory.computeIfAbsent(current.categoryId(), id -> new Board(capacity)).offer(current);
+        }
+        if (current.storeId() != null) {
+            byStore.computeIfAbsent(current.storeId(), id -> new Board(capacity)).offer(current);
+        }
+    }
+
+    // Takes the listing off its category and store boards, refilling them from the full counts
+    private void leave(Listing listing) {
+        UUID categoryId = listing.categoryId();
+        Board category = categoryId == null ? null : byCategory.get(categoryId);
+        if (category != null && category.remove(listing.productId())) {
+            refill(category, other -> categoryId.equals(other.categoryId()));
+        }
+        Long storeId = listing.storeId();
+        Board store = storeId == null ? null : byStore.get(storeId);
+        if (store != null && store.remove(listing.productId())) {
+            refill(store, other -> storeId.equals(other.storeId()));
+        }
+    }
+
+    private void refill(Board board, Predicate<Listing> scope) {
+        List<Listing> candidates = new ArrayList<>();
+        for (Listing listing : listings.values()) {
+            if (scope.test(listing)) {
+                candidates.add(listing);
+            }
+        }
+        board.reset(candidates);
+    }
+
+    // ==================== READS ====================
+
+    /**
+     * Best sellers from {@code offset}, or fewer when the page reaches past
+     * the board; callers should check {@link #capacity()} first.
+     */
+    public List<UUID> top(int offset, int limit) {
+        return global.top(offset, limit);
+    }
+
+    public List<UUID> topInCategory(UUID categoryId, int limit) {
+        Board board = byCategory.get(categoryId);
+        return board == null ? List.of() : board.top(0, limit);
+    }
+
+    public List<UUID> topInStore(Long storeId, int limit) {
+        Board board = byStore.get(storeId);
+        return board == null ? List.of() : board.top(0, limit);
+    }
+
+    public boolean isEmpty() {
+        return global.isEmpty();
+    }
+}
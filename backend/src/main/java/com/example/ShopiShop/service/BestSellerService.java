@@ -0,0 +1,146 @@
+package com.example.ShopiShop.service;
+
+import com.example.ShopiShop.dto.ProductResponse;
+import com.example.ShopiShop.events.ProductChangedEvent;
+import com.example.ShopiShop.events.ProductsImportedEvent;
+import com.example.ShopiShop.events.ProductsSoldEvent;
+import com.example.ShopiShop.repositories.ProductRepository;
+import com.example.ShopiShop.repositories.ProductSalesView;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Best-seller listings served from {@link BestSellerBoard}. Checkout counts
+ * the units sold in Product.totalSell with the stock it takes, and the
+ * ProductChangedEvent it publishes re-reads that total into the board.
+ * Until the board is loaded at startup, listings are read from the table.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class BestSellerService {
+
+    private static final int BOARD_CAPACITY = 100;
+    private static final int REBUILD_BATCH_SIZE = 5000;
+
+    private final ProductRepository productRepository;
+    private final ProductCatalogService productCatalogService;
+    private final BestSellerBoard board = new BestSellerBoard(BOARD_CAPACITY);
+
+    private volatile boolean loaded;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildOnStartup() {
+        CompletableFuture.runAsync(this::rebuild)
+                .exceptionally(ex -> {
+                    log.error("Best-seller board rebuild failed", ex);
+                    return null;
+                });
+    }
+
+    public synchronized void rebuild() {
+        long start = System.currentTimeMillis();
+        // Listings fall back to the table until every product is back on the board
+        loaded = false;
+        board.clear();
+        UUID lastId = null;
+        List<ProductSalesView> batch;
+        do {
+            batch = productRepository.findSalesBatchAfter(lastId, PageRequest.of(0, REBUILD_BATCH_SIZE));
+            board.load(batch.stream().map(BestSellerService::toListing).toList());
+            if (!batch.isEmpty()) {
+                lastId = batch.get(batch.size() - 1).getId();
+            }
+        } while (batch.size() == REBUILD_BATCH_SIZE);
+        loaded = true;
+
+        log.info("Best-seller board built: {} products in {} ms",
+                board.size(), System.currentTimeMillis() - start);
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        if (event.deleted()) {
+            board.remove(event.productId());
+            return;
+        }
+        productRepository.findSalesById(event.productId())
+                .ifPresentOrElse(
+                        view -> board.upsert(toListing(view)),
+                        () -> board.remove(event.productId()));
+    }
+
+    // The event carries the new totals, so nothing is re-read
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onProductsSold(ProductsSoldEvent event) {
+        event.sales().forEach(sale -> board.updateSold(sale.productId(), sale.totalSell()));
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onProductsImported(ProductsImportedEvent event) {
+        List<UUID> ids = event.productIds();
+        for (int from = 0; from < ids.size(); from += REBUILD_BATCH_SIZE) {
+            productRepository.findSalesByIdIn(ids.subList(from, Math.min(from + REBUILD_BATCH_SIZE, ids.size())))
+                    .forEach(view -> board.upsert(toListing(view)));
+        }
+    }
+
+    // ==================== READS ====================
+
+    public List<ProductResponse> getBestSellers(int limit) {
+        if (!loaded) {
+            return productCatalogService.toResponses(productRepository.findBestSellers(PageRequest.of(0, limit)));
+        }
+        return productCatalogService.findListingResponses(board.top(0, limit));
+    }
+
+    public Page<ProductResponse> getBestSellers(int page, int size) {
+        PageRequest pageable = PageRequest.of(page, size);
+        // Pages past the board come from the table, which checkout keeps current
+        if (!loaded || pageable.getOffset() + size > board.capacity()) {
+            return productCatalogService.toResponses(productRepository.findAllByOrderByTotalSellDesc(pageable));
+        }
+        List<UUID> ids = board.top((int) pageable.getOffset(), size);
+        return new PageImpl<>(productCatalogService.findListingResponses(ids), pageable, board.size());
+    }
+
+    public List<ProductResponse> getBestSellersInCategory(UUID categoryId, int limit) {
+        if (!loaded) {
+            return productCatalogService.toResponses(
+                    productRepository.findBestSellersByCategoryId(categoryId, PageRequest.of(0, limit)));
+        }
+        return productCatalogService.findListingResponses(board.topInCategory(categoryId, limit));
+    }
+
+    public List<ProductResponse> getBestSellersInStore(Long storeId, int limit) {
+        if (!loaded) {
+            return productCatalogService.toResponses(
+                    productRepository.findBestSellersByStoreId(storeId, PageRequest.of(0, limit)));
+        }
+        return productCatalogService.findListingResponses(board.topInStore(storeId, limit));
+    }
+
+    public int maxLimit() {
+        return BOARD_CAPACITY;
+    }
+
+    private static BestSellerBoard.Listing toListing(ProductSalesView view) {
+        return new BestSellerBoard.Listing(
+                view.getId(),
+                view.getCategoryId(),
+                view.getStoreId(),
+                view.getTotalSell() != null ? view.getTotalSell().longValue() : 0);
+    }
+}
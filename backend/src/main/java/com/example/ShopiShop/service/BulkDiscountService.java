@@ -0,0 +1,268 @@
+package com.example.ShopiShop.service;
+
+import com.example.ShopiShop.dto.BulkDiscountJobResponse;
+import com.example.ShopiShop.dto.DiscountRequest;
+import com.example.ShopiShop.enums.BulkDiscountJobStatus;
+import com.example.ShopiShop.enums.DiscountType;
+import com.example.ShopiShop.events.ProductsRepricedEvent;
+import com.example.ShopiShop.exceptions.DiscountConflictException;
+import com.example.ShopiShop.exceptions.DiscountOperationException;
+import com.example.ShopiShop.models.BulkDiscountJob;
+import com.example.ShopiShop.models.User;
+import com.example.ShopiShop.repositories.BulkDiscountJobRepository;
+import com.example.ShopiShop.repositories.DiscountTargetView;
+import com.example.ShopiShop.repositories.ProductRepository;
+import com.example.ShopiShop.utils.PricingEngine;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Applies one discount to many products as a background job. The request is
+ * validated up front against a projection of the products, then written in
+ * chunks: each chunk is one set-based UPDATE and commits together with the
+ * job's progress, so locks are held for one chunk only and a failed or
+ * interrupted job resumes after its last committed chunk. Caches and the
+ * discount schedule are brought up to date once per chunk.
+ */
+@Slf4j
+@Service
+public class BulkDiscountService {
+
+    public static final int MAX_PRODUCTS = 50_000;
+    private static final int CHUNK_SIZE = 500;
+    private static final int VALIDATION_BATCH_SIZE = 5000;
+    // Invalid products named in a rejection
+    private static final int MAX_REPORTED_ERRORS = 10;
+    // 100% in hundredths of a percent, as PricingEngine takes percentages
+    private static final long FULL_PERCENT = 10_000;
+
+    private final ProductRepository productRepository;
+    private final BulkDiscountJobRepository jobRepository;
+    private final DiscountScheduler discountScheduler;
+    private final TransactionTemplate transactionTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+
+    // Jobs running in this instance
+    private final Set<UUID> running = ConcurrentHashMap.newKeySet();
+
+    public BulkDiscountService(ProductRepository productRepository, BulkDiscountJobRepository jobRepository,
+                               DiscountScheduler discountScheduler, PlatformTransactionManager transactionManager,
+                               ApplicationEventPublisher eventPublisher) {
+        this.productRepository = productRepository;
+        this.jobRepository = jobRepository;
+        this.discountScheduler = discountScheduler;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.eventPublisher = eventPublisher;
+    }
+
+    // Jobs cut short by a shutdown carry on from their last chunk
+    @EventListener(ApplicationReadyEvent.class)
+    public void resumeOnStartup() {
+        jobRepository.findIdsByStatus(BulkDiscountJobStatus.RUNNING).forEach(this::runAsync);
+    }
+
+    /**
+     * Validates the discount for every product and starts the job.
+     *
+     * @throws DiscountOperationException if the request or any product fails validation; nothing is written
+     */
+    public BulkDiscountJobResponse start(List<UUID> productIds, DiscountRequest request, User currentUser) {
+        validateRequest(request);
+        List<UUID> ids = List.copyOf(new LinkedHashSet<>(productIds));
+        if (ids.size() > MAX_PRODUCTS) {
+            throw new DiscountOperationException("At most " + MAX_PRODUCTS + " products per bulk discount");
+        }
+        validateProducts(ids, request, currentUser);
+
+        LocalDateTime now = LocalDateTime.now();
+        BulkDiscountJob job = jobRepository.save(BulkDiscountJob.builder()
+                .requestedBy(currentUser.getId())
+                .discountType(request.discountType())
+                .discountValue(request.discountValue())
+                .startDate(request.startDate())
+                .endDate(request.endDate())
+                .name(request.name())
+                .minQuantity(request.minQuantity())
+                .productIds(new ArrayList<>(ids))
+                .status(BulkDiscountJobStatus.RUNNING)
+                .total(ids.size())
+                .createdAt(now)
+                .updatedAt(now)
+                .build());
+        runAsync(job.getId());
+        return toResponse(job);
+    }
+
+    public BulkDiscountJobResponse getJob(UUID jobId, User currentUser) {
+        return toResponse(requireOwnJob(jobId, currentUser));
+    }
+
+    // Restarts a failed job after its last committed chunk
+    public BulkDiscountJobResponse resume(UUID jobId, User currentUser) {
+        BulkDiscountJob job = requireOwnJob(jobId, currentUser);
+        if (job.getStatus() == BulkDiscountJobStatus.COMPLETED) {
+            throw new DiscountConflictException("Bulk discount job already completed");
+        }
+        if (running.contains(jobId)) {
+            throw new DiscountConflictException("Bulk discount job is already running");
+        }
+        jobRepository.updateStatus(jobId, BulkDiscountJobStatus.RUNNING, null, LocalDateTime.now());
+        runAsync(jobId);
+        return toResponse(requireOwnJob(jobId, currentUser));
+    }
+
+    private void runAsync(UUID jobId) {
+        CompletableFuture.runAsync(() -> run(jobId))
+                .exceptionally(ex -> {
+                    log.error("Bulk discount job {} could not run", jobId, ex);
+                    return null;
+                });
+    }
+
+    private void run(UUID jobId) {
+        if (!running.add(jobId)) {
+            return;
+        }
+        try {
+            BulkDiscountJob job = jobRepository.findWithProductIdsById(jobId)
+                    .orElseThrow(() -> new IllegalStateException("Bulk discount job " + jobId + " not found"));
+            applyRemainingChunks(job);
+            jobRepository.updateStatus(jobId, BulkDiscountJobStatus.COMPLETED, null, LocalDateTime.now());
+        } catch (RuntimeException e) {
+            log.error("Bulk discount job {} failed", jobId, e);
+            jobRepository.updateStatus(jobId, BulkDiscountJobStatus.FAILED,
+                    String.valueOf(e.getMessage()), LocalDateTime.now());
+        } finally {
+            running.remove(jobId);
+        }
+    }
+
+    private void applyRemainingChunks(BulkDiscountJob job) {
+        long start = System.currentTimeMillis();
+        List<UUID> ids = job.getProductIds();
+        // One date for the whole job, like the scheduler's, which takes over from here
+        boolean active = PricingEngine.inWindow(job.getStartDate(), job.getEndDate(), LocalDate.now());
+
+        int processed = job.getProcessed();
+        int updated = 0;
+        while (processed < ids.size()) {
+            List<UUID> chunk = List.copyOf(ids.subList(processed, Math.min(processed + CHUNK_SIZE, ids.size())));
+            int next = processed + chunk.size();
+            Integer changed = transactionTemplate.execute(status -> {
+                int rows = applyChunk(job, chunk, active);
+                jobRepository.recordProgress(job.getId(), next, rows, LocalDateTime.now());
+                return rows;
+            });
+            updated += changed != null ? changed : 0;
+            processed = next;
+
+            chunk.forEach(id -> discountScheduler.schedule(id, job.getStartDate(), job.getEndDate()));
+            eventPublisher.publishEvent(new ProductsRepricedEvent(chunk));
+        }
+        log.info("Bulk discount job {}: {} products updated in {} ms",
+                job.getId(), updated, System.currentTimeMillis() - start);
+    }
+
+    private int applyChunk(BulkDiscountJob job, List<UUID> chunk, boolean active) {
+        if (job.getDiscountType() == DiscountType.PERCENTAGE) {
+            long keep = FULL_PERCENT - PricingEngine.toCents(job.getDiscountValue());
+            return productRepository.applyPercentageDiscount(chunk, job.getDiscountValue(), keep,
+                    job.getStartDate(), job.getEndDate(), job.getName(), job.getMinQuantity(), active);
+        }
+        return productRepository.applyFixedDiscount(chunk, job.getDiscountValue(),
+                job.getStartDate(), job.getEndDate(), job.getName(), job.getMinQuantity(), active);
+    }
+
+    private static void validateRequest(DiscountRequest request) {
+        if (request == null || request.discountType() == null || request.discountValue() == null) {
+            throw new DiscountOperationException("Discount type and value are required");
+        }
+        if (request.discountValue().compareTo(BigDecimal.ZERO) <= 0) {
+            throw new DiscountOperationException("Discount value must be positive");
+        }
+        if (request.discountType() == DiscountType.PERCENTAGE
+                && request.discountValue().compareTo(BigDecimal.valueOf(100)) > 0) {
+            throw DiscountOperationException.invalidValue(BigDecimal.valueOf(100));
+        }
+        if (request.startDate() != null && request.endDate() != null
+                && request.startDate().isAfter(request.endDate())) {
+            throw DiscountOperationException.invalidDateRange();
+        }
+        if (request.minQuantity() < 1) {
+            throw new DiscountOperationException("Minimum quantity must be at least 1");
+        }
+    }
+
+    // Every product must exist, belong to the caller and, for a fixed amount, cost more than the discount
+    private void validateProducts(List<UUID> ids, DiscountRequest request, User currentUser) {
+        Map<UUID, DiscountTargetView> targets = new HashMap<>();
+        for (int from = 0; from < ids.size(); from += VALIDATION_BATCH_SIZE) {
+            productRepository.findDiscountTargets(ids.subList(from, Math.min(from + VALIDATION_BATCH_SIZE, ids.size())))
+                    .forEach(target -> targets.put(target.getId(), target));
+        }
+
+        List<String> errors = new ArrayList<>();
+        int invalid = 0;
+        for (UUID id : ids) {
+            String error = checkTarget(targets.get(id), request, currentUser);
+            if (error != null) {
+                invalid++;
+                if (errors.size() < MAX_REPORTED_ERRORS) {
+                    errors.add(id + ": " + error);
+                }
+            }
+        }
+        if (invalid > 0) {
+            throw new DiscountOperationException(
+                    invalid + " products cannot take this discount: " + String.join("; ", errors));
+        }
+    }
+
+    private static String checkTarget(DiscountTargetView target, DiscountRequest request, User currentUser) {
+        if (target == null) {
+            return "not found";
+        }
+        if (!currentUser.getId().equals(target.getOwnerId())) {
+            return "not in your store";
+        }
+        if (request.discountType() == DiscountType.FIXED_AMOUNT
+                && request.discountValue().compareTo(target.getPrice()) >= 0) {
+            return "price is not above the discount";
+        }
+        return null;
+    }
+
+    private BulkDiscountJob requireOwnJob(UUID jobId, User currentUser) {
+        BulkDiscountJob job = jobRepository.findById(jobId)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Bulk discount job not found"));
+        if (!job.getRequestedBy().equals(currentUser.getId())) {
+            throw new ResponseStatusException(HttpStatus.FORBIDDEN, "You did not start this job");
+        }
+        return job;
+    }
+
+    private static BulkDiscountJobResponse toResponse(BulkDiscountJob job) {
+        return new BulkDiscountJobResponse(job.getId(), job.getStatus(), job.getTotal(), job.getProcessed(),
+                job.getUpdated(), job.getFailure(), job.getCreatedAt(), job.getUpdatedAt());
+    }
+}
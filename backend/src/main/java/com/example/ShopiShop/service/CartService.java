@@ -2,7 +2,6 @@ package com.example.ShopiShop.service;
 
 import com.example.ShopiShop.dto.CartItemRequest;
 import com.example.ShopiShop.dto.CartItemResponse;
-import com.example.ShopiShop.exceptions.InsufficientStockException;
 import com.example.ShopiShop.models.CartItem;
 import com.example.ShopiShop.models.Product;
 import com.example.ShopiShop.models.User;
@@ -10,11 +9,15 @@ import com.example.ShopiShop.repositories.CartItemRepository;
 import com.example.ShopiShop.repositories.ProductRepository;
 import com.example.ShopiShop.repositories.UserRepository;
 import jakarta.persistence.OptimisticLockException;
+import org.springframework.http.HttpStatus;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.server.ResponseStatusException;
 
+import java.math.BigDecimal;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 
 @Service
@@ -24,12 +27,14 @@ public class CartService {
     private final DiscountService discountService;
     private final UserRepository userRepository;
     private final ProductRepository productRepository;
+    private final StockReservationService stockReservationService;
 
-    public CartService(CartItemRepository cartItemRepository, DiscountService discountService, UserRepository userRepository, ProductRepository productRepository) {
+    public CartService(CartItemRepository cartItemRepository, DiscountService discountService, UserRepository userRepository, ProductRepository productRepository, StockReservationService stockReservationService) {
         this.cartItemRepository = cartItemRepository;
         this.discountService = discountService;
         this.userRepository = userRepository;
         this.productRepository = productRepository;
+        this.stockReservationService = stockReservationService;
     }
 
     // ✅ Get authenticated user
@@ -44,14 +49,16 @@ public class CartService {
             throw new RuntimeException("Unauthorized: You cannot access another user's cart.");
         }
 
-        return cartItemRepository.findByUser(user)
-                .stream()
+        List<CartItem> cartItems = cartItemRepository.findByUser(user);
+        Map<UUID, BigDecimal> prices = discountService.calculateBulkEffectivePrices(
+                cartItems.stream().map(CartItem::getProduct).toList());
+        return cartItems.stream()
                 .map(cartItem -> new CartItemResponse(
                         cartItem.getId(),
                         cartItem.getProduct().getName(),
                         cartItem.getProduct().getId(),
                         cartItem.getProduct().getImageUrl(),
-                        discountService.calculateEffectivePrice(cartItem.getProduct()),
+                        prices.get(cartItem.getProduct().getId()),
                         cartItem.getQuantity()
                 ))
                 .toList();
@@ -68,6 +75,10 @@ public class CartService {
         // Fetch the latest product details (with optimistic locking)
         Product product = productRepository.findById(request.productId())
                 .orElseThrow(() -> new RuntimeException("Product not found"));
+        if (Boolean.TRUE.equals(product.getFlashSale())) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT,
+                    product.getName() + " is on flash sale and can only be bought through its purchase queue");
+        }
 
         // Retrieve any existing cart item for this product
         CartItem cartItem = cartItemRepository.findByUser(user)
@@ -82,10 +93,9 @@ public class CartService {
             newQuantity += cartItem.getQuantity();
         }
 
-        // Validate available stock
-        if (newQuantity > product.getQuantity()) {
-            throw new InsufficientStockException("Insufficient stock for product: " + product.getName());
-        }
+        // Hold the whole cart line; throws InsufficientStockException when other carts hold the rest.
+        // If saving the cart item fails below, the reservation simply expires.
+        stockReservationService.reserve(user.getId(), product, newQuantity);
 
         // Create or update the cart item accordingly
         if (cartItem == null) {
@@ -122,6 +132,7 @@ public class CartService {
             throw new RuntimeException("Unauthorized: You cannot modify another user's cart.");
         }
         cartItemRepository.deleteByUserAndProductId(user, productId);
+        stockReservationService.release(user.getId(), productId);
     }
 
     // ✅ Clear entire cart
@@ -133,5 +144,6 @@ public class CartService {
         }
         List<CartItem> cartItems = cartItemRepository.findByUser(user);
         cartItemRepository.deleteAll(cartItems);
+        cartItems.forEach(item -> stockReservationService.release(user.getId(), item.getProduct().getId()));
     }
 }
@@ -3,6 +3,8 @@ package com.example.ShopiShop.service;
 import com.example.ShopiShop.dto.ApiResponse;
 import com.example.ShopiShop.dto.CategoryRequest;
 import com.example.ShopiShop.dto.CategoryResponse;
+import com.example.ShopiShop.dto.SectionResponse;
+import com.example.ShopiShop.events.TaxonomyChangedEvent;
 import com.example.ShopiShop.exceptions.ResourceNotFoundException;
 import com.example.ShopiShop.models.Category;
 import com.example.ShopiShop.models.Section;
@@ -12,6 +14,7 @@ import com.example.ShopiShop.repositories.SectionRepository;
 import jakarta.transaction.Transactional;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
@@ -23,6 +26,8 @@ public class CategoryService {
 
     private final CategoryRepository categoryRepository;
     private final SectionRepository sectionRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TaxonomyService taxonomyService;
 
     @Transactional
     public ApiResponse<CategoryResponse> createCategory(@Valid CategoryRequest request) {
@@ -41,6 +46,7 @@ public class CategoryService {
                 .build();
 
         Category savedCategory = categoryRepository.save(category);
+        eventPublisher.publishEvent(new TaxonomyChangedEvent());
 
         return new ApiResponse<>(true, "Category created successfully",
                 new CategoryResponse(
@@ -52,14 +58,7 @@ public class CategoryService {
     }
 
     public ApiResponse<List<CategoryResponse>> getAllCategories() {
-        List<CategoryResponse> categories = categoryRepository.findAll().stream()
-                .map(category -> new CategoryResponse(
-                        category.getId(),
-                        category.getName(),
-                        category.getImageUrl(),
-                        category.getSection().getId()
-                ))
-                .toList();
+        List<CategoryResponse> categories = taxonomyService.snapshot().categories();
 
         if (categories.isEmpty()) {
             return new ApiResponse<>(true, "No categories found", List.of());
@@ -69,27 +68,23 @@ public class CategoryService {
     }
 
     public ApiResponse<CategoryResponse> getCategoryById(UUID id) {
-        Category category = categoryRepository.findById(id)
-                .orElseThrow(() -> new ResourceNotFoundException("Category not found"));
+        CategoryResponse category = taxonomyService.snapshot().category(id);
+        if (category == null) {
+            throw new ResourceNotFoundException("Category not found");
+        }
 
-        return new ApiResponse<>(true, "Category retrieved successfully",
-                new CategoryResponse(category.getId(), category.getName(),
-                        category.getImageUrl(), category.getSection().getId()));
+        return new ApiResponse<>(true, "Category retrieved successfully", category);
     }
 
     // ✅ Fetch Categories by Section Name
     public ApiResponse<List<CategoryResponse>> getCategoriesBySectionName(String sectionName) {
-        Section section = sectionRepository.findByName(sectionName)
-                .orElseThrow(() -> new ResourceNotFoundException("Section not found"));
+        TaxonomySnapshot taxonomy = taxonomyService.snapshot();
+        SectionResponse section = taxonomy.sectionNamed(sectionName);
+        if (section == null) {
+            throw new ResourceNotFoundException("Section not found");
+        }
 
-        List<CategoryResponse> categories = categoryRepository.findBySection(section).stream()
-                .map(category -> new CategoryResponse(
-                        category.getId(),
-                        category.getName(),
-                        category.getImageUrl(),
-                        category.getSection().getId()
-                ))
-                .toList();
+        List<CategoryResponse> categories = taxonomy.categoriesOf(section.id());
 
         if (categories.isEmpty()) {
             return new ApiResponse<>(true, "No categories found for this section", List.of());
@@ -104,6 +99,7 @@ public class CategoryService {
             return new ApiResponse<>(false, "Category not found", null);
         }
         categoryRepository.deleteByName(categoryName);
+        eventPublisher.publishEvent(new TaxonomyChangedEvent());
         return new ApiResponse<>(true, "Category deleted successfully", null);
     }
 }
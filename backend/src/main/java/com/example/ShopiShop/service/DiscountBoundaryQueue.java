@@ -0,0 +1,104 @@
+package com.example.ShopiShop.service;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.UUID;
+
+/**
+ * Upcoming discount boundaries, ordered by day: the day a product's discount
+ * window opens and the day after its last day. Discount dates are whole days,
+ * so products are bucketed per day and finding out whether anything is due
+ * is a peek at the earliest bucket.
+ * <p>
+ * Entries are hints, not state: whoever polls one re-checks the product, so
+ * a stale boundary costs a query and nothing else.
+ */
+public class DiscountBoundaryQueue {
+
+    private final TreeMap<LocalDate, Set<UUID>> byDay = new TreeMap<>();
+    // Each product's pending days, so rescheduling can drop the old ones
+    private final Map<UUID, List<LocalDate>> byProduct = new HashMap<>();
+
+    // Replaces whatever was scheduled for the product. Both dates inclusive, either may be null.
+    public synchronized void schedule(UUID productId, LocalDate start, LocalDate end, LocalDate today) {
+        remove(productId);
+        add(productId, start, end, today);
+    }
+
+    // For bulk loads, which may have read the product before a newer schedule() call
+    public synchronized void scheduleIfAbsent(UUID productId, LocalDate start, LocalDate end, LocalDate today) {
+        if (!byProduct.containsKey(productId)) {
+            add(productId, start, end, today);
+        }
+    }
+
+    public synchronized void remove(UUID productId) {
+        List<LocalDate> days = byProduct.remove(productId);
+        if (days == null) {
+            return;
+        }
+        for (LocalDate day : days) {
+            Set<UUID> products = byDay.get(day);
+            if (products != null && products.remove(productId) && products.isEmpty()) {
+                byDay.remove(day);
+            }
+        }
+    }
+
+    // Puts a polled product back as due on the given day, next to any boundaries it has since been given
+    public synchronized void retry(UUID productId, LocalDate day) {
+        List<LocalDate> days = byProduct.computeIfAbsent(productId, id -> new ArrayList<>(2));
+        if (!days.contains(day)) {
+            days.add(day);
+            byDay.computeIfAbsent(day, d -> new HashSet<>()).add(productId);
+        }
+    }
+
+    // Removes and returns every product with a boundary on or before today
+    public synchronized Set<UUID> pollDue(LocalDate today) {
+        Set<UUID> due = new HashSet<>();
+        while (!byDay.isEmpty() && !byDay.firstKey().isAfter(today)) {
+            Map.Entry<LocalDate, Set<UUID>> first = byDay.pollFirstEntry();
+            for (UUID productId : first.getValue()) {
+                due.add(productId);
+                List<LocalDate> days = byProduct.get(productId);
+                days.remove(first.getKey());
+                if (days.isEmpty()) {
+                    byProduct.remove(productId);
+                }
+            }
+        }
+        return due;
+    }
+
+    // Null when nothing is scheduled
+    public synchronized LocalDate nextBoundary() {
+        return byDay.isEmpty() ? null : byDay.firstKey();
+    }
+
+    // Products with at least one pending boundary
+    public synchronized int size() {
+        return byProduct.size();
+    }
+
+    private void add(UUID productId, LocalDate start, LocalDate end, LocalDate today) {
+        List<LocalDate> days = new ArrayList<>(2);
+        if (start != null && start.isAfter(today)) {
+            days.add(start);
+        }
+        if (end != null && !end.isBefore(today)) {
+            days.add(end.plusDays(1));
+        }
+        if (days.isEmpty()) {
+            return;
+        }
+        days.forEach(day -> byDay.computeIfAbsent(day, d -> new HashSet<>()).add(productId));
+        byProduct.put(productId, days);
+    }
+}
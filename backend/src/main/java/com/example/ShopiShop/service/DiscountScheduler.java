@@ -0,0 +1,129 @@
+package com.example.ShopiShop.service;
+
+import com.example.ShopiShop.events.ProductChangedEvent;
+import com.example.ShopiShop.repositories.DiscountWindowView;
+import com.example.ShopiShop.repositories.ProductRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Switches discounts on the day their window opens and off the day after it
+ * closes. Upcoming boundaries live in a {@link DiscountBoundaryQueue}, loaded
+ * at startup and kept current by applyDiscount/removeDiscount, so the periodic
+ * check is a peek at the earliest day. Due products are switched with
+ * set-based conditional updates, and only those products are announced
+ * through {@link ProductChangedEvent} for cache invalidation.
+ */
+@Slf4j
+@Service
+public class DiscountScheduler {
+
+    private static final int LOAD_BATCH_SIZE = 5000;
+    // Ids per UPDATE
+    private static final int SWITCH_CHUNK_SIZE = 500;
+
+    private final ProductRepository productRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate transactionTemplate;
+    private final DiscountBoundaryQueue queue = new DiscountBoundaryQueue();
+
+    public DiscountScheduler(ProductRepository productRepository, ApplicationEventPublisher eventPublisher,
+                             PlatformTransactionManager transactionManager) {
+        this.productRepository = productRepository;
+        this.eventPublisher = eventPublisher;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadOnStartup() {
+        CompletableFuture.runAsync(this::load)
+                .exceptionally(ex -> {
+                    log.error("Discount schedule load failed", ex);
+                    return null;
+                });
+    }
+
+    public void load() {
+        long start = System.currentTimeMillis();
+        LocalDate today = LocalDate.now();
+        // Boundaries passed while the application was down
+        switchDiscounts(productRepository.findDiscountIdsToSwitch(today), today);
+
+        UUID lastId = null;
+        List<DiscountWindowView> batch;
+        do {
+            batch = productRepository.findDiscountWindowsAfter(today, lastId, PageRequest.of(0, LOAD_BATCH_SIZE));
+            batch.forEach(view -> queue.scheduleIfAbsent(
+                    view.getId(), view.getDiscountStartDate(), view.getDiscountEndDate(), today));
+            if (!batch.isEmpty()) {
+                lastId = batch.get(batch.size() - 1).getId();
+            }
+        } while (batch.size() == LOAD_BATCH_SIZE);
+
+        log.info("Discount schedule loaded: {} products, next boundary {}, in {} ms",
+                queue.size(), queue.nextBoundary(), System.currentTimeMillis() - start);
+    }
+
+    @Scheduled(fixedDelayString = "${shop.discounts.boundary-check-ms:60000}")
+    public void switchDueDiscounts() {
+        LocalDate today = LocalDate.now();
+        Set<UUID> due = queue.pollDue(today);
+        if (!due.isEmpty()) {
+            switchDiscounts(due, today);
+        }
+    }
+
+    // Called when a product's discount window is set; replaces its earlier boundaries
+    public void schedule(UUID productId, LocalDate startDate, LocalDate endDate) {
+        queue.schedule(productId, startDate, endDate, LocalDate.now());
+    }
+
+    public void unschedule(UUID productId) {
+        queue.remove(productId);
+    }
+
+    private void switchDiscounts(Collection<UUID> productIds, LocalDate today) {
+        List<UUID> ids = List.copyOf(productIds);
+        int switched = 0;
+        for (int from = 0; from < ids.size(); from += SWITCH_CHUNK_SIZE) {
+            List<UUID> chunk = ids.subList(from, Math.min(from + SWITCH_CHUNK_SIZE, ids.size()));
+            List<UUID> changing;
+            int[] count = new int[1];
+            try {
+                // One transaction, so a retried chunk is never half switched and half announced
+                changing = transactionTemplate.execute(status -> {
+                    List<UUID> due = productRepository.findDiscountIdsToSwitch(chunk, today);
+                    if (!due.isEmpty()) {
+                        count[0] = productRepository.switchDiscountsOn(due, today)
+                                + productRepository.switchDiscountsOff(due, today);
+                    }
+                    return due;
+                });
+            } catch (RuntimeException e) {
+                // Due again at the next check rather than at the next startup
+                log.error("Failed to switch discounts of {} products for {}, retrying", chunk.size(), today, e);
+                chunk.forEach(id -> queue.retry(id, today));
+                continue;
+            }
+            switched += count[0];
+            changing.forEach(id -> eventPublisher.publishEvent(ProductChangedEvent.changed(id)));
+        }
+        if (switched > 0) {
+            log.info("Switched {} discounts for {}", switched, today);
+        }
+    }
+}
@@ -1,142 +1,250 @@
 package com.example.ShopiShop.service;
 
-import com.example.ShopiShop.enums.DiscountType;
+import com.example.ShopiShop.events.ProductChangedEvent;
+import com.example.ShopiShop.events.ProductsImportedEvent;
+import com.example.ShopiShop.events.ProductsRepricedEvent;
+import com.example.ShopiShop.events.ProductsSoldEvent;
+import com.example.ShopiShop.events.RatingsBackfilledEvent;
 import com.example.ShopiShop.models.Product;
+import com.example.ShopiShop.repositories.ProductPriceView;
 import com.example.ShopiShop.repositories.ProductRepository;
-import com.github.benmanes.caffeine.cache.Cache;
-import com.github.benmanes.caffeine.cache.Caffeine;
-import lombok.RequiredArgsConstructor;
-import org.springframework.scheduling.annotation.Scheduled;
+import com.example.ShopiShop.utils.PricingEngine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
-import java.util.HashMap;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
-import java.util.concurrent.TimeUnit;
-
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Prices products from an {@link EffectivePriceTable} holding the whole
+ * catalog. The table is loaded at startup and kept current by the product
+ * events; entries hold the discount window rather than a price for today,
+ * so date boundaries need no refresh. Only committed rows are written to
+ * it: a product the table has at another version than the caller's row,
+ * which may carry uncommitted changes, is priced from the row itself.
+ */
+@Slf4j
 @Service
-@RequiredArgsConstructor
 public class DiscountService {
+
+    private static final int LOAD_BATCH_SIZE = 5000;
+
     private final ProductRepository productRepository;
+    private final EffectivePriceTable priceTable = new EffectivePriceTable();
+    private final DistributionSummary batchSizes;
+    private final Counter tableHits;
+    private final Counter tableMisses;
+
+    public DiscountService(ProductRepository productRepository, MeterRegistry meterRegistry) {
+        this.productRepository = productRepository;
+        this.batchSizes = DistributionSummary.builder("pricing.batch.size")
+                .description("Products priced per call")
+                .register(meterRegistry);
+        this.tableHits = Counter.builder("pricing.table.lookups").tag("result", "hit").register(meterRegistry);
+        this.tableMisses = Counter.builder("pricing.table.lookups").tag("result", "miss").register(meterRegistry);
+        Gauge.builder("pricing.table.size", priceTable, EffectivePriceTable::size)
+                .description("Products in the effective-price table")
+                .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadOnStartup() {
+        CompletableFuture.runAsync(this::load)
+                .exceptionally(ex -> {
+                    log.error("Effective-price table load failed", ex);
+                    return null;
+                });
+    }
+
+    public void load() {
+        long start = System.currentTimeMillis();
+        UUID lastId = null;
+        List<ProductPriceView> batch;
+        do {
+            batch = productRepository.findPriceBatchAfter(lastId, PageRequest.of(0, LOAD_BATCH_SIZE));
+            batch.forEach(this::store);
+            if (!batch.isEmpty()) {
+                lastId = batch.get(batch.size() - 1).getId();
+            }
+        } while (batch.size() == LOAD_BATCH_SIZE);
+
+        log.info("Effective-price table loaded: {} products in {} ms",
+                priceTable.size(), System.currentTimeMillis() - start);
+    }
 
-    // Cache for active discounts (productId -> effectivePrice)
-    private final Cache<UUID, BigDecimal> discountCache =
-            Caffeine.newBuilder()
-                    .expireAfterWrite(1, TimeUnit.HOURS)
-                    .maximumSize(1000)
-                    .build();
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        if (event.deleted()) {
+            priceTable.remove(event.productId());
+            return;
+        }
+        reload(List.of(event.productId()));
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onProductsRepriced(ProductsRepricedEvent event) {
+        reload(event.productIds());
+    }
+
+    // A sale only moves the stock, which decides minimum-quantity discounts; products changed since are reloaded
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onProductsSold(ProductsSoldEvent event) {
+        List<UUID> stale = event.sales().stream()
+                .filter(sale -> !priceTable.updateStock(sale.productId(), sale.version(), sale.quantity()))
+                .map(ProductsSoldEvent.Sale::productId)
+                .toList();
+        reload(stale);
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onProductsImported(ProductsImportedEvent event) {
+        reload(event.productIds());
+    }
+
+    // Prices are unchanged, but every entry is keyed by a row version that no longer exists
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onRatingsBackfilled(RatingsBackfilledEvent event) {
+        load();
+    }
 
     /**
      * Calculates the effective price considering active discounts
      */
     public BigDecimal calculateEffectivePrice(Product product) {
-        // Check cache first
-        BigDecimal cachedPrice = discountCache.getIfPresent(product.getId());
-        if (cachedPrice != null) {
-            return cachedPrice;
-        }
-
-        // If no active discount or dates invalid, return regular price
-        if (!isDiscountApplicable(product)) {
-            return product.getPrice();
-        }
+        batchSizes.record(1);
+        return PricingEngine.toAmount(effectiveCents(product, LocalDate.now()));
+    }
 
-        // Calculate discount price
-        BigDecimal effectivePrice = calculateDiscountedPrice(product);
+    /**
+     * Effective prices of a page of products, keyed by product id in the
+     * order given. One date is used for the whole batch.
+     */
+    public Map<UUID, BigDecimal> calculateBulkEffectivePrices(Collection<Product> products) {
+        LocalDate today = LocalDate.now();
+        batchSizes.record(products.size());
 
-        // Cache the result
-        discountCache.put(product.getId(), effectivePrice);
+        Map<UUID, BigDecimal> results = new LinkedHashMap<>();
+        for (Product product : products) {
+            results.put(product.getId(), PricingEngine.toAmount(effectiveCents(product, today)));
+        }
+        return results;
+    }
 
-        return effectivePrice;
+    // Same, for products not loaded yet; served from the table, unknown ids are left out
+    public Map<UUID, BigDecimal> calculateEffectivePricesByIds(Collection<UUID> productIds) {
+        LocalDate today = LocalDate.now();
+        batchSizes.record(productIds.size());
+
+        Map<UUID, BigDecimal> results = new LinkedHashMap<>();
+        List<UUID> missing = new ArrayList<>();
+        for (UUID id : productIds) {
+            long cents = priceTable.effectiveCents(id, today);
+            if (cents == EffectivePriceTable.MISSING) {
+                missing.add(id);
+                results.put(id, null);
+            } else {
+                results.put(id, PricingEngine.toAmount(cents));
+            }
+        }
+        if (!missing.isEmpty()) {
+            tableMisses.increment(missing.size());
+            for (Product product : productRepository.findAllById(missing)) {
+                results.put(product.getId(), PricingEngine.toAmount(computeCents(product, today)));
+            }
+            results.values().removeIf(price -> price == null);
+        }
+        tableHits.increment(productIds.size() - missing.size());
+        return results;
     }
 
     /**
      * Checks if discount should be applied to a product
      */
     public boolean isDiscountApplicable(Product product) {
+        return isDiscountApplicable(product, LocalDate.now());
+    }
+
+    private static boolean isDiscountApplicable(Product product, LocalDate today) {
         if (!product.getDiscountActive() || product.getDiscountPrice() == null) {
             return false;
         }
 
-        LocalDate now = LocalDate.now();
-        boolean isDateValid = (product.getDiscountStartDate() == null || !now.isBefore(product.getDiscountStartDate())) &&
-                (product.getDiscountEndDate() == null || !now.isAfter(product.getDiscountEndDate()));
+        boolean isDateValid = PricingEngine.inWindow(
+                product.getDiscountStartDate(), product.getDiscountEndDate(), today);
 
         return isDateValid && product.getQuantity() >= product.getDiscountMinQuantity();
     }
 
     /**
-     * Calculates the discounted price based on discount type
+     * Calculates the discounted price based on discount type, in whole cents (see PricingEngine)
      */
     public BigDecimal calculateDiscountedPrice(Product product) {
-        if (product.getDiscountType() == DiscountType.PERCENTAGE) {
-            BigDecimal discountAmount = product.getPrice()
-                    .multiply(product.getDiscountValue())
-                    .divide(BigDecimal.valueOf(100));
-            return product.getPrice().subtract(discountAmount).max(BigDecimal.ZERO);
-        } else {
-            // Fixed amount discount
-            return product.getPrice().subtract(product.getDiscountValue()).max(BigDecimal.ZERO);
-        }
+        return PricingEngine.toAmount(calculateDiscountedCents(product));
     }
 
-    /**
-     * Scheduled job to update discount statuses
-     */
-    @Scheduled(cron = "0 0 * * * *") // Run every hour
-    public void updateDiscountStatuses() {
-        LocalDate now = LocalDate.now();
-        List<Product> productsWithDiscounts = productRepository.findByDiscountActiveTrue();
-
-        productsWithDiscounts.forEach(product -> {
-            boolean shouldBeActive = (product.getDiscountStartDate() == null || !now.isBefore(product.getDiscountStartDate())) &&
-                    (product.getDiscountEndDate() == null || !now.isAfter(product.getDiscountEndDate()));
-
-            if (product.getDiscountActive() != shouldBeActive) {
-                product.setDiscountActive(shouldBeActive);
-                productRepository.save(product);
-                discountCache.invalidate(product.getId());
-            }
-        });
+    public long calculateDiscountedCents(Product product) {
+        return PricingEngine.discountedCents(
+                PricingEngine.toCents(product.getPrice()),
+                product.getDiscountType(),
+                PricingEngine.toCents(product.getDiscountValue()));
     }
 
-    /**
-     * Clears discount cache for a specific product
-     */
-    public void clearDiscountCache(UUID productId) {
-        discountCache.invalidate(productId);
+    private long effectiveCents(Product product, LocalDate today) {
+        if (product.getId() == null) {
+            return computeCents(product, today);
+        }
+        int version = product.getVersion() != null ? product.getVersion() : 0;
+        int quantity = product.getQuantity() != null ? product.getQuantity() : 0;
+        long cents = priceTable.effectiveCents(product.getId(), version, quantity, today);
+        if (cents != EffectivePriceTable.MISSING) {
+            tableHits.increment();
+            return cents;
+        }
+        tableMisses.increment();
+        return computeCents(product, today);
     }
 
-    public Map<UUID, BigDecimal> calculateBulkEffectivePrices(List<Product> products) {
-        Map<UUID, BigDecimal> results = new HashMap<>();
-        LocalDate now = LocalDate.now();
-
-        products.forEach(product -> {
-            // Check cache first
-            BigDecimal cachedPrice = discountCache.getIfPresent(product.getId());
-            if (cachedPrice != null) {
-                results.put(product.getId(), cachedPrice);
-                return;
-            }
-
-            // Calculate fresh price
-            BigDecimal effectivePrice = product.getPrice();
-
-            if (product.getDiscountActive() &&
-                    product.getDiscountPrice() != null &&
-                    (product.getDiscountStartDate() == null || !now.isBefore(product.getDiscountStartDate())) &&
-                    (product.getDiscountEndDate() == null || !now.isAfter(product.getDiscountEndDate()))) {
-
-                effectivePrice = calculateDiscountedPrice(product);
-                discountCache.put(product.getId(), effectivePrice);
-            }
+    private long computeCents(Product product, LocalDate today) {
+        return isDiscountApplicable(product, today)
+                ? calculateDiscountedCents(product)
+                : PricingEngine.toCents(product.getPrice());
+    }
 
-            results.put(product.getId(), effectivePrice);
-        });
+    private void reload(List<UUID> ids) {
+        for (int from = 0; from < ids.size(); from += LOAD_BATCH_SIZE) {
+            productRepository.findPricesByIdIn(ids.subList(from, Math.min(from + LOAD_BATCH_SIZE, ids.size())))
+                    .forEach(this::store);
+        }
+    }
 
-        return results;
+    private void store(ProductPriceView view) {
+        boolean discounted = Boolean.TRUE.equals(view.getDiscountActive()) && view.getDiscountPrice() != null;
+        priceTable.put(view.getId(),
+                view.getVersion() != null ? view.getVersion() : 0,
+                PricingEngine.toCents(view.getPrice()),
+                discounted
+                        ? PricingEngine.discountedCents(PricingEngine.toCents(view.getPrice()),
+                                view.getDiscountType(), PricingEngine.toCents(view.getDiscountValue()))
+                        : EffectivePriceTable.NO_DISCOUNT,
+                view.getDiscountStartDate(),
+                view.getDiscountEndDate(),
+                view.getDiscountMinQuantity() != null ? view.getDiscountMinQuantity() : 1,
+                view.getQuantity() != null ? view.getQuantity() : 0);
     }
-}
\ No newline at end of file
+}
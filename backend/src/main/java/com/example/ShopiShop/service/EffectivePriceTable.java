@@ -0,0 +1,265 @@
+package com.example.ShopiShop.service;
+
+import java.time.LocalDate;
+import java.util.UUID;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * Everything an effective price depends on, for every product, in parallel
+ * primitive arrays: an open-addressing hash table keyed by the two halves
+ * of the product id. Entries carry the discount window as epoch days, so a
+ * lookup decides the price for any date and nothing goes stale at midnight;
+ * an entry only changes when its product does.
+ * <p>
+ * Each entry records the product row version it was built from. Writes of an
+ * older version than the one held are ignored, so a slow reload cannot undo
+ * a newer change. Readers take an optimistic stamp and only lock when a
+ * write overlapped the read.
+ */
+public class EffectivePriceTable {
+
+    // Returned when the product is not in the table (or not at the version asked for)
+    public static final long MISSING = -1;
+    // Discount cents of a product without an active discount
+    public static final long NO_DISCOUNT = -1;
+
+    private static final int INITIAL_CAPACITY = 1024;
+    private static final byte EMPTY = 0;
+    private static final byte FULL = 1;
+    private static final byte REMOVED = 2;
+
+    // Swapped whole on resize, so a reader always sees arrays of one size
+    private static final class Slots {
+        final byte[] state;
+        final long[] idHigh;
+        final long[] idLow;
+        final int[] version;
+        final long[] priceCents;
+        final long[] discountCents;
+        // Inclusive epoch days; MIN_VALUE and MAX_VALUE for an open side
+        final int[] fromDay;
+        final int[] untilDay;
+        final int[] minQuantity;
+        final int[] quantity;
+
+        Slots(int capacity) {
+            state = new byte[capacity];
+            idHigh = new long[capacity];
+            idLow = new long[capacity];
+            version = new int[capacity];
+            priceCents = new long[capacity];
+            discountCents = new long[capacity];
+            fromDay = new int[capacity];
+            untilDay = new int[capacity];
+            minQuantity = new int[capacity];
+            quantity = new int[capacity];
+        }
+    }
+
+    private final StampedLock lock = new StampedLock();
+    private Slots slots = new Slots(INITIAL_CAPACITY);
+    private int size;
+    // Full and removed slots; probing stops only at an empty one
+    private int used;
+
+    /**
+     * Effective price of the product at its current stock, or {@link #MISSING}.
+     */
+    public long effectiveCents(UUID productId, LocalDate day) {
+        return lookup(productId, -1, -1, day.toEpochDay());
+    }
+
+    /**
+     * Effective price for a product row the caller already holds, at that row's
+     * stock, or {@link #MISSING} when the table has another version of it.
+     */
+    public long effectiveCents(UUID productId, int version, int quantity, LocalDate day) {
+        return lookup(productId, version, quantity, day.toEpochDay());
+    }
+
+    /**
+     * Stores a product's pricing unless a newer version is already held.
+     *
+     * @param discountCents the discounted price, or {@link #NO_DISCOUNT}
+     * @param from          first day of the discount window, null if open
+     * @param until         last day of the discount window, null if open
+     */
+    public void put(UUID productId, int version, long priceCents, long discountCents,
+                    LocalDate from, LocalDate until, int minQuantity, int quantity) {
+        long high = productId.getMostSignificantBits();
+        long low = productId.getLeastSignificantBits();
+        long stamp = lock.writeLock();
+        try {
+            if ((used + 1) * 4L > slots.state.length * 3L) {
+                resize();
+            }
+            Slots s = slots;
+            int slot = find(s, high, low);
+            if (slot >= 0) {
+                if (s.version[slot] > version) {
+                    return;
+                }
+            } else {
+                slot = insertionSlot(s, high, low);
+                if (s.state[slot] == EMPTY) {
+                    used++;
+                }
+                s.state[slot] = FULL;
+                s.idHigh[slot] = high;
+                s.idLow[slot] = low;
+                size++;
+            }
+            s.version[slot] = version;
+            s.priceCents[slot] = priceCents;
+            s.discountCents[slot] = discountCents;
+            s.fromDay[slot] = from != null ? (int) from.toEpochDay() : Integer.MIN_VALUE;
+            s.untilDay[slot] = until != null ? (int) until.toEpochDay() : Integer.MAX_VALUE;
+            s.minQuantity[slot] = minQuantity;
+            s.quantity[slot] = quantity;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Moves an entry to the next version when that version only changed the
+     * stock, as a sale does.
+     *
+     * @return false if the table doesn't hold the version just before, in
+     * which case the caller should reload the product
+     */
+    public boolean updateStock(UUID productId, int version, int quantity) {
+        long stamp = lock.writeLock();
+        try {
+            Slots s = slots;
+            int slot = find(s, productId.getMostSignificantBits(), productId.getLeastSignificantBits());
+            if (slot < 0) {
+                return false;
+            }
+            if (s.version[slot] >= version) {
+                return true;
+            }
+            if (s.version[slot] != version - 1) {
+                return false;
+            }
+            s.version[slot] = version;
+            s.quantity[slot] = quantity;
+            return true;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    public void remove(UUID productId) {
+        long stamp = lock.writeLock();
+        try {
+            Slots s = slots;
+            int slot = find(s, productId.getMostSignificantBits(), productId.getLeastSignificantBits());
+            if (slot >= 0) {
+                s.state[slot] = REMOVED;
+                size--;
+            }
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    public int size() {
+        long stamp = lock.readLock();
+        try {
+            return size;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    // A version or quantity of -1 means whatever the table holds
+    private long lookup(UUID productId, int version, int quantity, long day) {
+        long high = productId.getMostSignificantBits();
+        long low = productId.getLeastSignificantBits();
+        long stamp = lock.tryOptimisticRead();
+        long result = read(slots, high, low, version, quantity, day);
+        if (lock.validate(stamp)) {
+            return result;
+        }
+        stamp = lock.readLock();
+        try {
+            return read(slots, high, low, version, quantity, day);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    private static long read(Slots s, long high, long low, int version, int quantity, long day) {
+        int slot = find(s, high, low);
+        if (slot < 0 || (version >= 0 && s.version[slot] != version)) {
+            return MISSING;
+        }
+        long discount = s.discountCents[slot];
+        int stock = quantity >= 0 ? quantity : s.quantity[slot];
+        boolean discounted = discount != NO_DISCOUNT
+                && s.fromDay[slot] <= day && day <= s.untilDay[slot]
+                && stock >= s.minQuantity[slot];
+        return discounted ? discount : s.priceCents[slot];
+    }
+
+    // Slot holding the id, or -1. Bounded, since a torn optimistic read may see no empty slot.
+    private static int find(Slots s, long high, long low) {
+        int mask = s.state.length - 1;
+        int slot = hash(high, low) & mask;
+        for (int probes = 0; probes <= mask; probes++) {
+            byte state = s.state[slot];
+            if (state == EMPTY) {
+                return -1;
+            }
+            if (state == FULL && s.idHigh[slot] == high && s.idLow[slot] == low) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    // First removed or empty slot on the id's probe path; the id is known to be absent
+    private static int insertionSlot(Slots s, long high, long low) {
+        int mask = s.state.length - 1;
+        int slot = hash(high, low) & mask;
+        while (s.state[slot] == FULL) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private void resize() {
+        Slots old = slots;
+        // Grow only if live entries need it; otherwise this just clears out removed slots
+        int capacity = size * 2L > old.state.length ? old.state.length * 2 : old.state.length;
+        Slots grown = new Slots(capacity);
+        for (int i = 0; i < old.state.length; i++) {
+            if (old.state[i] != FULL) {
+                continue;
+            }
+            int slot = insertionSlot(grown, old.idHigh[i], old.idLow[i]);
+            grown.state[slot] = FULL;
+            grown.idHigh[slot] = old.idHigh[i];
+            grown.idLow[slot] = old.idLow[i];
+            grown.version[slot] = old.version[i];
+            grown.priceCents[slot] = old.priceCents[i];
+            grown.discountCents[slot] = old.discountCents[i];
+            grown.fromDay[slot] = old.fromDay[i];
+            grown.untilDay[slot] = old.untilDay[i];
+            grown.minQuantity[slot] = old.minQuantity[i];
+            grown.quantity[slot] = old.quantity[i];
+        }
+        slots = grown;
+        used = size;
+    }
+
+    private static int hash(long high, long low) {
+        long h = high ^ low;
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        return (int) h;
+    }
+}
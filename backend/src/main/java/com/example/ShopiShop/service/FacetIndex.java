@@ -0,0 +1,536 @@
+package com.example.ShopiShop.service;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory faceted filtering over the catalog.
+ * <p>
+ * Each product gets a dense ordinal, reused after deletes, and at most one
+ * value per facet. For every facet value the index keeps the set of ordinals
+ * carrying it, stored as a sorted
+ * int array while sparse and as a bitmap once dense (the same split roaring
+ * bitmaps make). A query ORs the selected values within a facet and ANDs the
+ * facets together. Each facet is counted against the other facets' filters
+ * only, so picking one store still shows how many products the other stores
+ * have.
+ */
+public class FacetIndex {
+
+    // Values returned per facet, most frequent first
+    private static final int MAX_FACET_VALUES = 50;
+
+    public enum Facet {
+        SECTION,
+        CATEGORY,
+        STORE,
+        PRICE,
+        DISCOUNT,
+        STOCK,
+        RATING
+    }
+
+    public enum Sort {
+        POPULAR,
+        NEWEST
+    }
+
+    public record FacetValue(String value, String label) {
+    }
+
+    public record Document(UUID id, long popularity, long createdAt, Map<Facet, FacetValue> values) {
+    }
+
+    public record FacetCount(String value, String label, int count) {
+    }
+
+    public record Result(List<UUID> ids, int total, Map<Facet, List<FacetCount>> facets) {
+    }
+
+    /**
+     * Set of ordinals: a sorted int array while it holds fewer than one
+     * ordinal in 32, a bitmap over the whole ordinal range after that.
+     */
+    static final class DocSet {
+        private int[] members = new int[4];
+        private int size;
+        private long[] words; // non-null in bitmap mode
+
+        int cardinality() {
+            return size;
+        }
+
+        void add(int ordinal, int universe) {
+            if (words != null) {
+                ensureWords(universe);
+                long mask = 1L << ordinal;
+                if ((words[ordinal >>> 6] & mask) == 0) {
+                    words[ordinal >>> 6] |= mask;
+                    size++;
+                }
+                return;
+            }
+            // Bulk loads add ordinals in increasing order, so check the tail first
+            int index = size > 0 && members[size - 1] < ordinal ? -size - 1 : Arrays.binarySearch(members, 0, size, ordinal);
+            if (index >= 0) {
+                return;
+            }
+            int insertAt = -index - 1;
+            if (size == members.length) {
+                members = Arrays.copyOf(members, size * 2);
+            }
+            System.arraycopy(members, insertAt, members, insertAt + 1, size - insertAt);
+            members[insertAt] = ordinal;
+            size++;
+            if (size > 64 && size > universe >>> 5) {
+                toBitmap(universe);
+            }
+        }
+
+        void remove(int ordinal, int universe) {
+            if (words != null) {
+                if (ordinal >>> 6 < words.length && (words[ordinal >>> 6] & (1L << ordinal)) != 0) {
+                    words[ordinal >>> 6] &= ~(1L << ordinal);
+                    size--;
+                    // Back to an array well below the conversion point, so a set doesn't flip back and forth
+                    if (size < universe >>> 6) {
+                        toArray();
+                    }
+                }
+                return;
+            }
+            int index = Arrays.binarySearch(members, 0, size, ordinal);
+            if (index >= 0) {
+                System.arraycopy(members, index + 1, members, index, size - index - 1);
+                size--;
+            }
+        }
+
+        void orInto(long[] target) {
+            if (words != null) {
+                int n = Math.min(words.length, target.length);
+                for (int i = 0; i < n; i++) {
+                    target[i] |= words[i];
+                }
+            } else {
+                for (int i = 0; i < size; i++) {
+                    target[members[i] >>> 6] |= 1L << members[i];
+                }
+            }
+        }
+
+        int andCardinality(long[] filter) {
+            int count = 0;
+            if (words != null) {
+                int n = Math.min(words.length, filter.length);
+                for (int i = 0; i < n; i++) {
+                    count += Long.bitCount(words[i] & filter[i]);
+                }
+            } else {
+                for (int i = 0; i < size; i++) {
+                    int ordinal = members[i];
+                    if ((filter[ordinal >>> 6] & (1L << ordinal)) != 0) {
+                        count++;
+                    }
+                }
+            }
+            return count;
+        }
+
+        private void ensureWords(int universe) {
+            int needed = (universe + 63) >>> 6;
+            if (words.length < needed) {
+                words = Arrays.copyOf(words, Math.max(needed, words.length * 2));
+            }
+        }
+
+        private void toBitmap(int universe) {
+            words = new long[(universe + 63) >>> 6];
+            for (int i = 0; i < size; i++) {
+                words[members[i] >>> 6] |= 1L << members[i];
+            }
+            members = null;
+        }
+
+        private void toArray() {
+            members = new int[Math.max(4, size)];
+            int i = 0;
+            for (int word = 0; word < words.length; word++) {
+                long bits = words[word];
+                while (bits != 0) {
+                    members[i++] = (word << 6) + Long.numberOfTrailingZeros(bits);
+                    bits &= bits - 1;
+                }
+            }
+            words = null;
+        }
+    }
+
+    /**
+     * The values of one facet, numbered densely so per-query tallies are
+     * plain int arrays. Ids are never reused; a value whose set runs empty
+     * just stops showing up in counts.
+     */
+    private static final class FacetField {
+        final Map<String, Integer> valueIds = new HashMap<>();
+        final List<String> values = new ArrayList<>();
+        final List<String> labels = new ArrayList<>();
+        final List<DocSet> docs = new ArrayList<>();
+        // valueOf[ordinal] is the value id of that product, -1 if it has none
+        int[] valueOf = new int[0];
+        // Products having a value, to pick the cheaper way of counting
+        int assignments;
+
+        int idFor(FacetValue value) {
+            Integer id = valueIds.get(value.value());
+            if (id == null) {
+                id = values.size();
+                valueIds.put(value.value(), id);
+                values.add(value.value());
+                labels.add(value.label());
+                docs.add(new DocSet());
+            } else {
+                labels.set(id, value.label());
+            }
+            return id;
+        }
+    }
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final Map<UUID, Integer> ordinals = new HashMap<>();
+    private final Deque<Integer> freeOrdinals = new ArrayDeque<>();
+    private final DocSet live = new DocSet();
+    private final FacetField[] fields = new FacetField[Facet.values().length];
+
+    // Per-ordinal data
+    private UUID[] ids = new UUID[0];
+    private long[] popularity = new long[0];
+    private long[] createdAt = new long[0];
+    private int universe;
+
+    public FacetIndex() {
+        for (Facet facet : Facet.values()) {
+            fields[facet.ordinal()] = new FacetField();
+        }
+        ensureCapacity(1024);
+    }
+
+    // ==================== WRITES ====================
+
+    public void upsert(Document document) {
+        lock.writeLock().lock();
+        try {
+            insert(document);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void load(Collection<Document> documents) {
+        lock.writeLock().lock();
+        try {
+            documents.forEach(this::insert);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(UUID productId) {
+        lock.writeLock().lock();
+        try {
+            Integer ordinal = ordinals.remove(productId);
+            if (ordinal != null) {
+                clearValues(ordinal);
+                live.remove(ordinal, universe);
+                ids[ordinal] = null;
+                freeOrdinals.push(ordinal);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Raises a product's popularity without rebuilding its document. Totals
+     * only grow, so a late update never lowers one.
+     */
+    public void updatePopularity(UUID productId, long newPopularity) {
+        lock.writeLock().lock();
+        try {
+            Integer ordinal = ordinals.get(productId);
+            if (ordinal != null && newPopularity > popularity[ordinal]) {
+                popularity[ordinal] = newPopularity;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /** Renames values in place, e.g. after a section is renamed. */
+    public void relabel(Facet facet, Map<String, String> newLabels) {
+        lock.writeLock().lock();
+        try {
+            FacetField field = fields[facet.ordinal()];
+            newLabels.forEach((value, label) -> {
+                Integer id = field.valueIds.get(value);
+                if (id != null) {
+                    field.labels.set(id, label);
+                }
+            });
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void insert(Document document) {
+        Integer existing = ordinals.get(document.id());
+        int ordinal;
+        if (existing != null) {
+            ordinal = existing;
+            clearValues(ordinal);
+        } else {
+            ordinal = freeOrdinals.isEmpty() ? universe++ : freeOrdinals.pop();
+            ensureCapacity(universe);
+            ordinals.put(document.id(), ordinal);
+            live.add(ordinal, universe);
+        }
+
+        ids[ordinal] = document.id();
+        popularity[ordinal] = document.popularity();
+        createdAt[ordinal] = document.createdAt();
+
+        for (Facet facet : Facet.values()) {
+            FacetValue value = document.values().get(facet);
+            if (value != null) {
+                FacetField field = fields[facet.ordinal()];
+                int valueId = field.idFor(value);
+                field.docs.get(valueId).add(ordinal, universe);
+                field.valueOf[ordinal] = valueId;
+                field.assignments++;
+            }
+        }
+    }
+
+    private void clearValues(int ordinal) {
+        for (FacetField field : fields) {
+            int valueId = field.valueOf[ordinal];
+            if (valueId >= 0) {
+                field.docs.get(valueId).remove(ordinal, universe);
+                field.valueOf[ordinal] = -1;
+                field.assignments--;
+            }
+        }
+    }
+
+    private void ensureCapacity(int size) {
+        if (size <= ids.length) {
+            return;
+        }
+        int capacity = Math.max(ids.length * 2, Math.max(size, 1024));
+        ids = Arrays.copyOf(ids, capacity);
+        popularity = Arrays.copyOf(popularity, capacity);
+        createdAt = Arrays.copyOf(createdAt, capacity);
+        for (FacetField field : fields) {
+            int previous = field.valueOf.length;
+            field.valueOf = Arrays.copyOf(field.valueOf, capacity);
+            Arrays.fill(field.valueOf, previous, capacity, -1);
+        }
+    }
+
+    // ==================== READS ====================
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return live.cardinality();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @param selections selected values per facet; values of one facet are
+     *                   ORed, facets are ANDed, facets left out don't filter
+     */
+    public Result search(Map<Facet, Set<String>> selections, Sort sort, int offset, int limit) {
+        lock.readLock().lock();
+        try {
+            int wordCount = (universe + 63) >>> 6;
+            long[] all = new long[wordCount];
+            live.orInto(all);
+
+            Map<Facet, long[]> filters = new EnumMap<>(Facet.class);
+            selections.forEach((facet, values) -> {
+                if (values != null && !values.isEmpty()) {
+                    FacetField field = fields[facet.ordinal()];
+                    long[] filter = new long[wordCount];
+                    for (String value : values) {
+                        Integer id = field.valueIds.get(value);
+                        if (id != null) {
+                            field.docs.get(id).orInto(filter);
+                        }
+                    }
+                    filters.put(facet, filter);
+                }
+            });
+
+            long[] matches = intersect(all, filters, null);
+
+            Map<Facet, List<FacetCount>> facets = new EnumMap<>(Facet.class);
+            for (Facet facet : Facet.values()) {
+                // Facets without a selection are counted against the full match set
+                long[] base = filters.containsKey(facet) ? intersect(all, filters, facet) : matches;
+                facets.put(facet, count(facet, base));
+            }
+
+            int total = cardinality(matches);
+            return new Result(top(matches, total, sort, offset, limit), total, facets);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private static long[] intersect(long[] all, Map<Facet, long[]> filters, Facet skip) {
+        long[] result = all.clone();
+        filters.forEach((facet, filter) -> {
+            if (facet != skip) {
+                for (int i = 0; i < result.length; i++) {
+                    result[i] &= filter[i];
+                }
+            }
+        });
+        return result;
+    }
+
+    private List<FacetCount> count(Facet facet, long[] base) {
+        FacetField field = fields[facet.ordinal()];
+        int[] counts = new int[field.values.size()];
+
+        // Tallying touches each match once, intersecting touches every
+        // posting of the facet: walk the matches when they are fewer
+        if (cardinality(base) < field.assignments) {
+            int[] valueOf = field.valueOf;
+            for (int word = 0; word < base.length; word++) {
+                long bits = base[word];
+                while (bits != 0) {
+                    int valueId = valueOf[(word << 6) + Long.numberOfTrailingZeros(bits)];
+                    bits &= bits - 1;
+                    if (valueId >= 0) {
+                        counts[valueId]++;
+                    }
+                }
+            }
+        } else {
+            for (int valueId = 0; valueId < counts.length; valueId++) {
+                counts[valueId] = field.docs.get(valueId).andCardinality(base);
+            }
+        }
+
+        List<FacetCount> result = new ArrayList<>();
+        for (int valueId = 0; valueId < counts.length; valueId++) {
+            if (counts[valueId] > 0) {
+                result.add(new FacetCount(field.values.get(valueId), field.labels.get(valueId), counts[valueId]));
+            }
+        }
+        result.sort(Comparator.comparingInt(FacetCount::count).reversed()
+                .thenComparing(FacetCount::value));
+        return result.size() > MAX_FACET_VALUES ? List.copyOf(result.subList(0, MAX_FACET_VALUES)) : result;
+    }
+
+    private List<UUID> top(long[] matches, int total, Sort sort, int offset, int limit) {
+        if (limit <= 0 || offset < 0 || offset >= total) {
+            return List.of();
+        }
+        long[] keys = sort == Sort.NEWEST ? createdAt : popularity;
+        // Primitive min-heap whose root is the weakest of the best offset+limit so far;
+        // never larger than the matches, however far the caller pages
+        int[] heap = new int[(int) Math.min((long) offset + limit, total)];
+        int size = 0;
+        for (int word = 0; word < matches.length; word++) {
+            long bits = matches[word];
+            while (bits != 0) {
+                int ordinal = (word << 6) + Long.numberOfTrailingZeros(bits);
+                bits &= bits - 1;
+                if (size < heap.length) {
+                    heap[size] = ordinal;
+                    siftUp(heap, size++, keys);
+                } else if (ranksAbove(ordinal, heap[0], keys)) {
+                    heap[0] = ordinal;
+                    siftDown(heap, size, keys);
+                }
+            }
+        }
+
+        // Drain weakest first into the tail of the array, leaving it best first
+        for (int end = size - 1; end > 0; end--) {
+            int weakest = heap[0];
+            heap[0] = heap[end];
+            heap[end] = weakest;
+            siftDown(heap, end, keys);
+        }
+        List<UUID> page = new ArrayList<>();
+        for (int i = offset; i < size; i++) {
+            page.add(ids[heap[i]]);
+        }
+        return page;
+    }
+
+    // Higher key first, lower ordinal on ties
+    private static boolean ranksAbove(int a, int b, long[] keys) {
+        return keys[a] > keys[b] || (keys[a] == keys[b] && a < b);
+    }
+
+    private static void siftUp(int[] heap, int index, long[] keys) {
+        int ordinal = heap[index];
+        while (index > 0) {
+            int parent = (index - 1) >>> 1;
+            if (!ranksAbove(heap[parent], ordinal, keys)) {
+                break;
+            }
+            heap[index] = heap[parent];
+            index = parent;
+        }
+        heap[index] = ordinal;
+    }
+
+    private static void siftDown(int[] heap, int size, long[] keys) {
+        int ordinal = heap[0];
+        int index = 0;
+        while (true) {
+            int child = 2 * index + 1;
+            if (child >= size) {
+                break;
+            }
+            if (child + 1 < size && ranksAbove(heap[child], heap[child + 1], keys)) {
+                child++;
+            }
+            if (!ranksAbove(ordinal, heap[child], keys)) {
+                break;
+            }
+            heap[index] = heap[child];
+            index = child;
+        }
+        heap[index] = ordinal;
+    }
+
+    private static int cardinality(long[] words) {
+        int count = 0;
+        for (long word : words) {
+            count += Long.bitCount(word);
+        }
+        return count;
+    }
+}
@@ -0,0 +1,96 @@
+package com.example.ShopiShop.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * A bounded queue with exactly one consumer at a time. Offers never block;
+ * the first offer into an idle lane hands a drain task to the executor, and
+ * that task passes the queue to the writer in batches, in offer order, until
+ * it is empty. So items are written by a single thread in arrival order,
+ * without holding a thread while the lane is idle.
+ * <p>
+ * The writer must deal with its own failures: an exception from it is not
+ * caught here, and the items of that batch are lost.
+ */
+public class FlashSaleLane<T> {
+
+    private final Queue<T> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger queued = new AtomicInteger();
+    private final AtomicBoolean draining = new AtomicBoolean();
+    private final int capacity;
+    private final int batchSize;
+    private final Executor executor;
+    private final Consumer<List<T>> writer;
+
+    public FlashSaleLane(int capacity, int batchSize, Executor executor, Consumer<List<T>> writer) {
+        this.capacity = capacity;
+        this.batchSize = batchSize;
+        this.executor = executor;
+        this.writer = writer;
+    }
+
+    /**
+     * Queues the item behind those already offered.
+     *
+     * @return false if the lane already holds {@code capacity} items
+     */
+    public boolean offer(T item) {
+        if (queued.incrementAndGet() > capacity) {
+            queued.decrementAndGet();
+            return false;
+        }
+        queue.add(item);
+        scheduleDrain();
+        return true;
+    }
+
+    public int size() {
+        return queued.get();
+    }
+
+    private void scheduleDrain() {
+        if (!draining.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            executor.execute(this::drain);
+        } catch (RejectedExecutionException e) {
+            draining.set(false);
+            throw e;
+        }
+    }
+
+    private void drain() {
+        try {
+            List<T> batch = nextBatch();
+            while (!batch.isEmpty()) {
+                writer.accept(batch);
+                batch = nextBatch();
+            }
+        } finally {
+            draining.set(false);
+        }
+        // An offer made between the last poll and the reset saw the lane draining
+        if (!queue.isEmpty()) {
+            scheduleDrain();
+        }
+    }
+
+    private List<T> nextBatch() {
+        List<T> batch = new ArrayList<>(batchSize);
+        T item;
+        while (batch.size() < batchSize && (item = queue.poll()) != null) {
+            batch.add(item);
+        }
+        queued.addAndGet(-batch.size());
+        return batch;
+    }
+}
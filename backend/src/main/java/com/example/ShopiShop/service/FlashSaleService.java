@@ -0,0 +1,304 @@
+package com.example.ShopiShop.service;
+
+import com.example.ShopiShop.dto.FlashSalePurchaseRequest;
+import com.example.ShopiShop.dto.FlashSalePurchaseResponse;
+import com.example.ShopiShop.dto.StockUpdate;
+import com.example.ShopiShop.enums.FlashSalePurchaseStatus;
+import com.example.ShopiShop.enums.OrderStatus;
+import com.example.ShopiShop.events.ProductChangedEvent;
+import com.example.ShopiShop.events.ProductsSoldEvent;
+import com.example.ShopiShop.exceptions.ResourceNotFoundException;
+import com.example.ShopiShop.models.Order;
+import com.example.ShopiShop.models.OrderItem;
+import com.example.ShopiShop.models.Product;
+import com.example.ShopiShop.models.User;
+import com.example.ShopiShop.repositories.OrderRepository;
+import com.example.ShopiShop.repositories.ProductRepository;
+import com.example.ShopiShop.repositories.StockLevelView;
+import com.example.ShopiShop.utils.PricingEngine;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.HttpStatus;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sells products in flash-sale mode. Instead of each buyer's checkout
+ * transaction queueing on the product row, purchases go into the product's
+ * {@link FlashSaleLane} and a single writer allocates them in arrival order,
+ * a batch at a time: one read of the stock, one conditional decrement for
+ * the units of the whole batch, and the batch's orders, all in one
+ * transaction. Callers get a future answer and a token to poll it with.
+ * <p>
+ * Lanes are in memory, one per flash-sale product in this instance;
+ * purchases still queued at shutdown are dropped without an order. The
+ * conditional decrement keeps stock right whichever instance or checkout
+ * path takes it.
+ */
+@Slf4j
+@Service
+public class FlashSaleService {
+
+    private static final int QUEUE_CAPACITY = 10_000;
+    private static final int BATCH_SIZE = 200;
+    // Reads of a batch when stock changed between the read and the decrement
+    private static final int MAX_ATTEMPTS = 3;
+    private static final int MAX_ANSWERS = 100_000;
+    private static final Duration ANSWER_RETENTION = Duration.ofMinutes(30);
+
+    private final ProductRepository productRepository;
+    private final OrderRepository orderRepository;
+    private final DiscountService discountService;
+    private final StockReservationService stockReservationService;
+    private final SimpMessagingTemplate messagingTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate transactionTemplate;
+
+    private final Map<UUID, FlashSaleLane<Purchase>> lanes = new ConcurrentHashMap<>();
+    // Latest answer per token, for buyers who poll
+    private final Cache<UUID, Answer> answers = Caffeine.newBuilder()
+            .maximumSize(MAX_ANSWERS)
+            .expireAfterWrite(ANSWER_RETENTION)
+            .build();
+    // A busy lane keeps one writer thread; idle lanes keep none
+    private final ExecutorService writers = Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable, "flash-sale-writer");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private record Purchase(UUID token, User user, FlashSalePurchaseRequest request,
+                            CompletableFuture<FlashSalePurchaseResponse> result) {
+    }
+
+    private record Answer(Long userId, FlashSalePurchaseResponse response) {
+    }
+
+    private record Allocation(List<FlashSalePurchaseResponse> responses, List<StockLevelView> stock) {
+    }
+
+    /**
+     * A queued purchase: the answer to give now, and the one to give once it is allocated.
+     */
+    public record Ticket(FlashSalePurchaseResponse queued, CompletableFuture<FlashSalePurchaseResponse> result) {
+    }
+
+    public FlashSaleService(ProductRepository productRepository, OrderRepository orderRepository,
+                            DiscountService discountService, StockReservationService stockReservationService,
+                            SimpMessagingTemplate messagingTemplate, ApplicationEventPublisher eventPublisher,
+                            PlatformTransactionManager transactionManager) {
+        this.productRepository = productRepository;
+        this.orderRepository = orderRepository;
+        this.discountService = discountService;
+        this.stockReservationService = stockReservationService;
+        this.messagingTemplate = messagingTemplate;
+        this.eventPublisher = eventPublisher;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void openLanes() {
+        productRepository.findFlashSaleIds().forEach(this::openLane);
+        log.info("Flash sale lanes opened: {}", lanes.size());
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        if (event.deleted()) {
+            lanes.remove(event.productId());
+        }
+    }
+
+    /**
+     * Switches flash-sale mode for one of the merchant's products. Switching
+     * it on releases the stock held in carts, which checkout then refuses;
+     * purchases queued before it is switched off are still allocated.
+     */
+    public void setFlashSale(UUID productId, boolean enabled, User currentUser) {
+        transactionTemplate.executeWithoutResult(status -> {
+            Product product = productRepository.findById(productId)
+                    .orElseThrow(() -> new ResourceNotFoundException("Product not found"));
+            if (!product.getStore().getOwner().getId().equals(currentUser.getId())) {
+                throw new ResponseStatusException(HttpStatus.FORBIDDEN, "You are not the owner of this store");
+            }
+            product.setFlashSale(enabled);
+            productRepository.save(product);
+            eventPublisher.publishEvent(ProductChangedEvent.changed(productId));
+        });
+        if (enabled) {
+            stockReservationService.releaseAll(productId);
+            openLane(productId);
+        } else {
+            lanes.remove(productId);
+        }
+    }
+
+    /**
+     * Queues a purchase behind those already made for the product.
+     *
+     * @throws ResponseStatusException 404 if the product is not on flash sale, 503 if its queue is full
+     */
+    public Ticket purchase(UUID productId, FlashSalePurchaseRequest request, User user) {
+        FlashSaleLane<Purchase> lane = lanes.get(productId);
+        if (lane == null) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Product is not on flash sale");
+        }
+        UUID token = UUID.randomUUID();
+        FlashSalePurchaseResponse queued = new FlashSalePurchaseResponse(
+                token, FlashSalePurchaseStatus.QUEUED, request.quantity(), null, null);
+        answers.put(token, new Answer(user.getId(), queued));
+
+        CompletableFuture<FlashSalePurchaseResponse> result = new CompletableFuture<>();
+        result.thenAccept(response -> answers.put(token, new Answer(user.getId(), response)));
+        if (!lane.offer(new Purchase(token, user, request, result))) {
+            answers.invalidate(token);
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE,
+                    "Too many purchases queued for this product, please try again");
+        }
+        return new Ticket(queued, result);
+    }
+
+    public FlashSalePurchaseResponse getPurchase(UUID token, User user) {
+        Answer answer = answers.getIfPresent(token);
+        if (answer == null || !answer.userId().equals(user.getId())) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Purchase not found");
+        }
+        return answer.response();
+    }
+
+    @PreDestroy
+    public void stopWriters() throws InterruptedException {
+        writers.shutdown();
+        writers.awaitTermination(10, TimeUnit.SECONDS);
+    }
+
+    private void openLane(UUID productId) {
+        lanes.computeIfAbsent(productId, id -> new FlashSaleLane<>(
+                QUEUE_CAPACITY, BATCH_SIZE, writers, batch -> write(id, batch)));
+    }
+
+    // Runs on the lane's writer; answers every purchase in the batch, whatever happens
+    private void write(UUID productId, List<Purchase> batch) {
+        Allocation allocation = null;
+        try {
+            for (int attempt = 1; allocation == null && attempt <= MAX_ATTEMPTS; attempt++) {
+                allocation = transactionTemplate.execute(status -> allocate(productId, batch, status));
+            }
+        } catch (RuntimeException e) {
+            log.error("Flash sale batch of {} purchases for product {} failed", batch.size(), productId, e);
+        }
+        if (allocation == null) {
+            batch.forEach(purchase -> purchase.result().complete(answer(purchase, FlashSalePurchaseStatus.FAILED)));
+            return;
+        }
+        // Only committed stock levels are pushed to clients
+        allocation.stock().forEach(level -> messagingTemplate.convertAndSend("/topic/stockUpdates",
+                new StockUpdate(level.getId(), level.getQuantity())));
+        for (int i = 0; i < batch.size(); i++) {
+            batch.get(i).result().complete(allocation.responses().get(i));
+        }
+    }
+
+    // Null, rolled back, if the stock read no longer holds by the decrement
+    private Allocation allocate(UUID productId, List<Purchase> batch, TransactionStatus status) {
+        Product product = productRepository.findById(productId).orElse(null);
+        if (product == null) {
+            return new Allocation(batch.stream()
+                    .map(purchase -> answer(purchase, FlashSalePurchaseStatus.FAILED))
+                    .toList(), List.of());
+        }
+        BigDecimal unitPrice = discountService.calculateEffectivePrice(product);
+        long unitCents = PricingEngine.toCents(unitPrice);
+        LocalDateTime now = LocalDateTime.now();
+
+        // In arrival order; a purchase larger than what is left is sold out, smaller ones behind it may still fit
+        int remaining = product.getQuantity();
+        int units = 0;
+        List<Order> orders = new ArrayList<>();
+        for (Purchase purchase : batch) {
+            int quantity = purchase.request().quantity();
+            if (quantity > remaining) {
+                orders.add(null);
+                continue;
+            }
+            remaining -= quantity;
+            units += quantity;
+            orders.add(toOrder(purchase, product, unitPrice, unitCents, now));
+        }
+
+        if (units > 0 && productRepository.decrementStock(productId, units) == 0) {
+            status.setRollbackOnly();
+            return null;
+        }
+        orderRepository.saveAll(orders.stream().filter(order -> order != null).toList());
+
+        List<FlashSalePurchaseResponse> responses = new ArrayList<>();
+        for (int i = 0; i < batch.size(); i++) {
+            Purchase purchase = batch.get(i);
+            Order order = orders.get(i);
+            responses.add(order == null
+                    ? answer(purchase, FlashSalePurchaseStatus.SOLD_OUT)
+                    : new FlashSalePurchaseResponse(purchase.token(), FlashSalePurchaseStatus.ALLOCATED,
+                    purchase.request().quantity(), order.getId(), unitPrice));
+        }
+        if (units == 0) {
+            return new Allocation(responses, List.of());
+        }
+        List<StockLevelView> stock = productRepository.findStockByIdIn(Set.of(productId));
+        eventPublisher.publishEvent(ProductsSoldEvent.of(stock));
+        return new Allocation(responses, stock);
+    }
+
+    private static Order toOrder(Purchase purchase, Product product, BigDecimal unitPrice, long unitCents,
+                                 LocalDateTime now) {
+        FlashSalePurchaseRequest request = purchase.request();
+        BigDecimal total = PricingEngine.toAmount(PricingEngine.lineTotalCents(unitCents, request.quantity()));
+        OrderItem item = OrderItem.builder()
+                .product(product)
+                .quantity(request.quantity())
+                .price(unitPrice)
+                .build();
+        Order order = Order.builder()
+                .user(purchase.user())
+                .orderItems(new ArrayList<>(List.of(item)))
+                .totalAmount(total)
+                .totalPrice(total)
+                .shippingAddress(request.shippingAddress())
+                .cityAddress(request.city())
+                .contactNbr(request.contactNumber())
+                .orderDate(now)
+                .status(OrderStatus.PENDING)
+                .build();
+        item.setOrder(order);
+        return order;
+    }
+
+    private static FlashSalePurchaseResponse answer(Purchase purchase, FlashSalePurchaseStatus status) {
+        return new FlashSalePurchaseResponse(purchase.token(), status, purchase.request().quantity(), null, null);
+    }
+}
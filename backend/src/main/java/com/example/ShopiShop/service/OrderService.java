@@ -3,22 +3,36 @@ package com.example.ShopiShop.service;
 import com.example.ShopiShop.dto.*;
 import com.example.ShopiShop.dto.StockUpdate; // Ensure this is defined with productId and quantity fields
 import com.example.ShopiShop.enums.OrderStatus;
+import com.example.ShopiShop.events.ProductsSoldEvent;
 import com.example.ShopiShop.exceptions.InsufficientStockException;
 import com.example.ShopiShop.models.*;
 import com.example.ShopiShop.repositories.OrderRepository;
 import com.example.ShopiShop.repositories.CartItemRepository;
 import com.example.ShopiShop.repositories.ProductRepository;
-import jakarta.persistence.OptimisticLockException;
+import com.example.ShopiShop.repositories.StockLevelView;
+import com.example.ShopiShop.utils.PricingEngine;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.http.HttpStatus;
 import org.springframework.messaging.simp.SimpMessagingTemplate;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
 import jakarta.transaction.Transactional;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
 import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
 import java.util.stream.Collectors;
 
+@Slf4j
 @Service
 public class OrderService {
 
@@ -26,59 +40,108 @@ public class OrderService {
     private final ProductRepository productRepository;
     private final CartItemRepository cartItemRepository;
     private final SimpMessagingTemplate messagingTemplate;
-    private  DiscountService discountService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final DiscountService discountService;
+    private final StockReservationService stockReservationService;
+    private final TransactionTemplate transactionTemplate;
 
+    // Attempts per checkout when it loses a lock or version race
+    private static final int MAX_ATTEMPTS = 3;
+    private static final long RETRY_BACKOFF_MS = 20;
 
-    public OrderService(OrderRepository orderRepository, ProductRepository productRepository, CartItemRepository cartItemRepository, SimpMessagingTemplate messagingTemplate) {
+    private record PlacedOrder(Order order, List<StockLevelView> stock) {
+    }
+
+
+    public OrderService(OrderRepository orderRepository, ProductRepository productRepository, CartItemRepository cartItemRepository, SimpMessagingTemplate messagingTemplate, ApplicationEventPublisher eventPublisher, DiscountService discountService, StockReservationService stockReservationService, PlatformTransactionManager transactionManager) {
         this.orderRepository = orderRepository;
         this.productRepository = productRepository;
         this.cartItemRepository = cartItemRepository;
         this.messagingTemplate = messagingTemplate;
+        this.eventPublisher = eventPublisher;
+        this.discountService = discountService;
+        this.stockReservationService = stockReservationService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
     }
 
-    @Transactional
+    /**
+     * Places the user's cart as an order. Stock is taken with one conditional
+     * UPDATE per product, in product id order so that concurrent checkouts
+     * lock shared rows in the same order; a product short of stock fails the
+     * whole order, as does stock held in other shoppers' carts. Once committed,
+     * the user's own reservations become sales. Lock timeouts, deadlocks and
+     * version conflicts are retried up to {@value #MAX_ATTEMPTS} times with a
+     * short randomized backoff.
+     */
     public Order createOrderForUser(User user, OrderRequest orderRequest) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                PlacedOrder placed = transactionTemplate.execute(status -> placeOrder(user, orderRequest));
+                stockReservationService.convert(user.getId(), placed.stock());
+                // Only committed stock levels are pushed to clients
+                placed.stock().forEach(level -> messagingTemplate.convertAndSend("/topic/stockUpdates",
+                        new StockUpdate(level.getId(), level.getQuantity())));
+                return placed.order();
+            } catch (TransientDataAccessException e) {
+                if (attempt == MAX_ATTEMPTS) {
+                    throw new ResponseStatusException(HttpStatus.CONFLICT,
+                            "Checkout could not complete, please try again", e);
+                }
+                log.debug("Checkout attempt {} for user {} failed, retrying", attempt, user.getId(), e);
+                backOff(attempt);
+            }
+        }
+    }
+
+    private PlacedOrder placeOrder(User user, OrderRequest orderRequest) {
         List<CartItem> cartItems = cartItemRepository.findByUser(user);
         if (cartItems.isEmpty()) {
             throw new RuntimeException("Cart is empty");
         }
 
-        List<OrderItem> orderItems = new ArrayList<>();
-        for (CartItem cartItem : cartItems) {
-            // Re-fetch product to get the latest stock with version info (if needed)
-            Product product = cartItem.getProduct();
+        // Priced together, at the stock levels the cart was shown with
+        Map<UUID, BigDecimal> prices = discountService.calculateBulkEffectivePrices(
+                cartItems.stream().map(CartItem::getProduct).toList());
 
-            int orderQuantity = cartItem.getQuantity();
-            if (orderQuantity > product.getQuantity()) {
-                throw new InsufficientStockException("Insufficient stock for product: " + product.getName());
+        // Sorted by product id: every checkout takes its row locks in this order
+        Map<UUID, Integer> unitsSold = new TreeMap<>();
+        Map<UUID, Product> products = new HashMap<>();
+        for (CartItem cartItem : cartItems) {
+            unitsSold.merge(cartItem.getProduct().getId(), cartItem.getQuantity(), Integer::sum);
+            products.put(cartItem.getProduct().getId(), cartItem.getProduct());
+        }
+        unitsSold.forEach((productId, quantity) -> {
+            Product product = products.get(productId);
+            // Put in the cart before the sale started; flash-sale stock only goes through the purchase queue
+            if (Boolean.TRUE.equals(product.getFlashSale())) {
+                throw new ResponseStatusException(HttpStatus.CONFLICT,
+                        product.getName() + " is on flash sale and can only be bought through its purchase queue");
             }
-
-            // Deduct the stock
-            product.setQuantity(product.getQuantity() - orderQuantity);
-            // Save the product update to trigger version check and persist the new quantity
-            try {
-                productRepository.save(product);
-                // Publish stock update via WebSocket to notify clients in real time
-                messagingTemplate.convertAndSend(
-                        "/topic/stockUpdates",
-                        new StockUpdate(product.getId(), product.getQuantity())
-                );
-            } catch (OptimisticLockException e) {
-                throw new RuntimeException("Product " + product.getName() + " was updated by another transaction. Please try again.");
+            if (!stockReservationService.canTake(user.getId(), productId, quantity)) {
+                throw new InsufficientStockException(
+                        "Stock of " + products.get(productId).getName() + " is reserved in other carts");
             }
+            if (productRepository.decrementStock(productId, quantity) == 0) {
+                throw new InsufficientStockException(
+                        "Insufficient stock for product: " + products.get(productId).getName());
+            }
+        });
 
-
-            OrderItem orderItem = OrderItem.builder()
-                    .product(product)
-                    .quantity(orderQuantity)
-                    .price(discountService.calculateEffectivePrice(product))
-                    .build();
-            orderItems.add(orderItem);
+        List<OrderItem> orderItems = new ArrayList<>();
+        for (CartItem cartItem : cartItems) {
+            orderItems.add(OrderItem.builder()
+                    .product(cartItem.getProduct())
+                    .quantity(cartItem.getQuantity())
+                    .price(prices.get(cartItem.getProduct().getId()))
+                    .build());
         }
 
-        BigDecimal totalAmount = orderItems.stream()
-                .map(item -> item.getPrice().multiply(BigDecimal.valueOf(item.getQuantity())))
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
+        long totalCents = 0;
+        for (OrderItem item : orderItems) {
+            totalCents = Math.addExact(totalCents,
+                    PricingEngine.lineTotalCents(PricingEngine.toCents(item.getPrice()), item.getQuantity()));
+        }
+        BigDecimal totalAmount = PricingEngine.toAmount(totalCents);
 
         Order order = Order.builder()
                 .user(user)
@@ -95,8 +158,19 @@ public class OrderService {
         orderItems.forEach(item -> item.setOrder(order));
         Order savedOrder = orderRepository.save(order);
         cartItemRepository.deleteAll(cartItems);
+        List<StockLevelView> stock = productRepository.findStockByIdIn(unitsSold.keySet());
+        eventPublisher.publishEvent(ProductsSoldEvent.of(stock));
 
-        return savedOrder;
+        return new PlacedOrder(savedOrder, stock);
+    }
+
+    private static void backOff(int attempt) {
+        try {
+            Thread.sleep(RETRY_BACKOFF_MS * attempt + ThreadLocalRandom.current().nextLong(RETRY_BACKOFF_MS));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Checkout interrupted", e);
+        }
     }
 
     @Transactional
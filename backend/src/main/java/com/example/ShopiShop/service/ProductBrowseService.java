@@ -0,0 +1,260 @@
+package com.example.ShopiShop.service;
+
+import com.example.ShopiShop.dto.CategoryResponse;
+import com.example.ShopiShop.dto.FacetCountResponse;
+import com.example.ShopiShop.dto.ProductBrowseResponse;
+import com.example.ShopiShop.dto.SectionResponse;
+import com.example.ShopiShop.events.ProductChangedEvent;
+import com.example.ShopiShop.events.ProductsImportedEvent;
+import com.example.ShopiShop.events.ProductsRepricedEvent;
+import com.example.ShopiShop.events.ProductsSoldEvent;
+import com.example.ShopiShop.events.RatingsBackfilledEvent;
+import com.example.ShopiShop.events.TaxonomyChangedEvent;
+import com.example.ShopiShop.models.Product;
+import com.example.ShopiShop.repositories.ProductRepository;
+import com.example.ShopiShop.service.FacetIndex.Facet;
+import com.example.ShopiShop.service.FacetIndex.FacetValue;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Collectors;
+
+/**
+ * Faceted browsing over the catalog, answered from {@link FacetIndex}.
+ * Like the search index it is built in the background at startup and kept
+ * current from {@link ProductChangedEvent}; only the page of products
+ * itself is read from the database.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ProductBrowseService {
+
+    private static final int MAX_PAGE_SIZE = 100;
+    private static final int REBUILD_BATCH_SIZE = 1000;
+
+    // Upper bounds of the price buckets; the last bucket is open-ended
+    private static final int[] PRICE_BUCKETS = {25, 50, 100, 250, 500};
+
+    private final ProductRepository productRepository;
+    private final TaxonomyService taxonomyService;
+    private final ProductCatalogService productCatalogService;
+    private final FacetIndex index = new FacetIndex();
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildOnStartup() {
+        CompletableFuture.runAsync(this::rebuild)
+                .exceptionally(ex -> {
+                    log.error("Product facet index rebuild failed", ex);
+                    return null;
+                });
+    }
+
+    public void rebuild() {
+        long start = System.currentTimeMillis();
+        UUID lastId = null;
+        List<Product> batch;
+        do {
+            batch = productRepository.findCatalogBatchAfter(lastId, PageRequest.of(0, REBUILD_BATCH_SIZE));
+            if (batch.isEmpty()) {
+                break;
+            }
+            index.load(batch.stream().map(this::toDocument).toList());
+            lastId = batch.get(batch.size() - 1).getId();
+        } while (batch.size() == REBUILD_BATCH_SIZE);
+        log.info("Product facet index built: {} products in {} ms",
+                index.size(), System.currentTimeMillis() - start);
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        if (event.deleted()) {
+            index.remove(event.productId());
+            return;
+        }
+        productRepository.findForCatalogById(event.productId())
+                .ifPresentOrElse(
+                        product -> index.upsert(toDocument(product)),
+                        () -> index.remove(event.productId()));
+    }
+
+    // Popularity sorts; only a product sold out changes a facet, so only those are re-read
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onProductsSold(ProductsSoldEvent event) {
+        event.sales().forEach(sale -> index.updatePopularity(sale.productId(), sale.totalSell()));
+        reindex(event.sales().stream()
+                .filter(sale -> sale.quantity() <= 0)
+                .map(ProductsSoldEvent.Sale::productId)
+                .toList());
+    }
+
+    // Imported products arrive together, so they are read in batches rather than one by one
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onProductsImported(ProductsImportedEvent event) {
+        reindex(event.productIds());
+    }
+
+    // Price and discount facets
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onProductsRepriced(ProductsRepricedEvent event) {
+        reindex(event.productIds());
+    }
+
+    private void reindex(List<UUID> ids) {
+        for (int from = 0; from < ids.size(); from += REBUILD_BATCH_SIZE) {
+            productRepository.findByIdIn(ids.subList(from, Math.min(from + REBUILD_BATCH_SIZE, ids.size())))
+                    .forEach(product -> index.upsert(toDocument(product)));
+        }
+    }
+
+    // Rating facets
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onRatingsBackfilled(RatingsBackfilledEvent event) {
+        rebuild();
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onTaxonomyChanged(TaxonomyChangedEvent event) {
+        // TaxonomyService has already swapped in the new snapshot
+        TaxonomySnapshot taxonomy = taxonomyService.snapshot();
+        index.relabel(Facet.SECTION, taxonomy.sections().stream()
+                .collect(Collectors.toMap(section -> section.id().toString(), SectionResponse::name)));
+        index.relabel(Facet.CATEGORY, taxonomy.categories().stream()
+                .collect(Collectors.toMap(category -> category.id().toString(), CategoryResponse::name)));
+    }
+
+    /**
+     * @param selections selected values keyed by facet, the rating facet excepted
+     * @param minRating  products rated at least this many stars, or null
+     */
+    public ProductBrowseResponse browse(Map<Facet, List<String>> selections, Integer minRating,
+                                        FacetIndex.Sort sort, int page, int size) {
+        int pageSize = Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+        // Clamped so the offset fits an int; pages past the matches come back empty
+        PageRequest pageable = PageRequest.of(Math.min(Math.max(page, 0), Integer.MAX_VALUE / pageSize - 1), pageSize);
+
+        Map<Facet, Set<String>> filters = new EnumMap<>(Facet.class);
+        selections.forEach((facet, values) -> {
+            if (values != null && !values.isEmpty()) {
+                filters.put(facet, new HashSet<>(values));
+            }
+        });
+        // Ratings are indexed by whole star, "at least n" selects n and every star above it
+        if (minRating != null) {
+            Set<String> stars = new HashSet<>();
+            for (int star = Math.max(minRating, 1); star <= 5; star++) {
+                stars.add(String.valueOf(star));
+            }
+            filters.put(Facet.RATING, stars);
+        }
+
+        FacetIndex.Result result = index.search(filters, sort, (int) pageable.getOffset(), pageSize);
+
+        Map<String, List<FacetCountResponse>> facets = new LinkedHashMap<>();
+        result.facets().forEach((facet, counts) -> facets.put(parameterName(facet),
+                facet == Facet.RATING ? cumulativeRatingCounts(counts) : counts.stream()
+                        .map(count -> new FacetCountResponse(count.value(), count.label(), count.count()))
+                        .toList()));
+
+        return new ProductBrowseResponse(
+                new PageImpl<>(productCatalogService.findListingResponses(result.ids()), pageable, result.total()),
+                facets);
+    }
+
+    private static String parameterName(Facet facet) {
+        return facet.name().toLowerCase(Locale.ROOT);
+    }
+
+    // Turns per-star counts into "n stars & up" counts, matching the minRating filter
+    private static List<FacetCountResponse> cumulativeRatingCounts(List<FacetIndex.FacetCount> counts) {
+        int[] perStar = new int[6];
+        counts.forEach(count -> perStar[Integer.parseInt(count.value())] += count.count());
+        List<FacetCountResponse> cumulative = new ArrayList<>();
+        int atLeast = 0;
+        for (int star = 5; star >= 1; star--) {
+            atLeast += perStar[star];
+            if (atLeast > 0) {
+                cumulative.add(0, new FacetCountResponse(String.valueOf(star), star + " stars & up", atLeast));
+            }
+        }
+        return cumulative;
+    }
+
+    private FacetIndex.Document toDocument(Product product) {
+        Map<Facet, FacetValue> values = new EnumMap<>(Facet.class);
+
+        if (product.getCategory() != null) {
+            // Names come from the taxonomy snapshot; the entity is only read for a category it lacks
+            TaxonomySnapshot taxonomy = taxonomyService.snapshot();
+            UUID categoryId = product.getCategory().getId();
+            CategoryResponse category = taxonomy.category(categoryId);
+            values.put(Facet.CATEGORY, new FacetValue(categoryId.toString(),
+                    category != null ? category.name() : product.getCategory().getName()));
+            UUID sectionId = category != null
+                    ? category.sectionId()
+                    : product.getCategory().getSection() != null ? product.getCategory().getSection().getId() : null;
+            if (sectionId != null) {
+                SectionResponse section = taxonomy.section(sectionId);
+                values.put(Facet.SECTION, new FacetValue(
+                        sectionId.toString(), section != null ? section.name() : sectionId.toString()));
+            }
+        }
+        if (product.getStore() != null) {
+            values.put(Facet.STORE, new FacetValue(
+                    product.getStore().getId().toString(), product.getStore().getName()));
+        }
+
+        BigDecimal price = product.calculateCurrentPrice();
+        if (price != null) {
+            values.put(Facet.PRICE, priceBucket(price));
+        }
+
+        boolean discounted = Boolean.TRUE.equals(product.getDiscountActive());
+        values.put(Facet.DISCOUNT, new FacetValue(String.valueOf(discounted), discounted ? "On sale" : "Regular price"));
+
+        boolean inStock = Boolean.TRUE.equals(product.getIsAvailable())
+                && product.getQuantity() != null && product.getQuantity() > 0;
+        values.put(Facet.STOCK, inStock ? new FacetValue("in", "In stock") : new FacetValue("out", "Out of stock"));
+
+        Double average = product.getRatings().average();
+        if (average != null) {
+            int stars = Math.max(1, Math.min(5, (int) Math.floor(average)));
+            values.put(Facet.RATING, new FacetValue(String.valueOf(stars), stars + " stars"));
+        }
+
+        return new FacetIndex.Document(
+                product.getId(),
+                product.getTotalSell() != null ? product.getTotalSell() : 0,
+                product.getCreatedAt() != null ? product.getCreatedAt().getTime() : 0,
+                values);
+    }
+
+    private static FacetValue priceBucket(BigDecimal price) {
+        int lower = 0;
+        for (int upper : PRICE_BUCKETS) {
+            if (price.compareTo(BigDecimal.valueOf(upper)) < 0) {
+                return new FacetValue(lower + "-" + upper, "$" + lower + " - $" + upper);
+            }
+            lower = upper;
+        }
+        return new FacetValue(lower + "+", "$" + lower + " and above");
+    }
+}
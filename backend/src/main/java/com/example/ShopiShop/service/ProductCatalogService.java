@@ -0,0 +1,206 @@
+package com.example.ShopiShop.service;
+
+import com.example.ShopiShop.dto.DiscountInfo;
+import com.example.ShopiShop.dto.ProductField;
+import com.example.ShopiShop.dto.ProductResponse;
+import com.example.ShopiShop.dto.RatingSummaryResponse;
+import com.example.ShopiShop.dto.ReviewPageResponse;
+import com.example.ShopiShop.dto.ReviewResponse;
+import com.example.ShopiShop.enums.DiscountType;
+import com.example.ShopiShop.models.Category;
+import com.example.ShopiShop.models.Product;
+import com.example.ShopiShop.models.RatingSummary;
+import com.example.ShopiShop.repositories.ProductRepository;
+import jakarta.persistence.Tuple;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Read path for product responses. Products are expected to come from a
+ * "Product.catalog" repository method (store and category already joined),
+ * and ratings come from the aggregates stored on the product, so listings
+ * never touch the reviews table. Only the detail view embeds reviews, and
+ * only the newest few; the rest are paged through ReviewController.
+ */
+@Service
+@RequiredArgsConstructor
+public class ProductCatalogService {
+
+    // Reviews embedded in the product detail response
+    private static final int DETAIL_REVIEW_COUNT = 5;
+
+    private final ReviewService reviewService;
+    private final ProductRepository productRepository;
+    private final TaxonomyService taxonomyService;
+
+    public ProductResponse toDetailResponse(Product product) {
+        ReviewPageResponse firstReviews = reviewService.getReviewsByProductId(
+                product.getId(), null, DETAIL_REVIEW_COUNT);
+        return mapToProductResponse(product, firstReviews.reviews(), firstReviews.nextCursor());
+    }
+
+    public ProductResponse toListingResponse(Product product) {
+        return mapToProductResponse(product, null, null);
+    }
+
+    public Page<ProductResponse> toResponses(Page<Product> page) {
+        return new PageImpl<>(toResponses(page.getContent()), page.getPageable(), page.getTotalElements());
+    }
+
+    public List<ProductResponse> toResponses(List<Product> products) {
+        return products.stream()
+                .map(this::toListingResponse)
+                .toList();
+    }
+
+    /**
+     * Listing responses for ids ranked by one of the in-memory indexes, in
+     * the same order. Ids deleted since they were ranked are left out.
+     */
+    public List<ProductResponse> findListingResponses(List<UUID> ids) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        Map<UUID, Integer> rank = ids.stream()
+                .distinct()
+                .collect(Collectors.toMap(Function.identity(), ids::indexOf));
+        return toResponses(productRepository.findByIdIn(ids).stream()
+                .sorted(Comparator.comparing(product -> rank.get(product.getId())))
+                .toList());
+    }
+
+    /**
+     * Response for a row of {@link ProductRepository#findListingColumns}. Fields
+     * that were not selected are left null (false for isAvailable).
+     */
+    public ProductResponse toListingResponse(Tuple row, Set<ProductField> fields) {
+        RatingSummary ratings = null;
+        if (fields.contains(ProductField.RATING_SUMMARY)) {
+            ratings = new RatingSummary(
+                    row.get("reviewCount", Integer.class),
+                    row.get("ratingSum", Long.class),
+                    row.get("oneStarCount", Integer.class),
+                    row.get("twoStarCount", Integer.class),
+                    row.get("threeStarCount", Integer.class),
+                    row.get("fourStarCount", Integer.class),
+                    row.get("fiveStarCount", Integer.class));
+        } else if (fields.contains(ProductField.AVERAGE_RATING)) {
+            ratings = new RatingSummary();
+            ratings.setReviewCount(row.get("reviewCount", Integer.class));
+            ratings.setRatingSum(row.get("ratingSum", Long.class));
+        }
+
+        DiscountInfo discountInfo = null;
+        if (fields.contains(ProductField.DISCOUNT_INFO)
+                && Boolean.TRUE.equals(row.get("discountActive", Boolean.class))
+                && row.get("discountType") != null) {
+            discountInfo = new DiscountInfo(
+                    row.get("discountType", DiscountType.class),
+                    row.get("discountValue", BigDecimal.class),
+                    row.get("discountStartDate", LocalDate.class),
+                    row.get("discountEndDate", LocalDate.class),
+                    row.get("discountName", String.class),
+                    Objects.requireNonNullElse(row.get("discountMinQuantity", Integer.class), 1)
+            );
+        }
+
+        return new ProductResponse(
+                row.get("id", UUID.class),
+                selected(row, fields, ProductField.NAME, "name", String.class),
+                selected(row, fields, ProductField.DESCRIPTION, "description", String.class),
+                selected(row, fields, ProductField.ORIGINAL_PRICE, "price", BigDecimal.class),
+                selected(row, fields, ProductField.FINAL_PRICE, "discountPrice", BigDecimal.class),
+                selected(row, fields, ProductField.IMAGE_URL, "imageUrl", String.class),
+                selected(row, fields, ProductField.CATEGORY_NAME, "categoryName", String.class),
+                selected(row, fields, ProductField.STORE_ID, "storeId", Long.class),
+                Boolean.TRUE.equals(selected(row, fields, ProductField.IS_AVAILABLE, "isAvailable", Boolean.class)),
+                selected(row, fields, ProductField.STORE_NAME, "storeName", String.class),
+                selected(row, fields, ProductField.QUANTITY, "quantity", Integer.class),
+                null,
+                selected(row, fields, ProductField.TOTAL_SELL, "totalSell", Integer.class),
+                ratings != null ? ratings.average() : null,
+                discountInfo,
+                selected(row, fields, ProductField.DISCOUNT_VALUE, "discountValue", BigDecimal.class),
+                fields.contains(ProductField.RATING_SUMMARY) ? toRatingSummaryResponse(ratings) : null,
+                null
+        );
+    }
+
+    public List<ProductResponse> toListingResponses(List<Tuple> rows, Set<ProductField> fields) {
+        return rows.stream()
+                .map(row -> toListingResponse(row, fields))
+                .toList();
+    }
+
+    private static <T> T selected(Tuple row, Set<ProductField> fields, ProductField field,
+                                  String alias, Class<T> type) {
+        return fields.contains(field) ? row.get(alias, type) : null;
+    }
+
+    private ProductResponse mapToProductResponse(Product product,
+                                                 List<ReviewResponse> reviewResponses,
+                                                 String reviewsCursor) {
+        // Build discount info if active
+        DiscountInfo discountInfo = null;
+        if (product.getDiscountActive() && product.getDiscountType() != null) {
+            discountInfo = new DiscountInfo(
+                    product.getDiscountType(),
+                    product.getDiscountValue(),
+                    product.getDiscountStartDate(),
+                    product.getDiscountEndDate(),
+                    product.getDiscountName(),
+                    product.getDiscountMinQuantity()
+            );
+        }
+
+        // Safely get store and category names
+        String storeName = product.getStore() != null ? product.getStore().getName() : null;
+        String categoryName = product.getCategory() != null ? categoryName(product.getCategory()) : "";
+
+        RatingSummary ratings = product.getRatings();
+
+        return new ProductResponse(
+                product.getId(),
+                product.getName(),
+                product.getDescription(),
+                product.getPrice(),
+                product.getDiscountPrice(),
+                product.getImageUrl(),
+                categoryName,
+                product.getStore() != null ? product.getStore().getId() : null,
+                product.getIsAvailable(),
+                storeName,
+                product.getQuantity(),
+                reviewResponses,
+                product.getTotalSell(),
+                ratings.average(),
+                discountInfo,
+                product.getDiscountValue(),
+                toRatingSummaryResponse(ratings),
+                reviewsCursor
+        );
+    }
+
+    static RatingSummaryResponse toRatingSummaryResponse(RatingSummary ratings) {
+        return new RatingSummaryResponse(ratings.getReviewCount(), ratings.average(), ratings.histogram());
+    }
+
+    // From the taxonomy snapshot when it has the category, so a lazy category is not loaded for its name
+    private String categoryName(Category category) {
+        String name = taxonomyService.categoryName(category.getId());
+        return name != null ? name : category.getName();
+    }
+}
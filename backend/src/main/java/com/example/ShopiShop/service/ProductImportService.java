@@ -0,0 +1,385 @@
+package com.example.ShopiShop.service;
+
+import com.example.ShopiShop.dto.ProductImportResponse;
+import com.example.ShopiShop.dto.ProductRequest;
+import com.example.ShopiShop.enums.CatalogFormat;
+import com.example.ShopiShop.events.ProductsImportedEvent;
+import com.example.ShopiShop.dto.CategoryResponse;
+import com.example.ShopiShop.models.Category;
+import com.example.ShopiShop.models.Product;
+import com.example.ShopiShop.models.Store;
+import com.example.ShopiShop.models.User;
+import com.example.ShopiShop.repositories.StoreRepository;
+import com.example.ShopiShop.utils.CsvReader;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.http.HttpStatus;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Bulk product import for merchants. The upload is read as a stream, a chunk
+ * of rows at a time: rows are validated in parallel against an in-memory
+ * category dictionary (the taxonomy snapshot), then each chunk is inserted with JDBC batching and
+ * committed on its own, so a bad chunk does not undo the ones before it.
+ * Failed rows are reported by line. Caches and indexes are brought up to
+ * date once, with a {@link ProductsImportedEvent}, when the import is done.
+ */
+@Slf4j
+@Service
+public class ProductImportService {
+
+    // Rows validated together and inserted in one transaction (matches hibernate.jdbc.batch_size)
+    static final int CHUNK_SIZE = 500;
+    private static final int MAX_REPORTED_ERRORS = 100;
+    // Characters per CSV record or NDJSON line: room for a full TEXT description and the other fields
+    static final int MAX_ROW_LENGTH = 128 * 1024;
+
+    private static final List<String> REQUIRED_COLUMNS = List.of("name", "price", "categoryName");
+
+    private record Row(int line, @Nullable ProductRequest request, @Nullable String error) {
+    }
+
+    private interface RowSource {
+        // Null at the end of the upload
+        @Nullable
+        Row next();
+    }
+
+    // A row ready to insert, or the reason it is not
+    private record Checked(int line, @Nullable Product product, @Nullable CategoryResponse category, @Nullable String error) {
+    }
+
+    private final TaxonomyService taxonomyService;
+    private final StoreRepository storeRepository;
+    private final EntityManager entityManager;
+    private final TransactionTemplate transactionTemplate;
+    private final Validator validator;
+    private final ObjectMapper objectMapper;
+    private final ApplicationEventPublisher eventPublisher;
+
+    public ProductImportService(TaxonomyService taxonomyService, StoreRepository storeRepository,
+                                EntityManager entityManager, PlatformTransactionManager transactionManager,
+                                Validator validator, ObjectMapper objectMapper,
+                                ApplicationEventPublisher eventPublisher) {
+        this.taxonomyService = taxonomyService;
+        this.storeRepository = storeRepository;
+        this.entityManager = entityManager;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.validator = validator;
+        this.objectMapper = objectMapper;
+        this.eventPublisher = eventPublisher;
+    }
+
+    public ProductImportResponse importProducts(Long storeId, User currentUser, CatalogFormat format, InputStream in) {
+        Store store = storeRepository.findById(storeId)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Store not found"));
+        if (!store.getOwner().getId().equals(currentUser.getId())) {
+            throw new ResponseStatusException(HttpStatus.FORBIDDEN, "You are not the owner of this store");
+        }
+
+        // One snapshot for the whole upload replaces a findByName per row
+        TaxonomySnapshot categories = taxonomyService.snapshot();
+
+        long start = System.currentTimeMillis();
+        Progress progress = new Progress();
+        BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+        RowSource rows = format == CatalogFormat.CSV ? csvRows(reader, storeId) : ndjsonRows(reader, storeId);
+
+        List<Row> chunk = new ArrayList<>(CHUNK_SIZE);
+        for (Row row = rows.next(); row != null; row = rows.next()) {
+            chunk.add(row);
+            if (chunk.size() == CHUNK_SIZE) {
+                importChunk(chunk, storeId, categories, progress);
+                chunk.clear();
+            }
+        }
+        if (!chunk.isEmpty()) {
+            importChunk(chunk, storeId, categories, progress);
+        }
+
+        if (!progress.created.isEmpty()) {
+            eventPublisher.publishEvent(new ProductsImportedEvent(
+                    storeId, progress.categoryNames, List.copyOf(progress.created)));
+        }
+        log.info("Imported {} products into store {} ({} rows failed) in {} ms",
+                progress.created.size(), storeId, progress.failed, System.currentTimeMillis() - start);
+        return new ProductImportResponse(progress.created.size(), progress.failed,
+                progress.errors, progress.failed > progress.errors.size());
+    }
+
+    private void importChunk(List<Row> chunk, Long storeId, TaxonomySnapshot categories, Progress progress) {
+        // Validation needs no database, so it runs on the common pool
+        List<Checked> checked = chunk.parallelStream()
+                .map(row -> check(row, categories))
+                .toList();
+
+        List<Checked> valid = new ArrayList<>();
+        for (Checked row : checked) {
+            if (row.error() != null) {
+                progress.fail(row.line(), row.error());
+            } else {
+                valid.add(row);
+            }
+        }
+        if (valid.isEmpty()) {
+            return;
+        }
+
+        try {
+            List<UUID> created = transactionTemplate.execute(status -> {
+                Store store = entityManager.getReference(Store.class, storeId);
+                List<UUID> ids = new ArrayList<>(valid.size());
+                for (Checked row : valid) {
+                    Product product = row.product();
+                    product.setStore(store);
+                    product.setCategory(entityManager.getReference(Category.class, row.category().id()));
+                    entityManager.persist(product);
+                    ids.add(product.getId());
+                }
+                // Inserts go out as JDBC batches; clearing keeps the session from growing with the upload
+                entityManager.flush();
+                entityManager.clear();
+                return ids;
+            });
+            progress.created.addAll(created);
+            valid.forEach(row -> progress.categoryNames.add(row.category().name()));
+        } catch (RuntimeException e) {
+            log.warn("Import chunk of {} rows into store {} failed", valid.size(), storeId, e);
+            String message = "Not saved: " + rootMessage(e);
+            valid.forEach(row -> progress.fail(row.line(), message));
+        }
+    }
+
+    private Checked check(Row row, TaxonomySnapshot categories) {
+        if (row.error() != null) {
+            return new Checked(row.line(), null, null, row.error());
+        }
+        ProductRequest request = row.request();
+        Set<ConstraintViolation<ProductRequest>> violations = validator.validate(request);
+        if (!violations.isEmpty()) {
+            return new Checked(row.line(), null, null, violations.stream()
+                    .map(ConstraintViolation::getMessage)
+                    .sorted()
+                    .collect(Collectors.joining("; ")));
+        }
+        if (request.price().signum() < 0) {
+            return new Checked(row.line(), null, null, "Price must be zero or positive");
+        }
+        CategoryResponse category = categories.categoryNamed(request.categoryName());
+        if (category == null) {
+            return new Checked(row.line(), null, null, "Category not found: " + request.categoryName());
+        }
+
+        // Same fields as ProductService.createProduct; store and category are attached on insert
+        Product product = Product.builder()
+                .name(request.name())
+                .description(request.description())
+                .price(request.price())
+                .imageUrl(request.imageUrl())
+                .isAvailable(true)
+                .quantity(request.quantity())
+                .discountActive(request.discountActive())
+                .totalSell(0)
+                .build();
+        return new Checked(row.line(), product, category, null);
+    }
+
+    // ==================== PARSING ====================
+
+    // A header row names the columns, in any order; unknown columns are ignored
+    private RowSource csvRows(BufferedReader reader, Long storeId) {
+        CsvReader csv = new CsvReader(reader, MAX_ROW_LENGTH);
+        List<String> header;
+        try {
+            header = csv.next();
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+        if (header == null) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "The upload is empty");
+        }
+        Map<String, Integer> columns = new HashMap<>();
+        for (int i = 0; i < header.size(); i++) {
+            columns.put(header.get(i).trim().toLowerCase(Locale.ROOT), i);
+        }
+        List<String> missing = REQUIRED_COLUMNS.stream()
+                .filter(column -> !columns.containsKey(column.toLowerCase(Locale.ROOT)))
+                .toList();
+        if (!missing.isEmpty()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Missing CSV columns: " + missing);
+        }
+
+        boolean[] stopped = {false};
+        return () -> {
+            if (stopped[0]) {
+                return null;
+            }
+            List<String> fields;
+            try {
+                fields = csv.next();
+            } catch (IllegalArgumentException e) {
+                // An unclosed quote or an overlong record leaves nothing to resync on, so this is the last row
+                stopped[0] = true;
+                return new Row(csv.recordLine(), null, e.getMessage() + "; import stopped");
+            }
+            if (fields == null) {
+                return null;
+            }
+            int line = csv.recordLine();
+            if (fields.size() != header.size()) {
+                return new Row(line, null, "Expected " + header.size() + " columns, found " + fields.size());
+            }
+            Function<String, String> value = column -> {
+                Integer index = columns.get(column.toLowerCase(Locale.ROOT));
+                String text = index == null ? null : fields.get(index).trim();
+                return text == null || text.isEmpty() ? null : text;
+            };
+            try {
+                return new Row(line, new ProductRequest(
+                        value.apply("name"),
+                        value.apply("description"),
+                        parse(value.apply("price"), BigDecimal::new, "price"),
+                        value.apply("imageUrl"),
+                        value.apply("categoryName"),
+                        storeId,
+                        parse(value.apply("quantity"), Integer::valueOf, "quantity"),
+                        parse(value.apply("discountActive"), Boolean::valueOf, "discountActive")
+                ), null);
+            } catch (IllegalArgumentException e) {
+                return new Row(line, null, e.getMessage());
+            }
+        };
+    }
+
+    // One JSON object per line with the fields of ProductRequest; the store comes from the URL
+    private RowSource ndjsonRows(BufferedReader reader, Long storeId) {
+        int[] lineNumber = {0};
+        boolean[] stopped = {false};
+        return () -> {
+            if (stopped[0]) {
+                return null;
+            }
+            String line;
+            do {
+                line = readLine(reader, MAX_ROW_LENGTH);
+                lineNumber[0]++;
+            } while (line != null && line.length() <= MAX_ROW_LENGTH && line.isBlank());
+            if (line == null) {
+                return null;
+            }
+            if (line.length() > MAX_ROW_LENGTH) {
+                stopped[0] = true;
+                return new Row(lineNumber[0], null,
+                        "Line is longer than " + MAX_ROW_LENGTH + " characters; import stopped");
+            }
+            try {
+                ProductRequest request = objectMapper.readValue(line, ProductRequest.class);
+                return new Row(lineNumber[0], new ProductRequest(
+                        request.name(),
+                        request.description(),
+                        request.price(),
+                        request.imageUrl(),
+                        request.categoryName(),
+                        storeId,
+                        request.quantity(),
+                        request.discountActive()
+                ), null);
+            } catch (JsonProcessingException e) {
+                return new Row(lineNumber[0], null, "Invalid JSON: " + e.getOriginalMessage());
+            }
+        };
+    }
+
+    private static <T> T parse(@Nullable String text, Function<String, T> parser, String column) {
+        if (text == null) {
+            return null;
+        }
+        try {
+            return parser.apply(text);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid " + column + ": " + text);
+        }
+    }
+
+    /**
+     * Like {@link BufferedReader#readLine()}, but stops buffering after
+     * {@code maxLength} characters: a longer line comes back cut to
+     * {@code maxLength + 1} characters, and the rest of the input is not read.
+     */
+    private static String readLine(BufferedReader reader, int maxLength) {
+        StringBuilder line = new StringBuilder();
+        try {
+            int c = reader.read();
+            if (c == -1) {
+                return null;
+            }
+            while (c != -1 && c != '\n') {
+                if (c == '\r') {
+                    reader.mark(1);
+                    if (reader.read() != '\n') {
+                        reader.reset();
+                    }
+                    break;
+                }
+                line.append((char) c);
+                if (line.length() > maxLength) {
+                    break;
+                }
+                c = reader.read();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return line.toString();
+    }
+
+    private static String rootMessage(Throwable e) {
+        Throwable root = e;
+        while (root.getCause() != null && root.getCause() != root) {
+            root = root.getCause();
+        }
+        return root.getMessage();
+    }
+
+    // Totals of one import; only touched by the importing thread
+    private static final class Progress {
+        final List<UUID> created = new ArrayList<>();
+        final Set<String> categoryNames = new HashSet<>();
+        final List<ProductImportResponse.RowError> errors = new ArrayList<>();
+        int failed;
+
+        void fail(int line, String message) {
+            failed++;
+            if (errors.size() < MAX_REPORTED_ERRORS) {
+                errors.add(new ProductImportResponse.RowError(line, message));
+            }
+        }
+    }
+}
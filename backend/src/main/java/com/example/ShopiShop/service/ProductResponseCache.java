@@ -0,0 +1,502 @@
+package com.example.ShopiShop.service;
+
+import com.example.ShopiShop.config.CacheProperties;
+import com.example.ShopiShop.dto.ProductResponse;
+import com.example.ShopiShop.dto.Versioned;
+import com.example.ShopiShop.events.ProductChangedEvent;
+import com.example.ShopiShop.events.ProductsImportedEvent;
+import com.example.ShopiShop.events.ProductsRepricedEvent;
+import com.example.ShopiShop.events.ProductsSoldEvent;
+import com.example.ShopiShop.events.RatingsBackfilledEvent;
+import com.example.ShopiShop.events.TaxonomyChangedEvent;
+import com.example.ShopiShop.models.Product;
+import com.example.ShopiShop.repositories.ProductRepository;
+import com.example.ShopiShop.utils.EncodedBody;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.OptionalLong;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * Cache for product responses and the listings built from them.
+ * <p>
+ * Single products are keyed by (id, version), so a response built from an
+ * older row is never served once a newer version has been seen. Listings
+ * record the products they contain and the scopes (tags) they were selected
+ * from, e.g. a store or a category. A product change then drops the entries
+ * that contain the product, plus the entries of any scope the product
+ * entered or left, and nothing else.
+ * <p>
+ * Loads that overlap an invalidation of one of their products or scopes
+ * are returned but not stored. Concurrent misses on the same key share a
+ * single load, and listings with a refresh-after-write period are reloaded
+ * in the background while the old value is still served.
+ */
+@Service
+public class ProductResponseCache {
+
+    public static final String PRODUCT = "product";
+    public static final String PRODUCTS = "products";
+    public static final String STORE_PRODUCTS = "storeProducts";
+    public static final String PAGINATED_PRODUCTS = "paginatedProducts";
+    public static final String BEST_DEALS = "bestDeals";
+    public static final String FEATURED_PRODUCTS = "featuredProducts";
+    public static final String BEST_SELLING = "bestSelling";
+    public static final String ACTIVE_DISCOUNTS = "activeDiscounts";
+    public static final String TOP_DISCOUNTS = "topDiscounts";
+    public static final String EXPIRING_DISCOUNTS = "expiringDiscounts";
+
+    private static final List<String> LISTINGS = List.of(PRODUCTS, STORE_PRODUCTS, PAGINATED_PRODUCTS,
+            BEST_DEALS, FEATURED_PRODUCTS, BEST_SELLING, ACTIVE_DISCOUNTS, TOP_DISCOUNTS, EXPIRING_DISCOUNTS);
+
+    // Scopes a listing can be selected from
+    public static final String CATALOG_TAG = "catalog";
+    public static final String DISCOUNTS_TAG = "discounts";
+
+    public static String categoryTag(String categoryName) {
+        return "category:" + categoryName;
+    }
+
+    public static String storeTag(Long storeId) {
+        return "store:" + storeId;
+    }
+
+    private record ProductKey(UUID id, long version) {
+    }
+
+    // Equal on the caller's key only; carries what is needed to load (and reload) the listing
+    private static final class ListingKey {
+        final String cache;
+        final Object key;
+        final Set<String> tags;
+        final Supplier<?> loader;
+        final Function<Object, Collection<ProductResponse>> contents;
+
+        @SuppressWarnings("unchecked")
+        <V> ListingKey(String cache, Object key, Set<String> tags, Supplier<V> loader,
+                       Function<V, Collection<ProductResponse>> contents) {
+            this.cache = cache;
+            this.key = key;
+            this.tags = Set.copyOf(tags);
+            this.loader = loader;
+            this.contents = (Function<Object, Collection<ProductResponse>>) contents;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            return other instanceof ListingKey that && cache.equals(that.cache) && key.equals(that.key);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * cache.hashCode() + key.hashCode();
+        }
+    }
+
+    // Identity equality on purpose: the value can be a large page
+    private static final class Listing {
+        final ListingKey key;
+        final Object value;
+        final Set<UUID> productIds;
+        // Sequence number when the load started
+        final long loadedAt;
+        // Set once checked against invalidations that raced with the load
+        volatile boolean verified;
+        // Response bytes, built on the first encoded read
+        volatile EncodedBody encoded;
+
+        Listing(ListingKey key, Object value, Set<UUID> productIds, long loadedAt) {
+            this.key = key;
+            this.value = value;
+            this.productIds = productIds;
+            this.loadedAt = loadedAt;
+        }
+    }
+
+    private final ProductRepository productRepository;
+
+    private final Cache<ProductKey, ProductResponse> products;
+    // Detail loads in flight, so concurrent misses on a product share one
+    private final Map<UUID, CompletableFuture<Versioned<ProductResponse>>> productLoads = new ConcurrentHashMap<>();
+    private final Map<String, LoadingCache<ListingKey, Listing>> listings = new HashMap<>();
+    private final Map<String, Counter> invalidations = new HashMap<>();
+
+    // Latest version seen per product
+    private final Map<UUID, Long> versions = new ConcurrentHashMap<>();
+    private final Map<UUID, Set<Listing>> byProduct = new ConcurrentHashMap<>();
+    private final Map<String, Set<Listing>> byTag = new ConcurrentHashMap<>();
+    // Scope fingerprints per product as of its last change, to tell whether a change moved it
+    private final Map<UUID, Map<String, Object>> productScopes = new ConcurrentHashMap<>();
+
+    // Sequence number of the last invalidation per product id or tag
+    private final AtomicLong sequence = new AtomicLong();
+    private final Map<Object, Long> invalidatedAt = new ConcurrentHashMap<>();
+    // Sequence number of the last time everything was dropped
+    private volatile long clearedAt;
+
+    public ProductResponseCache(ProductRepository productRepository, MeterRegistry meterRegistry,
+                                CacheProperties cacheProperties) {
+        this.productRepository = productRepository;
+        this.products = cacheProperties.builderFor(PRODUCT).build();
+        CaffeineCacheMetrics.monitor(meterRegistry, products, PRODUCT);
+        invalidations.put(PRODUCT, invalidationCounter(meterRegistry, PRODUCT));
+
+        // Loads are blocking JDBC calls, so background refreshes get their own threads
+        Executor refreshExecutor = Executors.newVirtualThreadPerTaskExecutor();
+        for (String name : LISTINGS) {
+            Caffeine<Object, Object> builder = cacheProperties.builderFor(name).executor(refreshExecutor);
+            cacheProperties.refreshAfterWrite(name).ifPresent(builder::refreshAfterWrite);
+            LoadingCache<ListingKey, Listing> cache = builder
+                    .<ListingKey, Listing>removalListener((key, listing, cause) -> {
+                        if (listing != null) {
+                            unregister(listing);
+                        }
+                    })
+                    .build(this::load);
+            CaffeineCacheMetrics.monitor(meterRegistry, cache, name);
+            listings.put(name, cache);
+            invalidations.put(name, invalidationCounter(meterRegistry, name));
+        }
+    }
+
+    private static Counter invalidationCounter(MeterRegistry meterRegistry, String name) {
+        return Counter.builder("cache.invalidations")
+                .description("Entries dropped because a product they depend on changed")
+                .tag("cache", name)
+                .register(meterRegistry);
+    }
+
+    // ==================== READS ====================
+
+    public Versioned<ProductResponse> getProduct(UUID id, Supplier<Versioned<ProductResponse>> loader) {
+        Long known = versions.get(id);
+        // Looked up even when the version is unknown, so the miss is counted
+        ProductResponse cached = products.getIfPresent(new ProductKey(id, known != null ? known : -1));
+        if (cached != null) {
+            return new Versioned<>(known, cached);
+        }
+
+        long start = sequence.get();
+        CompletableFuture<Versioned<ProductResponse>> load = new CompletableFuture<>();
+        CompletableFuture<Versioned<ProductResponse>> inFlight = productLoads.putIfAbsent(id, load);
+        if (inFlight != null) {
+            try {
+                return inFlight.join();
+            } catch (CompletionException e) {
+                // Surface the loader's own exception, e.g. a 404
+                throw e.getCause() instanceof RuntimeException cause ? cause : e;
+            }
+        }
+        Versioned<ProductResponse> loaded;
+        try {
+            loaded = loader.get();
+            load.complete(loaded);
+        } catch (RuntimeException e) {
+            load.completeExceptionally(e);
+            throw e;
+        } finally {
+            productLoads.remove(id, load);
+        }
+
+        if (isCurrent(Set.of(id), Set.of(), start)) {
+            long latest = versions.merge(id, loaded.version(), Math::max);
+            if (latest == loaded.version()) {
+                ProductKey key = new ProductKey(id, latest);
+                products.put(key, loaded.value());
+                if (!isCurrent(Set.of(id), Set.of(), start)) {
+                    products.invalidate(key);
+                }
+            }
+        }
+        return loaded;
+    }
+
+    /**
+     * Version of the product's cached response, if one is cached. Lets a
+     * conditional request be answered without loading the product.
+     */
+    public OptionalLong cachedVersion(UUID id) {
+        Long known = versions.get(id);
+        return known != null && products.asMap().containsKey(new ProductKey(id, known))
+                ? OptionalLong.of(known)
+                : OptionalLong.empty();
+    }
+
+    /**
+     * Returns the cached listing or loads and stores it.
+     *
+     * @param tags     scopes the listing selects from; a product entering or
+     *                 leaving one of them drops the entry
+     * @param contents the products in the loaded value
+     */
+    @SuppressWarnings("unchecked")
+    public <V> V getListing(String cacheName, Object key, Set<String> tags, Supplier<V> loader,
+                            Function<V, Collection<ProductResponse>> contents) {
+        return (V) listing(cacheName, key, tags, loader, contents).value;
+    }
+
+    /**
+     * Like {@link #getListing}, but returns the response body built by the
+     * encoder. The body is built once per loaded value and dropped with it.
+     */
+    @SuppressWarnings("unchecked")
+    public <V> EncodedBody getEncodedListing(String cacheName, Object key, Set<String> tags, Supplier<V> loader,
+                                             Function<V, Collection<ProductResponse>> contents,
+                                             Function<V, EncodedBody> encoder) {
+        Listing listing = listing(cacheName, key, tags, loader, contents);
+        EncodedBody body = listing.encoded;
+        if (body == null) {
+            // Concurrent first reads may both encode the same value; either result is fine
+            body = encoder.apply((V) listing.value);
+            listing.encoded = body;
+        }
+        return body;
+    }
+
+    private <V> Listing listing(String cacheName, Object key, Set<String> tags, Supplier<V> loader,
+                                Function<V, Collection<ProductResponse>> contents) {
+        LoadingCache<ListingKey, Listing> cache = listings.get(cacheName);
+        ListingKey listingKey = new ListingKey(cacheName, key, tags, loader, contents);
+        Listing listing = cache.get(listingKey);
+
+        // First read after a (re)load: drop it if one of its products or scopes
+        // changed while it was loading. Later changes find it through register().
+        if (!listing.verified) {
+            if (isCurrent(listing.productIds, listingKey.tags, listing.loadedAt)) {
+                listing.verified = true;
+            } else {
+                cache.asMap().remove(listing.key, listing);
+            }
+        }
+        return listing;
+    }
+
+    // Cache loader, also used for background refreshes
+    private Listing load(ListingKey key) {
+        long start = sequence.get();
+        Object value = key.loader.get();
+        Set<UUID> productIds = key.contents.apply(value).stream()
+                .map(ProductResponse::id)
+                .collect(Collectors.toUnmodifiableSet());
+        Listing listing = new Listing(key, value, productIds, start);
+        // Registered before it is visible, so an invalidation racing with the load still finds it
+        register(listing);
+        return listing;
+    }
+
+    private boolean isCurrent(Set<UUID> productIds, Set<String> tags, long start) {
+        if (clearedAt > start) {
+            return false;
+        }
+        for (UUID productId : productIds) {
+            if (invalidatedAt.getOrDefault(productId, 0L) > start) {
+                return false;
+            }
+        }
+        for (String tag : tags) {
+            if (invalidatedAt.getOrDefault(tag, 0L) > start) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // ==================== INVALIDATION ====================
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        UUID id = event.productId();
+        Optional<Product> product = event.deleted()
+                ? Optional.empty()
+                : productRepository.findForCatalogById(id);
+
+        invalidate(Map.of(id, product.map(ProductResponseCache::versionOf)), movedScopes(id, product));
+    }
+
+    // One pass for a chunk of products: their own entries, then each moved scope once
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onProductsRepriced(ProductsRepricedEvent event) {
+        Map<UUID, Product> found = productRepository.findByIdIn(event.productIds()).stream()
+                .collect(Collectors.toMap(Product::getId, Function.identity()));
+
+        Map<UUID, Optional<Long>> versions = new HashMap<>();
+        Set<String> moved = new HashSet<>();
+        for (UUID id : event.productIds()) {
+            Optional<Product> product = Optional.ofNullable(found.get(id));
+            versions.put(id, product.map(ProductResponseCache::versionOf));
+            moved.addAll(movedScopes(id, product));
+        }
+        invalidate(versions, moved);
+    }
+
+    // Stock and sales totals are shown but select no scope, so only the sold products' own entries go
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onProductsSold(ProductsSoldEvent event) {
+        Map<UUID, Optional<Long>> versions = new HashMap<>();
+        event.sales().forEach(sale -> versions.put(sale.productId(), Optional.of((long) sale.version())));
+        invalidate(versions, Set.of());
+    }
+
+    // Records the product's current scopes and returns those it entered, left or moved within
+    private Set<String> movedScopes(UUID id, Optional<Product> product) {
+        Map<String, Object> current = product.map(ProductResponseCache::scopesOf).orElse(Map.of());
+        Map<String, Object> previous = product.isPresent()
+                ? productScopes.put(id, current)
+                : productScopes.remove(id);
+
+        Set<String> moved = new HashSet<>();
+        if (previous == null && product.isEmpty()) {
+            // Deleted before we ever saw it: any scoped listing may have held it
+            moved.addAll(byTag.keySet());
+        } else if (previous == null) {
+            // First change seen for this product (or a new one): it may have entered all its scopes
+            moved.addAll(current.keySet());
+        } else {
+            Set<String> scopes = new HashSet<>(previous.keySet());
+            scopes.addAll(current.keySet());
+            for (String scope : scopes) {
+                if (!Objects.equals(previous.get(scope), current.get(scope))) {
+                    moved.add(scope);
+                }
+            }
+        }
+        return moved;
+    }
+
+    // New products are in no cached response yet; only the scopes they entered are dropped, once per import
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onProductsImported(ProductsImportedEvent event) {
+        Set<String> tags = new HashSet<>();
+        tags.add(CATALOG_TAG);
+        tags.add(DISCOUNTS_TAG);
+        tags.add(storeTag(event.storeId()));
+        event.categoryNames().forEach(name -> tags.add(categoryTag(name)));
+
+        long seq = sequence.incrementAndGet();
+        tags.forEach(tag -> invalidatedAt.put(tag, seq));
+        tags.forEach(tag -> evict(byTag.remove(tag)));
+    }
+
+    // Category names appear in every response and in the listing keys
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onTaxonomyChanged(TaxonomyChangedEvent event) {
+        clear();
+    }
+
+    // Ratings appear in every response
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onRatingsBackfilled(RatingsBackfilledEvent event) {
+        clear();
+    }
+
+    private void clear() {
+        clearedAt = sequence.incrementAndGet();
+        products.invalidateAll();
+        listings.values().forEach(Cache::invalidateAll);
+        productScopes.clear();
+    }
+
+    // New versions by product id; empty for a deleted product
+    private void invalidate(Map<UUID, Optional<Long>> newVersions, Set<String> tags) {
+        long seq = sequence.incrementAndGet();
+        newVersions.keySet().forEach(productId -> invalidatedAt.put(productId, seq));
+        tags.forEach(tag -> invalidatedAt.put(tag, seq));
+
+        newVersions.forEach((productId, newVersion) -> {
+            Long previous = newVersion.isPresent()
+                    ? versions.put(productId, newVersion.get())
+                    : versions.remove(productId);
+            if (previous != null && products.asMap().remove(new ProductKey(productId, previous)) != null) {
+                invalidations.get(PRODUCT).increment();
+            }
+            evict(byProduct.remove(productId));
+        });
+        tags.forEach(tag -> evict(byTag.remove(tag)));
+    }
+
+    private static long versionOf(Product product) {
+        return product.getVersion() != null ? product.getVersion().longValue() : 0L;
+    }
+
+    private void evict(Set<Listing> dependents) {
+        if (dependents == null) {
+            return;
+        }
+        for (Listing listing : dependents) {
+            if (listings.get(listing.key.cache).asMap().remove(listing.key, listing)) {
+                invalidations.get(listing.key.cache).increment();
+            }
+        }
+    }
+
+    private void register(Listing listing) {
+        listing.productIds.forEach(id -> byProduct.compute(id, (key, set) -> add(set, listing)));
+        listing.key.tags.forEach(tag -> byTag.compute(tag, (key, set) -> add(set, listing)));
+    }
+
+    private void unregister(Listing listing) {
+        listing.productIds.forEach(id -> byProduct.computeIfPresent(id, (key, set) -> remove(set, listing)));
+        listing.key.tags.forEach(tag -> byTag.computeIfPresent(tag, (key, set) -> remove(set, listing)));
+    }
+
+    private static Set<Listing> add(Set<Listing> set, Listing listing) {
+        Set<Listing> target = set != null ? set : ConcurrentHashMap.newKeySet();
+        target.add(listing);
+        return target;
+    }
+
+    private static Set<Listing> remove(Set<Listing> set, Listing listing) {
+        set.remove(listing);
+        return set.isEmpty() ? null : set;
+    }
+
+    /**
+     * The scopes a product belongs to, each with the attributes that decide
+     * its place in listings of that scope. A change to one of them means the
+     * product may have entered, left or moved within that scope's listings.
+     */
+    static Map<String, Object> scopesOf(Product product) {
+        Map<String, Object> scopes = new HashMap<>();
+        scopes.put(CATALOG_TAG, Boolean.TRUE);
+        if (product.getCategory() != null) {
+            scopes.put(categoryTag(product.getCategory().getName()), Boolean.TRUE);
+        }
+        if (product.getStore() != null) {
+            scopes.put(storeTag(product.getStore().getId()), Boolean.TRUE);
+        }
+        if (Boolean.TRUE.equals(product.getDiscountActive())) {
+            scopes.put(DISCOUNTS_TAG, Arrays.asList(
+                    product.getDiscountType(),
+                    product.getDiscountValue(),
+                    product.getDiscountStartDate(),
+                    product.getDiscountEndDate()));
+        }
+        return scopes;
+    }
+}
@@ -0,0 +1,467 @@
+package com.example.ShopiShop.service;
+
+import java.text.Normalizer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+
+/**
+ * In-memory inverted index over product text, ranked with BM25.
+ * <p>
+ * Every product gets a dense ordinal, reused after deletes; postings store
+ * (ordinal, weighted term frequency) in parallel primitive arrays. An update
+ * keeps the product's ordinal and moves its postings from the old terms to
+ * the new ones, or only records the new version if the text is unchanged.
+ * Query terms are ANDed; each term also matches indexed terms it is a prefix of.
+ * <p>
+ * Plain Java on purpose (no Spring), see ProductSearchService for the wiring.
+ */
+public class ProductSearchIndex {
+
+    // BM25 parameters
+    private static final float K1 = 1.2f;
+    private static final float B = 0.75f;
+
+    // Prefix expansions count less than an exact term match
+    private static final float PREFIX_WEIGHT = 0.6f;
+    private static final int MIN_PREFIX_LENGTH = 2;
+    private static final int MAX_PREFIX_EXPANSIONS = 64;
+
+    private static final Pattern COMBINING_MARKS = Pattern.compile("\\p{M}+");
+    private static final Pattern NON_WORD = Pattern.compile("[^\\p{L}\\p{Nd}]+");
+
+    public enum Field {
+        NAME(3.0f),
+        CATEGORY(2.0f),
+        STORE(1.5f),
+        DESCRIPTION(1.0f);
+
+        private final float boost;
+
+        Field(float boost) {
+            this.boost = boost;
+        }
+    }
+
+    public record Document(UUID id, long version, String name, String description, String category, String store) {
+    }
+
+    public record Hit(UUID productId, float score) {
+    }
+
+    public record Result(List<Hit> hits, int totalHits) {
+    }
+
+    /**
+     * A tokenized document, ready to be inserted. Building these is the
+     * expensive part of indexing and needs no lock, so rebuilds do it in parallel.
+     */
+    public record AnalyzedDocument(UUID id, long version, Map<String, Float> termFrequencies, float length) {
+    }
+
+    // Unordered: scoring visits every posting of a term anyway
+    private static final class Postings {
+        int[] docs = new int[4];
+        float[] frequencies = new float[4];
+        int size;
+
+        void add(int ordinal, float frequency) {
+            if (size == docs.length) {
+                docs = Arrays.copyOf(docs, size * 2);
+                frequencies = Arrays.copyOf(frequencies, size * 2);
+            }
+            docs[size] = ordinal;
+            frequencies[size] = frequency;
+            size++;
+        }
+
+        // Moves the last posting into the freed slot
+        void remove(int ordinal) {
+            for (int i = 0; i < size; i++) {
+                if (docs[i] == ordinal) {
+                    size--;
+                    docs[i] = docs[size];
+                    frequencies[i] = frequencies[size];
+                    return;
+                }
+            }
+        }
+    }
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final NavigableMap<String, Postings> terms = new TreeMap<>();
+    private final Map<UUID, Integer> ordinals = new HashMap<>();
+    private final Deque<Integer> freeOrdinals = new ArrayDeque<>();
+
+    // Per-ordinal data; documentTerms[o] and documentFrequencies[o] are parallel
+    private UUID[] ids = new UUID[1024];
+    private long[] versions = new long[1024];
+    private float[] lengths = new float[1024];
+    private String[][] documentTerms = new String[1024][];
+    private float[][] documentFrequencies = new float[1024][];
+
+    private int nextOrdinal;
+    private int liveCount;
+    private double totalLength;
+
+    // Ids removed while a bulk load is running, so the load doesn't resurrect them
+    private Set<UUID> tombstones;
+
+    // ==================== ANALYSIS ====================
+
+    public static List<String> tokenize(String text) {
+        if (text == null || text.isBlank()) {
+            return List.of();
+        }
+        List<String> tokens = new ArrayList<>();
+        for (String token : NON_WORD.split(fold(text))) {
+            if (!token.isEmpty()) {
+                tokens.add(token);
+            }
+        }
+        return tokens;
+    }
+
+    /** Lowercases and strips accents (combining marks after NFD decomposition). */
+    public static String fold(String text) {
+        return COMBINING_MARKS.matcher(Normalizer.normalize(text, Normalizer.Form.NFD))
+                .replaceAll("")
+                .toLowerCase(Locale.ROOT);
+    }
+
+    public static AnalyzedDocument analyze(Document document) {
+        Map<String, Float> frequencies = new HashMap<>();
+        float length = 0;
+        length += addField(frequencies, document.name(), Field.NAME);
+        length += addField(frequencies, document.category(), Field.CATEGORY);
+        length += addField(frequencies, document.store(), Field.STORE);
+        length += addField(frequencies, document.description(), Field.DESCRIPTION);
+        return new AnalyzedDocument(document.id(), document.version(), frequencies, length);
+    }
+
+    private static float addField(Map<String, Float> frequencies, String text, Field field) {
+        List<String> tokens = tokenize(text);
+        for (String token : tokens) {
+            frequencies.merge(token, field.boost, Float::sum);
+        }
+        return tokens.size() * field.boost;
+    }
+
+    // ==================== WRITES ====================
+
+    public void upsert(Document document) {
+        upsert(analyze(document));
+    }
+
+    public void upsert(AnalyzedDocument document) {
+        lock.writeLock().lock();
+        try {
+            insert(document);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(UUID productId) {
+        lock.writeLock().lock();
+        try {
+            if (tombstones != null) {
+                tombstones.add(productId);
+            }
+            Integer ordinal = ordinals.remove(productId);
+            if (ordinal != null) {
+                clearPostings(ordinal);
+                liveCount--;
+                ids[ordinal] = null;
+                freeOrdinals.push(ordinal);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Starts a bulk load. Until {@link #finishLoad()}, documents passed to
+     * {@link #load(Collection)} are skipped if they were removed meanwhile or
+     * if a newer version was indexed by a live update.
+     */
+    public void startLoad() {
+        lock.writeLock().lock();
+        try {
+            tombstones = new HashSet<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void load(Collection<AnalyzedDocument> documents) {
+        lock.writeLock().lock();
+        try {
+            for (AnalyzedDocument document : documents) {
+                if (tombstones == null || !tombstones.contains(document.id())) {
+                    insert(document);
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void finishLoad() {
+        lock.writeLock().lock();
+        try {
+            tombstones = null;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void insert(AnalyzedDocument document) {
+        Integer existing = ordinals.get(document.id());
+        int ordinal;
+        if (existing != null) {
+            if (versions[existing] > document.version()) {
+                return; // a newer version is already indexed
+            }
+            ordinal = existing;
+            versions[ordinal] = document.version();
+            if (sameText(ordinal, document)) {
+                return;
+            }
+            clearPostings(ordinal);
+        } else {
+            ordinal = freeOrdinals.isEmpty() ? nextOrdinal++ : freeOrdinals.pop();
+            ensureCapacity(ordinal);
+            ordinals.put(document.id(), ordinal);
+            ids[ordinal] = document.id();
+            versions[ordinal] = document.version();
+            liveCount++;
+        }
+
+        String[] docTerms = new String[document.termFrequencies().size()];
+        float[] docFrequencies = new float[docTerms.length];
+        int i = 0;
+        for (Map.Entry<String, Float> entry : document.termFrequencies().entrySet()) {
+            terms.computeIfAbsent(entry.getKey(), term -> new Postings()).add(ordinal, entry.getValue());
+            docTerms[i] = entry.getKey();
+            docFrequencies[i] = entry.getValue();
+            i++;
+        }
+        documentTerms[ordinal] = docTerms;
+        documentFrequencies[ordinal] = docFrequencies;
+        lengths[ordinal] = document.length();
+        totalLength += document.length();
+    }
+
+    private boolean sameText(int ordinal, AnalyzedDocument document) {
+        String[] docTerms = documentTerms[ordinal];
+        Map<String, Float> frequencies = document.termFrequencies();
+        if (lengths[ordinal] != document.length() || docTerms.length != frequencies.size()) {
+            return false;
+        }
+        for (int i = 0; i < docTerms.length; i++) {
+            Float frequency = frequencies.get(docTerms[i]);
+            if (frequency == null || frequency != documentFrequencies[ordinal][i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void clearPostings(int ordinal) {
+        totalLength -= lengths[ordinal];
+        for (String term : documentTerms[ordinal]) {
+            Postings postings = terms.get(term);
+            postings.remove(ordinal);
+            if (postings.size == 0) {
+                terms.remove(term);
+            }
+        }
+        documentTerms[ordinal] = null;
+        documentFrequencies[ordinal] = null;
+    }
+
+    private void ensureCapacity(int ordinal) {
+        if (ordinal < ids.length) {
+            return;
+        }
+        int capacity = Math.max(ids.length * 2, ordinal + 1);
+        ids = Arrays.copyOf(ids, capacity);
+        versions = Arrays.copyOf(versions, capacity);
+        lengths = Arrays.copyOf(lengths, capacity);
+        documentTerms = Arrays.copyOf(documentTerms, capacity);
+        documentFrequencies = Arrays.copyOf(documentFrequencies, capacity);
+    }
+
+    // ==================== READS ====================
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return liveCount;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public Result search(String query, int offset, int limit) {
+        List<String> queryTokens = new ArrayList<>(new LinkedHashSet<>(tokenize(query)));
+        if (queryTokens.isEmpty() || limit <= 0 || offset < 0) {
+            return new Result(List.of(), 0);
+        }
+
+        lock.readLock().lock();
+        try {
+            if (liveCount == 0) {
+                return new Result(List.of(), 0);
+            }
+
+            // Expand each query token to the indexed terms it matches,
+            // then walk the most selective token first to keep the candidate set small
+            List<List<Map.Entry<String, Postings>>> expansions = new ArrayList<>();
+            for (String token : queryTokens) {
+                List<Map.Entry<String, Postings>> matched = expand(token);
+                if (matched.isEmpty()) {
+                    return new Result(List.of(), 0);
+                }
+                expansions.add(matched);
+            }
+            expansions.sort(Comparator.comparingLong(ProductSearchIndex::postingCount));
+
+            return score(queryTokens, expansions, offset, limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private List<Map.Entry<String, Postings>> expand(String token) {
+        if (token.length() < MIN_PREFIX_LENGTH) {
+            Postings exact = terms.get(token);
+            return exact == null ? List.of() : List.of(Map.entry(token, exact));
+        }
+        List<Map.Entry<String, Postings>> matched = new ArrayList<>();
+        for (Map.Entry<String, Postings> entry
+                : terms.subMap(token, true, token + Character.MAX_VALUE, false).entrySet()) {
+            matched.add(entry);
+            if (matched.size() == MAX_PREFIX_EXPANSIONS) {
+                break;
+            }
+        }
+        return matched;
+    }
+
+    private static long postingCount(List<Map.Entry<String, Postings>> expansion) {
+        long count = 0;
+        for (Map.Entry<String, Postings> entry : expansion) {
+            count += entry.getValue().size;
+        }
+        return count;
+    }
+
+    private Result score(List<String> queryTokens,
+                         List<List<Map.Entry<String, Postings>>> expansions,
+                         int offset,
+                         int limit) {
+        float averageLength = (float) (totalLength / liveCount);
+        CandidateScores candidates = new CandidateScores((int) Math.min(postingCount(expansions.get(0)), liveCount));
+
+        for (int tokenIndex = 0; tokenIndex < expansions.size(); tokenIndex++) {
+            for (Map.Entry<String, Postings> entry : expansions.get(tokenIndex)) {
+                String term = entry.getKey();
+                Postings postings = entry.getValue();
+                boolean exact = queryTokens.contains(term);
+                float weight = exact ? 1.0f : PREFIX_WEIGHT;
+                double idf = Math.log(1 + (liveCount - postings.size + 0.5) / (postings.size + 0.5));
+
+                for (int i = 0; i < postings.size; i++) {
+                    int ordinal = postings.docs[i];
+                    float tf = postings.frequencies[i];
+                    float norm = tf * (K1 + 1) / (tf + K1 * (1 - B + B * lengths[ordinal] / averageLength));
+                    candidates.accumulate(ordinal, tokenIndex, (float) (weight * idf * norm));
+                }
+            }
+        }
+
+        // Keep the best offset+limit documents that matched every token
+        int wanted = (int) Math.min((long) offset + limit, Integer.MAX_VALUE);
+        PriorityQueue<Hit> top = new PriorityQueue<>(Comparator.comparingDouble(Hit::score));
+        int totalHits = 0;
+        int required = expansions.size();
+        for (int slot = 0; slot < candidates.keys.length; slot++) {
+            if (candidates.keys[slot] < 0 || candidates.matchedTokens[slot] != required) {
+                continue;
+            }
+            totalHits++;
+            float score = candidates.scores[slot];
+            if (top.size() < wanted) {
+                top.add(new Hit(ids[candidates.keys[slot]], score));
+            } else if (score > top.peek().score()) {
+                top.poll();
+                top.add(new Hit(ids[candidates.keys[slot]], score));
+            }
+        }
+
+        List<Hit> ranked = new ArrayList<>(top);
+        ranked.sort(Comparator.comparingDouble(Hit::score).reversed());
+        List<Hit> page = offset >= ranked.size() ? List.of() : ranked.subList(offset, ranked.size());
+        return new Result(page, totalHits);
+    }
+
+    /**
+     * Open-addressing map ordinal -> (score, number of query tokens matched).
+     * Only documents matched by the first (most selective) token are admitted.
+     */
+    private static final class CandidateScores {
+        final int[] keys;
+        final float[] scores;
+        final short[] matchedTokens;
+        private final int mask;
+
+        CandidateScores(int expected) {
+            int capacity = Integer.highestOneBit(Math.max(16, expected * 2 - 1)) << 1;
+            keys = new int[capacity];
+            Arrays.fill(keys, -1);
+            scores = new float[capacity];
+            matchedTokens = new short[capacity];
+            mask = capacity - 1;
+        }
+
+        void accumulate(int ordinal, int tokenIndex, float score) {
+            int slot = (ordinal * 0x9E3779B9) >>> 1 & mask;
+            while (keys[slot] != -1 && keys[slot] != ordinal) {
+                slot = (slot + 1) & mask;
+            }
+            if (keys[slot] == -1) {
+                if (tokenIndex != 0) {
+                    return; // missed an earlier token, can't match them all
+                }
+                keys[slot] = ordinal;
+            }
+            short matched = matchedTokens[slot];
+            if (matched < tokenIndex) {
+                return;
+            }
+            if (matched == tokenIndex) {
+                matchedTokens[slot] = (short) (tokenIndex + 1);
+            }
+            scores[slot] += score;
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package com.example.ShopiShop.service;
+
+import com.example.ShopiShop.dto.ProductResponse;
+import com.example.ShopiShop.events.ProductChangedEvent;
+import com.example.ShopiShop.events.ProductsImportedEvent;
+import com.example.ShopiShop.models.Product;
+import com.example.ShopiShop.repositories.ProductRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Full-text product search backed by {@link ProductSearchIndex}.
+ * The index is built in the background once the application is ready and
+ * then follows ProductService writes through {@link ProductChangedEvent}.
+ * Searches only hit the database to load the page of matching products.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ProductSearchService {
+
+    private static final int MAX_PAGE_SIZE = 100;
+    // Products read per query while rebuilding
+    private static final int REBUILD_BATCH_SIZE = 1000;
+
+    private final ProductRepository productRepository;
+    private final ProductCatalogService productCatalogService;
+    private final ProductSearchIndex index = new ProductSearchIndex();
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildOnStartup() {
+        CompletableFuture.runAsync(this::rebuild)
+                .exceptionally(ex -> {
+                    log.error("Product search index rebuild failed", ex);
+                    return null;
+                });
+    }
+
+    public void rebuild() {
+        long start = System.currentTimeMillis();
+        index.startLoad();
+        try {
+            UUID lastId = null;
+            List<Product> batch;
+            do {
+                batch = productRepository.findCatalogBatchAfter(lastId, PageRequest.of(0, REBUILD_BATCH_SIZE));
+                if (batch.isEmpty()) {
+                    break;
+                }
+                // Tokenizing is the costly part and needs no lock, so spread it over the common pool
+                index.load(batch.parallelStream()
+                        .map(product -> ProductSearchIndex.analyze(toDocument(product)))
+                        .toList());
+                lastId = batch.get(batch.size() - 1).getId();
+            } while (batch.size() == REBUILD_BATCH_SIZE);
+        } finally {
+            index.finishLoad();
+        }
+        log.info("Product search index built: {} products in {} ms",
+                index.size(), System.currentTimeMillis() - start);
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        if (event.deleted()) {
+            index.remove(event.productId());
+            return;
+        }
+        productRepository.findForCatalogById(event.productId())
+                .ifPresentOrElse(
+                        product -> index.upsert(toDocument(product)),
+                        () -> index.remove(event.productId()));
+    }
+
+    // Imported products arrive together, so they are read in batches rather than one by one
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onProductsImported(ProductsImportedEvent event) {
+        List<UUID> ids = event.productIds();
+        for (int from = 0; from < ids.size(); from += REBUILD_BATCH_SIZE) {
+            productRepository.findByIdIn(ids.subList(from, Math.min(from + REBUILD_BATCH_SIZE, ids.size())))
+                    .forEach(product -> index.upsert(toDocument(product)));
+        }
+    }
+
+    public Page<ProductResponse> search(String query, int page, int size) {
+        int pageSize = Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+        // Clamped so the offset stays a valid int
+        PageRequest pageable = PageRequest.of(Math.min(Math.max(page, 0), Integer.MAX_VALUE / pageSize - 1), pageSize);
+
+        ProductSearchIndex.Result result = index.search(query, (int) pageable.getOffset(), pageSize);
+        List<UUID> ids = result.hits().stream().map(ProductSearchIndex.Hit::productId).toList();
+        return new PageImpl<>(productCatalogService.findListingResponses(ids), pageable, result.totalHits());
+    }
+
+    private static ProductSearchIndex.Document toDocument(Product product) {
+        return new ProductSearchIndex.Document(
+                product.getId(),
+                product.getVersion() != null ? product.getVersion() : 0,
+                product.getName(),
+                product.getDescription(),
+                product.getCategory() != null ? product.getCategory().getName() : null,
+                product.getStore() != null ? product.getStore().getName() : null
+        );
+    }
+}
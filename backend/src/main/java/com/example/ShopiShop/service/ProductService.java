@@ -2,29 +2,37 @@ package com.example.ShopiShop.service;
 
 import com.example.ShopiShop.dto.*;
 import com.example.ShopiShop.enums.DiscountType;
+import com.example.ShopiShop.events.ProductChangedEvent;
 import com.example.ShopiShop.exceptions.ResourceNotFoundException;
 import com.example.ShopiShop.models.*;
 import com.example.ShopiShop.repositories.CategoryRepository;
+import com.example.ShopiShop.repositories.ProductListingRepository;
 import com.example.ShopiShop.repositories.ProductRepository;
 import com.example.ShopiShop.repositories.StoreRepository;
+import com.example.ShopiShop.utils.KeysetCursor;
+import com.example.ShopiShop.utils.PricingEngine;
+import jakarta.persistence.Tuple;
 import jakarta.transaction.Transactional;
 import jakarta.validation.ConstraintViolationException;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageImpl; 
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
-import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Pageable;
 import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.lang.Nullable;
 import org.springframework.stereotype.Service;
 
 import java.math.BigDecimal;
+import java.sql.Timestamp;
 import java.time.LocalDate;
-import java.time.LocalDateTime;
 import java.time.temporal.ChronoUnit;
-import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
 
 @Service
@@ -33,14 +41,19 @@ public class ProductService {
 
     private final ProductRepository productRepository;
     private final CategoryRepository categoryRepository;
+    private final TaxonomyService taxonomyService;
     private final StoreRepository storeRepository;
     private final DiscountService discountService;
+    private final DiscountScheduler discountScheduler;
+    private final ProductCatalogService productCatalogService;
+    private final BestSellerService bestSellerService;
     private final SimpMessagingTemplate messagingTemplate;
+    private final ApplicationEventPublisher eventPublisher;
 
     // Product CRUD operations
     @Transactional
     public ProductResponse createProduct(@Valid ProductRequest request) {
-        Category category = categoryRepository.findByName(request.categoryName())
+        CategoryResponse category = taxonomyService.findCategory(request.categoryName())
                 .orElseThrow(() -> new ResourceNotFoundException("Category not found"));
         Store store = storeRepository.findById(request.storeId())
                 .orElseThrow(() -> new ResourceNotFoundException("Store not found"));
@@ -50,7 +63,7 @@ public class ProductService {
                 .description(request.description())
                 .price(request.price())
                 .imageUrl(request.imageUrl())
-                .category(category)
+                .category(categoryRepository.getReferenceById(category.id()))
                 .store(store)
                 .isAvailable(true)
                 .quantity(request.quantity())
@@ -59,19 +72,20 @@ public class ProductService {
                 .build();
 
         Product savedProduct = productRepository.save(product);
+        eventPublisher.publishEvent(ProductChangedEvent.changed(savedProduct.getId()));
         return mapToProductResponse(savedProduct);
     }
 
-    public List<ProductResponse> getAllProducts() {
-        return productRepository.findAll().stream()
-                .map(this::mapToProductResponse)
-                .toList();
+    public ProductResponse getProductById(UUID id) {
+        return getVersionedProductById(id).value();
     }
 
-    public ProductResponse getProductById(UUID id) {
-        Product product = productRepository.findById(id)
+    public Versioned<ProductResponse> getVersionedProductById(UUID id) {
+        Product product = productRepository.findForCatalogById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Product not found"));
-        return mapToProductResponse(product);
+        return new Versioned<>(
+                product.getVersion() != null ? product.getVersion() : 0,
+                productCatalogService.toDetailResponse(product));
     }
 
 
@@ -90,32 +104,29 @@ public class ProductService {
 //    }
 
 
-    public Page<ProductResponse> getProductsByStoreId(
-            Long storeId,
-            int page,
-            int size,
-            UUID cursorId,
-            LocalDateTime cursorDate) {
+    // Keyset page of one store's products, newest first
+    public CursorPageResponse<ProductResponse> getProductsByStoreId(Long storeId, String cursor, int size) {
+        Pageable limit = KeysetCursor.limitFor(size);
 
-        Page<Product> productPage;
-
-        if (cursorId == null || cursorDate == null) {
-            // First page load
-            productPage = productRepository.findByStoreIdFirstPage(
-                    storeId,
-                    PageRequest.of(page, size, Sort.by("createdAt").descending().and(Sort.by("id").descending()))
-            );
+        List<Product> products;
+        if (cursor == null || cursor.isBlank()) {
+            products = productRepository.findFirstPageByStoreId(storeId, limit);
         } else {
-            // Subsequent pages with cursor
-            productPage = productRepository.findByStoreIdAfterCursor(
-                    storeId,
-                    cursorId,
-                    cursorDate,
-                    PageRequest.of(0, size) // Always page 0 for cursor-based
-            );
+            KeysetCursor.Position position = KeysetCursor.decode(cursor);
+            products = productRepository.findPageByStoreIdAfter(
+                    storeId, Timestamp.valueOf(position.createdAt()), position.uuid(), limit);
         }
 
-        return productPage.map(this::mapToProductResponse);
+        KeysetCursor.Slice<Product> page = KeysetCursor.slice(products, size, ProductService::cursorOf);
+        return new CursorPageResponse<>(productCatalogService.toResponses(page.rows()), page.nextCursor());
+    }
+
+    // Only the requested columns; without fields, the full listing response as above
+    public CursorPageResponse<ProductResponse> getProductsByStoreId(Long storeId, String cursor, int size,
+                                                                    @Nullable Set<ProductField> fields) {
+        return fields == null
+                ? getProductsByStoreId(storeId, cursor, size)
+                : listingPage(fields, ProductListingRepository.Filter.store(storeId), cursor, size);
     }
 
     @Transactional
@@ -124,50 +135,54 @@ public class ProductService {
             throw new ResourceNotFoundException("Product not found");
         }
         productRepository.deleteById(id);
-        discountService.clearDiscountCache(id);
+        eventPublisher.publishEvent(ProductChangedEvent.deleted(id));
     }
 
     public Page<ProductResponse> getPaginatedProducts(int page, int size, String category) {
         Page<Product> productPage = category != null && !category.isEmpty() ?
                 productRepository.findByCategoryName(category, PageRequest.of(page, size)) :
                 productRepository.findAll(PageRequest.of(page, size));
-        return productPage.map(this::mapToProductResponse);
+        return productCatalogService.toResponses(productPage);
+    }
+
+    public Page<ProductResponse> getPaginatedProducts(int page, int size, String category,
+                                                      @Nullable Set<ProductField> fields) {
+        if (fields == null) {
+            return getPaginatedProducts(page, size, category);
+        }
+        boolean inCategory = category != null && !category.isEmpty();
+        List<Tuple> rows = productRepository.findListingColumns(fields,
+                inCategory ? ProductListingRepository.Filter.categoryNamed(category) : ProductListingRepository.Filter.ALL,
+                null, null, page * size, size);
+        long total = inCategory ? productRepository.countByCategoryName(category) : productRepository.count();
+        return new PageImpl<>(productCatalogService.toListingResponses(rows, fields), PageRequest.of(page, size), total);
     }
 
     public ProductResponse getProductByName(String name) {
-        Product product = productRepository.findByName(name)
+        Product product = productRepository.findForCatalogByName(name)
                 .orElseThrow(() -> new ResourceNotFoundException("Product not found with name: " + name));
-        return mapToProductResponse(product);
+        return productCatalogService.toDetailResponse(product);
     }
 
     // Special product listings
     public List<ProductResponse> getBestDeals() {
-        return productRepository.findTop5ByOrderByTotalSellDesc().stream()
-                .map(this::mapToProductResponse)
-                .toList();
+        return bestSellerService.getBestSellers(5);
     }
 
     public List<ProductResponse> getFeaturedProducts() {
-        return productRepository.findTop10ByOrderByTotalSellDesc().stream()
-                .map(this::mapToProductResponse)
-                .toList();
+        return bestSellerService.getBestSellers(10);
     }
 
     public Page<ProductResponse> getBestSellingProducts(int page, int size) {
-        return productRepository.findAllByOrderByTotalSellDesc(PageRequest.of(page, size))
-                .map(this::mapToProductResponse);
+        return bestSellerService.getBestSellers(page, size);
     }
 
     public List<ProductResponse> getProductsWithActiveDiscounts() {
-        return productRepository.findActiveDiscountProducts().stream()
-                .map(this::mapToProductResponse)
-                .toList();
+        return productCatalogService.toResponses(productRepository.findActiveDiscountProducts());
     }
 
     public List<ProductResponse> getTopDiscountProducts() {
-        return productRepository.findTopDiscountProducts().stream()
-                .map(this::mapToProductResponse)
-                .toList();
+        return productCatalogService.toResponses(productRepository.findTopDiscountProducts());
     }
 
     // Update operations
@@ -182,7 +197,7 @@ public class ProductService {
         product.setImageUrl(request.imageUrl());
 
         Product updatedProduct = productRepository.save(product);
-        discountService.clearDiscountCache(productId);
+        eventPublisher.publishEvent(ProductChangedEvent.changed(productId));
         return mapToProductResponse(updatedProduct);
     }
 
@@ -199,7 +214,7 @@ public class ProductService {
         Product updatedProduct = productRepository.save(product);
 
         messagingTemplate.convertAndSend("/topic/stockUpdates", new StockUpdate(product.getId(), product.getQuantity()));
-        discountService.clearDiscountCache(productId);
+        eventPublisher.publishEvent(ProductChangedEvent.changed(productId));
 
         return mapToProductResponse(updatedProduct);
     }
@@ -222,11 +237,12 @@ public class ProductService {
         BigDecimal discountPrice = discountService.calculateDiscountedPrice(product);
         product.setDiscountPrice(discountPrice);
 
-        boolean shouldActivate = discountService.isDiscountApplicable(product);
-        product.setDiscountActive(shouldActivate);
+        // On if the window is open today; DiscountScheduler flips it at the boundaries
+        product.setDiscountActive(PricingEngine.inWindow(request.startDate(), request.endDate(), LocalDate.now()));
 
         Product updatedProduct = productRepository.save(product);
-        discountService.clearDiscountCache(productId);
+        discountScheduler.schedule(productId, request.startDate(), request.endDate());
+        eventPublisher.publishEvent(ProductChangedEvent.changed(productId));
 
         return mapToProductResponse(updatedProduct);
     }
@@ -246,7 +262,8 @@ public class ProductService {
         product.setDiscountMinQuantity(1);
 
         productRepository.save(product);
-        discountService.clearDiscountCache(productId);
+        discountScheduler.unschedule(productId);
+        eventPublisher.publishEvent(ProductChangedEvent.changed(productId));
     }
 
     // Helper methods
@@ -310,82 +327,7 @@ public class ProductService {
 //    }
 
     private ProductResponse mapToProductResponse(Product product) {
-        // Handle null collections
-        List<Review> reviews = product.getReviews() != null ? product.getReviews() : Collections.emptyList();
-
-        // Calculate prices
-        BigDecimal originalPrice = product.getPrice();
-//        BigDecimal finalPrice = discountService.calculateEffectivePrice(product);
-        BigDecimal finalPrice = discountService.calculateEffectivePrice(product);
-
-        // Build discount info if active
-        DiscountInfo discountInfo = null;
-        if (product.getDiscountActive() && product.getDiscountType() != null) {
-            discountInfo = new DiscountInfo(
-                    product.getDiscountType(),
-                    product.getDiscountValue(),
-                    product.getDiscountStartDate(),
-                    product.getDiscountEndDate(),
-                    product.getDiscountName(),
-                    product.getDiscountMinQuantity()
-            );
-        }
-
-        // Map reviews
-        List<ReviewResponse> reviewResponses = reviews.stream()
-                .map(this::mapToReviewResponse)
-                .toList();
-
-        // Safely get store and category names
-        String storeName = product.getStore() != null ? product.getStore().getName() : null;
-        String categoryName = product.getCategory() != null ? product.getCategory().getName() : "";
-
-        return new ProductResponse(
-                product.getId(),
-                product.getName(),
-                product.getDescription(),
-                originalPrice,
-                product.getDiscountPrice(),
-                product.getImageUrl(),
-                categoryName,
-                product.getStore() != null ? product.getStore().getId() : null,
-                product.getIsAvailable(),
-                storeName,
-                product.getQuantity(),
-                reviewResponses,
-                product.getTotalSell(),
-                calculateAverageRating(reviews),
-                discountInfo,
-                product.getDiscountValue()
-        );
-    }
-    private Double calculateAverageRating(List<Review> reviews) {
-        if (reviews == null || reviews.isEmpty()) {
-            return null;
-        }
-        return reviews.stream()
-                .mapToInt(Review::getRating)
-                .average()
-                .orElse(0.0);
-    }
-
-    private ReviewResponse mapToReviewResponse(Review review) {
-        return new ReviewResponse(
-                review.getId(),
-                review.getRating(),
-                review.getComment(),
-                review.getUser().getId(),
-                review.getUser().getName(),
-                review.getProduct().getName(),
-                review.getCreatedAt()
-        );
-    }
-
-    @Transactional
-    public List<ProductResponse> applyBulkDiscount(List<UUID> productIds, DiscountRequest request) {
-        return productIds.stream()
-                .map(id -> applyDiscount(id, request))
-                .toList();
+        return productCatalogService.toListingResponse(product);
     }
 
     // Add validation helper
@@ -404,20 +346,19 @@ public class ProductService {
 
     public List<ProductResponse> getExpiringDiscounts(Long storeId, int daysThreshold) {
         LocalDate thresholdDate = LocalDate.now().plusDays(daysThreshold);
-        return productRepository.findByStoreIdAndDiscountActiveTrueAndDiscountEndDateBefore(
-                        storeId, thresholdDate)
-                .stream()
-                .map(this::mapToProductResponse)
-                .toList();
+        return productCatalogService.toResponses(
+                productRepository.findByStoreIdAndDiscountActiveTrueAndDiscountEndDateBefore(storeId, thresholdDate));
     }
 
     public List<DiscountStatusResponse> getDiscountStatuses(List<UUID> productIds) {
-        return productRepository.findAllById(productIds).stream()
+        List<Product> products = productRepository.findAllById(productIds);
+        Map<UUID, BigDecimal> prices = discountService.calculateBulkEffectivePrices(products);
+        return products.stream()
                 .map(product -> new DiscountStatusResponse(
                         product.getId(),
                         product.getName(),
                         product.getPrice(),
-                        discountService.calculateEffectivePrice(product),
+                        prices.get(product.getId()),
                         product.getDiscountActive() ?
                                 new DiscountInfo(
                                         product.getDiscountType(),
@@ -434,50 +375,44 @@ public class ProductService {
                 .toList();
     }
 
-    public Page<ProductResponse> getPaginatedProducts(int page, int size, String category, UUID lastSeenId, LocalDateTime lastSeenDate) {
-        PageRequest pageRequest = PageRequest.of(0, size); // Always query first page for cursor
-
-        List<Product> products = productRepository.findNextPage(
-                category,
-                lastSeenId,
-                lastSeenDate,
-                pageRequest
-        );
-
-        // Map to DTO with only essential fields
-        return new PageImpl<>(
-                products.stream()
-                        .map(this::mapToProductPreviewResponse) // Lightweight mapping
-                        .toList(),
-                pageRequest,
-                products.size()
-        );
+    // Keyset page of the catalog, newest first, optionally within one category
+    public CursorPageResponse<ProductResponse> getPaginatedProducts(String category, String cursor, int size) {
+        return getPaginatedProducts(category, cursor, size, null);
+    }
+
+    // Without fields, the product-card fields; the description is never read unless asked for
+    public CursorPageResponse<ProductResponse> getPaginatedProducts(String category, String cursor, int size,
+                                                                    @Nullable Set<ProductField> fields) {
+        ProductListingRepository.Filter filter = ProductListingRepository.Filter.ALL;
+        if (category != null && !category.isEmpty()) {
+            // Resolve the name first so the page query can seek on (category_id, time_created, id)
+            CategoryResponse categoryResponse = taxonomyService.findCategory(category).orElse(null);
+            if (categoryResponse == null) {
+                return new CursorPageResponse<>(List.of(), null);
+            }
+            filter = ProductListingRepository.Filter.category(categoryResponse.id());
+        }
+        return listingPage(fields != null ? fields : ProductField.PREVIEW, filter, cursor, size);
+    }
+
+    private CursorPageResponse<ProductResponse> listingPage(Set<ProductField> fields,
+                                                            ProductListingRepository.Filter filter,
+                                                            String cursor, int size) {
+        KeysetCursor.Position position = cursor == null || cursor.isBlank() ? null : KeysetCursor.decode(cursor);
+        List<Tuple> rows = productRepository.findListingColumns(fields, filter,
+                position != null ? Timestamp.valueOf(position.createdAt()) : null,
+                position != null ? position.uuid() : null,
+                0, size + 1);
+
+        KeysetCursor.Slice<Tuple> page = KeysetCursor.slice(rows, size, row -> KeysetCursor.encode(
+                row.get("createdAt", Timestamp.class).toLocalDateTime(), row.get("id")));
+        return new CursorPageResponse<>(
+                productCatalogService.toListingResponses(page.rows(), fields),
+                page.nextCursor());
     }
 
-    private ProductResponse mapToProductPreviewResponse(Product product) {
-        return new ProductResponse(
-                product.getId(),
-                product.getName(),
-                null, // Skip description for listings
-                product.getPrice(),
-                product.getDiscountValue(),
-                product.getImageUrl(),
-                product.getCategory().getName(),
-                product.getStore().getId(),
-                product.getIsAvailable(),
-                null, // Skip store name for listings
-                product.getQuantity(),
-                null, // Skip reviews for listings
-                product.getTotalSell(),
-                null, // Skip rating for listings
-                product.getDiscountActive() ?
-                        new DiscountInfo(
-                                product.getDiscountType(),
-                                product.getDiscountValue(),
-                                null, null, null, 1// Minimal discount info
-                        ) : null,
-                product.getDiscountValue()
-        );
+    private static String cursorOf(Product product) {
+        return KeysetCursor.encode(product.getCreatedAt().toLocalDateTime(), product.getId());
     }
 
 }
\ No newline at end of file
@@ -0,0 +1,199 @@
+package com.example.ShopiShop.service;
+
+import com.example.ShopiShop.enums.CatalogFormat;
+import com.example.ShopiShop.models.Product;
+import com.example.ShopiShop.models.Store;
+import com.example.ShopiShop.models.User;
+import com.example.ShopiShop.repositories.ProductExportView;
+import com.example.ShopiShop.repositories.ProductRepository;
+import com.example.ShopiShop.repositories.StoreRepository;
+import com.example.ShopiShop.utils.CsvWriter;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import jakarta.persistence.EntityManager;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+/**
+ * Writes the product catalog straight to the response while scrolling a
+ * database cursor, so memory use does not grow with the catalog size.
+ * The catalog output has the same envelope as {@link com.example.ShopiShop.dto.ApiResponse};
+ * store exports are plain CSV or NDJSON rows.
+ */
+@Service
+@RequiredArgsConstructor
+public class ProductStreamingService {
+
+    // Rows written between flushes of the socket and the persistence context
+    private static final int CHUNK_SIZE = 500;
+
+    // Products read per query when exporting a store
+    private static final int EXPORT_BATCH_SIZE = 1000;
+
+    private record ExportColumn(String name, Function<ProductExportView, Object> value) {
+    }
+
+    // Stock and sales columns come after the ones the import reads
+    private static final List<ExportColumn> EXPORT_COLUMNS = List.of(
+            new ExportColumn("id", row -> row.getId().toString()),
+            new ExportColumn("name", ProductExportView::getName),
+            new ExportColumn("description", ProductExportView::getDescription),
+            new ExportColumn("price", ProductExportView::getPrice),
+            new ExportColumn("imageUrl", ProductExportView::getImageUrl),
+            new ExportColumn("categoryName", ProductExportView::getCategoryName),
+            new ExportColumn("quantity", ProductExportView::getQuantity),
+            new ExportColumn("discountActive", ProductExportView::getDiscountActive),
+            new ExportColumn("discountPrice", ProductExportView::getDiscountPrice),
+            new ExportColumn("isAvailable", ProductExportView::getIsAvailable),
+            new ExportColumn("totalSell", ProductExportView::getTotalSell),
+            new ExportColumn("createdAt", row -> row.getCreatedAt() != null
+                    ? row.getCreatedAt().toInstant().toString()
+                    : null)
+    );
+
+    private final ProductRepository productRepository;
+    private final StoreRepository storeRepository;
+    private final ProductCatalogService productCatalogService;
+    private final ObjectMapper objectMapper;
+    private final EntityManager entityManager;
+
+    @Transactional(readOnly = true)
+    public void writeCatalog(OutputStream out) throws IOException {
+        ObjectWriter writer = objectMapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out);
+             Stream<Product> products = productRepository.streamAllForCatalog()) {
+
+            generator.writeStartObject();
+            generator.writeBooleanField("success", true);
+            generator.writeStringField("message", "Products retrieved successfully");
+            generator.writeArrayFieldStart("data");
+
+            int written = 0;
+            for (Iterator<Product> it = products.iterator(); it.hasNext(); ) {
+                writer.writeValue(generator, productCatalogService.toListingResponse(it.next()));
+
+                if (++written % CHUNK_SIZE == 0) {
+                    generator.flush();
+                    // Detach what we've written so the session doesn't keep every row alive
+                    entityManager.clear();
+                }
+            }
+
+            generator.writeEndArray();
+            generator.writeEndObject();
+        }
+    }
+
+    // Merchants export their own store; admins go through requireStore alone
+    public void requireStoreOwner(Long storeId, User currentUser) {
+        Store store = requireStore(storeId);
+        if (!store.getOwner().getId().equals(currentUser.getId())) {
+            throw new ResponseStatusException(HttpStatus.FORBIDDEN, "You are not the owner of this store");
+        }
+    }
+
+    public Store requireStore(Long storeId) {
+        return storeRepository.findById(storeId)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Store not found"));
+    }
+
+    /**
+     * Writes one store's products with their stock, as CSV with a header row
+     * or as one JSON object per line. Rows are read in keyset batches, each a
+     * short read-only query, so a large store never holds a transaction or a
+     * cursor open while a slow client drains the output. Writing blocks when
+     * the client falls behind, and the next batch is only read once the
+     * previous one has been written.
+     */
+    public void writeStoreCatalog(Long storeId, CatalogFormat format, OutputStream out) throws IOException {
+        RowWriter rows = format == CatalogFormat.CSV ? csvRows(out) : ndjsonRows(out);
+        UUID lastId = null;
+        List<ProductExportView> batch;
+        do {
+            batch = productRepository.findExportBatchAfter(storeId, lastId, PageRequest.of(0, EXPORT_BATCH_SIZE));
+            for (ProductExportView row : batch) {
+                rows.write(row);
+            }
+            rows.flush();
+            if (!batch.isEmpty()) {
+                lastId = batch.get(batch.size() - 1).getId();
+            }
+        } while (batch.size() == EXPORT_BATCH_SIZE);
+        rows.close();
+    }
+
+    private interface RowWriter {
+        void write(ProductExportView row) throws IOException;
+
+        void flush() throws IOException;
+
+        void close() throws IOException;
+    }
+
+    private RowWriter csvRows(OutputStream out) throws IOException {
+        CsvWriter csv = new CsvWriter(new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8)));
+        csv.writeRecord(EXPORT_COLUMNS.stream().map(ExportColumn::name).toList());
+        return new RowWriter() {
+            @Override
+            public void write(ProductExportView row) throws IOException {
+                csv.writeRecord(EXPORT_COLUMNS.stream().map(column -> column.value().apply(row)).toList());
+            }
+
+            @Override
+            public void flush() throws IOException {
+                csv.flush();
+            }
+
+            @Override
+            public void close() throws IOException {
+                csv.flush();
+            }
+        };
+    }
+
+    private RowWriter ndjsonRows(OutputStream out) throws IOException {
+        JsonGenerator generator = objectMapper.getFactory().createGenerator(out);
+        // Objects are separated by a line break instead of the default space
+        generator.setRootValueSeparator(new SerializedString("\n"));
+        return new RowWriter() {
+            @Override
+            public void write(ProductExportView row) throws IOException {
+                generator.writeStartObject();
+                for (ExportColumn column : EXPORT_COLUMNS) {
+                    generator.writeObjectField(column.name(), column.value().apply(row));
+                }
+                generator.writeEndObject();
+            }
+
+            @Override
+            public void flush() throws IOException {
+                generator.flush();
+            }
+
+            @Override
+            public void close() throws IOException {
+                generator.writeRaw('\n');
+                generator.close();
+            }
+        };
+    }
+}
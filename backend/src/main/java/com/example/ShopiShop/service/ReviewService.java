@@ -1,28 +1,70 @@
 package com.example.ShopiShop.service;
 
+import com.example.ShopiShop.dto.ReviewPageResponse;
 import com.example.ShopiShop.dto.ReviewRequest;
 import com.example.ShopiShop.dto.ReviewResponse;
+import com.example.ShopiShop.dto.VendorReviewRequest;
+import com.example.ShopiShop.dto.VendorReviewResponse;
+import com.example.ShopiShop.events.ProductChangedEvent;
+import com.example.ShopiShop.events.RatingsBackfilledEvent;
 import com.example.ShopiShop.exceptions.ResourceNotFoundException;
 import com.example.ShopiShop.models.Product;
 import com.example.ShopiShop.models.Review;
+import com.example.ShopiShop.models.Store;
 import com.example.ShopiShop.models.User;
+import com.example.ShopiShop.models.VendorReview;
 import com.example.ShopiShop.repositories.ProductRepository;
+import com.example.ShopiShop.repositories.ReviewListingView;
 import com.example.ShopiShop.repositories.ReviewRepository;
+import com.example.ShopiShop.repositories.StoreRepository;
 import com.example.ShopiShop.repositories.UserRepository;
+import com.example.ShopiShop.repositories.VendorReviewRepository;
+import com.example.ShopiShop.utils.KeysetCursor;
 import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
 
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
 
+@Slf4j
 @Service
 @RequiredArgsConstructor
 @Transactional
 public class ReviewService {
 
+    // Largest page /public/reviews/product/{id} will return
+    private static final int MAX_PAGE_SIZE = 50;
+    // Given to reviews saved without a date, so they page after every dated review
+    static final LocalDateTime UNDATED_REVIEWS_CREATED_AT = LocalDateTime.of(1970, 1, 1, 0, 0);
+
     private final ReviewRepository reviewRepository;
+    private final VendorReviewRepository vendorReviewRepository;
     private final ProductRepository productRepository;
+    private final StoreRepository storeRepository;
     private final UserRepository userRepository;
+    private final ApplicationEventPublisher eventPublisher;
+
+    /**
+     * Dates the reviews written before createdAt was always set. Review pages
+     * seek on (createdAt, id), and a null createdAt can neither be encoded in
+     * a cursor nor matched by the seek condition.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillCreatedAt() {
+        int dated = reviewRepository.backfillCreatedAt(UNDATED_REVIEWS_CREATED_AT);
+        if (dated > 0) {
+            log.info("Dated {} reviews that had no creation time", dated);
+        }
+    }
 
     public ReviewResponse createReview(ReviewRequest request) {
         Product product = productRepository.findById(request.productId())
@@ -40,15 +82,34 @@ public class ReviewService {
                 .build();
 
         Review savedReview = reviewRepository.save(review);
+        productRepository.applyRatingDelta(product.getId(), savedReview.getRating(), 1);
+        eventPublisher.publishEvent(ProductChangedEvent.changed(product.getId()));
 
         return mapToResponse(savedReview);
     }
 
-    public List<ReviewResponse> getReviewsByProductId(java.util.UUID productId) {
-        List<Review> reviews = reviewRepository.findByProductId(productId);
-        return reviews.stream()
-                .map(this::mapToResponse)
-                .toList();
+    /**
+     * One page of a product's reviews, newest first. The cursor is the
+     * nextCursor of the previous page, or null for the first page.
+     */
+    public ReviewPageResponse getReviewsByProductId(java.util.UUID productId, String cursor, int size) {
+        int pageSize = Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+        Pageable limit = KeysetCursor.limitFor(pageSize);
+
+        List<ReviewListingView> reviews;
+        if (cursor == null || cursor.isBlank()) {
+            reviews = reviewRepository.findFirstPageByProductId(productId, limit);
+        } else {
+            KeysetCursor.Position position = KeysetCursor.decode(cursor);
+            reviews = reviewRepository.findPageByProductIdAfterCursor(
+                    productId, position.createdAt(), parseReviewId(position.id()), limit);
+        }
+
+        KeysetCursor.Slice<ReviewListingView> page = KeysetCursor.slice(reviews, pageSize,
+                review -> KeysetCursor.encode(review.getCreatedAt(), review.getId()));
+
+        return new ReviewPageResponse(page.rows().stream().map(ReviewService::mapToResponse).toList(),
+                page.nextCursor());
     }
 
     public List<ReviewResponse> getReviewsByUserId(Long userId) {
@@ -59,13 +120,74 @@ public class ReviewService {
     }
 
     public void deleteReview(Long reviewId) {
-        if (!reviewRepository.existsById(reviewId)) {
-            throw new ResourceNotFoundException("Review not found");
+        Review review = reviewRepository.findById(reviewId)
+                .orElseThrow(() -> new ResourceNotFoundException("Review not found"));
+
+        // Only the call that actually removed the row adjusts the aggregates
+        if (reviewRepository.deleteReviewById(reviewId) == 1) {
+            productRepository.applyRatingDelta(review.getProduct().getId(), review.getRating(), -1);
+            eventPublisher.publishEvent(ProductChangedEvent.changed(review.getProduct().getId()));
+        }
+    }
+
+    public VendorReviewResponse createVendorReview(VendorReviewRequest request) {
+        Store store = storeRepository.findById(request.storeId())
+                .orElseThrow(() -> new ResourceNotFoundException("Store not found"));
+
+        User user = userRepository.findById(request.userId())
+                .orElseThrow(() -> new ResourceNotFoundException("User not found"));
+
+        VendorReview review = VendorReview.builder()
+                .store(store)
+                .user(user)
+                .rating(request.rating())
+                .comment(request.comment())
+                .build();
+
+        VendorReview savedReview = vendorReviewRepository.save(review);
+        storeRepository.applyRatingDelta(store.getId(), savedReview.getRating(), 1);
+
+        return mapToVendorResponse(savedReview);
+    }
+
+    public List<VendorReviewResponse> getReviewsByStoreId(Long storeId) {
+        return vendorReviewRepository.findByStoreId(storeId).stream()
+                .map(this::mapToVendorResponse)
+                .toList();
+    }
+
+    public void deleteVendorReview(Long reviewId) {
+        VendorReview review = vendorReviewRepository.findById(reviewId)
+                .orElseThrow(() -> new ResourceNotFoundException("Review not found"));
+
+        if (vendorReviewRepository.deleteVendorReviewById(reviewId) == 1) {
+            storeRepository.applyRatingDelta(review.getStore().getId(), review.getRating(), -1);
         }
-        reviewRepository.deleteById(reviewId);
+    }
+
+    /**
+     * Recomputes the stored rating aggregates of every product and store from
+     * the review tables. Needed once for data written before the aggregates existed.
+     * Every product moves to a new version, and caches and in-memory views are
+     * reloaded once the backfill commits.
+     */
+    public Map<String, Integer> backfillRatings() {
+        int products = productRepository.backfillRatings();
+        int stores = storeRepository.backfillRatings();
+        log.info("Rating aggregates backfilled for {} products and {} stores", products, stores);
+        eventPublisher.publishEvent(new RatingsBackfilledEvent());
+        return Map.of("products", products, "stores", stores);
     }
 
     // Helper
+    private Long parseReviewId(String id) {
+        try {
+            return Long.valueOf(id);
+        } catch (NumberFormatException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid cursor");
+        }
+    }
+
     private ReviewResponse mapToResponse(Review review) {
         return new ReviewResponse(
                 review.getId(),
@@ -77,4 +199,27 @@ public class ReviewService {
                 review.getCreatedAt()
         );
     }
+
+    private static ReviewResponse mapToResponse(ReviewListingView review) {
+        return new ReviewResponse(
+                review.getId(),
+                review.getRating(),
+                review.getComment(),
+                review.getUserId(),
+                review.getUserName(),
+                review.getProductName(),
+                review.getCreatedAt()
+        );
+    }
+
+    private VendorReviewResponse mapToVendorResponse(VendorReview review) {
+        return new VendorReviewResponse(
+                review.getId(),
+                review.getRating(),
+                review.getComment(),
+                review.getUser().getId(),
+                review.getUser().getName(),
+                review.getStore().getId()
+        );
+    }
 }
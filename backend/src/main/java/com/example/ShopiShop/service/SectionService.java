@@ -1,10 +1,12 @@
 package com.example.ShopiShop.service;
 
 import com.example.ShopiShop.dto.*;
+import com.example.ShopiShop.events.TaxonomyChangedEvent;
 import com.example.ShopiShop.exceptions.RessourceAlreadyExistException;
 import com.example.ShopiShop.models.Section;
 import com.example.ShopiShop.repositories.SectionRepository;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
@@ -15,6 +17,8 @@ import java.util.UUID;
 public class SectionService {
 
     private final SectionRepository sectionRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TaxonomyService taxonomyService;
 
     public SectionResponse createSection(SectionRequest request) {
         sectionRepository.findByName(request.name()).ifPresent(s -> {
@@ -27,21 +31,21 @@ public class SectionService {
                 .build();
 
         Section savedSection = sectionRepository.save(section);
+        eventPublisher.publishEvent(new TaxonomyChangedEvent());
 
         return new SectionResponse(savedSection.getId(), savedSection.getName(), savedSection.getImageUrl());
     }
 
     public List<SectionResponse> getAllSections() {
-        return sectionRepository.findAll()
-                .stream()
-                .map(section -> new SectionResponse(section.getId(), section.getName(), section.getImageUrl()))
-                .toList();
+        return taxonomyService.snapshot().sections();
     }
 
     public SectionResponse getSectionById(UUID id) {
-        Section section = sectionRepository.findById(id)
-                .orElseThrow(() -> new IllegalArgumentException("Section not found"));
-        return new SectionResponse(section.getId(), section.getName(), section.getImageUrl());
+        SectionResponse section = taxonomyService.snapshot().section(id);
+        if (section == null) {
+            throw new IllegalArgumentException("Section not found");
+        }
+        return section;
     }
 
     public SectionResponse updateSection(UUID id, SectionRequest request) {
@@ -52,28 +56,17 @@ public class SectionService {
         section.setImageUrl(request.imageUrl());
 
         Section updatedSection = sectionRepository.save(section);
+        eventPublisher.publishEvent(new TaxonomyChangedEvent());
         return new SectionResponse(updatedSection.getId(), updatedSection.getName(), updatedSection.getImageUrl());
     }
 
     public void deleteSection(UUID id) {
         sectionRepository.deleteById(id);
+        eventPublisher.publishEvent(new TaxonomyChangedEvent());
     }
 
     public ApiResponse<List<SectionWithCategoriesResponse>> getAllSectionsWithCategories() {
-        List<SectionWithCategoriesResponse> sections = sectionRepository.findAll().stream()
-                .map(section -> new SectionWithCategoriesResponse(
-                        section.getId(),
-                        section.getName(),
-                        section.getImageUrl(),
-                        section.getCategories().stream()
-                                .map(category -> new CategoryResponse(
-                                        category.getId(),
-                                        category.getName(),
-                                        category.getImageUrl(),
-                                        category.getSection().getId()
-                                )).toList()
-                ))
-                .toList();
+        List<SectionWithCategoriesResponse> sections = taxonomyService.snapshot().tree();
 
         if (sections.isEmpty()) {
             return new ApiResponse<>(true, "No sections found", List.of());
@@ -0,0 +1,244 @@
+package com.example.ShopiShop.service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Stock held for shoppers between adding a product to their cart and checking
+ * out. For every product it has seen, the ledger knows the on-hand stock, as
+ * of a product row version, and how much of it is reserved; a shopper holds
+ * at most one reservation per product, sized to their cart line. Products
+ * hash to one of {@value #STRIPES} stripes, each with its own lock, so
+ * reservations of different products rarely wait on each other.
+ * <p>
+ * Every reservation has a deadline on a hashed timing wheel one tick per
+ * slot; {@link #expire} only walks the slots passed since its last call. A
+ * reservation renewed or released before its deadline leaves its wheel entry
+ * behind, and the entry is skipped when its slot comes round.
+ */
+public class StockReservationLedger {
+
+    // Returned by available() for a product the ledger has not seen
+    public static final int UNTRACKED = -1;
+
+    private static final int STRIPES = 64;
+    private static final int WHEEL_SLOTS = 1024;
+
+    /**
+     * Units of a product held for a user until {@code expiresAt}, in epoch millis.
+     */
+    public record Reservation(Long userId, UUID productId, int quantity, long expiresAt) {
+    }
+
+    private static final class ProductStock {
+        int version = -1;
+        int stock;
+        int reserved;
+        final Map<Long, Reservation> byUser = new HashMap<>();
+    }
+
+    private final Map<UUID, ProductStock>[] stripes;
+    private final long tickMillis;
+    // Guarded by itself; taken after a stripe, never before one
+    private final List<Reservation>[] wheel;
+    private long lastTick = -1;
+
+    @SuppressWarnings("unchecked")
+    public StockReservationLedger(long tickMillis) {
+        this.tickMillis = tickMillis;
+        this.stripes = new Map[STRIPES];
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new HashMap<>();
+        }
+        this.wheel = new List[WHEEL_SLOTS];
+        for (int i = 0; i < WHEEL_SLOTS; i++) {
+            wheel[i] = new ArrayList<>();
+        }
+    }
+
+    /**
+     * Records a product's on-hand stock unless a newer version is already held.
+     */
+    public void updateStock(UUID productId, int version, int stock) {
+        Map<UUID, ProductStock> stripe = stripeFor(productId);
+        synchronized (stripe) {
+            applyStock(stripe.computeIfAbsent(productId, id -> new ProductStock()), version, stock);
+        }
+    }
+
+    /**
+     * Sets the user's reservation of the product to the given quantity and
+     * deadline, if the stock not reserved by others covers it.
+     *
+     * @throws IllegalStateException if the product's stock was never recorded
+     */
+    public boolean reserve(Reservation reservation) {
+        Map<UUID, ProductStock> stripe = stripeFor(reservation.productId());
+        synchronized (stripe) {
+            ProductStock product = stripe.get(reservation.productId());
+            if (product == null) {
+                throw new IllegalStateException("Stock of product " + reservation.productId() + " is not tracked");
+            }
+            Reservation held = product.byUser.get(reservation.userId());
+            int extra = reservation.quantity() - (held != null ? held.quantity() : 0);
+            if (extra > 0 && extra > product.stock - product.reserved) {
+                return false;
+            }
+            product.byUser.put(reservation.userId(), reservation);
+            product.reserved += extra;
+            schedule(reservation);
+            return true;
+        }
+    }
+
+    /**
+     * Drops the user's reservation of the product.
+     *
+     * @return the reservation dropped, or null if there was none
+     */
+    public Reservation release(Long userId, UUID productId) {
+        Map<UUID, ProductStock> stripe = stripeFor(productId);
+        synchronized (stripe) {
+            ProductStock product = stripe.get(productId);
+            return product != null ? drop(product, userId) : null;
+        }
+    }
+
+    /**
+     * Whether the user may buy this many units: their own reservation counts
+     * towards it, other shoppers' reservations do not. Products the ledger has
+     * not seen are left to the database.
+     */
+    public boolean canTake(Long userId, UUID productId, int quantity) {
+        Map<UUID, ProductStock> stripe = stripeFor(productId);
+        synchronized (stripe) {
+            ProductStock product = stripe.get(productId);
+            if (product == null) {
+                return true;
+            }
+            Reservation held = product.byUser.get(userId);
+            int reservedByOthers = product.reserved - (held != null ? held.quantity() : 0);
+            return quantity <= product.stock - reservedByOthers;
+        }
+    }
+
+    /**
+     * Turns the user's reservation into a sale: the reservation is dropped and
+     * the stock left after checkout recorded, in one step.
+     *
+     * @return the reservation converted, or null if there was none
+     */
+    public Reservation convert(Long userId, UUID productId, int version, int stock) {
+        Map<UUID, ProductStock> stripe = stripeFor(productId);
+        synchronized (stripe) {
+            ProductStock product = stripe.computeIfAbsent(productId, id -> new ProductStock());
+            Reservation dropped = drop(product, userId);
+            applyStock(product, version, stock);
+            return dropped;
+        }
+    }
+
+    /**
+     * Stops tracking a product that was deleted or can no longer be reserved.
+     *
+     * @return the reservations it held
+     */
+    public List<Reservation> forget(UUID productId) {
+        Map<UUID, ProductStock> stripe = stripeFor(productId);
+        synchronized (stripe) {
+            ProductStock product = stripe.remove(productId);
+            return product != null ? List.copyOf(product.byUser.values()) : List.of();
+        }
+    }
+
+    /**
+     * Drops every reservation whose deadline is at or before {@code now}.
+     *
+     * @return the reservations dropped
+     */
+    public List<Reservation> expire(long now) {
+        List<Reservation> due = new ArrayList<>();
+        synchronized (wheel) {
+            long tick = now / tickMillis;
+            // After a long pause every slot is due once
+            for (long t = Math.max(lastTick + 1, tick - WHEEL_SLOTS + 1); t <= tick; t++) {
+                Iterator<Reservation> entries = wheel[slotOf(t)].iterator();
+                while (entries.hasNext()) {
+                    Reservation entry = entries.next();
+                    if (entry.expiresAt() <= now) {
+                        due.add(entry);
+                        entries.remove();
+                    }
+                }
+            }
+            lastTick = Math.max(lastTick, tick);
+        }
+
+        List<Reservation> expired = new ArrayList<>();
+        for (Reservation entry : due) {
+            Map<UUID, ProductStock> stripe = stripeFor(entry.productId());
+            synchronized (stripe) {
+                ProductStock product = stripe.get(entry.productId());
+                // Renewed or released since it was scheduled
+                if (product != null && entry.equals(product.byUser.get(entry.userId()))) {
+                    expired.add(drop(product, entry.userId()));
+                }
+            }
+        }
+        return expired;
+    }
+
+    /**
+     * Stock neither sold nor reserved, or {@link #UNTRACKED}.
+     */
+    public int available(UUID productId) {
+        Map<UUID, ProductStock> stripe = stripeFor(productId);
+        synchronized (stripe) {
+            ProductStock product = stripe.get(productId);
+            return product != null ? product.stock - product.reserved : UNTRACKED;
+        }
+    }
+
+    public int reserved(UUID productId) {
+        Map<UUID, ProductStock> stripe = stripeFor(productId);
+        synchronized (stripe) {
+            ProductStock product = stripe.get(productId);
+            return product != null ? product.reserved : 0;
+        }
+    }
+
+    private static void applyStock(ProductStock product, int version, int stock) {
+        if (version >= product.version) {
+            product.version = version;
+            product.stock = stock;
+        }
+    }
+
+    private static Reservation drop(ProductStock product, Long userId) {
+        Reservation dropped = product.byUser.remove(userId);
+        if (dropped != null) {
+            product.reserved -= dropped.quantity();
+        }
+        return dropped;
+    }
+
+    private void schedule(Reservation reservation) {
+        synchronized (wheel) {
+            // A deadline in a slot already walked waits for the next walk instead of a full turn
+            long tick = Math.max(reservation.expiresAt() / tickMillis, lastTick + 1);
+            wheel[slotOf(tick)].add(reservation);
+        }
+    }
+
+    private static int slotOf(long tick) {
+        return (int) (tick & (WHEEL_SLOTS - 1));
+    }
+
+    private Map<UUID, ProductStock> stripeFor(UUID productId) {
+        return stripes[(productId.hashCode() & 0x7fffffff) % STRIPES];
+    }
+}
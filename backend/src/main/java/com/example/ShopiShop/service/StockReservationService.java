@@ -0,0 +1,230 @@
+package com.example.ShopiShop.service;
+
+import com.example.ShopiShop.events.ProductChangedEvent;
+import com.example.ShopiShop.events.ProductsSoldEvent;
+import com.example.ShopiShop.exceptions.InsufficientStockException;
+import com.example.ShopiShop.models.Product;
+import com.example.ShopiShop.models.StockReservation;
+import com.example.ShopiShop.models.StockReservationId;
+import com.example.ShopiShop.repositories.ProductRepository;
+import com.example.ShopiShop.repositories.StockLevelView;
+import com.example.ShopiShop.repositories.StockReservationRepository;
+import com.example.ShopiShop.service.StockReservationLedger.Reservation;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Holds stock for the products in shoppers' carts, from add-to-cart until
+ * checkout, removal from the cart or expiry, in a {@link StockReservationLedger}.
+ * Checkout only lets a shopper take stock that other shoppers have not
+ * reserved, and turns their own reservations into sales.
+ * <p>
+ * Reservations are written behind to the stock_reservation table every few
+ * seconds, so they survive a restart; product stock itself is re-read from
+ * the product rows, and kept current through {@link ProductChangedEvent}.
+ */
+@Slf4j
+@Service
+public class StockReservationService {
+
+    private static final long TICK_MILLIS = 1000;
+    private static final int LOAD_BATCH_SIZE = 5000;
+
+    private final ProductRepository productRepository;
+    private final StockReservationRepository reservationRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final Duration ttl;
+    private final StockReservationLedger ledger = new StockReservationLedger(TICK_MILLIS);
+
+    // Latest state of each reservation since the last flush; empty once dropped
+    private final Map<StockReservationId, Optional<Reservation>> unflushed = new ConcurrentHashMap<>();
+
+    public StockReservationService(ProductRepository productRepository,
+                                   StockReservationRepository reservationRepository,
+                                   PlatformTransactionManager transactionManager,
+                                   @Value("${shop.reservations.ttl-minutes:15}") long ttlMinutes) {
+        this.productRepository = productRepository;
+        this.reservationRepository = reservationRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.ttl = Duration.ofMinutes(ttlMinutes);
+    }
+
+    // Not async like the other startup loads: carts filled before it finishes could oversell
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        long start = System.currentTimeMillis();
+        LocalDateTime now = LocalDateTime.now();
+        reservationRepository.deleteExpired(now);
+        List<StockReservation> rows = reservationRepository.findByExpiresAtAfter(now);
+
+        List<UUID> productIds = rows.stream().map(row -> row.getId().getProductId()).distinct().toList();
+        for (int from = 0; from < productIds.size(); from += LOAD_BATCH_SIZE) {
+            productRepository.findStockByIdIn(productIds.subList(from, Math.min(from + LOAD_BATCH_SIZE, productIds.size())))
+                    .forEach(this::track);
+        }
+
+        int restored = 0;
+        for (StockReservation row : rows) {
+            Reservation reservation = new Reservation(row.getId().getUserId(), row.getId().getProductId(),
+                    row.getQuantity(), toMillis(row.getExpiresAt()));
+            // Stock lowered or the product deleted while the application was down
+            if (ledger.available(reservation.productId()) != StockReservationLedger.UNTRACKED
+                    && ledger.reserve(reservation)) {
+                restored++;
+            } else {
+                unflushed.put(row.getId(), Optional.empty());
+            }
+        }
+        log.info("Stock reservations restored: {} of {}, in {} ms",
+                restored, rows.size(), System.currentTimeMillis() - start);
+    }
+
+    /**
+     * Sets the user's reservation of the product to their cart quantity and
+     * restarts its expiry.
+     *
+     * @param product the product as read in the caller's transaction
+     * @throws InsufficientStockException if other shoppers' reservations leave too little stock
+     */
+    public void reserve(Long userId, Product product, int quantity) {
+        ledger.updateStock(product.getId(), product.getVersion(), product.getQuantity());
+        Reservation reservation = new Reservation(userId, product.getId(), quantity,
+                System.currentTimeMillis() + ttl.toMillis());
+        if (!ledger.reserve(reservation)) {
+            throw new InsufficientStockException("Insufficient stock for product: " + product.getName());
+        }
+        unflushed.put(idOf(reservation), Optional.of(reservation));
+    }
+
+    public void release(Long userId, UUID productId) {
+        Reservation dropped = ledger.release(userId, productId);
+        if (dropped != null) {
+            unflushed.put(idOf(dropped), Optional.empty());
+        }
+    }
+
+    // Drops every cart's hold on the product, e.g. when it goes on flash sale
+    public void releaseAll(UUID productId) {
+        ledger.forget(productId).forEach(reservation -> unflushed.put(idOf(reservation), Optional.empty()));
+    }
+
+    // Whether checkout may take these units without eating into other carts' reservations
+    public boolean canTake(Long userId, UUID productId, int quantity) {
+        return ledger.canTake(userId, productId, quantity);
+    }
+
+    // After a committed checkout: the user's reservations become sales at the stock now left
+    public void convert(Long userId, Collection<StockLevelView> levels) {
+        for (StockLevelView level : levels) {
+            Reservation converted = ledger.convert(userId, level.getId(), level.getVersion(), level.getQuantity());
+            if (converted != null) {
+                unflushed.put(idOf(converted), Optional.empty());
+            }
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${shop.reservations.expiry-check-ms:1000}")
+    public void expireDue() {
+        List<Reservation> expired = ledger.expire(System.currentTimeMillis());
+        expired.forEach(reservation -> unflushed.put(idOf(reservation), Optional.empty()));
+        if (!expired.isEmpty()) {
+            log.debug("{} stock reservations expired", expired.size());
+        }
+    }
+
+    // Stock changed by merchants, imports or checkouts; products never reserved are read when first reserved
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        if (event.deleted()) {
+            releaseAll(event.productId());
+            return;
+        }
+        if (ledger.available(event.productId()) != StockReservationLedger.UNTRACKED) {
+            productRepository.findStockByIdIn(Set.of(event.productId())).forEach(this::track);
+        }
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onProductsSold(ProductsSoldEvent event) {
+        for (ProductsSoldEvent.Sale sale : event.sales()) {
+            if (ledger.available(sale.productId()) != StockReservationLedger.UNTRACKED) {
+                ledger.updateStock(sale.productId(), sale.version(), sale.quantity());
+            }
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${shop.reservations.flush-interval-ms:2000}")
+    public void flush() {
+        writeUnflushed();
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        writeUnflushed();
+    }
+
+    private void writeUnflushed() {
+        if (unflushed.isEmpty()) {
+            return;
+        }
+        Map<StockReservationId, Optional<Reservation>> batch = new HashMap<>(unflushed);
+        List<StockReservation> upserts = new ArrayList<>();
+        List<StockReservationId> deletes = new ArrayList<>();
+        batch.forEach((id, state) -> state.ifPresentOrElse(
+                reservation -> upserts.add(new StockReservation(id, reservation.quantity(),
+                        toDateTime(reservation.expiresAt()))),
+                () -> deletes.add(id)));
+
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                reservationRepository.saveAll(upserts);
+                reservationRepository.deleteAllById(deletes);
+            });
+        } catch (RuntimeException e) {
+            // Kept for the next flush
+            log.error("Failed to write {} stock reservations", batch.size(), e);
+            return;
+        }
+        // Entries changed again since the snapshot stay for the next flush
+        batch.forEach(unflushed::remove);
+    }
+
+    private void track(StockLevelView level) {
+        ledger.updateStock(level.getId(), level.getVersion(), level.getQuantity());
+    }
+
+    private static StockReservationId idOf(Reservation reservation) {
+        return new StockReservationId(reservation.userId(), reservation.productId());
+    }
+
+    private static long toMillis(LocalDateTime dateTime) {
+        return dateTime.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    private static LocalDateTime toDateTime(long millis) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(millis), ZoneId.systemDefault());
+    }
+}
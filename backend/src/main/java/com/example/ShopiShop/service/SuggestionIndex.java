@@ -0,0 +1,315 @@
+package com.example.ShopiShop.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Prefix lookup for the search box, ranked by popularity.
+ * <p>
+ * Product names live in a sorted array with a segment tree over the weights,
+ * so the best k names under any prefix come out in O(k log n) without
+ * scanning the prefix range. Product changes go to a small sorted overlay
+ * that shadows the array, and the two are merged once the overlay grows.
+ * Categories and sections are few, so they are simply replaced as a whole.
+ */
+public class SuggestionIndex {
+
+    // Overlay size (entries + shadowed ids) that triggers a merge into the base array
+    private static final int MIN_MERGE_THRESHOLD = 1024;
+
+    public enum Type {
+        PRODUCT,
+        CATEGORY,
+        SECTION
+    }
+
+    public record Suggestion(Type type, UUID id, String text, long weight) {
+    }
+
+    // Keys are "folded name \0 id", so equal names still sort to distinct slots
+    private static final class SortedEntries {
+        static final SortedEntries EMPTY = new SortedEntries(new String[0], new Suggestion[0]);
+
+        final String[] keys;
+        final Suggestion[] suggestions;
+        // Bottom-up segment tree: tree[n + i] = i, inner nodes hold the index of the heavier child
+        final int[] tree;
+
+        SortedEntries(String[] keys, Suggestion[] suggestions) {
+            this.keys = keys;
+            this.suggestions = suggestions;
+            int n = keys.length;
+            this.tree = new int[2 * n];
+            for (int i = 0; i < n; i++) {
+                tree[n + i] = i;
+            }
+            for (int i = n - 1; i > 0; i--) {
+                tree[i] = heavier(tree[2 * i], tree[2 * i + 1]);
+            }
+        }
+
+        static SortedEntries of(Collection<Suggestion> suggestions) {
+            TreeMap<String, Suggestion> sorted = new TreeMap<>();
+            for (Suggestion suggestion : suggestions) {
+                sorted.put(key(suggestion), suggestion);
+            }
+            return new SortedEntries(
+                    sorted.keySet().toArray(String[]::new),
+                    sorted.values().toArray(Suggestion[]::new));
+        }
+
+        int size() {
+            return keys.length;
+        }
+
+        // Ties go to the lower index, i.e. alphabetical order
+        int heavier(int a, int b) {
+            if (a < 0) return b;
+            if (b < 0) return a;
+            long wa = suggestions[a].weight();
+            long wb = suggestions[b].weight();
+            return wa > wb || (wa == wb && a < b) ? a : b;
+        }
+
+        int argMax(int from, int to) {
+            int n = keys.length;
+            int best = -1;
+            for (int l = from + n, r = to + n; l < r; l >>= 1, r >>= 1) {
+                if ((l & 1) == 1) best = heavier(best, tree[l++]);
+                if ((r & 1) == 1) best = heavier(best, tree[--r]);
+            }
+            return best;
+        }
+
+        int lowerBound(String key) {
+            int index = Arrays.binarySearch(keys, key);
+            return index >= 0 ? index : -index - 1;
+        }
+
+        /**
+         * Visits entries under the prefix heaviest first until the visitor
+         * has enough. Each step splits the range around the last maximum.
+         */
+        void visitByWeight(String prefix, Visitor visitor) {
+            int from = lowerBound(prefix);
+            int to = lowerBound(prefix + Character.MAX_VALUE);
+            if (from >= to) {
+                return;
+            }
+            PriorityQueue<int[]> ranges = new PriorityQueue<>(
+                    (a, b) -> a[2] == b[2] ? 0 : heavier(a[2], b[2]) == a[2] ? -1 : 1);
+            ranges.add(new int[]{from, to, argMax(from, to)});
+            while (!ranges.isEmpty()) {
+                int[] range = ranges.poll();
+                int best = range[2];
+                if (!visitor.accept(keys[best], suggestions[best])) {
+                    return;
+                }
+                if (range[0] < best) {
+                    ranges.add(new int[]{range[0], best, argMax(range[0], best)});
+                }
+                if (best + 1 < range[1]) {
+                    ranges.add(new int[]{best + 1, range[1], argMax(best + 1, range[1])});
+                }
+            }
+        }
+    }
+
+    @FunctionalInterface
+    private interface Visitor {
+        // Returns false to stop
+        boolean accept(String key, Suggestion suggestion);
+    }
+
+    // A suggestion with its folded text, taken from its key so reads never normalize
+    private record Candidate(Suggestion suggestion, String folded) {
+
+        static Candidate of(String key, Suggestion suggestion) {
+            return new Candidate(suggestion, key.substring(0, key.lastIndexOf('\0')));
+        }
+
+        String dedupKey() {
+            return suggestion.type() + ":" + folded;
+        }
+    }
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private SortedEntries products = SortedEntries.EMPTY;
+    private SortedEntries taxonomy = SortedEntries.EMPTY;
+
+    // Product changes not merged into the base array yet
+    private final NavigableMap<String, Suggestion> overlay = new TreeMap<>();
+    private final Map<UUID, String> overlayKeys = new HashMap<>();
+    // Products whose base entry is out of date (changed or removed)
+    private final Set<UUID> shadowed = new HashSet<>();
+
+    static String key(Suggestion suggestion) {
+        return normalize(suggestion.text()) + '\0' + suggestion.id();
+    }
+
+    static String normalize(String text) {
+        return ProductSearchIndex.fold(text).trim().replaceAll("\\s+", " ");
+    }
+
+    // ==================== WRITES ====================
+
+    /**
+     * Replaces the product entries. Changes that were applied while the
+     * caller was reading the products still take precedence.
+     */
+    public void loadProducts(Collection<Suggestion> suggestions) {
+        SortedEntries loaded = SortedEntries.of(suggestions);
+        lock.writeLock().lock();
+        try {
+            products = loaded;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void replaceTaxonomy(Collection<Suggestion> suggestions) {
+        SortedEntries loaded = SortedEntries.of(suggestions);
+        lock.writeLock().lock();
+        try {
+            taxonomy = loaded;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void upsertProduct(Suggestion suggestion) {
+        lock.writeLock().lock();
+        try {
+            removeFromOverlay(suggestion.id());
+            String key = key(suggestion);
+            overlay.put(key, suggestion);
+            overlayKeys.put(suggestion.id(), key);
+            shadowed.add(suggestion.id());
+            mergeIfNeeded();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void removeProduct(UUID productId) {
+        lock.writeLock().lock();
+        try {
+            removeFromOverlay(productId);
+            shadowed.add(productId);
+            mergeIfNeeded();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void removeFromOverlay(UUID productId) {
+        String previous = overlayKeys.remove(productId);
+        if (previous != null) {
+            overlay.remove(previous);
+        }
+    }
+
+    private void mergeIfNeeded() {
+        int threshold = Math.max(MIN_MERGE_THRESHOLD, products.size() / 16);
+        if (overlay.size() + shadowed.size() < threshold) {
+            return;
+        }
+
+        // Both sides are sorted by key, so a linear merge keeps the order
+        int capacity = products.size() + overlay.size();
+        List<String> keys = new ArrayList<>(capacity);
+        List<Suggestion> suggestions = new ArrayList<>(capacity);
+        var pending = overlay.entrySet().iterator();
+        Map.Entry<String, Suggestion> next = pending.hasNext() ? pending.next() : null;
+        for (int i = 0; i < products.size(); i++) {
+            if (shadowed.contains(products.suggestions[i].id())) {
+                continue;
+            }
+            while (next != null && next.getKey().compareTo(products.keys[i]) < 0) {
+                keys.add(next.getKey());
+                suggestions.add(next.getValue());
+                next = pending.hasNext() ? pending.next() : null;
+            }
+            keys.add(products.keys[i]);
+            suggestions.add(products.suggestions[i]);
+        }
+        while (next != null) {
+            keys.add(next.getKey());
+            suggestions.add(next.getValue());
+            next = pending.hasNext() ? pending.next() : null;
+        }
+
+        products = new SortedEntries(keys.toArray(String[]::new), suggestions.toArray(Suggestion[]::new));
+        overlay.clear();
+        overlayKeys.clear();
+        shadowed.clear();
+    }
+
+    // ==================== READS ====================
+
+    /**
+     * Best suggestions for the prefix, heaviest first. Names that fold to
+     * the same text are only suggested once per type.
+     */
+    public List<Suggestion> suggest(String prefix, int limit) {
+        String normalized = prefix == null ? "" : normalize(prefix);
+        if (normalized.isEmpty() || limit <= 0) {
+            return List.of();
+        }
+
+        lock.readLock().lock();
+        try {
+            List<Candidate> candidates = new ArrayList<>();
+            collect(taxonomy, normalized, limit, candidates, Set.of());
+            collect(products, normalized, limit, candidates, shadowed);
+            for (Map.Entry<String, Suggestion> entry
+                    : overlay.subMap(normalized, true, normalized + Character.MAX_VALUE, false).entrySet()) {
+                candidates.add(Candidate.of(entry.getKey(), entry.getValue()));
+            }
+
+            candidates.sort(Comparator.comparingLong((Candidate candidate) -> candidate.suggestion().weight())
+                    .reversed()
+                    .thenComparing(Candidate::folded));
+            Map<String, Suggestion> distinct = new LinkedHashMap<>();
+            for (Candidate candidate : candidates) {
+                distinct.putIfAbsent(candidate.dedupKey(), candidate.suggestion());
+                if (distinct.size() == limit) {
+                    break;
+                }
+            }
+            return List.copyOf(distinct.values());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private static void collect(SortedEntries entries, String prefix, int limit,
+                                List<Candidate> into, Set<UUID> skip) {
+        Set<String> seen = new HashSet<>();
+        entries.visitByWeight(prefix, (key, suggestion) -> {
+            if (skip.contains(suggestion.id())) {
+                return true;
+            }
+            Candidate candidate = Candidate.of(key, suggestion);
+            if (seen.add(candidate.dedupKey())) {
+                into.add(candidate);
+            }
+            return seen.size() < limit;
+        });
+    }
+}
@@ -0,0 +1,128 @@
+package com.example.ShopiShop.service;
+
+import com.example.ShopiShop.dto.SuggestionResponse;
+import com.example.ShopiShop.events.ProductChangedEvent;
+import com.example.ShopiShop.events.ProductsImportedEvent;
+import com.example.ShopiShop.events.ProductsSoldEvent;
+import com.example.ShopiShop.events.TaxonomyChangedEvent;
+import com.example.ShopiShop.repositories.CategoryRepository;
+import com.example.ShopiShop.repositories.NameWeightView;
+import com.example.ShopiShop.repositories.ProductRepository;
+import com.example.ShopiShop.repositories.SectionRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Search-box suggestions over product, category and section names, served
+ * from {@link SuggestionIndex} so that typing never reaches the database.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class SuggestionService {
+
+    private static final int MAX_SUGGESTIONS = 20;
+    private static final int REBUILD_BATCH_SIZE = 5000;
+
+    private final ProductRepository productRepository;
+    private final CategoryRepository categoryRepository;
+    private final SectionRepository sectionRepository;
+    private final SuggestionIndex index = new SuggestionIndex();
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildOnStartup() {
+        CompletableFuture.runAsync(this::rebuild)
+                .exceptionally(ex -> {
+                    log.error("Suggestion index rebuild failed", ex);
+                    return null;
+                });
+    }
+
+    public void rebuild() {
+        long start = System.currentTimeMillis();
+        reloadTaxonomy();
+
+        List<SuggestionIndex.Suggestion> products = new ArrayList<>();
+        UUID lastId = null;
+        List<NameWeightView> batch;
+        do {
+            batch = productRepository.findSuggestionBatchAfter(lastId, PageRequest.of(0, REBUILD_BATCH_SIZE));
+            batch.forEach(view -> products.add(toSuggestion(SuggestionIndex.Type.PRODUCT, view)));
+            if (!batch.isEmpty()) {
+                lastId = batch.get(batch.size() - 1).getId();
+            }
+        } while (batch.size() == REBUILD_BATCH_SIZE);
+        index.loadProducts(products);
+
+        log.info("Suggestion index built: {} products in {} ms",
+                products.size(), System.currentTimeMillis() - start);
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        if (event.deleted()) {
+            index.removeProduct(event.productId());
+            return;
+        }
+        productRepository.findSuggestionById(event.productId())
+                .ifPresentOrElse(
+                        view -> index.upsertProduct(toSuggestion(SuggestionIndex.Type.PRODUCT, view)),
+                        () -> index.removeProduct(event.productId()));
+    }
+
+    // Suggestions are weighted by units sold; the whole order is read at once
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onProductsSold(ProductsSoldEvent event) {
+        productRepository.findSuggestionsByIdIn(event.productIds())
+                .forEach(view -> index.upsertProduct(toSuggestion(SuggestionIndex.Type.PRODUCT, view)));
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onProductsImported(ProductsImportedEvent event) {
+        List<UUID> ids = event.productIds();
+        for (int from = 0; from < ids.size(); from += REBUILD_BATCH_SIZE) {
+            productRepository.findSuggestionsByIdIn(ids.subList(from, Math.min(from + REBUILD_BATCH_SIZE, ids.size())))
+                    .forEach(view -> index.upsertProduct(toSuggestion(SuggestionIndex.Type.PRODUCT, view)));
+        }
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onTaxonomyChanged(TaxonomyChangedEvent event) {
+        reloadTaxonomy();
+    }
+
+    public List<SuggestionResponse> suggest(String query, int limit) {
+        return index.suggest(query, Math.min(limit, MAX_SUGGESTIONS)).stream()
+                .map(suggestion -> new SuggestionResponse(
+                        suggestion.text(),
+                        suggestion.type().name(),
+                        suggestion.id()))
+                .toList();
+    }
+
+    // Categories and sections number in the hundreds, so they are reloaded whole
+    private void reloadTaxonomy() {
+        List<SuggestionIndex.Suggestion> taxonomy = new ArrayList<>();
+        categoryRepository.findSuggestionWeights()
+                .forEach(view -> taxonomy.add(toSuggestion(SuggestionIndex.Type.CATEGORY, view)));
+        sectionRepository.findSuggestionWeights()
+                .forEach(view -> taxonomy.add(toSuggestion(SuggestionIndex.Type.SECTION, view)));
+        index.replaceTaxonomy(taxonomy);
+    }
+
+    private static SuggestionIndex.Suggestion toSuggestion(SuggestionIndex.Type type, NameWeightView view) {
+        long weight = view.getWeight() != null ? view.getWeight().longValue() : 0;
+        return new SuggestionIndex.Suggestion(type, view.getId(), view.getName(), weight);
+    }
+}
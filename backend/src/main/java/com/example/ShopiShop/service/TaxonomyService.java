@@ -0,0 +1,91 @@
+package com.example.ShopiShop.service;
+
+import com.example.ShopiShop.dto.CategoryResponse;
+import com.example.ShopiShop.events.TaxonomyChangedEvent;
+import com.example.ShopiShop.repositories.CategoryRepository;
+import com.example.ShopiShop.repositories.SectionRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Serves the section and category tree from a {@link TaxonomySnapshot}.
+ * The snapshot is read with two queries at startup and again after every
+ * committed {@link TaxonomyChangedEvent}; taxonomy reads and category name
+ * resolution then make no database calls.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class TaxonomyService {
+
+    private final SectionRepository sectionRepository;
+    private final CategoryRepository categoryRepository;
+
+    // Null until first loaded
+    private volatile TaxonomySnapshot snapshot;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadOnStartup() {
+        rebuild();
+    }
+
+    // Runs before the other taxonomy listeners, which may read the new snapshot
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onTaxonomyChanged(TaxonomyChangedEvent event) {
+        rebuild();
+    }
+
+    public synchronized void rebuild() {
+        long start = System.currentTimeMillis();
+        TaxonomySnapshot rebuilt = TaxonomySnapshot.of(sectionRepository.findAll(), categoryRepository.findAll());
+        snapshot = rebuilt;
+        log.info("Taxonomy snapshot built: {} sections, {} categories in {} ms",
+                rebuilt.sections().size(), rebuilt.categories().size(), System.currentTimeMillis() - start);
+    }
+
+    // The current tree, loaded now if this is the first read
+    public TaxonomySnapshot snapshot() {
+        TaxonomySnapshot current = snapshot;
+        if (current == null) {
+            synchronized (this) {
+                if (snapshot == null) {
+                    rebuild();
+                }
+                current = snapshot;
+            }
+        }
+        return current;
+    }
+
+    /**
+     * Category by name for product writes and listings. Falls back to the
+     * table until the snapshot is loaded, so these paths never pay for the
+     * load themselves, and for a name the snapshot does not know yet.
+     */
+    public Optional<CategoryResponse> findCategory(String name) {
+        TaxonomySnapshot current = snapshot;
+        CategoryResponse category = current != null ? current.categoryNamed(name) : null;
+        if (category != null) {
+            return Optional.of(category);
+        }
+        return categoryRepository.findByName(name).map(TaxonomySnapshot::toResponse);
+    }
+
+    // Name of a category known to the snapshot, or null
+    public String categoryName(UUID categoryId) {
+        TaxonomySnapshot current = snapshot;
+        CategoryResponse category = current != null ? current.category(categoryId) : null;
+        return category != null ? category.name() : null;
+    }
+}
@@ -0,0 +1,128 @@
+package com.example.ShopiShop.service;
+
+import com.example.ShopiShop.dto.CategoryResponse;
+import com.example.ShopiShop.dto.SectionResponse;
+import com.example.ShopiShop.dto.SectionWithCategoriesResponse;
+import com.example.ShopiShop.models.Category;
+import com.example.ShopiShop.models.Section;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Immutable copy of the section and category tree, with lookups by id and
+ * by name. It holds the response records themselves, so reads hand out
+ * shared values and map nothing. A change builds a new snapshot and swaps
+ * it in whole; readers keep whichever one they started with.
+ * <p>
+ * Category names are not unique in the table; by name, the first category
+ * in id order wins, the same one every time.
+ */
+public final class TaxonomySnapshot {
+
+    public static final TaxonomySnapshot EMPTY = new TaxonomySnapshot(List.of(), List.of());
+
+    private final List<SectionResponse> sections;
+    private final List<SectionWithCategoriesResponse> tree;
+    private final List<CategoryResponse> categories;
+    private final Map<UUID, SectionResponse> sectionsById;
+    private final Map<String, SectionResponse> sectionsByName;
+    private final Map<UUID, List<CategoryResponse>> categoriesBySection;
+    private final Map<UUID, CategoryResponse> categoriesById;
+    private final Map<String, CategoryResponse> categoriesByName;
+
+    private TaxonomySnapshot(List<SectionResponse> sections, List<CategoryResponse> categories) {
+        Map<UUID, List<CategoryResponse>> bySection = new LinkedHashMap<>();
+        sections.forEach(section -> bySection.put(section.id(), new ArrayList<>()));
+        Map<UUID, CategoryResponse> byId = new HashMap<>();
+        Map<String, CategoryResponse> byName = new HashMap<>();
+        for (CategoryResponse category : categories) {
+            byId.put(category.id(), category);
+            byName.putIfAbsent(category.name(), category);
+            List<CategoryResponse> siblings = bySection.get(category.sectionId());
+            if (siblings != null) {
+                siblings.add(category);
+            }
+        }
+
+        Map<UUID, SectionResponse> sectionById = new HashMap<>();
+        Map<String, SectionResponse> sectionByName = new HashMap<>();
+        List<SectionWithCategoriesResponse> tree = new ArrayList<>(sections.size());
+        for (SectionResponse section : sections) {
+            sectionById.put(section.id(), section);
+            sectionByName.put(section.name(), section);
+            List<CategoryResponse> children = List.copyOf(bySection.get(section.id()));
+            bySection.put(section.id(), children);
+            tree.add(new SectionWithCategoriesResponse(section.id(), section.name(), section.imageUrl(), children));
+        }
+
+        this.sections = List.copyOf(sections);
+        this.tree = List.copyOf(tree);
+        this.categories = List.copyOf(categories);
+        this.sectionsById = Map.copyOf(sectionById);
+        this.sectionsByName = Map.copyOf(sectionByName);
+        this.categoriesBySection = Map.copyOf(bySection);
+        this.categoriesById = Map.copyOf(byId);
+        this.categoriesByName = Map.copyOf(byName);
+    }
+
+    // Entities as read from the tables; only the id of a category's section is used
+    public static TaxonomySnapshot of(Collection<Section> sections, Collection<Category> categories) {
+        return new TaxonomySnapshot(
+                sections.stream()
+                        .sorted((a, b) -> a.getName().compareTo(b.getName()))
+                        .map(section -> new SectionResponse(section.getId(), section.getName(), section.getImageUrl()))
+                        .toList(),
+                categories.stream()
+                        .sorted((a, b) -> a.getId().compareTo(b.getId()))
+                        .map(TaxonomySnapshot::toResponse)
+                        .toList());
+    }
+
+    public static CategoryResponse toResponse(Category category) {
+        return new CategoryResponse(
+                category.getId(),
+                category.getName(),
+                category.getImageUrl(),
+                category.getSection() != null ? category.getSection().getId() : null);
+    }
+
+    // By section name
+    public List<SectionResponse> sections() {
+        return sections;
+    }
+
+    public List<SectionWithCategoriesResponse> tree() {
+        return tree;
+    }
+
+    public List<CategoryResponse> categories() {
+        return categories;
+    }
+
+    public SectionResponse section(UUID id) {
+        return sectionsById.get(id);
+    }
+
+    public SectionResponse sectionNamed(String name) {
+        return name != null ? sectionsByName.get(name) : null;
+    }
+
+    // Empty for an unknown section
+    public List<CategoryResponse> categoriesOf(UUID sectionId) {
+        return categoriesBySection.getOrDefault(sectionId, List.of());
+    }
+
+    public CategoryResponse category(UUID id) {
+        return id != null ? categoriesById.get(id) : null;
+    }
+
+    public CategoryResponse categoryNamed(String name) {
+        return name != null ? categoriesByName.get(name) : null;
+    }
+}
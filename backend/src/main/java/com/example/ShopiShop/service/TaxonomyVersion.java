@@ -0,0 +1,34 @@
+package com.example.ShopiShop.service;
+
+import com.example.ShopiShop.events.TaxonomyChangedEvent;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Catalog-level version of the section and category tree, bumped after every
+ * committed taxonomy change. Used as the ETag of taxonomy responses, so a
+ * conditional request is answered without reading the tree.
+ */
+@Service
+public class TaxonomyVersion {
+
+    // Tags handed out before a restart must not match the new counter
+    private final long epoch = System.currentTimeMillis();
+    private final AtomicLong version = new AtomicLong();
+
+    public String current() {
+        return epoch + "." + version.get();
+    }
+
+    public String etag() {
+        return "t" + current();
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onTaxonomyChanged(TaxonomyChangedEvent event) {
+        version.incrementAndGet();
+    }
+}
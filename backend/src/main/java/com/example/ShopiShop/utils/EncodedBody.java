@@ -0,0 +1,148 @@
+package com.example.ShopiShop.utils;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.lang.Nullable;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * A JSON response body serialized once, with its gzip variant compressed on
+ * first use. Kept next to a cached value, so a cache hit is written to the
+ * socket as is instead of going through Jackson and the server's compression
+ * again.
+ * <p>
+ * The ETag is a hash of the JSON, so a reload that produced the same body
+ * keeps answering conditional requests with 304. Each encoding is its own
+ * representation and gets its own tag.
+ */
+public final class EncodedBody {
+
+    // Below this the gzip framing costs more than it saves (same default as Tomcat)
+    static final int MIN_COMPRESS_SIZE = 2048;
+
+    private static final String GZIP = "gzip";
+
+    private final byte[] json;
+    private final String etag;
+    private volatile byte[] gzip;
+
+    private EncodedBody(byte[] json) {
+        this.json = json;
+        this.etag = hash(json);
+    }
+
+    public static EncodedBody of(ObjectMapper objectMapper, Object value) {
+        try {
+            return new EncodedBody(objectMapper.writeValueAsBytes(value));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Failed to serialize response", e);
+        }
+    }
+
+    public byte[] json() {
+        return json;
+    }
+
+    public String etag() {
+        return etag;
+    }
+
+    // Two threads may both compress on the first request; either result is fine
+    public byte[] gzip() {
+        byte[] compressed = gzip;
+        if (compressed == null) {
+            compressed = compress(json);
+            gzip = compressed;
+        }
+        return compressed;
+    }
+
+    /**
+     * The body in the best encoding the client accepts. Sets Vary so shared
+     * caches keep the variants apart; Spring turns a matching If-None-Match
+     * into a 304 without writing the body.
+     */
+    public ResponseEntity<byte[]> toResponse(@Nullable String acceptEncoding) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (json.length >= MIN_COMPRESS_SIZE && accepts(acceptEncoding, GZIP)) {
+            return response.eTag(etag + "-" + GZIP)
+                    .header(HttpHeaders.CONTENT_ENCODING, GZIP)
+                    .body(gzip());
+        }
+        return response.eTag(etag).body(json);
+    }
+
+    /**
+     * Whether an Accept-Encoding header allows the coding, honouring q=0 and
+     * the "*" wildcard.
+     */
+    static boolean accepts(@Nullable String acceptEncoding, String coding) {
+        if (acceptEncoding == null || acceptEncoding.isBlank()) {
+            return false;
+        }
+        Boolean wildcard = null;
+        for (String entry : acceptEncoding.split(",")) {
+            String[] parts = entry.split(";");
+            String name = parts[0].trim();
+            boolean allowed = quality(parts) > 0;
+            if (name.equalsIgnoreCase(coding) || name.equalsIgnoreCase("x-" + coding)) {
+                return allowed;
+            }
+            if (name.equals("*")) {
+                wildcard = allowed;
+            }
+        }
+        return Boolean.TRUE.equals(wildcard);
+    }
+
+    private static double quality(String[] parts) {
+        for (int i = 1; i < parts.length; i++) {
+            String parameter = parts[i].trim();
+            if (parameter.startsWith("q=")) {
+                try {
+                    return Double.parseDouble(parameter.substring(2));
+                } catch (NumberFormatException e) {
+                    return 0;
+                }
+            }
+        }
+        return 1;
+    }
+
+    private static String hash(byte[] bytes) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(bytes);
+            return HexFormat.of().formatHex(digest, 0, 16);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    // Compressed once per cached value, so spend the time on the best ratio
+    private static byte[] compress(byte[] bytes) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(bytes.length / 4 + 64);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out) {
+            {
+                def.setLevel(Deflater.BEST_COMPRESSION);
+            }
+        }) {
+            gzip.write(bytes);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+}
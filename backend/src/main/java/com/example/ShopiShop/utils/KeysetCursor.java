@@ -0,0 +1,74 @@
+package com.example.ShopiShop.utils;
+
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Function;
+
+/**
+ * Opaque cursor for keyset pagination over (createdAt, id), newest first.
+ * Clients get it back from a page response and pass it unchanged to fetch
+ * the next page; the encoding is an implementation detail.
+ * <p>
+ * Repositories query with {@link #limitFor(int)}, which asks for one row more
+ * than the page size, and {@link #slice} turns the rows into the page plus
+ * the cursor of the next one.
+ */
+public final class KeysetCursor {
+
+    private static final char SEPARATOR = '|';
+
+    private KeysetCursor() {
+    }
+
+    public record Position(LocalDateTime createdAt, String id) {
+
+        public UUID uuid() {
+            try {
+                return UUID.fromString(id);
+            } catch (IllegalArgumentException e) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid cursor");
+            }
+        }
+    }
+
+    public record Slice<E>(List<E> rows, String nextCursor) {
+    }
+
+    public static Pageable limitFor(int size) {
+        return PageRequest.of(0, size + 1);
+    }
+
+    public static <E> Slice<E> slice(List<E> rows, int size, Function<E, String> cursorOf) {
+        if (rows.size() <= size) {
+            return new Slice<>(rows, null);
+        }
+        List<E> page = rows.subList(0, size);
+        return new Slice<>(page, cursorOf.apply(page.get(size - 1)));
+    }
+
+    public static String encode(LocalDateTime createdAt, Object id) {
+        String raw = createdAt + String.valueOf(SEPARATOR) + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static Position decode(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = raw.indexOf(SEPARATOR);
+            if (separator < 0) {
+                throw new IllegalArgumentException("missing separator");
+            }
+            return new Position(LocalDateTime.parse(raw.substring(0, separator)), raw.substring(separator + 1));
+        } catch (RuntimeException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid cursor");
+        }
+    }
+}
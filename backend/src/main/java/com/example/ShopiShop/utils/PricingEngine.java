@@ -0,0 +1,82 @@
+package com.example.ShopiShop.utils;
+
+import com.example.ShopiShop.enums.DiscountType;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+
+/**
+ * Price arithmetic on whole cents held in a long. Amounts are non-negative
+ * and have at most two decimals, like the DECIMAL(19,2) price columns, so
+ * a percentage is a whole number of hundredths of a percent (15.5% = 1550).
+ * <p>
+ * Rounding rule: a discounted price is exact until the last step and then
+ * rounded half up to the cent, which is what the BigDecimal formula gives
+ * once its result is stored in a price column. A price never goes below zero.
+ * <p>
+ * Nothing here allocates except the BigDecimal conversions at the edges, and
+ * {@link #toCents} avoids even that for two-decimal amounts.
+ */
+public final class PricingEngine {
+
+    // 100% in hundredths of a percent
+    private static final long FULL_PERCENT = 10_000;
+    // Below 10^13 units, cents stay under 2^53 where doubles hold every integer
+    private static final int FAST_INTEGER_DIGITS = 13;
+
+    private PricingEngine() {
+    }
+
+    /**
+     * Whole cents, rounding half up past the second decimal. Null is zero.
+     *
+     * @throws ArithmeticException if the amount does not fit in a long
+     */
+    public static long toCents(BigDecimal amount) {
+        if (amount == null) {
+            return 0;
+        }
+        // Compact two-decimal values convert through double without allocating; the
+        // double is within an ulp of the exact value, far less than the half cent Math.round needs
+        if (amount.scale() >= 0 && amount.scale() <= 2
+                && amount.precision() - amount.scale() <= FAST_INTEGER_DIGITS) {
+            return Math.round(amount.doubleValue() * 100);
+        }
+        return amount.setScale(2, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+    }
+
+    public static BigDecimal toAmount(long cents) {
+        return BigDecimal.valueOf(cents, 2);
+    }
+
+    /**
+     * Price after a discount. A percentage is given in hundredths of a percent,
+     * a fixed amount in cents, both as returned by {@link #toCents}.
+     */
+    public static long discountedCents(long priceCents, DiscountType type, long discountValue) {
+        if (type == DiscountType.PERCENTAGE) {
+            long keep = FULL_PERCENT - discountValue;
+            if (keep <= 0) {
+                return 0;
+            }
+            // price * keep / 10000 split so neither product can overflow
+            long whole = priceCents / FULL_PERCENT;
+            long rest = priceCents % FULL_PERCENT;
+            return whole * keep + (rest * keep + FULL_PERCENT / 2) / FULL_PERCENT;
+        }
+        return Math.max(0, priceCents - discountValue);
+    }
+
+    /**
+     * @throws ArithmeticException if the total does not fit in a long
+     */
+    public static long lineTotalCents(long unitCents, int quantity) {
+        return Math.multiplyExact(unitCents, quantity);
+    }
+
+    // Both dates inclusive; a missing date leaves that side open
+    public static boolean inWindow(LocalDate start, LocalDate end, LocalDate today) {
+        return (start == null || !today.isBefore(start)) && (end == null || !today.isAfter(end));
+    }
+}
@@ -0,0 +1,200 @@
+package com.example.ShopiShop.benchmark;
+
+import com.example.ShopiShop.service.FlashSaleLane;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Load test for a flash sale: 64 buyers at once, each buying one unit of the
+ * same product and waiting for the answer, against in-memory H2 tables shaped
+ * like product's stock columns and orders. Compares a transaction per buyer
+ * (conditional decrement and order insert, as OrderService checks out) with
+ * FlashSaleService's path, where buyers queue in a {@link FlashSaleLane} and
+ * one writer commits a batch at a time with one decrement. The score is
+ * purchases answered per second.
+ * <p>
+ * H2 commits in memory; on MySQL every commit also waits for the redo log,
+ * which widens the gap in favour of batching. Run like {@link PricingBenchmark}.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(64)
+@Fork(1)
+public class FlashSaleBenchmark {
+
+    private static final String URL = "jdbc:h2:mem:flashsale;DB_CLOSE_DELAY=-1;LOCK_TIMEOUT=10000";
+    private static final String HOT_ID = "hot";
+    private static final String DECREMENT =
+            "UPDATE product SET quantity = quantity - ?, version = version + 1 WHERE id = ? AND quantity >= ?";
+    private static final String INSERT_ORDER = "INSERT INTO orders (id, product_id, quantity) VALUES (?, ?, ?)";
+
+    @State(Scope.Benchmark)
+    public static class Database {
+        private Connection keepAlive;
+
+        @Setup(Level.Trial)
+        public void create() throws SQLException {
+            keepAlive = DriverManager.getConnection(URL);
+            try (Statement statement = keepAlive.createStatement()) {
+                statement.execute("CREATE TABLE IF NOT EXISTS product " +
+                        "(id VARCHAR(36) PRIMARY KEY, quantity INT NOT NULL, version INT NOT NULL)");
+                statement.execute("CREATE TABLE IF NOT EXISTS orders " +
+                        "(id UUID PRIMARY KEY, product_id VARCHAR(36) NOT NULL, quantity INT NOT NULL)");
+                statement.execute("MERGE INTO product KEY (id) VALUES ('" + HOT_ID + "', 1000000000, 0)");
+            }
+        }
+
+        @TearDown(Level.Trial)
+        public void drop() throws SQLException {
+            try (Statement statement = keepAlive.createStatement()) {
+                statement.execute("DROP TABLE orders");
+                statement.execute("DROP TABLE product");
+            }
+            keepAlive.close();
+        }
+    }
+
+    // Current path: every buyer's own connection and transaction
+    @State(Scope.Thread)
+    public static class Session {
+        Connection connection;
+        PreparedStatement decrement;
+        PreparedStatement insertOrder;
+
+        @Setup(Level.Trial)
+        public void open(Database database) throws SQLException {
+            connection = DriverManager.getConnection(URL);
+            connection.setAutoCommit(false);
+            connection.setTransactionIsolation(Connection.TRANSACTION_READ_COMMITTED);
+            decrement = connection.prepareStatement(DECREMENT);
+            insertOrder = connection.prepareStatement(INSERT_ORDER);
+        }
+
+        @TearDown(Level.Trial)
+        public void close() throws SQLException {
+            connection.close();
+        }
+    }
+
+    // Flash-sale path: one writer connection behind the lane
+    @State(Scope.Benchmark)
+    public static class Writer {
+        ExecutorService executor;
+        Connection connection;
+        PreparedStatement readStock;
+        PreparedStatement decrement;
+        PreparedStatement insertOrder;
+        FlashSaleLane<CompletableFuture<Boolean>> lane;
+
+        @Setup(Level.Trial)
+        public void open(Database database) throws SQLException {
+            executor = Executors.newCachedThreadPool();
+            connection = DriverManager.getConnection(URL);
+            connection.setAutoCommit(false);
+            connection.setTransactionIsolation(Connection.TRANSACTION_READ_COMMITTED);
+            readStock = connection.prepareStatement("SELECT quantity FROM product WHERE id = ?");
+            decrement = connection.prepareStatement(DECREMENT);
+            insertOrder = connection.prepareStatement(INSERT_ORDER);
+            lane = new FlashSaleLane<>(10_000, 200, executor, this::write);
+        }
+
+        // Same steps as FlashSaleService.allocate, one unit per purchase
+        private void write(List<CompletableFuture<Boolean>> batch) {
+            try {
+                readStock.setString(1, HOT_ID);
+                int remaining;
+                try (ResultSet row = readStock.executeQuery()) {
+                    row.next();
+                    remaining = row.getInt(1);
+                }
+                int units = Math.min(remaining, batch.size());
+                if (units > 0) {
+                    decrement.setInt(1, units);
+                    decrement.setString(2, HOT_ID);
+                    decrement.setInt(3, units);
+                    decrement.executeUpdate();
+                    for (int i = 0; i < units; i++) {
+                        insertOrder.setObject(1, UUID.randomUUID());
+                        insertOrder.setString(2, HOT_ID);
+                        insertOrder.setInt(3, 1);
+                        insertOrder.addBatch();
+                    }
+                    insertOrder.executeBatch();
+                }
+                connection.commit();
+                for (int i = 0; i < batch.size(); i++) {
+                    batch.get(i).complete(i < units);
+                }
+            } catch (SQLException e) {
+                batch.forEach(purchase -> purchase.completeExceptionally(e));
+            }
+        }
+
+        @TearDown(Level.Trial)
+        public void close() throws SQLException, InterruptedException {
+            executor.shutdown();
+            executor.awaitTermination(10, TimeUnit.SECONDS);
+            connection.close();
+        }
+    }
+
+    @Benchmark
+    public boolean transactionPerBuyer(Session session) throws SQLException {
+        session.decrement.setInt(1, 1);
+        session.decrement.setString(2, HOT_ID);
+        session.decrement.setInt(3, 1);
+        boolean allocated = session.decrement.executeUpdate() == 1;
+        if (allocated) {
+            session.insertOrder.setObject(1, UUID.randomUUID());
+            session.insertOrder.setString(2, HOT_ID);
+            session.insertOrder.setInt(3, 1);
+            session.insertOrder.executeUpdate();
+        }
+        session.connection.commit();
+        return allocated;
+    }
+
+    @Benchmark
+    public boolean queuedSingleWriter(Writer writer) {
+        CompletableFuture<Boolean> purchase = new CompletableFuture<>();
+        if (!writer.lane.offer(purchase)) {
+            return false;
+        }
+        return purchase.join();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(FlashSaleBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
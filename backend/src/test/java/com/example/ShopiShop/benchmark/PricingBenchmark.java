@@ -0,0 +1,91 @@
+package com.example.ShopiShop.benchmark;
+
+import com.example.ShopiShop.enums.DiscountType;
+import com.example.ShopiShop.utils.PricingEngine;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.math.BigDecimal;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Prices a page of products with the BigDecimal formula DiscountService used
+ * and with {@link PricingEngine}. Run from the IDE or with
+ * {@code mvn test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=com.example.ShopiShop.benchmark.PricingBenchmark};
+ * add {@code -prof gc} to the options to compare allocation rates.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PricingBenchmark {
+
+    // A listing page
+    private static final int PRODUCTS = 100;
+
+    private final BigDecimal[] prices = new BigDecimal[PRODUCTS];
+    private final DiscountType[] types = new DiscountType[PRODUCTS];
+    private final BigDecimal[] values = new BigDecimal[PRODUCTS];
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        for (int i = 0; i < PRODUCTS; i++) {
+            prices[i] = BigDecimal.valueOf(100 + random.nextInt(100_000), 2);
+            types[i] = i % 2 == 0 ? DiscountType.PERCENTAGE : DiscountType.FIXED_AMOUNT;
+            values[i] = types[i] == DiscountType.PERCENTAGE
+                    ? BigDecimal.valueOf(500 + random.nextInt(5_000), 2)
+                    : BigDecimal.valueOf(random.nextInt(5_000), 2);
+        }
+    }
+
+    @Benchmark
+    public void bigDecimal(Blackhole blackhole) {
+        for (int i = 0; i < PRODUCTS; i++) {
+            BigDecimal price = prices[i];
+            BigDecimal discounted = types[i] == DiscountType.PERCENTAGE
+                    ? price.subtract(price.multiply(values[i]).divide(BigDecimal.valueOf(100)))
+                    : price.subtract(values[i]);
+            blackhole.consume(discounted.max(BigDecimal.ZERO));
+        }
+    }
+
+    @Benchmark
+    public void cents(Blackhole blackhole) {
+        for (int i = 0; i < PRODUCTS; i++) {
+            blackhole.consume(PricingEngine.discountedCents(
+                    PricingEngine.toCents(prices[i]), types[i], PricingEngine.toCents(values[i])));
+        }
+    }
+
+    // Cents in, BigDecimal out, as DiscountService returns prices to the DTOs
+    @Benchmark
+    public void centsToAmount(Blackhole blackhole) {
+        for (int i = 0; i < PRODUCTS; i++) {
+            blackhole.consume(PricingEngine.toAmount(PricingEngine.discountedCents(
+                    PricingEngine.toCents(prices[i]), types[i], PricingEngine.toCents(values[i]))));
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(PricingBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,147 @@
+package com.example.ShopiShop.benchmark;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Checkouts of one unit of a single hot product from 8 threads, against an
+ * in-memory H2 table shaped like product's stock columns. Compares the
+ * read-then-save-with-version path OrderService used, which gives up on a
+ * version conflict, with the conditional decrement it uses now. The
+ * "succeeded" counter is successful checkouts per second; "conflicted" is
+ * checkouts the old path turned away although stock was left.
+ * Run like {@link PricingBenchmark}.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(8)
+@Fork(1)
+public class StockDecrementBenchmark {
+
+    private static final String URL = "jdbc:h2:mem:stock;DB_CLOSE_DELAY=-1;LOCK_TIMEOUT=10000";
+    private static final String HOT_ID = "hot";
+
+    @State(Scope.Benchmark)
+    public static class Database {
+        private Connection keepAlive;
+
+        @Setup(Level.Trial)
+        public void create() throws SQLException {
+            keepAlive = DriverManager.getConnection(URL);
+            try (Statement statement = keepAlive.createStatement()) {
+                statement.execute("CREATE TABLE IF NOT EXISTS product " +
+                        "(id VARCHAR(36) PRIMARY KEY, quantity INT NOT NULL, version INT NOT NULL)");
+                statement.execute("MERGE INTO product KEY (id) VALUES ('" + HOT_ID + "', 1000000000, 0)");
+            }
+        }
+
+        @TearDown(Level.Trial)
+        public void drop() throws SQLException {
+            try (Statement statement = keepAlive.createStatement()) {
+                statement.execute("DROP TABLE product");
+            }
+            keepAlive.close();
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Session {
+        Connection connection;
+        PreparedStatement read;
+        PreparedStatement saveVersioned;
+        PreparedStatement decrement;
+
+        @Setup(Level.Trial)
+        public void open(Database database) throws SQLException {
+            connection = DriverManager.getConnection(URL);
+            connection.setAutoCommit(false);
+            connection.setTransactionIsolation(Connection.TRANSACTION_READ_COMMITTED);
+            read = connection.prepareStatement("SELECT quantity, version FROM product WHERE id = ?");
+            saveVersioned = connection.prepareStatement(
+                    "UPDATE product SET quantity = ?, version = version + 1 WHERE id = ? AND version = ?");
+            decrement = connection.prepareStatement(
+                    "UPDATE product SET quantity = quantity - ?, version = version + 1 WHERE id = ? AND quantity >= ?");
+        }
+
+        @TearDown(Level.Trial)
+        public void close() throws SQLException {
+            connection.close();
+        }
+    }
+
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    @State(Scope.Thread)
+    public static class Outcomes {
+        public long succeeded;
+        public long conflicted;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            succeeded = 0;
+            conflicted = 0;
+        }
+    }
+
+    @Benchmark
+    public void readThenSaveVersioned(Session session, Outcomes outcomes) throws SQLException {
+        int quantity;
+        int version;
+        session.read.setString(1, HOT_ID);
+        try (ResultSet row = session.read.executeQuery()) {
+            row.next();
+            quantity = row.getInt(1);
+            version = row.getInt(2);
+        }
+        session.saveVersioned.setInt(1, quantity - 1);
+        session.saveVersioned.setString(2, HOT_ID);
+        session.saveVersioned.setInt(3, version);
+        if (session.saveVersioned.executeUpdate() == 1) {
+            outcomes.succeeded++;
+        } else {
+            outcomes.conflicted++;
+        }
+        session.connection.commit();
+    }
+
+    @Benchmark
+    public void conditionalDecrement(Session session, Outcomes outcomes) throws SQLException {
+        session.decrement.setInt(1, 1);
+        session.decrement.setString(2, HOT_ID);
+        session.decrement.setInt(3, 1);
+        if (session.decrement.executeUpdate() == 1) {
+            outcomes.succeeded++;
+        }
+        session.connection.commit();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(StockDecrementBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,82 @@
+package com.example.ShopiShop.service;
+
+import com.example.ShopiShop.service.BestSellerBoard.Listing;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class BestSellerBoardTest {
+
+    private final UUID fruits = UUID.randomUUID();
+    private final UUID tools = UUID.randomUUID();
+
+    private final UUID apple = UUID.randomUUID();
+    private final UUID pear = UUID.randomUUID();
+    private final UUID plum = UUID.randomUUID();
+    private final UUID hammer = UUID.randomUUID();
+
+    private BestSellerBoard board;
+
+    @BeforeEach
+    void setUp() {
+        board = new BestSellerBoard(2);
+        board.load(List.of(
+                new Listing(apple, fruits, 1L, 30),
+                new Listing(pear, fruits, 1L, 20),
+                new Listing(plum, fruits, 2L, 10),
+                new Listing(hammer, tools, 2L, 25)));
+    }
+
+    @Test
+    void keepsTheBestWithinCapacity() {
+        assertEquals(List.of(apple, hammer), board.top(0, 10));
+        assertEquals(List.of(apple, pear), board.topInCategory(fruits, 10));
+        assertEquals(List.of(hammer, plum), board.topInStore(2L, 10));
+    }
+
+    @Test
+    void salesMoveProductsUp() {
+        board.upsert(new Listing(plum, fruits, 2L, 35));
+
+        assertEquals(List.of(plum, apple), board.top(0, 10));
+        assertEquals(List.of(plum, apple), board.topInCategory(fruits, 10));
+    }
+
+    @Test
+    void soldTotalsKeepCategoryAndStore() {
+        board.updateSold(plum, 35);
+        board.updateSold(apple, 5);
+
+        assertEquals(List.of(plum, apple), board.top(0, 10));
+        assertEquals(List.of(plum, hammer), board.topInStore(2L, 10));
+    }
+
+    @Test
+    void refillsFromFullCountsWhenAProductLeaves() {
+        board.remove(apple);
+        assertEquals(List.of(hammer, pear), board.top(0, 10));
+        assertEquals(List.of(pear, plum), board.topInCategory(fruits, 10));
+
+        board.upsert(new Listing(pear, tools, 1L, 0));
+        assertEquals(List.of(plum), board.topInCategory(fruits, 10));
+        assertEquals(List.of(hammer, pear), board.topInCategory(tools, 10));
+    }
+
+    @Test
+    void ignoresReReadsOlderThanTheCountHeld() {
+        board.upsert(new Listing(plum, fruits, 2L, 35));
+        assertEquals(List.of(plum, apple), board.top(0, 10));
+
+        // A read that started before the last sale finished after it
+        board.upsert(new Listing(plum, fruits, 2L, 12));
+        assertEquals(List.of(plum, apple), board.top(0, 10));
+
+        // A rebuild batch read before the sale must not reset it either
+        board.load(List.of(new Listing(plum, fruits, 2L, 10)));
+        assertEquals(List.of(plum, apple), board.topInCategory(fruits, 10));
+    }
+}
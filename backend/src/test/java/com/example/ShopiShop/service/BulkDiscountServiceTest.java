@@ -0,0 +1,214 @@
+package com.example.ShopiShop.service;
+
+import com.example.ShopiShop.dto.BulkDiscountJobResponse;
+import com.example.ShopiShop.dto.DiscountRequest;
+import com.example.ShopiShop.enums.BulkDiscountJobStatus;
+import com.example.ShopiShop.enums.DiscountType;
+import com.example.ShopiShop.enums.UserRoleEnum;
+import com.example.ShopiShop.models.*;
+import com.example.ShopiShop.repositories.ProductRepository;
+import com.example.ShopiShop.utils.PricingEngine;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.Test;
+import org.mockito.stubbing.Answer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mockingDetails;
+
+@DataJpaTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:bulkdiscount;MODE=MySQL;NON_KEYWORDS=USER;DB_CLOSE_DELAY=-1",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import(BulkDiscountService.class)
+class BulkDiscountServiceTest {
+
+    // Prices that round differently depending on where the division happens
+    private static final List<String> PRICES = List.of(
+            "0.01", "0.05", "0.99", "1.00", "9.99", "19.99", "33.33", "66.67", "99.95", "1234.57", "99999999.99");
+    private static final List<String> PERCENTAGES = List.of("0.01", "12.5", "15", "33.33", "50", "99.99");
+
+    // Three chunks of BulkDiscountService.CHUNK_SIZE, the last one short
+    private static final int JOB_PRODUCTS = 1200;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private BulkDiscountService bulkDiscountService;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private Category category;
+
+    @SpyBean
+    private ProductRepository productRepository;
+
+    @MockBean
+    private DiscountScheduler discountScheduler;
+
+    @Test
+    void percentageUpdateRoundsLikeThePricingEngine() {
+        Store store = store("rounding@shop.test");
+        List<UUID> ids = new ArrayList<>();
+        for (String price : PRICES) {
+            ids.add(product(store, new BigDecimal(price)).getId());
+        }
+        entityManager.flush();
+
+        for (String percentage : PERCENTAGES) {
+            BigDecimal value = new BigDecimal(percentage);
+            long keep = 10_000 - PricingEngine.toCents(value);
+            productRepository.applyPercentageDiscount(ids, value, keep, null, null, null, 1, true);
+            entityManager.clear();
+
+            for (Product product : productRepository.findAllById(ids)) {
+                long expected = PricingEngine.discountedCents(
+                        PricingEngine.toCents(product.getPrice()), DiscountType.PERCENTAGE, PricingEngine.toCents(value));
+                assertEquals(PricingEngine.toAmount(expected), product.getDiscountPrice(),
+                        product.getPrice() + " less " + percentage + "%");
+            }
+        }
+    }
+
+    @Test
+    void fixedUpdateMatchesThePricingEngine() {
+        Store store = store("fixed@shop.test");
+        List<UUID> ids = new ArrayList<>();
+        for (String price : PRICES) {
+            ids.add(product(store, new BigDecimal(price)).getId());
+        }
+        entityManager.flush();
+
+        BigDecimal value = new BigDecimal("0.99");
+        productRepository.applyFixedDiscount(ids, value, null, null, null, 1, true);
+        entityManager.clear();
+
+        for (Product product : productRepository.findAllById(ids)) {
+            long expected = PricingEngine.discountedCents(
+                    PricingEngine.toCents(product.getPrice()), DiscountType.FIXED_AMOUNT, PricingEngine.toCents(value));
+            assertEquals(PricingEngine.toAmount(expected), product.getDiscountPrice(), product.getPrice() + " less 0.99");
+        }
+    }
+
+    // Committed for real: the job runs on another thread
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    void resumesAfterTheLastCommittedChunk() throws InterruptedException {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        List<UUID> ids = new ArrayList<>();
+        User owner = transactionTemplate.execute(status -> {
+            Store store = store("resume@shop.test");
+            for (int i = 0; i < JOB_PRODUCTS; i++) {
+                ids.add(product(store, BigDecimal.TEN).getId());
+            }
+            return store.getOwner();
+        });
+
+        // The second chunk fails; its transaction rolls back with the job's progress
+        Answer<?> repository = mockingDetails(productRepository).getMockCreationSettings().getDefaultAnswer();
+        doAnswer(repository)
+                .doThrow(new IllegalStateException("Connection reset"))
+                .doAnswer(repository)
+                .when(productRepository)
+                .applyPercentageDiscount(any(), any(), anyLong(), any(), any(), any(), anyInt(), anyBoolean());
+
+        DiscountRequest request = new DiscountRequest(DiscountType.PERCENTAGE, new BigDecimal("20"),
+                null, null, "Spring sale", 1);
+        UUID jobId = bulkDiscountService.start(ids, request, owner).jobId();
+
+        BulkDiscountJobResponse failed = awaitFinished(jobId, owner);
+        assertEquals(BulkDiscountJobStatus.FAILED, failed.status());
+        assertEquals(500, failed.processed());
+        assertEquals(500, failed.updated());
+        assertEquals(500, countDiscounted(ids));
+
+        bulkDiscountService.resume(jobId, owner);
+
+        BulkDiscountJobResponse completed = awaitFinished(jobId, owner);
+        assertEquals(BulkDiscountJobStatus.COMPLETED, completed.status());
+        assertEquals(JOB_PRODUCTS, completed.processed());
+        assertEquals(JOB_PRODUCTS, completed.updated());
+        assertEquals(JOB_PRODUCTS, countDiscounted(ids));
+        // Written once each: the first chunk was not applied again
+        for (Product product : productRepository.findAllById(ids)) {
+            assertEquals(1, product.getVersion());
+            assertEquals(new BigDecimal("8.00"), product.getDiscountPrice());
+        }
+    }
+
+    private BulkDiscountJobResponse awaitFinished(UUID jobId, User owner) throws InterruptedException {
+        for (int attempt = 0; attempt < 200; attempt++) {
+            BulkDiscountJobResponse job = bulkDiscountService.getJob(jobId, owner);
+            if (job.status() != BulkDiscountJobStatus.RUNNING) {
+                return job;
+            }
+            Thread.sleep(50);
+        }
+        throw new AssertionError("Bulk discount job " + jobId + " did not finish");
+    }
+
+    private long countDiscounted(List<UUID> ids) {
+        return productRepository.findAllById(ids).stream()
+                .filter(product -> Boolean.TRUE.equals(product.getDiscountActive()))
+                .count();
+    }
+
+    private Store store(String ownerEmail) {
+        User owner = User.builder()
+                .name(ownerEmail)
+                .email(ownerEmail)
+                .password("secret")
+                .userRole(UserRoleEnum.MERCHANT)
+                .build();
+        entityManager.persist(owner);
+        Store store = Store.builder().name("Store of " + ownerEmail).owner(owner).isApproved(true).build();
+        entityManager.persist(store);
+        Section section = Section.builder().name("Section of " + ownerEmail).build();
+        entityManager.persist(section);
+        category = Category.builder().name("Category of " + ownerEmail).section(section).build();
+        entityManager.persist(category);
+        return store;
+    }
+
+    private Product product(Store store, BigDecimal price) {
+        Product product = Product.builder()
+                .name("Product " + price)
+                .description("Priced at " + price)
+                .price(price)
+                .imageUrl("https://img.test/product")
+                .quantity(10)
+                .store(store)
+                .category(category)
+                .isAvailable(true)
+                .totalSell(0)
+                .discountActive(false)
+                .build();
+        entityManager.persist(product);
+        return product;
+    }
+}
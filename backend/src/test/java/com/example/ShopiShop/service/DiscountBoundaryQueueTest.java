@@ -0,0 +1,79 @@
+package com.example.ShopiShop.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DiscountBoundaryQueueTest {
+
+    private static final LocalDate TODAY = LocalDate.of(2024, 3, 10);
+
+    private final DiscountBoundaryQueue queue = new DiscountBoundaryQueue();
+    private final UUID product = UUID.randomUUID();
+
+    @Test
+    void firesOnTheFirstDayAndTheDayAfterTheLast() {
+        queue.schedule(product, TODAY.plusDays(2), TODAY.plusDays(4), TODAY);
+
+        assertTrue(queue.pollDue(TODAY.plusDays(1)).isEmpty());
+        assertEquals(Set.of(product), queue.pollDue(TODAY.plusDays(2)));
+        assertEquals(TODAY.plusDays(5), queue.nextBoundary());
+        assertTrue(queue.pollDue(TODAY.plusDays(4)).isEmpty());
+        assertEquals(Set.of(product), queue.pollDue(TODAY.plusDays(5)));
+        assertEquals(0, queue.size());
+    }
+
+    @Test
+    void skipsBoundariesAlreadyPassed() {
+        queue.schedule(product, TODAY.minusDays(3), TODAY, TODAY);
+        assertEquals(TODAY.plusDays(1), queue.nextBoundary());
+
+        queue.schedule(product, TODAY.minusDays(3), TODAY.minusDays(1), TODAY);
+        assertNull(queue.nextBoundary());
+    }
+
+    @Test
+    void rescheduleReplacesEarlierBoundaries() {
+        queue.schedule(product, TODAY.plusDays(1), TODAY.plusDays(1), TODAY);
+        queue.schedule(product, null, TODAY.plusDays(9), TODAY);
+
+        assertEquals(TODAY.plusDays(10), queue.nextBoundary());
+        queue.remove(product);
+        assertNull(queue.nextBoundary());
+    }
+
+    @Test
+    void bulkLoadKeepsNewerSchedule() {
+        queue.schedule(product, null, TODAY.plusDays(9), TODAY);
+        queue.scheduleIfAbsent(product, null, TODAY.plusDays(2), TODAY);
+
+        assertEquals(TODAY.plusDays(10), queue.nextBoundary());
+    }
+
+    @Test
+    void pollsEveryOverdueDayAtOnce() {
+        UUID other = UUID.randomUUID();
+        queue.schedule(product, TODAY.plusDays(1), null, TODAY);
+        queue.schedule(other, null, TODAY.plusDays(2), TODAY);
+
+        assertEquals(Set.of(product, other), queue.pollDue(TODAY.plusDays(7)));
+        assertEquals(0, queue.size());
+    }
+
+    @Test
+    void retriedProductsAreDueAgainAlongsideLaterBoundaries() {
+        queue.schedule(product, TODAY, TODAY.plusDays(3), TODAY.minusDays(1));
+        assertEquals(Set.of(product), queue.pollDue(TODAY));
+
+        queue.retry(product, TODAY);
+        assertEquals(TODAY, queue.nextBoundary());
+        assertEquals(Set.of(product), queue.pollDue(TODAY));
+        assertEquals(TODAY.plusDays(4), queue.nextBoundary());
+    }
+}
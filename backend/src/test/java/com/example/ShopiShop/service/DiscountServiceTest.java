@@ -0,0 +1,115 @@
+package com.example.ShopiShop.service;
+
+import com.example.ShopiShop.enums.DiscountType;
+import com.example.ShopiShop.events.ProductChangedEvent;
+import com.example.ShopiShop.models.Product;
+import com.example.ShopiShop.repositories.ProductPriceView;
+import com.example.ShopiShop.repositories.ProductRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.projection.SpelAwareProxyProjectionFactory;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class DiscountServiceTest {
+
+    private static final SpelAwareProxyProjectionFactory PROJECTIONS = new SpelAwareProxyProjectionFactory();
+
+    private final ProductRepository productRepository = mock(ProductRepository.class);
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final DiscountService discountService = new DiscountService(productRepository, registry);
+
+    @Test
+    void pricesABatchLikeOneAtATime() {
+        Product discounted = product("20.00", DiscountType.PERCENTAGE, "15.00");
+        Product plain = product("9.99", null, null);
+
+        Map<UUID, BigDecimal> prices = discountService.calculateBulkEffectivePrices(List.of(discounted, plain));
+
+        assertEquals(List.of(discounted.getId(), plain.getId()), List.copyOf(prices.keySet()));
+        assertEquals(new BigDecimal("17.00"), prices.get(discounted.getId()));
+        assertEquals(new BigDecimal("9.99"), prices.get(plain.getId()));
+        assertEquals(discountService.calculateEffectivePrice(discounted), prices.get(discounted.getId()));
+    }
+
+    @Test
+    void loadedProductsArePricedFromTheTable() {
+        Product product = product("20.00", DiscountType.FIXED_AMOUNT, "5.00");
+        when(productRepository.findPriceBatchAfter(any(), any())).thenReturn(List.of(view(product)));
+        discountService.load();
+
+        assertEquals(new BigDecimal("15.00"),
+                discountService.calculateBulkEffectivePrices(List.of(product)).get(product.getId()));
+        assertEquals(new BigDecimal("15.00"),
+                discountService.calculateEffectivePricesByIds(List.of(product.getId())).get(product.getId()));
+        verify(productRepository, never()).findAllById(any());
+        assertEquals(2.0, lookups("hit"));
+    }
+
+    @Test
+    void aChangedProductIsRepricedFromItsEvent() {
+        Product product = product("20.00", DiscountType.FIXED_AMOUNT, "5.00");
+        when(productRepository.findPriceBatchAfter(any(), any())).thenReturn(List.of(view(product)));
+        discountService.load();
+
+        product.setDiscountValue(new BigDecimal("7.50"));
+        product.setVersion(product.getVersion() + 1);
+        // A newer row than the table's is priced from the row itself
+        assertEquals(new BigDecimal("12.50"),
+                discountService.calculateBulkEffectivePrices(List.of(product)).get(product.getId()));
+        assertEquals(1.0, lookups("miss"));
+
+        when(productRepository.findPricesByIdIn(List.of(product.getId()))).thenReturn(List.of(view(product)));
+        discountService.onProductChanged(ProductChangedEvent.changed(product.getId()));
+
+        assertEquals(new BigDecimal("12.50"),
+                discountService.calculateEffectivePricesByIds(List.of(product.getId())).get(product.getId()));
+        assertEquals(1.0, lookups("hit"));
+        assertEquals(2, registry.get("pricing.batch.size").summary().count());
+    }
+
+    @Test
+    void theDiscountWindowIsCheckedOnEveryLookup() {
+        Product ended = product("20.00", DiscountType.PERCENTAGE, "50.00");
+        ended.setDiscountEndDate(LocalDate.now().minusDays(1));
+        when(productRepository.findPriceBatchAfter(any(), any())).thenReturn(List.of(view(ended)));
+        discountService.load();
+
+        assertEquals(new BigDecimal("20.00"), discountService.calculateEffectivePrice(ended));
+        assertEquals(1.0, lookups("hit"));
+    }
+
+    private double lookups(String result) {
+        return registry.get("pricing.table.lookups").tag("result", result).counter().count();
+    }
+
+    private static ProductPriceView view(Product product) {
+        return PROJECTIONS.createProjection(ProductPriceView.class, product);
+    }
+
+    private static Product product(String price, DiscountType type, String discountValue) {
+        return Product.builder()
+                .id(UUID.randomUUID())
+                .price(new BigDecimal(price))
+                .quantity(10)
+                .version(0)
+                .discountActive(type != null)
+                .discountType(type)
+                .discountValue(discountValue != null ? new BigDecimal(discountValue) : null)
+                // Only its presence matters for applicability
+                .discountPrice(discountValue != null ? BigDecimal.ZERO : null)
+                .discountMinQuantity(1)
+                .build();
+    }
+}
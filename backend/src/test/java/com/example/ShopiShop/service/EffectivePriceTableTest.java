@@ -0,0 +1,90 @@
+package com.example.ShopiShop.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class EffectivePriceTableTest {
+
+    private static final LocalDate TODAY = LocalDate.of(2024, 3, 10);
+
+    private final EffectivePriceTable table = new EffectivePriceTable();
+    private final UUID product = UUID.randomUUID();
+
+    @Test
+    void discountAppliesInsideItsWindowOnly() {
+        table.put(product, 0, 2000, 1500, TODAY, TODAY.plusDays(2), 1, 10);
+
+        assertEquals(2000, table.effectiveCents(product, TODAY.minusDays(1)));
+        assertEquals(1500, table.effectiveCents(product, TODAY));
+        assertEquals(1500, table.effectiveCents(product, TODAY.plusDays(2)));
+        assertEquals(2000, table.effectiveCents(product, TODAY.plusDays(3)));
+    }
+
+    @Test
+    void openWindowsAndMinimumQuantity() {
+        table.put(product, 0, 2000, 1500, null, null, 5, 4);
+
+        assertEquals(2000, table.effectiveCents(product, TODAY));
+        assertEquals(1500, table.effectiveCents(product, 0, 5, TODAY));
+    }
+
+    @Test
+    void anotherVersionIsAMiss() {
+        table.put(product, 3, 2000, EffectivePriceTable.NO_DISCOUNT, null, null, 1, 1);
+
+        assertEquals(2000, table.effectiveCents(product, 3, 1, TODAY));
+        assertEquals(EffectivePriceTable.MISSING, table.effectiveCents(product, 4, 1, TODAY));
+        assertEquals(EffectivePriceTable.MISSING, table.effectiveCents(UUID.randomUUID(), TODAY));
+    }
+
+    @Test
+    void olderVersionsDoNotOverwrite() {
+        table.put(product, 2, 2000, EffectivePriceTable.NO_DISCOUNT, null, null, 1, 1);
+        table.put(product, 1, 999, EffectivePriceTable.NO_DISCOUNT, null, null, 1, 1);
+        assertEquals(2000, table.effectiveCents(product, TODAY));
+
+        table.put(product, 2, 1800, EffectivePriceTable.NO_DISCOUNT, null, null, 1, 1);
+        assertEquals(1800, table.effectiveCents(product, TODAY));
+    }
+
+    @Test
+    void saleMovesTheStockToTheNextVersionOnly() {
+        table.put(product, 2, 2000, 1500, null, null, 5, 6);
+
+        assertEquals(true, table.updateStock(product, 3, 4));
+        assertEquals(2000, table.effectiveCents(product, 3, 4, TODAY));
+        assertEquals(2000, table.effectiveCents(product, TODAY));
+
+        // A version in between was missed, so the entry can't be trusted
+        assertEquals(false, table.updateStock(product, 5, 2));
+        assertEquals(false, table.updateStock(UUID.randomUUID(), 1, 2));
+    }
+
+    @Test
+    void growsAndReusesRemovedSlots() {
+        List<UUID> ids = new ArrayList<>();
+        for (int i = 0; i < 20_000; i++) {
+            UUID id = UUID.randomUUID();
+            ids.add(id);
+            table.put(id, 0, i, EffectivePriceTable.NO_DISCOUNT, null, null, 1, 1);
+        }
+        for (int i = 0; i < ids.size(); i += 2) {
+            table.remove(ids.get(i));
+        }
+        for (int i = 0; i < 20_000; i++) {
+            table.put(UUID.randomUUID(), 0, 1, EffectivePriceTable.NO_DISCOUNT, null, null, 1, 1);
+        }
+
+        assertEquals(30_000, table.size());
+        for (int i = 0; i < ids.size(); i++) {
+            long expected = i % 2 == 0 ? EffectivePriceTable.MISSING : i;
+            assertEquals(expected, table.effectiveCents(ids.get(i), TODAY));
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package com.example.ShopiShop.service;
+
+import com.example.ShopiShop.service.FacetIndex.Facet;
+import com.example.ShopiShop.service.FacetIndex.FacetCount;
+import com.example.ShopiShop.service.FacetIndex.FacetValue;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class FacetIndexTest {
+
+    private final UUID redShirt = UUID.randomUUID();
+    private final UUID blueShirt = UUID.randomUUID();
+    private final UUID redMug = UUID.randomUUID();
+
+    private FacetIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new FacetIndex();
+        index.upsert(doc(redShirt, 30, "shirts", "acme", "in"));
+        index.upsert(doc(blueShirt, 10, "shirts", "globex", "in"));
+        index.upsert(doc(redMug, 20, "mugs", "acme", "out"));
+    }
+
+    @Test
+    void filtersWithinFacetByOrAndAcrossFacetsByAnd() {
+        FacetIndex.Result result = index.search(Map.of(
+                Facet.CATEGORY, Set.of("shirts", "mugs"),
+                Facet.STORE, Set.of("acme")), FacetIndex.Sort.POPULAR, 0, 10);
+
+        assertEquals(List.of(redShirt, redMug), result.ids());
+        assertEquals(2, result.total());
+    }
+
+    @Test
+    void countsEachFacetWithoutItsOwnSelection() {
+        FacetIndex.Result result = index.search(
+                Map.of(Facet.STORE, Set.of("acme")), FacetIndex.Sort.POPULAR, 0, 10);
+
+        // Other stores stay visible with what they would add
+        assertEquals(Map.of("acme", 2, "globex", 1), counts(result.facets().get(Facet.STORE)));
+        assertEquals(Map.of("shirts", 1, "mugs", 1), counts(result.facets().get(Facet.CATEGORY)));
+    }
+
+    @Test
+    void pagesByPopularity() {
+        assertEquals(List.of(redMug), index.search(Map.of(), FacetIndex.Sort.POPULAR, 1, 1).ids());
+    }
+
+    @Test
+    void pagesPastTheMatchesAreEmpty() {
+        FacetIndex.Result result = index.search(Map.of(), FacetIndex.Sort.POPULAR, Integer.MAX_VALUE - 100, 100);
+
+        assertEquals(List.of(), result.ids());
+        assertEquals(3, result.total());
+        assertEquals(List.of(blueShirt), index.search(Map.of(), FacetIndex.Sort.POPULAR, 2, 100).ids());
+    }
+
+    @Test
+    void followsUpdatesAndRemovals() {
+        index.upsert(doc(blueShirt, 10, "shirts", "globex", "out"));
+        index.remove(redShirt);
+
+        FacetIndex.Result result = index.search(
+                Map.of(Facet.STOCK, Set.of("out")), FacetIndex.Sort.POPULAR, 0, 10);
+        assertEquals(List.of(redMug, blueShirt), result.ids());
+        assertEquals(Map.of("out", 2), counts(result.facets().get(Facet.STOCK)));
+        assertEquals(2, index.size());
+    }
+
+    private static FacetIndex.Document doc(UUID id, long popularity, String category, String store, String stock) {
+        return new FacetIndex.Document(id, popularity, 0, Map.of(
+                Facet.CATEGORY, new FacetValue(category, category),
+                Facet.STORE, new FacetValue(store, store),
+                Facet.STOCK, new FacetValue(stock, stock)));
+    }
+
+    private static Map<String, Integer> counts(List<FacetCount> counts) {
+        return counts.stream().collect(Collectors.toMap(FacetCount::value, FacetCount::count));
+    }
+}
@@ -0,0 +1,73 @@
+package com.example.ShopiShop.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class FlashSaleLaneTest {
+
+    @Test
+    void writesInOfferOrderInBatches() {
+        List<Runnable> tasks = new ArrayList<>();
+        List<List<Integer>> batches = new ArrayList<>();
+        FlashSaleLane<Integer> lane = new FlashSaleLane<>(10, 4, tasks::add, batches::add);
+
+        for (int i = 0; i < 10; i++) {
+            assertTrue(lane.offer(i));
+        }
+        assertFalse(lane.offer(10));
+        assertEquals(1, tasks.size());
+
+        tasks.remove(0).run();
+        assertEquals(List.of(List.of(0, 1, 2, 3), List.of(4, 5, 6, 7), List.of(8, 9)), batches);
+        assertEquals(0, lane.size());
+        assertTrue(lane.offer(10));
+        assertEquals(1, tasks.size());
+    }
+
+    @Test
+    void neverRunsTwoWritersAtOnce() throws InterruptedException {
+        int producers = 8;
+        int perProducer = 5000;
+        AtomicInteger writing = new AtomicInteger();
+        AtomicInteger overlaps = new AtomicInteger();
+        AtomicInteger written = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        FlashSaleLane<Integer> lane = new FlashSaleLane<>(Integer.MAX_VALUE, 64, executor, batch -> {
+            if (writing.incrementAndGet() > 1) {
+                overlaps.incrementAndGet();
+            }
+            written.addAndGet(batch.size());
+            writing.decrementAndGet();
+        });
+
+        CountDownLatch done = new CountDownLatch(producers);
+        for (int p = 0; p < producers; p++) {
+            new Thread(() -> {
+                for (int i = 0; i < perProducer; i++) {
+                    lane.offer(i);
+                }
+                done.countDown();
+            }).start();
+        }
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (written.get() < producers * perProducer && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+        executor.shutdown();
+
+        assertEquals(producers * perProducer, written.get());
+        assertEquals(0, overlaps.get());
+    }
+}
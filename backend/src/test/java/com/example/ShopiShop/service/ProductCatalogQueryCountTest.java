@@ -0,0 +1,178 @@
+package com.example.ShopiShop.service;
+
+import com.example.ShopiShop.dto.ProductResponse;
+import com.example.ShopiShop.enums.UserRoleEnum;
+import com.example.ShopiShop.models.*;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManager;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@DataJpaTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:catalog;MODE=MySQL;NON_KEYWORDS=USER;DB_CLOSE_DELAY=-1",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({ProductService.class, ProductCatalogService.class, ReviewService.class, DiscountService.class,
+        DiscountScheduler.class, BestSellerService.class, TaxonomyService.class, SimpleMeterRegistry.class})
+class ProductCatalogQueryCountTest {
+
+    private static final int PRODUCTS = 12;
+    private static final int REVIEWS_PER_PRODUCT = 3;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private BestSellerService bestSellerService;
+
+    @MockBean
+    private SimpMessagingTemplate messagingTemplate;
+
+    private Statistics statistics;
+    private Long storeId;
+    private UUID productId;
+
+    @BeforeEach
+    void seedCatalog() {
+        Section section = Section.builder().name("Food").build();
+        entityManager.persist(section);
+
+        Category category = Category.builder().name("Fruits").section(section).build();
+        entityManager.persist(category);
+
+        User owner = user("owner@shop.test");
+        Store store = Store.builder().name("Green Grocer").owner(owner).isApproved(true).build();
+        entityManager.persist(store);
+        storeId = store.getId();
+
+        for (int i = 0; i < PRODUCTS; i++) {
+            Product product = Product.builder()
+                    .name("Product " + i)
+                    .description("Description " + i)
+                    .price(BigDecimal.valueOf(10 + i))
+                    .imageUrl("https://img.test/" + i)
+                    .quantity(100)
+                    .store(store)
+                    .category(category)
+                    .isAvailable(true)
+                    .totalSell(i)
+                    .discountActive(i % 2 == 0)
+                    .discountMinQuantity(1)
+                    .build();
+            entityManager.persist(product);
+            productId = product.getId();
+
+            for (int r = 0; r < REVIEWS_PER_PRODUCT; r++) {
+                entityManager.persist(Review.builder()
+                        .product(product)
+                        .user(user("reviewer-" + i + "-" + r + "@shop.test"))
+                        .rating(1 + r)
+                        .comment("Review " + r)
+                        .build());
+            }
+        }
+
+        entityManager.flush();
+        // The startup rebuild ran against the empty database; the seeded rows publish no events
+        bestSellerService.rebuild();
+        statistics = entityManager.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @Test
+    void productsPageUsesTwoStatements() {
+        // page select + count, ratings come from the product row
+        assertStatements(2, () -> productService.getPaginatedProducts(0, 5, null));
+    }
+
+    @Test
+    void productByIdUsesTwoStatements() {
+        // product + first page of reviews, authors projected rather than loaded with their stores
+        ProductResponse product = assertStatements(2, () -> productService.getProductById(productId));
+
+        assertEquals(REVIEWS_PER_PRODUCT, product.reviews().size());
+        assertTrue(product.reviews().stream()
+                .allMatch(review -> review.userName().startsWith("reviewer-" + (PRODUCTS - 1) + "-")));
+    }
+
+    @Test
+    void bestDealsUseOneStatement() {
+        List<ProductResponse> deals = assertStatements(1, () -> productService.getBestDeals());
+
+        assertEquals(List.of("Product 11", "Product 10", "Product 9", "Product 8", "Product 7"),
+                deals.stream().map(ProductResponse::name).toList());
+    }
+
+    @Test
+    void featuredProductsUseOneStatement() {
+        List<ProductResponse> featured = assertStatements(1, () -> productService.getFeaturedProducts());
+
+        assertEquals(10, featured.size());
+        assertEquals("Product 11", featured.get(0).name());
+        assertEquals("Product 2", featured.get(9).name());
+    }
+
+    @Test
+    void activeDiscountsUseOneStatement() {
+        assertStatements(1, () -> productService.getProductsWithActiveDiscounts());
+    }
+
+    @Test
+    void storeProductsPageUsesOneStatement() {
+        // keyset page, no count query
+        assertStatements(1, () -> productService.getProductsByStoreId(storeId, null, 5));
+    }
+
+    @Test
+    void categoryCursorPageUsesTwoStatements() {
+        // category lookup + keyset page
+        assertStatements(2, () -> productService.getPaginatedProducts("Fruits", null, 5));
+    }
+
+    private <T> T assertStatements(long expected, Supplier<T> endpoint) {
+        entityManager.clear();
+        statistics.clear();
+
+        T result = endpoint.get();
+
+        assertNotNull(result);
+        assertEquals(expected, statistics.getPrepareStatementCount(),
+                "unexpected number of SQL statements for a catalog read");
+        return result;
+    }
+
+    private User user(String email) {
+        User user = User.builder()
+                .name(email)
+                .email(email)
+                .password("secret")
+                .userRole(UserRoleEnum.CUSTOMER)
+                .build();
+        entityManager.persist(user);
+        return user;
+    }
+}
@@ -0,0 +1,241 @@
+package com.example.ShopiShop.service;
+
+import com.example.ShopiShop.dto.CursorPageResponse;
+import com.example.ShopiShop.dto.ProductField;
+import com.example.ShopiShop.dto.ProductResponse;
+import com.example.ShopiShop.enums.UserRoleEnum;
+import com.example.ShopiShop.models.*;
+import com.example.ShopiShop.repositories.ProductListingRepository;
+import com.example.ShopiShop.repositories.ProductRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.TupleElement;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@Slf4j
+@DataJpaTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:keyset;MODE=MySQL;NON_KEYWORDS=USER;DB_CLOSE_DELAY=-1",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({ProductService.class, ProductCatalogService.class, ReviewService.class, DiscountService.class,
+        DiscountScheduler.class, BestSellerService.class, TaxonomyService.class, SimpleMeterRegistry.class})
+class ProductKeysetPaginationTest {
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @MockBean
+    private SimpMessagingTemplate messagingTemplate;
+
+    @Test
+    void walksStorePagesWithoutGapsOrRepeatsWhenTimestampsTie() {
+        Long storeId = seed(23, "Fruits");
+        // Worst case for the old filter: every row shares the same creation time
+        sameCreationTime();
+
+        Set<UUID> seen = walk(cursor -> productService.getProductsByStoreId(storeId, cursor, 5));
+
+        assertEquals(23, seen.size());
+    }
+
+    @Test
+    void walksCategoryPagesWithoutGapsOrRepeats() {
+        seed(17, "Fruits");
+        seed(9, "Vegetables");
+        sameCreationTime();
+
+        assertEquals(17, walk(cursor -> productService.getPaginatedProducts("Fruits", cursor, 4)).size());
+        assertEquals(26, walk(cursor -> productService.getPaginatedProducts(null, cursor, 4)).size());
+    }
+
+    @Test
+    void sparseFieldsReadOnlyWhatWasAskedFor() {
+        Long storeId = seed(7, "Fruits");
+        sameCreationTime();
+
+        Set<ProductField> fields = ProductField.parse("name,finalPrice,storeName");
+        assertEquals(7, walk(cursor -> productService.getProductsByStoreId(storeId, cursor, 3, fields)).size());
+
+        // Only the asked-for columns are selected: no description LOB, no image, no category join
+        assertEquals(Set.of("id", "createdAt", "name", "discountPrice", "storeName"),
+                selectedColumns(fields, ProductListingRepository.Filter.store(storeId)));
+        assertEquals(Set.of("id", "createdAt", "description"),
+                selectedColumns(ProductField.parse("description"), ProductListingRepository.Filter.store(storeId)));
+
+        ProductResponse product = productService.getProductsByStoreId(storeId, null, 1, fields).content().get(0);
+        assertTrue(product.name().startsWith("Fruits "));
+        assertEquals("Fruits store", product.storeName());
+        assertNull(product.description());
+        assertNull(product.imageUrl());
+
+        ProductResponse withDescription = productService.getPaginatedProducts(
+                "Fruits", null, 1, ProductField.parse("description")).content().get(0);
+        assertTrue(withDescription.description().startsWith("Description "));
+        // Product cards by default: everything but the description
+        assertNull(productService.getPaginatedProducts("Fruits", null, 1).content().get(0).description());
+    }
+
+    @Test
+    void unknownCategoryGivesAnEmptyPage() {
+        seed(3, "Fruits");
+
+        CursorPageResponse<ProductResponse> page = productService.getPaginatedProducts("Dairy", null, 10);
+
+        assertTrue(page.content().isEmpty());
+        assertNull(page.nextCursor());
+    }
+
+    /**
+     * Offset vs keyset latency at increasing depth. Offset paging has to
+     * skip every earlier row, keyset paging seeks straight to the cursor.
+     * Run with -Dbenchmarks=true; numbers are logged, not asserted.
+     */
+    @Test
+    @EnabledIfSystemProperty(named = "benchmarks", matches = "true")
+    void benchmarkDeepPages() {
+        int products = 50_000;
+        int size = 20;
+        Long storeId = seed(products, "Fruits");
+        entityManager.clear();
+
+        // Warm up both paths so the first depth is not dominated by JIT and query plan caching
+        for (int i = 0; i < 50; i++) {
+            offsetPage(i, size);
+            productService.getProductsByStoreId(storeId, null, size);
+        }
+
+        int[] depths = {0, 100, 500, 1000, 2000, products / size - 1};
+        for (int depth : depths) {
+            String cursor = cursorAt(storeId, depth, size);
+
+            long offsetNanos = time(() -> offsetPage(depth, size));
+            long keysetNanos = time(() -> productService.getProductsByStoreId(storeId, cursor, size));
+
+            log.info("page {}: offset {} ms, keyset {} ms",
+                    depth, String.format("%.2f", offsetNanos / 1e6), String.format("%.2f", keysetNanos / 1e6));
+        }
+    }
+
+    private Set<String> selectedColumns(Set<ProductField> fields, ProductListingRepository.Filter filter) {
+        Tuple row = productRepository.findListingColumns(fields, filter, null, null, 0, 1).get(0);
+        return row.getElements().stream().map(TupleElement::getAlias).collect(Collectors.toSet());
+    }
+
+    private void offsetPage(int page, int size) {
+        productRepository.findAll(PageRequest.of(page, size,
+                Sort.by(Sort.Order.desc("createdAt"), Sort.Order.desc("id")))).getContent();
+        entityManager.clear();
+    }
+
+    // The cursor a client holds after reading `depth` pages, taken from the last row before it
+    private String cursorAt(Long storeId, int depth, int size) {
+        if (depth == 0) {
+            return null;
+        }
+        return productService.getProductsByStoreId(storeId, null, depth * size).nextCursor();
+    }
+
+    private long time(Runnable query) {
+        int runs = 20;
+        long start = System.nanoTime();
+        for (int i = 0; i < runs; i++) {
+            query.run();
+            entityManager.clear();
+        }
+        return (System.nanoTime() - start) / runs;
+    }
+
+    private Set<UUID> walk(Function<String, CursorPageResponse<ProductResponse>> fetch) {
+        Set<UUID> seen = new HashSet<>();
+        String cursor = null;
+        do {
+            CursorPageResponse<ProductResponse> page = fetch.apply(cursor);
+            for (ProductResponse product : page.content()) {
+                assertTrue(seen.add(product.id()), "product returned twice: " + product.id());
+            }
+            cursor = page.nextCursor();
+        } while (cursor != null);
+        return seen;
+    }
+
+    private void sameCreationTime() {
+        entityManager.createQuery("UPDATE Product p SET p.createdAt = :createdAt")
+                .setParameter("createdAt", Timestamp.valueOf("2024-01-01 12:00:00"))
+                .executeUpdate();
+        entityManager.clear();
+    }
+
+    private Long seed(int count, String categoryName) {
+        Section section = Section.builder().name(categoryName + " section").build();
+        entityManager.persist(section);
+
+        Category category = Category.builder().name(categoryName).section(section).build();
+        entityManager.persist(category);
+
+        User owner = User.builder()
+                .name(categoryName)
+                .email(categoryName.toLowerCase() + "@shop.test")
+                .password("secret")
+                .userRole(UserRoleEnum.MERCHANT)
+                .build();
+        entityManager.persist(owner);
+
+        Store store = Store.builder().name(categoryName + " store").owner(owner).isApproved(true).build();
+        entityManager.persist(store);
+
+        for (int i = 0; i < count; i++) {
+            entityManager.persist(Product.builder()
+                    .name(categoryName + " " + i)
+                    .description("Description " + i)
+                    .price(BigDecimal.valueOf(10 + i % 90))
+                    .imageUrl("https://img.test/" + i)
+                    .quantity(100)
+                    .store(store)
+                    .category(category)
+                    .isAvailable(true)
+                    .totalSell(0)
+                    .discountActive(false)
+                    .build());
+            if (i % 1000 == 999) {
+                entityManager.flush();
+                entityManager.clear();
+            }
+        }
+        entityManager.flush();
+        entityManager.clear();
+        return store.getId();
+    }
+}
@@ -0,0 +1,246 @@
+package com.example.ShopiShop.service;
+
+import com.example.ShopiShop.config.CacheProperties;
+import com.example.ShopiShop.dto.ProductResponse;
+import com.example.ShopiShop.dto.Versioned;
+import com.example.ShopiShop.events.ProductChangedEvent;
+import com.example.ShopiShop.events.ProductsRepricedEvent;
+import com.example.ShopiShop.events.RatingsBackfilledEvent;
+import com.example.ShopiShop.models.Category;
+import com.example.ShopiShop.models.Product;
+import com.example.ShopiShop.models.Store;
+import com.example.ShopiShop.repositories.ProductRepository;
+import com.example.ShopiShop.utils.EncodedBody;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.OptionalLong;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ProductResponseCacheTest {
+
+    private final ProductRepository productRepository = mock(ProductRepository.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private final Category fruits = Category.builder().id(UUID.randomUUID()).name("Fruits").build();
+    private final Category vegetables = Category.builder().id(UUID.randomUUID()).name("Vegetables").build();
+    private final Store grocer = Store.builder().id(1L).name("Grocer").build();
+
+    private final UUID apple = UUID.randomUUID();
+    private final UUID carrot = UUID.randomUUID();
+
+    private ProductResponseCache cache;
+    private AtomicInteger loads;
+
+    @BeforeEach
+    void setUp() {
+        cache = new ProductResponseCache(productRepository, meterRegistry, new CacheProperties(null, null));
+        loads = new AtomicInteger();
+        // The first change seen for a product drops its scopes; get that out of the way
+        stored(apple, fruits, 0);
+        stored(carrot, vegetables, 0);
+        cache.onProductChanged(ProductChangedEvent.changed(apple));
+        cache.onProductChanged(ProductChangedEvent.changed(carrot));
+    }
+
+    @Test
+    void changeDropsOnlyListingsContainingTheProduct() {
+        listing("fruits", ProductResponseCache.categoryTag("Fruits"), apple);
+        listing("vegetables", ProductResponseCache.categoryTag("Vegetables"), carrot);
+        listing("store", ProductResponseCache.storeTag(1L), apple, carrot);
+        assertEquals(3, loads.get());
+
+        stored(apple, fruits, 1);
+        cache.onProductChanged(ProductChangedEvent.changed(apple));
+
+        listing("fruits", ProductResponseCache.categoryTag("Fruits"), apple);
+        listing("vegetables", ProductResponseCache.categoryTag("Vegetables"), carrot);
+        listing("store", ProductResponseCache.storeTag(1L), apple, carrot);
+        // fruits and store reloaded, vegetables still cached
+        assertEquals(5, loads.get());
+        assertEquals(2.0, meterRegistry.get("cache.invalidations")
+                .tag("cache", ProductResponseCache.PRODUCTS).counter().count());
+    }
+
+    @Test
+    void repricedChunkDropsItsProductsAndTheirListings() {
+        cache.getProduct(apple, () -> load(apple, 0));
+        listing("fruits", ProductResponseCache.categoryTag("Fruits"), apple);
+        listing("vegetables", ProductResponseCache.categoryTag("Vegetables"), carrot);
+        assertEquals(3, loads.get());
+
+        when(productRepository.findByIdIn(List.of(apple)))
+                .thenReturn(List.of(product(apple, fruits, 1)));
+        cache.onProductsRepriced(new ProductsRepricedEvent(List.of(apple)));
+
+        assertTrue(cache.cachedVersion(apple).isEmpty());
+        listing("fruits", ProductResponseCache.categoryTag("Fruits"), apple);
+        listing("vegetables", ProductResponseCache.categoryTag("Vegetables"), carrot);
+        assertEquals(4, loads.get());
+    }
+
+    @Test
+    void ratingsBackfillDropsEverything() {
+        cache.getProduct(apple, () -> load(apple, 0));
+        listing("fruits", ProductResponseCache.categoryTag("Fruits"), apple);
+        listing("vegetables", ProductResponseCache.categoryTag("Vegetables"), carrot);
+
+        cache.onRatingsBackfilled(new RatingsBackfilledEvent());
+
+        assertTrue(cache.cachedVersion(apple).isEmpty());
+        listing("fruits", ProductResponseCache.categoryTag("Fruits"), apple);
+        listing("vegetables", ProductResponseCache.categoryTag("Vegetables"), carrot);
+        assertEquals(5, loads.get());
+    }
+
+    @Test
+    void productMovingCategoryDropsListingsOfTheNewCategory() {
+        listing("vegetables", ProductResponseCache.categoryTag("Vegetables"), carrot);
+
+        stored(apple, vegetables, 1);
+        cache.onProductChanged(ProductChangedEvent.changed(apple));
+
+        listing("vegetables", ProductResponseCache.categoryTag("Vegetables"), carrot);
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void productsAreKeyedByVersion() {
+        cache.getProduct(apple, () -> load(apple, 0));
+        cache.getProduct(apple, () -> load(apple, 0));
+        assertEquals(1, loads.get());
+
+        stored(apple, fruits, 1);
+        cache.onProductChanged(ProductChangedEvent.changed(apple));
+
+        // A load that read the old row is returned but not stored
+        cache.getProduct(apple, () -> load(apple, 0));
+        cache.getProduct(apple, () -> load(apple, 1));
+        cache.getProduct(apple, () -> load(apple, 1));
+        assertEquals(3, loads.get());
+    }
+
+    @Test
+    void cachedVersionFollowsTheCachedResponse() {
+        assertTrue(cache.cachedVersion(apple).isEmpty());
+        cache.getProduct(apple, () -> load(apple, 0));
+        assertEquals(OptionalLong.of(0), cache.cachedVersion(apple));
+
+        stored(apple, fruits, 1);
+        cache.onProductChanged(ProductChangedEvent.changed(apple));
+        assertTrue(cache.cachedVersion(apple).isEmpty());
+
+        assertEquals(1, cache.getProduct(apple, () -> load(apple, 1)).version());
+        assertEquals(OptionalLong.of(1), cache.cachedVersion(apple));
+    }
+
+    @Test
+    void encodedBodiesLiveAsLongAsTheirListing() {
+        AtomicInteger encodings = new AtomicInteger();
+        Function<List<ProductResponse>, EncodedBody> encoder = list -> {
+            encodings.incrementAndGet();
+            return EncodedBody.of(new ObjectMapper().findAndRegisterModules(), list);
+        };
+        EncodedBody first = encodedListing(encoder);
+        assertSame(first, encodedListing(encoder));
+        assertEquals(1, encodings.get());
+
+        stored(apple, fruits, 1);
+        cache.onProductChanged(ProductChangedEvent.changed(apple));
+
+        assertNotSame(first, encodedListing(encoder));
+        assertEquals(2, encodings.get());
+    }
+
+    @Test
+    void concurrentMissesShareOneLoad() throws Exception {
+        CountDownLatch loading = new CountDownLatch(1);
+        ExecutorService requests = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<List<ProductResponse>>> results = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                results.add(requests.submit(() -> cache.getListing(
+                        ProductResponseCache.BEST_DEALS, "all", Set.of(), () -> {
+                            loads.incrementAndGet();
+                            await(loading);
+                            return List.of(response(apple));
+                        }, list -> list)));
+            }
+            Thread.sleep(100);
+            loading.countDown();
+            for (Future<List<ProductResponse>> result : results) {
+                assertEquals(1, result.get(5, TimeUnit.SECONDS).size());
+            }
+        } finally {
+            requests.shutdownNow();
+        }
+        assertEquals(1, loads.get());
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private EncodedBody encodedListing(Function<List<ProductResponse>, EncodedBody> encoder) {
+        return cache.getEncodedListing(ProductResponseCache.PRODUCTS, "fruits",
+                Set.of(ProductResponseCache.categoryTag("Fruits")),
+                () -> List.of(response(apple)), list -> list, encoder);
+    }
+
+    private void listing(String key, String tag, UUID... contents) {
+        cache.getListing(ProductResponseCache.PRODUCTS, key, Set.of(tag), () -> {
+            loads.incrementAndGet();
+            return List.of(contents).stream().map(ProductResponseCacheTest::response).toList();
+        }, list -> list);
+    }
+
+    private Versioned<ProductResponse> load(UUID id, long version) {
+        loads.incrementAndGet();
+        return new Versioned<>(version, response(id));
+    }
+
+    private void stored(UUID id, Category category, int version) {
+        when(productRepository.findForCatalogById(id)).thenReturn(Optional.of(product(id, category, version)));
+    }
+
+    private Product product(UUID id, Category category, int version) {
+        return Product.builder()
+                .id(id)
+                .name("Product")
+                .price(BigDecimal.TEN)
+                .category(category)
+                .store(grocer)
+                .version(version)
+                .build();
+    }
+
+    private static ProductResponse response(UUID id) {
+        return new ProductResponse(id, "Product", null, BigDecimal.TEN, BigDecimal.TEN, null, null, 1L,
+                true, null, 1, null, 0, null, null, null, null, null);
+    }
+}
@@ -0,0 +1,127 @@
+package com.example.ShopiShop.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ProductSearchIndexTest {
+
+    private final UUID espresso = UUID.randomUUID();
+    private final UUID grinder = UUID.randomUUID();
+    private final UUID creme = UUID.randomUUID();
+
+    private ProductSearchIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new ProductSearchIndex();
+        index.upsert(doc(espresso, 0, "Espresso Machine", "Pump espresso machine with steam wand", "Coffee", "Bean Shop"));
+        index.upsert(doc(grinder, 0, "Burr Grinder", "Grinder for espresso and filter coffee", "Coffee", "Bean Shop"));
+        index.upsert(doc(creme, 0, "Crème Brûlée Set", "Ramekins and torch", "Kitchen", "Home Store"));
+    }
+
+    @Test
+    void foldsAccentsAndCase() {
+        assertEquals(List.of(creme), ids(index.search("CREME brulee", 0, 10)));
+    }
+
+    @Test
+    void matchesPrefixes() {
+        assertEquals(List.of(grinder), ids(index.search("grind", 0, 10)));
+    }
+
+    @Test
+    void ranksNameMatchesAboveDescriptionMatches() {
+        ProductSearchIndex.Result result = index.search("espresso", 0, 10);
+        assertEquals(2, result.totalHits());
+        assertEquals(List.of(espresso, grinder), ids(result));
+    }
+
+    @Test
+    void requiresEveryQueryTerm() {
+        assertEquals(List.of(espresso), ids(index.search("espresso steam", 0, 10)));
+        assertTrue(index.search("espresso ramekins", 0, 10).hits().isEmpty());
+    }
+
+    @Test
+    void pagesThroughHits() {
+        ProductSearchIndex.Result second = index.search("coffee", 1, 1);
+        assertEquals(2, second.totalHits());
+        assertEquals(1, second.hits().size());
+    }
+
+    @Test
+    void pagesPastTheHitsAreEmpty() {
+        // The offset of a huge page number: offset + limit overflows an int
+        ProductSearchIndex.Result far = index.search("coffee", Integer.MAX_VALUE - 5, 20);
+        assertTrue(far.hits().isEmpty());
+        assertEquals(2, far.totalHits());
+
+        assertTrue(index.search("coffee", -20, 20).hits().isEmpty());
+    }
+
+    @Test
+    void followsUpdatesAndRemovals() {
+        index.upsert(doc(grinder, 1, "Hand Mill", "Manual mill", "Coffee", "Bean Shop"));
+        assertTrue(index.search("grinder", 0, 10).hits().isEmpty());
+        assertEquals(List.of(grinder), ids(index.search("mill", 0, 10)));
+
+        // Stale versions are ignored
+        index.upsert(doc(grinder, 0, "Burr Grinder", "", "Coffee", "Bean Shop"));
+        assertTrue(index.search("grinder", 0, 10).hits().isEmpty());
+
+        index.remove(espresso);
+        assertTrue(index.search("machine", 0, 10).hits().isEmpty());
+        assertEquals(2, index.size());
+    }
+
+    @Test
+    void scoresAfterManyUpdatesMatchAFreshIndex() {
+        UUID fig = UUID.randomUUID();
+        for (int version = 1; version <= 200; version++) {
+            String name = version % 2 == 0 ? "Burr Grinder" : "Hand Mill";
+            index.upsert(doc(grinder, version, name, "Grinder for espresso and filter coffee", "Coffee", "Bean Shop"));
+            // Same text, new version: only the version moves
+            index.upsert(doc(grinder, version, name, "Grinder for espresso and filter coffee", "Coffee", "Bean Shop"));
+            index.upsert(doc(fig, version, "Fig Press", "", "Kitchen", "Home Store"));
+            index.remove(fig);
+        }
+
+        ProductSearchIndex fresh = new ProductSearchIndex();
+        fresh.upsert(doc(espresso, 0, "Espresso Machine", "Pump espresso machine with steam wand", "Coffee", "Bean Shop"));
+        fresh.upsert(doc(grinder, 200, "Burr Grinder", "Grinder for espresso and filter coffee", "Coffee", "Bean Shop"));
+        fresh.upsert(doc(creme, 0, "Crème Brûlée Set", "Ramekins and torch", "Kitchen", "Home Store"));
+
+        assertEquals(3, index.size());
+        assertEquals(fresh.search("espresso coffee", 0, 10), index.search("espresso coffee", 0, 10));
+        assertTrue(index.search("mill", 0, 10).hits().isEmpty());
+        assertTrue(index.search("fig", 0, 10).hits().isEmpty());
+    }
+
+    @Test
+    void loadSkipsProductsRemovedDuringRebuild() {
+        ProductSearchIndex rebuilt = new ProductSearchIndex();
+        rebuilt.startLoad();
+        rebuilt.remove(espresso);
+        rebuilt.load(List.of(
+                ProductSearchIndex.analyze(doc(espresso, 0, "Espresso Machine", "", "Coffee", "Bean Shop")),
+                ProductSearchIndex.analyze(doc(grinder, 0, "Burr Grinder", "", "Coffee", "Bean Shop"))));
+        rebuilt.finishLoad();
+
+        assertEquals(List.of(grinder), ids(rebuilt.search("coffee", 0, 10)));
+    }
+
+    private static ProductSearchIndex.Document doc(UUID id, long version, String name, String description,
+                                                   String category, String store) {
+        return new ProductSearchIndex.Document(id, version, name, description, category, store);
+    }
+
+    private static List<UUID> ids(ProductSearchIndex.Result result) {
+        return result.hits().stream().map(ProductSearchIndex.Hit::productId).toList();
+    }
+}
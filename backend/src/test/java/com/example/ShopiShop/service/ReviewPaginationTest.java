@@ -0,0 +1,115 @@
+package com.example.ShopiShop.service;
+
+import com.example.ShopiShop.dto.ReviewPageResponse;
+import com.example.ShopiShop.dto.ReviewResponse;
+import com.example.ShopiShop.enums.UserRoleEnum;
+import com.example.ShopiShop.models.*;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@DataJpaTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:reviews;MODE=MySQL;NON_KEYWORDS=USER;DB_CLOSE_DELAY=-1",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import(ReviewService.class)
+class ReviewPaginationTest {
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private ReviewService reviewService;
+
+    @Test
+    void pagesThroughReviewsSavedWithoutADate() {
+        UUID productId = seedProduct();
+        List<Long> reviewIds = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            reviewIds.add(review(productId, i, LocalDateTime.of(2024, 1, 1 + i, 12, 0)));
+        }
+        // Written before createdAt was always set
+        entityManager.createNativeQuery("UPDATE reviews SET created_at = NULL WHERE id IN (:ids)")
+                .setParameter("ids", reviewIds.subList(0, 2))
+                .executeUpdate();
+        entityManager.clear();
+
+        reviewService.backfillCreatedAt();
+        entityManager.clear();
+
+        List<Long> seen = new ArrayList<>();
+        String cursor = null;
+        do {
+            ReviewPageResponse page = reviewService.getReviewsByProductId(productId, cursor, 2);
+            page.reviews().stream().map(ReviewResponse::id).forEach(seen::add);
+            cursor = page.nextCursor();
+        } while (cursor != null);
+
+        // Dated reviews newest first, then the undated ones by id
+        assertEquals(List.of(reviewIds.get(4), reviewIds.get(3), reviewIds.get(2), reviewIds.get(1), reviewIds.get(0)),
+                seen);
+    }
+
+    private UUID seedProduct() {
+        Section section = Section.builder().name("Food").build();
+        entityManager.persist(section);
+        Category category = Category.builder().name("Fruits").section(section).build();
+        entityManager.persist(category);
+        Store store = Store.builder().name("Green Grocer").owner(user("owner@shop.test")).isApproved(true).build();
+        entityManager.persist(store);
+
+        Product product = Product.builder()
+                .name("Apple")
+                .description("Crisp")
+                .price(BigDecimal.TEN)
+                .imageUrl("https://img.test/apple")
+                .quantity(10)
+                .store(store)
+                .category(category)
+                .isAvailable(true)
+                .totalSell(0)
+                .discountActive(false)
+                .build();
+        entityManager.persist(product);
+        return product.getId();
+    }
+
+    private Long review(UUID productId, int index, LocalDateTime createdAt) {
+        Review review = Review.builder()
+                .product(entityManager.getReference(Product.class, productId))
+                .user(user("reviewer-" + index + "@shop.test"))
+                .rating(5)
+                .comment("Review " + index)
+                .createdAt(createdAt)
+                .build();
+        entityManager.persist(review);
+        entityManager.flush();
+        return review.getId();
+    }
+
+    private User user(String email) {
+        User user = User.builder()
+                .name(email)
+                .email(email)
+                .password("secret")
+                .userRole(UserRoleEnum.CUSTOMER)
+                .build();
+        entityManager.persist(user);
+        return user;
+    }
+}
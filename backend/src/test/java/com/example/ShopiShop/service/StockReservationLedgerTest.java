@@ -0,0 +1,87 @@
+package com.example.ShopiShop.service;
+
+import com.example.ShopiShop.service.StockReservationLedger.Reservation;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class StockReservationLedgerTest {
+
+    private static final long TICK = 1000;
+    private static final long NOW = 1_700_000_000_000L;
+
+    private final StockReservationLedger ledger = new StockReservationLedger(TICK);
+    private final UUID product = UUID.randomUUID();
+
+    @Test
+    void reservesOnlyStockOthersHaveNotReserved() {
+        ledger.updateStock(product, 0, 5);
+
+        assertTrue(ledger.reserve(new Reservation(1L, product, 3, NOW + 60_000)));
+        assertFalse(ledger.reserve(new Reservation(2L, product, 3, NOW + 60_000)));
+        assertTrue(ledger.reserve(new Reservation(2L, product, 2, NOW + 60_000)));
+        assertEquals(0, ledger.available(product));
+        assertEquals(StockReservationLedger.UNTRACKED, ledger.available(UUID.randomUUID()));
+    }
+
+    @Test
+    void resizingAReservationOnlyNeedsTheDifference() {
+        ledger.updateStock(product, 0, 5);
+        ledger.reserve(new Reservation(1L, product, 3, NOW + 60_000));
+
+        assertTrue(ledger.reserve(new Reservation(1L, product, 5, NOW + 60_000)));
+        assertTrue(ledger.reserve(new Reservation(1L, product, 1, NOW + 60_000)));
+        assertEquals(1, ledger.reserved(product));
+
+        assertEquals(1, ledger.release(1L, product).quantity());
+        assertNull(ledger.release(1L, product));
+        assertEquals(5, ledger.available(product));
+    }
+
+    @Test
+    void expiresAtTheDeadlineUnlessRenewed() {
+        ledger.updateStock(product, 0, 5);
+        ledger.reserve(new Reservation(1L, product, 2, NOW + 5_000));
+        ledger.reserve(new Reservation(2L, product, 2, NOW + 5_000));
+        ledger.reserve(new Reservation(2L, product, 2, NOW + 20_000));
+
+        assertTrue(ledger.expire(NOW + 4_000).isEmpty());
+        List<Reservation> expired = ledger.expire(NOW + 5_000);
+        assertEquals(1, expired.size());
+        assertEquals(new Reservation(1L, product, 2, NOW + 5_000), expired.get(0));
+        assertEquals(2, ledger.reserved(product));
+
+        assertEquals(1, ledger.expire(NOW + 3_600_000).size());
+        assertEquals(0, ledger.reserved(product));
+    }
+
+    @Test
+    void checkoutCountsOwnReservationButNotOthers() {
+        ledger.updateStock(product, 0, 4);
+        ledger.reserve(new Reservation(1L, product, 3, NOW + 60_000));
+
+        assertTrue(ledger.canTake(1L, product, 4));
+        assertFalse(ledger.canTake(2L, product, 2));
+        assertTrue(ledger.canTake(2L, UUID.randomUUID(), 100));
+
+        assertEquals(3, ledger.convert(1L, product, 1, 1).quantity());
+        assertEquals(0, ledger.reserved(product));
+        assertEquals(1, ledger.available(product));
+    }
+
+    @Test
+    void olderStockVersionsDoNotOverwrite() {
+        ledger.updateStock(product, 3, 10);
+        ledger.updateStock(product, 2, 99);
+        assertEquals(10, ledger.available(product));
+
+        ledger.updateStock(product, 4, 7);
+        assertEquals(7, ledger.available(product));
+    }
+}
@@ -0,0 +1,53 @@
+package com.example.ShopiShop.service;
+
+import com.example.ShopiShop.service.SuggestionIndex.Suggestion;
+import com.example.ShopiShop.service.SuggestionIndex.Type;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class SuggestionIndexTest {
+
+    private final UUID phoneCase = UUID.randomUUID();
+    private final UUID phoneStand = UUID.randomUUID();
+
+    private SuggestionIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new SuggestionIndex();
+        index.loadProducts(List.of(
+                new Suggestion(Type.PRODUCT, phoneCase, "Phone Case", 50),
+                new Suggestion(Type.PRODUCT, UUID.randomUUID(), "phone  case", 10),
+                new Suggestion(Type.PRODUCT, phoneStand, "Phone Stand", 20),
+                new Suggestion(Type.PRODUCT, UUID.randomUUID(), "Headphones", 500)));
+        index.replaceTaxonomy(List.of(
+                new Suggestion(Type.CATEGORY, UUID.randomUUID(), "Phones", 100)));
+    }
+
+    @Test
+    void ranksByWeightAndCollapsesDuplicateNames() {
+        assertEquals(List.of("Phones", "Phone Case", "Phone Stand"), texts(index.suggest("PHO", 10)));
+    }
+
+    @Test
+    void honoursLimit() {
+        assertEquals(List.of("Phones", "Phone Case"), texts(index.suggest("phone", 2)));
+    }
+
+    @Test
+    void appliesProductChanges() {
+        index.upsertProduct(new Suggestion(Type.PRODUCT, phoneStand, "Phone Stand", 1000));
+        index.removeProduct(phoneCase);
+
+        assertEquals(List.of("Phone Stand", "Phones", "phone  case"), texts(index.suggest("phone", 10)));
+    }
+
+    private static List<String> texts(List<Suggestion> suggestions) {
+        return suggestions.stream().map(Suggestion::text).toList();
+    }
+}
@@ -0,0 +1,75 @@
+package com.example.ShopiShop.service;
+
+import com.example.ShopiShop.dto.CategoryResponse;
+import com.example.ShopiShop.dto.SectionWithCategoriesResponse;
+import com.example.ShopiShop.models.Category;
+import com.example.ShopiShop.models.Section;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TaxonomySnapshotTest {
+
+    private final Section food = section("Food");
+    private final Section home = section("Home");
+    private final Category fruits = category("Fruits", food);
+    private final Category lamps = category("Lamps", home);
+    private final Category bread = category("Bread", food);
+
+    @Test
+    void groupsCategoriesUnderTheirSection() {
+        TaxonomySnapshot snapshot = TaxonomySnapshot.of(List.of(home, food), List.of(fruits, lamps, bread));
+
+        List<SectionWithCategoriesResponse> tree = snapshot.tree();
+        assertEquals(List.of("Food", "Home"), tree.stream().map(SectionWithCategoriesResponse::name).toList());
+        assertEquals(2, tree.get(0).categories().size());
+        assertEquals(List.of(lamps.getId()), tree.get(1).categories().stream().map(CategoryResponse::id).toList());
+        assertSame(tree.get(0).categories(), snapshot.categoriesOf(food.getId()));
+    }
+
+    @Test
+    void looksUpByIdAndName() {
+        TaxonomySnapshot snapshot = TaxonomySnapshot.of(List.of(food, home), List.of(fruits, lamps));
+
+        assertEquals("Fruits", snapshot.category(fruits.getId()).name());
+        assertEquals(home.getId(), snapshot.categoryNamed("Lamps").sectionId());
+        assertEquals("Home", snapshot.sectionNamed("Home").name());
+        assertNull(snapshot.categoryNamed("Toys"));
+        assertNull(snapshot.category(null));
+        assertTrue(snapshot.categoriesOf(UUID.randomUUID()).isEmpty());
+    }
+
+    @Test
+    void duplicateCategoryNamesResolveTheSameWayEveryTime() {
+        Category otherFruits = category("Fruits", home);
+        UUID first = fruits.getId().compareTo(otherFruits.getId()) < 0 ? fruits.getId() : otherFruits.getId();
+
+        assertEquals(first, TaxonomySnapshot.of(List.of(food, home), List.of(fruits, otherFruits))
+                .categoryNamed("Fruits").id());
+        assertEquals(first, TaxonomySnapshot.of(List.of(food, home), List.of(otherFruits, fruits))
+                .categoryNamed("Fruits").id());
+    }
+
+    @Test
+    void isImmutable() {
+        TaxonomySnapshot snapshot = TaxonomySnapshot.of(List.of(food), List.of(fruits));
+
+        assertThrows(UnsupportedOperationException.class, () -> snapshot.categories().clear());
+        assertThrows(UnsupportedOperationException.class, () -> snapshot.tree().get(0).categories().clear());
+    }
+
+    private static Section section(String name) {
+        return Section.builder().id(UUID.randomUUID()).name(name).build();
+    }
+
+    private static Category category(String name, Section section) {
+        return Category.builder().id(UUID.randomUUID()).name(name).section(section).build();
+    }
+}
@@ -0,0 +1,50 @@
+package com.example.ShopiShop.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.StringReader;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class CsvReaderTest {
+
+    @Test
+    void readsQuotedFieldsAndTracksLines() {
+        CsvReader csv = new CsvReader(new StringReader(
+                "name,description,price\r\n" +
+                "Mug,\"Holds \"\"coffee\"\", tea\",9.99\r\n" +
+                "\n" +
+                "Lamp,\"Two\nlines\",\n" +
+                "Desk,,120"));
+
+        assertEquals(List.of("name", "description", "price"), csv.next());
+        assertEquals(1, csv.recordLine());
+        assertEquals(List.of("Mug", "Holds \"coffee\", tea", "9.99"), csv.next());
+        assertEquals(2, csv.recordLine());
+        assertEquals(List.of("Lamp", "Two\nlines", ""), csv.next());
+        assertEquals(4, csv.recordLine());
+        assertEquals(List.of("Desk", "", "120"), csv.next());
+        assertEquals(6, csv.recordLine());
+        assertNull(csv.next());
+    }
+
+    @Test
+    void rejectsAnUnclosedQuote() {
+        CsvReader csv = new CsvReader(new StringReader("a,\"b\nc"));
+
+        assertThrows(IllegalArgumentException.class, csv::next);
+        assertNull(csv.next());
+    }
+
+    @Test
+    void rejectsARecordLongerThanTheMaximum() {
+        CsvReader csv = new CsvReader(new StringReader("id,name\n1,\"" + "x".repeat(20) + "\"\n2,short\n"), 12);
+
+        assertEquals(List.of("id", "name"), csv.next());
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class, csv::next);
+        assertEquals("Record starting on line 2 is longer than 12 characters", e.getMessage());
+    }
+}
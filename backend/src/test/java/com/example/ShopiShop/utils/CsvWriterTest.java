@@ -0,0 +1,40 @@
+package com.example.ShopiShop.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class CsvWriterTest {
+
+    @Test
+    void quotesOnlyWhatNeedsIt() throws IOException {
+        StringWriter out = new StringWriter();
+        CsvWriter csv = new CsvWriter(out);
+        csv.writeRecord(Arrays.asList("Mug", "Holds \"coffee\", tea", new BigDecimal("9.99"), null, true));
+        csv.flush();
+
+        assertEquals("Mug,\"Holds \"\"coffee\"\", tea\",9.99,,true\r\n", out.toString());
+    }
+
+    @Test
+    void readsBackWhatItWrote() throws IOException {
+        List<String> record = List.of("Lamp", "Two\nlines", "a,b", "\"quoted\"", "");
+        StringWriter out = new StringWriter();
+        CsvWriter writer = new CsvWriter(out);
+        writer.writeRecord(record);
+        writer.writeRecord(record);
+
+        CsvReader reader = new CsvReader(new StringReader(out.toString()));
+        assertEquals(record, reader.next());
+        assertEquals(record, reader.next());
+        assertNull(reader.next());
+    }
+}
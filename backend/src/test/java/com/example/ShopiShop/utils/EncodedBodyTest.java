@@ -0,0 +1,69 @@
+package com.example.ShopiShop.utils;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class EncodedBodyTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void negotiatesGzip() {
+        assertTrue(EncodedBody.accepts("gzip, deflate, br", "gzip"));
+        assertTrue(EncodedBody.accepts("br;q=1.0, *;q=0.5", "gzip"));
+        assertTrue(EncodedBody.accepts("x-gzip", "gzip"));
+        assertFalse(EncodedBody.accepts("gzip;q=0, *", "gzip"));
+        assertFalse(EncodedBody.accepts("identity", "gzip"));
+        assertFalse(EncodedBody.accepts(null, "gzip"));
+    }
+
+    @Test
+    void servesTheCompressedBytesOnlyWhenAccepted() throws IOException {
+        EncodedBody body = EncodedBody.of(objectMapper,
+                Map.of("data", String.join("", Collections.nCopies(500, "product "))));
+
+        ResponseEntity<byte[]> plain = body.toResponse("identity");
+        assertNull(plain.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING));
+        assertEquals('"' + body.etag() + '"', plain.getHeaders().getETag());
+        assertSame(body.json(), plain.getBody());
+
+        ResponseEntity<byte[]> gzip = body.toResponse("gzip, br");
+        assertEquals("gzip", gzip.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING));
+        assertEquals(HttpHeaders.ACCEPT_ENCODING, gzip.getHeaders().getFirst(HttpHeaders.VARY));
+        assertEquals('"' + body.etag() + "-gzip\"", gzip.getHeaders().getETag());
+        assertSame(gzip.getBody(), body.toResponse("gzip").getBody());
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(gzip.getBody()))) {
+            assertArrayEquals(body.json(), in.readAllBytes());
+        }
+    }
+
+    @Test
+    void equalBodiesShareTheirETag() {
+        assertEquals(EncodedBody.of(objectMapper, Map.of("a", 1)).etag(),
+                EncodedBody.of(objectMapper, Map.of("a", 1)).etag());
+        assertNotEquals(EncodedBody.of(objectMapper, Map.of("a", 1)).etag(),
+                EncodedBody.of(objectMapper, Map.of("a", 2)).etag());
+    }
+
+    @Test
+    void smallBodiesAreNotCompressed() {
+        EncodedBody body = EncodedBody.of(objectMapper, Map.of("success", true));
+        assertNull(body.toResponse("gzip").getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING));
+    }
+}
@@ -0,0 +1,101 @@
+package com.example.ShopiShop.utils;
+
+import com.example.ShopiShop.enums.DiscountType;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Property tests: random prices and discounts must give the same cents as the
+ * BigDecimal formula the engine replaced, once that result is rounded to the
+ * cent as the price column stores it.
+ */
+class PricingEngineTest {
+
+    private static final int CASES = 200_000;
+
+    // Fixed seed, so a failure can be replayed
+    private final Random random = new Random(20240611L);
+
+    @Test
+    void percentageDiscountsMatchBigDecimalToTheCent() {
+        for (int i = 0; i < CASES; i++) {
+            BigDecimal price = randomAmount();
+            // Mostly 0-100%, sometimes beyond, in hundredths of a percent
+            BigDecimal percent = BigDecimal.valueOf(random.nextInt(i % 10 == 0 ? 20_000 : 10_001), 2);
+
+            assertEquals(reference(price, DiscountType.PERCENTAGE, percent),
+                    PricingEngine.toAmount(PricingEngine.discountedCents(
+                            PricingEngine.toCents(price), DiscountType.PERCENTAGE, PricingEngine.toCents(percent))),
+                    () -> price + " less " + percent + "%");
+        }
+    }
+
+    @Test
+    void fixedDiscountsMatchBigDecimalToTheCent() {
+        for (int i = 0; i < CASES; i++) {
+            BigDecimal price = randomAmount();
+            BigDecimal amount = randomAmount();
+
+            assertEquals(reference(price, DiscountType.FIXED_AMOUNT, amount),
+                    PricingEngine.toAmount(PricingEngine.discountedCents(
+                            PricingEngine.toCents(price), DiscountType.FIXED_AMOUNT, PricingEngine.toCents(amount))),
+                    () -> price + " less " + amount);
+        }
+    }
+
+    @Test
+    void convertsAmountsToCentsHalfUp() {
+        for (int i = 0; i < CASES; i++) {
+            // Up to four decimals, so both the fast and the exact path are covered
+            BigDecimal amount = BigDecimal.valueOf(Math.abs(random.nextLong() % 10_000_000_000_000L), random.nextInt(5));
+            long expected = amount.setScale(2, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+
+            assertEquals(expected, PricingEngine.toCents(amount), amount::toPlainString);
+        }
+        assertEquals(0, PricingEngine.toCents(null));
+        assertEquals(999_999_999_999_999_99L, PricingEngine.toCents(new BigDecimal("999999999999999.99")));
+    }
+
+    @Test
+    void largePricesDoNotOverflow() {
+        long price = Long.MAX_VALUE / 2;
+        long expected = BigDecimal.valueOf(price).multiply(BigDecimal.valueOf(2_500))
+                .divide(BigDecimal.valueOf(10_000), 0, RoundingMode.HALF_UP).longValueExact();
+
+        assertEquals(expected, PricingEngine.discountedCents(price, DiscountType.PERCENTAGE, 7_500));
+        assertThrows(ArithmeticException.class, () -> PricingEngine.lineTotalCents(price, 3));
+    }
+
+    @Test
+    void windowsIncludeBothEnds() {
+        LocalDate today = LocalDate.of(2024, 6, 11);
+
+        assertTrue(PricingEngine.inWindow(today, today, today));
+        assertTrue(PricingEngine.inWindow(null, null, today));
+        assertFalse(PricingEngine.inWindow(today.plusDays(1), null, today));
+        assertFalse(PricingEngine.inWindow(null, today.minusDays(1), today));
+    }
+
+    // The formula DiscountService used, rounded the way the DECIMAL(19,2) column rounds it
+    static BigDecimal reference(BigDecimal price, DiscountType type, BigDecimal discountValue) {
+        BigDecimal discounted = type == DiscountType.PERCENTAGE
+                ? price.subtract(price.multiply(discountValue).divide(BigDecimal.valueOf(100)))
+                : price.subtract(discountValue);
+        return discounted.max(BigDecimal.ZERO).setScale(2, RoundingMode.HALF_UP);
+    }
+
+    // Mostly shop-sized prices, sometimes up to ten billion
+    private BigDecimal randomAmount() {
+        long bound = random.nextInt(10) == 0 ? 1_000_000_000_000L : 1_000_000L;
+        return BigDecimal.valueOf(Math.floorMod(random.nextLong(), bound), 2);
+    }
+}
@@ -29,8 +29,7 @@ const AllProducts = () => {
     status: productStatus, 
     error: productError,
     storeProductsHasMore,
-    storeProductsCursorId,
-    storeProductsCursorDate
+    storeProductsCursor
   } = useSelector((state) => state.products);
   
   const {
@@ -120,15 +119,13 @@ const AllProducts = () => {
       if (role === "MERCHANT" && store?.storeId) {
         await dispatch(fetchProductsByStoreId({ 
           storeId: store.storeId,
-          cursorId: storeProductsCursorId,
-          cursorDate: storeProductsCursorDate,
+          cursor: storeProductsCursor,
           size: 10
         })).unwrap();
       } else {
         await dispatch(fetchProductsByStoreId({ 
           storeId: store?.storeId,
-          cursorId: storeProductsCursorId,
-          cursorDate: storeProductsCursorDate,
+          cursor: storeProductsCursor,
           size: 10
         })).unwrap();
       }
@@ -144,7 +144,7 @@ const ProductCard = ({
                 <>
                   <div className="flex mr-1">{renderRating('text-xs')}</div>
                   <span className="text-xs text-gray-500">
-                    ({product.reviews?.length || 0})
+                    ({product.ratingSummary?.reviewCount ?? product.reviews?.length ?? 0})
                   </span>
                 </>
               ) : (
@@ -313,7 +313,7 @@ const ProductCard = ({
                       <span className="flex items-center text-sm font-normal">
                         {renderRating('text-base')}
                         <span className="ml-1 text-gray-600">
-                          ({averageRating.toFixed(1)} from {product.reviews?.length || 0} reviews)
+                          ({averageRating.toFixed(1)} from {product.ratingSummary?.reviewCount ?? product.reviews?.length ?? 0} reviews)
                         </span>
                       </span>
                     )}
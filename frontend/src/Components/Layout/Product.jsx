@@ -111,7 +111,7 @@ const Product = ({ data }) => {
             )
           )}
           <span className="text-sm text-gray-500 ml-1">
-            ({data.reviews?.length || 0})
+            ({data.ratingSummary?.reviewCount ?? data.reviews?.length ?? 0})
           </span>
         </div>
       </Link>
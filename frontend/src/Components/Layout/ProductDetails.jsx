@@ -96,9 +96,9 @@ const discountedPrice = Number(data.discountedPrice);
   if (!data) return null;
 
   // Calculate average rating
-  const averageRating = data.reviews?.length > 0 
+  const averageRating = data.averageRating || (data.reviews?.length > 0 
     ? data.reviews.reduce((sum, review) => sum + review.rating, 0) / data.reviews.length 
-    : 0;
+    : 0);
 
   return (
     <div className="bg-white">
@@ -188,7 +188,7 @@ const discountedPrice = Number(data.discountedPrice);
                     ))}
                   </div>
                   <span className="text-sm text-gray-500">
-                    ({data.reviews?.length || 0} reviews)
+                    ({data.ratingSummary?.reviewCount ?? data.reviews?.length ?? 0} reviews)
                   </span>
                 </div>
               )}
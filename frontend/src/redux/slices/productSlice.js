@@ -26,29 +26,24 @@ export const fetchBestSellingProducts = createAsyncThunk(
 
 export const fetchStoreProducts = createAsyncThunk(
   "products/fetchStoreProducts",
-  async ({ storeId, page = 0, size = 10, cursorId, cursorDate }, { rejectWithValue }) => {
+  async ({ storeId, size = 10, cursor }, { rejectWithValue }) => {
     try {
-      const params = { page, size };
-      if (cursorId && cursorDate) {
-        params.cursorId = cursorId;
-        params.cursorDate = cursorDate;
+      const params = { size };
+      if (cursor) {
+        params.cursor = cursor;
       }
 
-
       const response = await axiosInstance.get(`/public/products/store/${storeId}`, {
         params
       });
-      
+
+      const nextCursor = response.data?.data?.nextCursor || null;
       return {
-        products: response.data.content || [],
-        hasMore: !response.data.last,
-        page: response.data.number,
-        cursorId: response.data.content.length > 0 
-          ? response.data.content[response.data.content.length - 1].id 
-          : null,
-        cursorDate: response.data.content.length > 0
-          ? response.data.content[response.data.content.length - 1].createdAt
-          : null
+        products: response.data?.data?.content || [],
+        hasMore: !!nextCursor,
+        // Page 0 replaces the list, anything else appends
+        page: cursor ? 1 : 0,
+        cursor: nextCursor
       };
     } catch (error) {
       return rejectWithValue(
@@ -202,14 +197,13 @@ export const fetchPaginatedProducts = createAsyncThunk(
 // );
 export const fetchProductsByStoreId = createAsyncThunk(
   "products/fetchProductsByStoreId",
-  async ({ storeId, page = 0, size = 10, cursorId, cursorDate }, { rejectWithValue }) => {
+  async ({ storeId, size = 10, cursor }, { rejectWithValue }) => {
     try {
       if (!storeId) throw new Error("Store ID is missing.");
       
-      const params = { page, size };
-      if (cursorId && cursorDate) {
-        params.cursorId = cursorId;
-        params.cursorDate = cursorDate;
+      const params = { size };
+      if (cursor) {
+        params.cursor = cursor;
       }
 
       const response = await axiosInstance.get(`/public/products/store/${storeId}`, {
@@ -221,15 +215,14 @@ export const fetchProductsByStoreId = createAsyncThunk(
       // Get products array safely (with fallbacks)
       const products = response.data?.data?.content || [];
       
-      // Get last item safely for cursor
-      const lastProduct = products.length > 0 ? products[products.length - 1] : null;
+      // The server hands back an opaque cursor for the next page, null on the last one
+      const nextCursor = response.data?.data?.nextCursor || null;
       
       return {
         products: products,
-        hasMore: response.data?.data?.last === false, // Ensure correct boolean
-        page: response.data?.data?.number || 0,
-        cursorId: lastProduct?.id || null,
-        cursorDate: lastProduct?.createdAt || null
+        hasMore: !!nextCursor,
+        page: cursor ? 1 : 0,
+        cursor: nextCursor
       };
 
     } catch (error) {
@@ -340,8 +333,7 @@ const productSlice = createSlice({
 
   storeProductsPage: 0,
   storeProductsHasMore: true,
-  storeProductsCursorId: null,
-  storeProductsCursorDate: null,
+  storeProductsCursor: null,
  
   },
   reducers: {
@@ -350,8 +342,7 @@ const productSlice = createSlice({
       state.storeProducts = [];
       state.storeProductsPage = 0;
       state.storeProductsHasMore = true;
-      state.storeProductsCursorId = null;
-      state.storeProductsCursorDate = null;
+      state.storeProductsCursor = null;
     },
     resetProducts: (state) => {
       state.products = [];
@@ -377,8 +368,7 @@ const productSlice = createSlice({
       
       state.storeProductsHasMore = action.payload.hasMore; // Use storeProductsHasMore
       state.storeProductsPage = action.payload.page + 1;  // Use storeProductsPage
-      state.storeProductsCursorId = action.payload.cursorId;
-      state.storeProductsCursorDate = action.payload.cursorDate;
+      state.storeProductsCursor = action.payload.cursor;
     })
     .addCase(fetchProductsByStoreId.rejected, (state, action) => {
       state.status = "failed";
@@ -400,8 +390,7 @@ const productSlice = createSlice({
       
       state.storeProductsHasMore = action.payload.hasMore;
       state.storeProductsPage = action.payload.page + 1;
-      state.storeProductsCursorId = action.payload.cursorId;
-      state.storeProductsCursorDate = action.payload.cursorDate;
+      state.storeProductsCursor = action.payload.cursor;
     })
     .addCase(fetchStoreProducts.rejected, (state, action) => {
       state.status = "failed";